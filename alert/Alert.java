@@ -0,0 +1,59 @@
+package bms.alert;
+
+import bms.room.Room;
+
+/**
+ * A hazard alert raised for a room, on its way through an AlertPipeline.
+ */
+public final class Alert {
+    private final Room room;
+    private final int hazardLevel;
+    private final long raisedNanos;
+
+    /**
+     * Creates a new alert.
+     *
+     * @param room room the alert is about
+     * @param hazardLevel hazard level that raised the alert, 0 to 100
+     * @param raisedNanos System.nanoTime() at which the alert was raised
+     */
+    public Alert(Room room, int hazardLevel, long raisedNanos) {
+        this.room = room;
+        this.hazardLevel = hazardLevel;
+        this.raisedNanos = raisedNanos;
+    }
+
+    /**
+     * Returns the room the alert is about.
+     *
+     * @return alerted room
+     */
+    public Room getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Returns the hazard level that raised the alert.
+     *
+     * @return hazard level, 0 to 100
+     */
+    public int getHazardLevel() {
+        return this.hazardLevel;
+    }
+
+    /**
+     * Returns the time at which the alert was raised, as given by
+     * System.nanoTime().
+     *
+     * @return time raised in nanoseconds
+     */
+    public long getRaisedNanos() {
+        return this.raisedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Alert: room=" + this.room.getRoomNumber() + ", hazardLevel="
+                + this.hazardLevel;
+    }
+}
@@ -0,0 +1,517 @@
+package bms.alert;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.HazardSensor;
+import bms.sensors.ObservableSensor;
+import bms.sensors.Sensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Stage between hazard evaluation and the actions taken on hazards, such as
+ * fire drills, that stops a flapping sensor from flooding whatever consumes
+ * the alerts.
+ *
+ * An alert raised for a room passes three checks before it is queued:
+ * <ol>
+ *     <li>Deduplication: an alert for a room that was already alerted
+ *     within the deduplication window is dropped, unless its hazard level
+ *     is higher than the last one let through.</li>
+ *     <li>Rate limiting: each room has a token bucket holding up to burst
+ *     tokens, refilled at alertsPerMinute. An alert takes one token, and is
+ *     dropped if there is none.</li>
+ *     <li>Queueing: alerts wait in a bounded lock-free queue. When it is
+ *     full, the OverflowPolicy decides whether the new alert is dropped, the
+ *     oldest one is dropped, or the raising thread waits.</li>
+ * </ol>
+ * A delivery thread, started by start(), takes queued alerts in batches and
+ * hands each batch to the AlertSink. It sleeps while the queue is empty and
+ * is woken by the next alert queued, and it wakes raising threads waiting
+ * for room as soon as it takes alerts off the queue.
+ *
+ * Alerts can be raised directly with raise(Room, int), or by watching the
+ * hazard sensors of rooms, which raises an alert whenever a sensor's
+ * hazard level changes to at least the alert level.
+ */
+public class AlertPipeline {
+    // Default largest number of alerts delivered at once
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    // Longest a raising thread waits for room with OverflowPolicy.BLOCK
+    private static final long MAX_BLOCK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AlertSink sink;
+    private final AlertQueue queue;
+    private final OverflowPolicy policy;
+    private final long dedupWindowNanos;
+    private final double tokensPerNano;
+    private final boolean limitsRate;
+    private final int burst;
+    private final int batchSize;
+    private final LongSupplier clock;
+
+    // Deduplication and rate limiting state of each alerted room
+    private final Map<Room, RoomState> rooms = new ConcurrentHashMap<>();
+
+    private volatile Thread deliveryThread;
+    private volatile boolean running;
+
+    // Set while the delivery thread is about to sleep or sleeping
+    private volatile boolean deliveryIdle;
+
+    // Raising threads waiting for room in the queue
+    private final Set<Thread> waitingProducers = ConcurrentHashMap.newKeySet();
+
+    // Written by any thread raising alerts
+    private final LongAdder raised = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    // Held while delivering a batch, so one batch is delivered at a time
+    private final Object deliveryLock = new Object();
+
+    // Written while holding deliveryLock
+    private volatile long delivered;
+    private volatile long failedBatches;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    /**
+     * Creates a new pipeline with no deduplication or rate limiting, which
+     * is not started until start() is called.
+     *
+     * @param sink sink alerts are delivered to
+     * @param queueCapacity number of alerts that may wait for delivery
+     * @param policy what to do with an alert when the queue is full
+     * @throws IllegalArgumentException if queueCapacity is less than one
+     */
+    public AlertPipeline(AlertSink sink, int queueCapacity,
+                         OverflowPolicy policy) {
+        this(sink, queueCapacity, policy, 0, Double.POSITIVE_INFINITY, 1,
+                DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new pipeline, which is not started until start() is called.
+     *
+     * @param sink sink alerts are delivered to
+     * @param queueCapacity number of alerts that may wait for delivery
+     * @param policy what to do with an alert when the queue is full
+     * @param dedupWindowMillis time after an alert for a room during which
+     * further alerts for it at the same or a lower hazard level are dropped;
+     * 0 for no deduplication
+     * @param alertsPerMinute sustained rate of alerts let through for each
+     * room; infinite for no rate limiting
+     * @param burst number of alerts for a room that may be let through at
+     * once
+     * @param batchSize largest number of alerts delivered to the sink at
+     * once
+     * @throws IllegalArgumentException if queueCapacity, burst or batchSize
+     * is less than one, dedupWindowMillis is negative, or alertsPerMinute is
+     * not positive
+     */
+    public AlertPipeline(AlertSink sink, int queueCapacity,
+                         OverflowPolicy policy, long dedupWindowMillis,
+                         double alertsPerMinute, int burst, int batchSize) {
+        this(sink, queueCapacity, policy, dedupWindowMillis, alertsPerMinute,
+                burst, batchSize, System::nanoTime);
+    }
+
+    /**
+     * Creates a new pipeline taking the time from the given clock, so tests
+     * can control it.
+     */
+    AlertPipeline(AlertSink sink, int queueCapacity, OverflowPolicy policy,
+                  long dedupWindowMillis, double alertsPerMinute, int burst,
+                  int batchSize, LongSupplier clock) {
+        if (queueCapacity < 1 || burst < 1 || batchSize < 1
+                || dedupWindowMillis < 0 || !(alertsPerMinute > 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.sink = sink;
+        this.queue = new AlertQueue(queueCapacity);
+        this.policy = policy;
+        this.dedupWindowNanos = TimeUnit.MILLISECONDS.toNanos(dedupWindowMillis);
+        this.tokensPerNano = alertsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.limitsRate = !Double.isInfinite(alertsPerMinute);
+        this.burst = burst;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the delivery thread.
+     *
+     * @throws IllegalStateException if the pipeline was already started
+     */
+    public synchronized void start() {
+        if (this.deliveryThread != null) {
+            throw new IllegalStateException();
+        }
+        Thread thread = new Thread(this::deliveryLoop, "bms-alert-delivery");
+        thread.setDaemon(true);
+        this.deliveryThread = thread;
+        this.running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops the delivery thread once every queued alert has been delivered.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.deliveryThread);
+        wakeProducers();
+        this.deliveryThread.join();
+    }
+
+    /**
+     * Raises an alert whenever the hazard level of one of the room's
+     * observable hazard sensors changes to at least the given level.
+     *
+     * @param room room to watch
+     * @param alertHazardLevel hazard level at which an alert is raised
+     */
+    public void watch(Room room, int alertHazardLevel) {
+        for (Sensor sensor : room.getSensors()) {
+            if (sensor instanceof HazardSensor
+                    && sensor instanceof ObservableSensor) {
+                HazardSensor hazardSensor = (HazardSensor) sensor;
+                ((ObservableSensor) sensor).addListener(
+                        (changed, previous, current) -> {
+                            int level = hazardSensor.getHazardLevel(current);
+                            if (level >= alertHazardLevel && level
+                                    != hazardSensor.getHazardLevel(previous)) {
+                                raise(room, level);
+                            }
+                        });
+            }
+        }
+    }
+
+    /**
+     * Watches every room currently in a building, see watch(Room, int).
+     *
+     * @param building building to watch
+     * @param alertHazardLevel hazard level at which an alert is raised
+     */
+    public void watch(Building building, int alertHazardLevel) {
+        for (Floor floor : building.getFloors()) {
+            for (Room room : floor.getRooms()) {
+                watch(room, alertHazardLevel);
+            }
+        }
+    }
+
+    /**
+     * Raises an alert for a room, which is queued for delivery unless it is
+     * a duplicate, over the room's rate limit, or dropped because the queue
+     * is full. With OverflowPolicy.BLOCK this waits while the queue is full,
+     * which is until alerts are delivered, for at most a second; the alert
+     * is dropped if there is still no room, or if the pipeline is not
+     * running, since then nothing would make room.
+     *
+     * @param room room to alert
+     * @param hazardLevel hazard level of the room
+     * @return true if the alert was queued
+     */
+    public boolean raise(Room room, int hazardLevel) {
+        this.raised.increment();
+        long now = this.clock.getAsLong();
+        RoomState state = this.rooms.computeIfAbsent(room,
+                r -> new RoomState(now));
+        if (!state.admit(hazardLevel, now)) {
+            return false;
+        }
+
+        Alert alert = new Alert(room, hazardLevel, now);
+        if (this.queue.offer(alert)) {
+            wakeDelivery();
+            return true;
+        }
+        switch (this.policy) {
+            case DROP_OLDEST:
+                do {
+                    if (this.queue.poll() != null) {
+                        this.dropped.increment();
+                    }
+                } while (!this.queue.offer(alert));
+                wakeDelivery();
+                return true;
+            case BLOCK:
+                if (this.running && offerWaiting(alert)) {
+                    wakeDelivery();
+                    return true;
+                }
+                this.dropped.increment();
+                return false;
+            default:
+                this.dropped.increment();
+                return false;
+        }
+    }
+
+    // Waits for room in the queue while the pipeline runs, up to the limit
+    private boolean offerWaiting(Alert alert) {
+        this.blocked.increment();
+        Thread current = Thread.currentThread();
+        long deadline = System.nanoTime() + MAX_BLOCK_NANOS;
+        // Registered before trying again, so room made after the failed
+        // attempt always wakes this thread
+        this.waitingProducers.add(current);
+        try {
+            while (!this.queue.offer(alert)) {
+                long remaining = deadline - System.nanoTime();
+                if (!this.running || remaining <= 0
+                        || current.isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            return true;
+        } finally {
+            this.waitingProducers.remove(current);
+        }
+    }
+
+    // Wakes the delivery thread if it is sleeping on an empty queue
+    private void wakeDelivery() {
+        if (this.deliveryIdle) {
+            LockSupport.unpark(this.deliveryThread);
+        }
+    }
+
+    private void wakeProducers() {
+        for (Thread producer : this.waitingProducers) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Delivers one batch of queued alerts on the calling thread. This is
+     * what the delivery thread does repeatedly; it can be called directly
+     * when the pipeline is not started.
+     *
+     * @return number of alerts delivered
+     */
+    public int deliverBatch() {
+        synchronized (this.deliveryLock) {
+            return deliverBatchLocked();
+        }
+    }
+
+    private int deliverBatchLocked() {
+        List<Alert> batch = new ArrayList<>();
+        Alert alert;
+        while (batch.size() < this.batchSize
+                && (alert = this.queue.poll()) != null) {
+            batch.add(alert);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        wakeProducers();
+        try {
+            this.sink.deliver(batch);
+        } catch (RuntimeException e) {
+            // A failing sink loses this batch but not the ones after it
+            this.failedBatches++;
+        }
+
+        long now = this.clock.getAsLong();
+        long totalLatency = 0;
+        for (Alert sent : batch) {
+            totalLatency += now - sent.getRaisedNanos();
+        }
+        // The oldest alert in the batch waited longest
+        long latency = now - batch.get(0).getRaisedNanos();
+        this.delivered += batch.size();
+        this.totalLatencyNanos += totalLatency;
+        if (latency > this.maxLatencyNanos) {
+            this.maxLatencyNanos = latency;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Returns the number of alerts raised, whether or not they were queued.
+     *
+     * @return alerts raised
+     */
+    public long getRaised() {
+        return this.raised.sum();
+    }
+
+    /**
+     * Returns the number of alerts dropped as duplicates.
+     *
+     * @return duplicate alerts
+     */
+    public long getDuplicates() {
+        return this.duplicates.sum();
+    }
+
+    /**
+     * Returns the number of alerts dropped by rate limiting.
+     *
+     * @return rate limited alerts
+     */
+    public long getRateLimited() {
+        return this.rateLimited.sum();
+    }
+
+    /**
+     * Returns the number of alerts dropped because the queue was full.
+     *
+     * @return dropped alerts
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Returns the number of times a thread raising an alert had to wait
+     * because the queue was full.
+     *
+     * @return number of waits
+     */
+    public long getBlocked() {
+        return this.blocked.sum();
+    }
+
+    /**
+     * Returns the number of alerts delivered to the sink.
+     *
+     * @return alerts delivered
+     */
+    public long getDelivered() {
+        return this.delivered;
+    }
+
+    /**
+     * Returns the number of batches whose delivery threw an exception.
+     *
+     * @return failed batches
+     */
+    public long getFailedBatches() {
+        return this.failedBatches;
+    }
+
+    /**
+     * Returns the number of alerts waiting for delivery.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    /**
+     * Returns the number of alerts that can wait for delivery at once.
+     *
+     * @return queue capacity
+     */
+    public int getQueueCapacity() {
+        return this.queue.capacity();
+    }
+
+    /**
+     * Returns the mean time from an alert being raised to its delivery
+     * completing, over every alert delivered.
+     *
+     * @return mean end-to-end latency in nanoseconds
+     */
+    public long getMeanLatencyNanos() {
+        long count = this.delivered;
+        return count == 0 ? 0 : this.totalLatencyNanos / count;
+    }
+
+    /**
+     * Returns the longest time from an alert being raised to its delivery
+     * completing.
+     *
+     * @return maximum end-to-end latency in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return this.maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "AlertPipeline: raised=" + getRaised() + ", delivered="
+                + this.delivered + ", dropped=" + getDropped()
+                + ", queueDepth=" + getQueueDepth();
+    }
+
+    // Body of the delivery thread
+    private void deliveryLoop() {
+        while (this.running || this.queue.size() > 0) {
+            if (deliverBatch() == 0) {
+                // Checked again after announcing the sleep, so an alert
+                // queued in between is either seen here or wakes the thread
+                this.deliveryIdle = true;
+                if (this.running && this.queue.size() == 0) {
+                    LockSupport.park(this);
+                }
+                this.deliveryIdle = false;
+            }
+        }
+    }
+
+    /**
+     * Deduplication window and token bucket of one room.
+     */
+    private class RoomState {
+        private long lastAdmitted = Long.MIN_VALUE;
+        private int lastHazardLevel;
+        private double tokens;
+        private long lastRefill;
+
+        RoomState(long now) {
+            this.tokens = burst;
+            this.lastRefill = now;
+        }
+
+        synchronized boolean admit(int hazardLevel, long now) {
+            if (this.lastAdmitted != Long.MIN_VALUE
+                    && now - this.lastAdmitted < dedupWindowNanos
+                    && hazardLevel <= this.lastHazardLevel) {
+                duplicates.increment();
+                return false;
+            }
+            if (!limitsRate) {
+                this.lastAdmitted = now;
+                this.lastHazardLevel = hazardLevel;
+                return true;
+            }
+            this.tokens = Math.min(burst,
+                    this.tokens + (now - this.lastRefill) * tokensPerNano);
+            this.lastRefill = now;
+            if (this.tokens < 1) {
+                rateLimited.increment();
+                return false;
+            }
+            this.tokens--;
+            this.lastAdmitted = now;
+            this.lastHazardLevel = hazardLevel;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package bms.alert;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue of alerts for any number of producers and
+ * consumers.
+ *
+ * Each slot of the ring carries a sequence number saying whose turn it is:
+ * a producer may fill slot i of lap n when its sequence is the position
+ * itself, and a consumer may empty it once the sequence is one past that.
+ * Producers and consumers claim positions by compare-and-set on their own
+ * cursor, so they only contend with their own kind.
+ */
+final class AlertQueue {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Alert> alerts;
+    private final AtomicLongArray sequences;
+
+    // Next position to be filled, and the next to be emptied
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates a new queue able to hold at least the given number of alerts.
+     */
+    AlertQueue(int minimumCapacity) {
+        // At least two slots, so a full lap is told apart from a free slot
+        int size = Integer.highestOneBit(Math.max(1, minimumCapacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.alerts = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of alerts queued, which may be momentarily out of
+     * date while other threads are adding or taking alerts.
+     */
+    int size() {
+        long head = this.head.get();
+        long tail = this.tail.get();
+        return (int) Math.max(0, Math.min(this.capacity, tail - head));
+    }
+
+    /**
+     * Adds an alert if there is room.
+     *
+     * @return true if the alert was added; false if the queue is full
+     */
+    boolean offer(Alert alert) {
+        long position = this.tail.get();
+        while (true) {
+            int slot = (int) position & this.mask;
+            long turn = this.sequences.get(slot) - position;
+            if (turn == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.alerts.set(slot, alert);
+                    this.sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (turn < 0) {
+                // The slot still holds the alert from the previous lap
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest alert.
+     *
+     * @return oldest alert; null if the queue is empty
+     */
+    Alert poll() {
+        long position = this.head.get();
+        while (true) {
+            int slot = (int) position & this.mask;
+            long turn = this.sequences.get(slot) - (position + 1);
+            if (turn == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    Alert alert = this.alerts.get(slot);
+                    this.alerts.set(slot, null);
+                    this.sequences.set(slot, position + this.capacity);
+                    return alert;
+                }
+                position = this.head.get();
+            } else if (turn < 0) {
+                // The slot has not been filled yet
+                return null;
+            } else {
+                position = this.head.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package bms.alert;
+
+import java.util.List;
+
+/**
+ * Receives the alerts that make it through an AlertPipeline, in batches.
+ *
+ * Batches are delivered one at a time on the pipeline's delivery thread, so
+ * a sink does not need to be thread safe, but a slow sink holds up every
+ * alert behind it.
+ */
+@FunctionalInterface
+public interface AlertSink {
+    /**
+     * Delivers a batch of alerts, oldest first. The list is only valid for
+     * the duration of the call.
+     *
+     * @param alerts alerts to deliver, at least one
+     */
+    void deliver(List<Alert> alerts);
+}
@@ -0,0 +1,31 @@
+package bms.alert;
+
+import java.util.List;
+
+/**
+ * Puts every alerted room whose hazard level reaches a threshold in a fire
+ * drill, the last step of an AlertPipeline.
+ */
+public class FireDrillSink implements AlertSink {
+    private final int drillHazardLevel;
+
+    /**
+     * Creates a new sink.
+     *
+     * @param drillHazardLevel hazard level at which an alerted room is put
+     * in a fire drill
+     */
+    public FireDrillSink(int drillHazardLevel) {
+        this.drillHazardLevel = drillHazardLevel;
+    }
+
+    @Override
+    public void deliver(List<Alert> alerts) {
+        for (Alert alert : alerts) {
+            if (alert.getHazardLevel() >= this.drillHazardLevel
+                    && !alert.getRoom().fireDrillOngoing()) {
+                alert.getRoom().setFireDrill(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package bms.alert;
+
+/**
+ * What an AlertPipeline does with a new alert when its queue is full.
+ */
+public enum OverflowPolicy {
+    /** Drop the new alert. */
+    DROP_NEWEST,
+    /** Drop the oldest queued alert to make room for the new one. */
+    DROP_OLDEST,
+    /**
+     * Make the thread raising the alert wait until there is room, dropping
+     * the alert if the wait runs out or the pipeline is not running.
+     */
+    BLOCK
+}
@@ -0,0 +1,31 @@
+package bms.analytics;
+
+import bms.room.Room;
+import bms.sensors.Sensor;
+
+/**
+ * Receives a callback when a room starts or stops being flagged by an
+ * anomaly detector.
+ *
+ * Callbacks are made on the tick thread, and should return quickly.
+ */
+public interface AnomalyListener {
+    /**
+     * Called when a sensor in a room has been out of its acceptable range
+     * for the whole detection window.
+     *
+     * @param room room holding the sensor
+     * @param sensor sensor whose readings are anomalous
+     */
+    void anomalyStarted(Room room, Sensor sensor);
+
+    /**
+     * Called when a sensor that was flagged as anomalous returns to its
+     * acceptable range. Does nothing unless overridden.
+     *
+     * @param room room holding the sensor
+     * @param sensor sensor whose readings are acceptable again
+     */
+    default void anomalyEnded(Room room, Sensor sensor) {
+    }
+}
@@ -0,0 +1,455 @@
+package bms.analytics;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+import bms.util.TimedItem;
+import bms.util.TimedItemManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flags rooms whose carbon dioxide concentration stays outside the ideal
+ * range of their sensor, idealValue plus or minus variationLimit, for a
+ * whole window of minutes.
+ *
+ * Alongside this, a rolling (exponentially weighted) mean and variance of
+ * each sensor's readings is kept, so a sensor's recent behaviour can be
+ * compared with its ideal value.
+ *
+ * Each sensor is given an index, and everything known about it is held in
+ * primitive arrays at that index, so the detector uses a fixed amount of
+ * memory per sensor and allocates nothing as time passes. Statistics are
+ * updated only when a sensor's reading changes, through a SensorListener,
+ * and each tick only visits the sensors that are currently out of range.
+ *
+ * Sensors stop being watched as soon as they are retired, for example by
+ * Building.reload(Building). When the structure of a building given to
+ * addBuilding(Building) changes, its carbon dioxide sensors are checked
+ * again by identity on the next tick: sensors added are watched, and
+ * sensors that have left the building are not. The indices freed are
+ * reclaimed on the next tick, keeping the other sensors in order.
+ */
+public class CarbonDioxideAnomalyDetector implements TimedItem {
+    // Default weight of a new reading in the rolling mean and variance
+    private static final double DEFAULT_SMOOTHING = 0.125;
+
+    // Initial number of sensors space is reserved for
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int windowMinutes;
+    private final double smoothing;
+    private final AnomalyListener listener;
+
+    // Sensors and the rooms holding them, by index
+    private CarbonDioxideSensor[] sensors =
+            new CarbonDioxideSensor[INITIAL_CAPACITY];
+    private Room[] rooms = new Room[INITIAL_CAPACITY];
+
+    // Building each sensor was found in, or null if it was added directly
+    private Building[] origins = new Building[INITIAL_CAPACITY];
+
+    // Listener on each sensor
+    private Watch[] watches = new Watch[INITIAL_CAPACITY];
+
+    // Acceptable range of each sensor, inclusive
+    private int[] lowLimits = new int[INITIAL_CAPACITY];
+    private int[] highLimits = new int[INITIAL_CAPACITY];
+
+    // Rolling statistics of each sensor's readings
+    private double[] means = new double[INITIAL_CAPACITY];
+    private double[] variances = new double[INITIAL_CAPACITY];
+
+    // Sensor time at which each out of range sensor left its range
+    private int[] outOfRangeSince = new int[INITIAL_CAPACITY];
+
+    // Sensors currently out of range, and those flagged as anomalous
+    private final BitSet outOfRange = new BitSet();
+    private final BitSet anomalous = new BitSet();
+
+    // Sensors no longer watched whose indices are yet to be reclaimed
+    private final BitSet removed = new BitSet();
+
+    // Index of each sensor, for lookups
+    private final Map<CarbonDioxideSensor, Integer> indices =
+            new IdentityHashMap<>();
+
+    // Buildings watched, and the structure version each was last checked at
+    private final List<Building> buildings = new ArrayList<>();
+    private long[] buildingVersions = new long[0];
+
+    private int count;
+
+    /**
+     * Creates a new detector which flags sensors out of range for the given
+     * number of minutes, and registers it as a timed item.
+     *
+     * @param windowMinutes minutes a sensor must stay out of range before it
+     * is flagged
+     * @throws IllegalArgumentException if windowMinutes is less than one
+     */
+    public CarbonDioxideAnomalyDetector(int windowMinutes) {
+        this(windowMinutes, DEFAULT_SMOOTHING, null);
+    }
+
+    /**
+     * Creates a new detector and registers it as a timed item.
+     *
+     * @param windowMinutes minutes a sensor must stay out of range before it
+     * is flagged
+     * @param smoothing weight of each new reading in the rolling mean and
+     * variance, greater than 0 and at most 1
+     * @param listener listener told when rooms are flagged and cleared; may
+     * be null
+     * @throws IllegalArgumentException if windowMinutes is less than one, or
+     * smoothing is not greater than 0 and at most 1
+     */
+    public CarbonDioxideAnomalyDetector(int windowMinutes, double smoothing,
+                                        AnomalyListener listener) {
+        if (windowMinutes < 1 || !(smoothing > 0 && smoothing <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.windowMinutes = windowMinutes;
+        this.smoothing = smoothing;
+        this.listener = listener;
+        TimedItemManager.getInstance().registerTimedItem(this);
+    }
+
+    /**
+     * Watches every carbon dioxide sensor in the given building, including
+     * those added to it later. Adding a building that is already watched
+     * does nothing.
+     *
+     * @param building building to watch
+     */
+    public synchronized void addBuilding(Building building) {
+        for (Building watched : this.buildings) {
+            if (watched == building) {
+                return;
+            }
+        }
+        this.buildings.add(building);
+        this.buildingVersions = Arrays.copyOf(this.buildingVersions,
+                this.buildings.size());
+        scan(this.buildings.size() - 1);
+    }
+
+    /**
+     * Watches a carbon dioxide sensor in a room. Its rolling mean starts at
+     * its current reading. Adding a sensor that is already watched does
+     * nothing.
+     *
+     * @param room room holding the sensor
+     * @param sensor sensor to watch
+     */
+    public synchronized void addSensor(Room room, CarbonDioxideSensor sensor) {
+        if (!this.indices.containsKey(sensor)) {
+            add(room, sensor, null);
+        }
+    }
+
+    private void add(Room room, CarbonDioxideSensor sensor, Building origin) {
+        if (this.count == this.sensors.length) {
+            compact();
+            if (this.count == this.sensors.length) {
+                grow();
+            }
+        }
+        int index = this.count;
+        this.sensors[index] = sensor;
+        this.rooms[index] = room;
+        this.origins[index] = origin;
+        this.lowLimits[index] =
+                sensor.getIdealValue() - sensor.getVariationLimit();
+        this.highLimits[index] =
+                sensor.getIdealValue() + sensor.getVariationLimit();
+        int reading = sensor.getCurrentReading();
+        this.means[index] = reading;
+        this.variances[index] = 0;
+        updateRange(index, reading);
+        this.indices.put(sensor, index);
+        this.count++;
+
+        this.watches[index] = new Watch(index);
+        sensor.addListener(this.watches[index]);
+    }
+
+    /**
+     * Returns the number of sensors being watched.
+     *
+     * @return number of sensors
+     */
+    public synchronized int getSensorCount() {
+        return this.count - this.removed.cardinality();
+    }
+
+    /**
+     * Returns the rolling mean of a sensor's readings.
+     *
+     * @param sensor watched sensor
+     * @return rolling mean in ppm
+     * @throws IllegalArgumentException if the sensor is not watched
+     */
+    public synchronized double getRollingMean(CarbonDioxideSensor sensor) {
+        return this.means[indexOf(sensor)];
+    }
+
+    /**
+     * Returns the rolling variance of a sensor's readings.
+     *
+     * @param sensor watched sensor
+     * @return rolling variance in ppm squared
+     * @throws IllegalArgumentException if the sensor is not watched
+     */
+    public synchronized double getRollingVariance(CarbonDioxideSensor sensor) {
+        return this.variances[indexOf(sensor)];
+    }
+
+    /**
+     * Returns whether a sensor is currently flagged as anomalous.
+     *
+     * @param sensor watched sensor
+     * @return true if the sensor has been out of range for the whole window
+     * @throws IllegalArgumentException if the sensor is not watched
+     */
+    public synchronized boolean isAnomalous(CarbonDioxideSensor sensor) {
+        return this.anomalous.get(indexOf(sensor));
+    }
+
+    /**
+     * Returns the rooms holding a sensor currently flagged as anomalous.
+     *
+     * @return new list of flagged rooms, in the order their sensors were
+     * added
+     */
+    public synchronized List<Room> getAnomalousRooms() {
+        List<Room> result = new ArrayList<>(this.anomalous.cardinality());
+        for (int i = this.anomalous.nextSetBit(0); i >= 0;
+             i = this.anomalous.nextSetBit(i + 1)) {
+            result.add(this.rooms[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Flags any sensor that has now been out of range for the whole window.
+     */
+    @Override
+    public synchronized void elapseOneMinute() {
+        for (int b = 0; b < this.buildings.size(); b++) {
+            long version =
+                    this.buildings.get(b).getCounters().getStructureVersion();
+            if (version != this.buildingVersions[b]) {
+                scan(b);
+            }
+        }
+        compact();
+        for (int i = this.outOfRange.nextSetBit(0); i >= 0;
+             i = this.outOfRange.nextSetBit(i + 1)) {
+            if (this.anomalous.get(i)) {
+                continue;
+            }
+            int elapsed = this.sensors[i].getTimeElapsed()
+                    - this.outOfRangeSince[i];
+            if (elapsed >= this.windowMinutes) {
+                this.anomalous.set(i);
+                if (this.listener != null) {
+                    this.listener.anomalyStarted(this.rooms[i],
+                            this.sensors[i]);
+                }
+            }
+        }
+    }
+
+    // Watches the carbon dioxide sensors now in a building, and stops
+    // watching those found in it before that have since left
+    private void scan(int buildingIndex) {
+        Building building = this.buildings.get(buildingIndex);
+        this.buildingVersions[buildingIndex] =
+                building.getCounters().getStructureVersion();
+        List<Room> found = new ArrayList<>();
+        Set<Sensor> present =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Floor floor : building.getFloors()) {
+            for (Room room : floor.getRooms()) {
+                Sensor sensor = room.getSensor("CarbonDioxideSensor");
+                if (sensor != null) {
+                    found.add(room);
+                    present.add(sensor);
+                }
+            }
+        }
+        for (int i = 0; i < this.count; i++) {
+            if (this.origins[i] == building
+                    && !present.contains(this.sensors[i])) {
+                remove(i);
+            }
+        }
+        for (Room room : found) {
+            CarbonDioxideSensor sensor = (CarbonDioxideSensor)
+                    room.getSensor("CarbonDioxideSensor");
+            Integer index = this.indices.get(sensor);
+            if (index == null) {
+                add(room, sensor, building);
+            } else {
+                this.rooms[index] = room;
+            }
+        }
+    }
+
+    // Stops watching the sensor at an index, ending any anomaly it had; the
+    // index is reclaimed by compact()
+    private void remove(int index) {
+        if (this.removed.get(index)) {
+            return;
+        }
+        this.removed.set(index);
+        this.outOfRange.clear(index);
+        if (this.anomalous.get(index)) {
+            this.anomalous.clear(index);
+            if (this.listener != null) {
+                this.listener.anomalyEnded(this.rooms[index],
+                        this.sensors[index]);
+            }
+        }
+        this.watches[index].stopped = true;
+        this.sensors[index].removeListener(this.watches[index]);
+        this.indices.remove(this.sensors[index]);
+    }
+
+    // Moves the sensors still watched down over the indices of those that
+    // are not, keeping them in the order they were added
+    private void compact() {
+        if (this.removed.isEmpty()) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (this.removed.get(i)) {
+                continue;
+            }
+            if (kept != i) {
+                move(i, kept);
+            }
+            kept++;
+        }
+        Arrays.fill(this.sensors, kept, this.count, null);
+        Arrays.fill(this.rooms, kept, this.count, null);
+        Arrays.fill(this.origins, kept, this.count, null);
+        Arrays.fill(this.watches, kept, this.count, null);
+        this.outOfRange.clear(kept, this.count);
+        this.anomalous.clear(kept, this.count);
+        this.removed.clear();
+        this.count = kept;
+    }
+
+    private void move(int from, int to) {
+        this.sensors[to] = this.sensors[from];
+        this.rooms[to] = this.rooms[from];
+        this.origins[to] = this.origins[from];
+        this.lowLimits[to] = this.lowLimits[from];
+        this.highLimits[to] = this.highLimits[from];
+        this.means[to] = this.means[from];
+        this.variances[to] = this.variances[from];
+        this.outOfRangeSince[to] = this.outOfRangeSince[from];
+        this.outOfRange.set(to, this.outOfRange.get(from));
+        this.anomalous.set(to, this.anomalous.get(from));
+        this.watches[to] = this.watches[from];
+        this.watches[to].index = to;
+        this.indices.put(this.sensors[to], to);
+    }
+
+    // Folds a new reading into a sensor's statistics and range state
+    private void readingChanged(int index, int reading) {
+        // Exponentially weighted mean and variance
+        double delta = reading - this.means[index];
+        this.means[index] += this.smoothing * delta;
+        this.variances[index] = (1 - this.smoothing)
+                * (this.variances[index] + this.smoothing * delta * delta);
+        updateRange(index, reading);
+    }
+
+    // Starts or ends a sensor's time out of range
+    private void updateRange(int index, int reading) {
+        boolean inRange = reading >= this.lowLimits[index]
+                && reading <= this.highLimits[index];
+        if (inRange) {
+            this.outOfRange.clear(index);
+            if (this.anomalous.get(index)) {
+                this.anomalous.clear(index);
+                if (this.listener != null) {
+                    this.listener.anomalyEnded(this.rooms[index],
+                            this.sensors[index]);
+                }
+            }
+        } else if (!this.outOfRange.get(index)) {
+            this.outOfRange.set(index);
+            this.outOfRangeSince[index] = this.sensors[index].getTimeElapsed();
+        }
+    }
+
+    private int indexOf(CarbonDioxideSensor sensor) {
+        Integer index = this.indices.get(sensor);
+        if (index == null) {
+            throw new IllegalArgumentException();
+        }
+        return index;
+    }
+
+    // Doubles the space reserved for sensors
+    private void grow() {
+        int capacity = this.sensors.length * 2;
+        this.sensors = Arrays.copyOf(this.sensors, capacity);
+        this.rooms = Arrays.copyOf(this.rooms, capacity);
+        this.origins = Arrays.copyOf(this.origins, capacity);
+        this.watches = Arrays.copyOf(this.watches, capacity);
+        this.lowLimits = Arrays.copyOf(this.lowLimits, capacity);
+        this.highLimits = Arrays.copyOf(this.highLimits, capacity);
+        this.means = Arrays.copyOf(this.means, capacity);
+        this.variances = Arrays.copyOf(this.variances, capacity);
+        this.outOfRangeSince = Arrays.copyOf(this.outOfRangeSince, capacity);
+    }
+
+    /**
+     * Listener on a watched sensor, following the sensor's index as the
+     * detector reclaims the indices of sensors no longer watched.
+     */
+    private class Watch implements SensorListener {
+        private int index;
+        private boolean stopped;
+
+        Watch(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void readingChanged(Sensor sensor, int previousReading,
+                                   int currentReading) {
+            synchronized (CarbonDioxideAnomalyDetector.this) {
+                if (!this.stopped) {
+                    CarbonDioxideAnomalyDetector.this.readingChanged(
+                            this.index, currentReading);
+                }
+            }
+        }
+
+        @Override
+        public void sensorRetired(Sensor sensor) {
+            synchronized (CarbonDioxideAnomalyDetector.this) {
+                if (!this.stopped) {
+                    remove(this.index);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package bms.analytics;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates how long it would take to evacuate each floor of a building,
+ * and the whole building, from the number of people in it.
+ *
+ * The people in a room are its occupancy sensor's current reading, or, for
+ * a room without one, its area times a design density. Everyone takes
+ * walkMinutes to reach the stairs; the stairs between each pair of floors
+ * pass stairFlowPerMinute people, and the exits on the lowest floor pass
+ * exitFlowPerMinute. Descending one floor takes descentMinutesPerFloor.
+ *
+ * Each flow is a bottleneck: everyone on the floors above a flight of stairs
+ * must pass down it, so clearing floor k (counted from the lowest, 0) takes
+ * at least walkMinutes + (people on floor k and above) / stairFlowPerMinute,
+ * and they then need k * descentMinutesPerFloor to reach the ground. The
+ * lowest floor's people leave through the exits along with everyone else.
+ * The building estimate is the largest of these bounds.
+ *
+ * Floor totals are kept up to date through listeners on the occupancy
+ * sensors, and estimates are only recomputed, in O(floors), when a total
+ * has changed since the last query, so queries every tick stay cheap on
+ * large buildings. When the structure of the building changes, its floors,
+ * rooms and occupancy sensors are checked again by identity on the next
+ * query, so rooms and sensors added, removed or replaced, for example by
+ * Building.reload(Building), are counted as they now are.
+ */
+public class EvacuationEstimator {
+    // Default design density: one person per 10 square metres
+    private static final double DEFAULT_DENSITY = 0.1;
+
+    // Default flow of one stairwell, and of the ground floor exits
+    private static final double DEFAULT_STAIR_FLOW = 60;
+    private static final double DEFAULT_EXIT_FLOW = 120;
+
+    // Default time to reach the stairs, and to descend one floor
+    private static final double DEFAULT_WALK_MINUTES = 1;
+    private static final double DEFAULT_DESCENT_MINUTES = 0.25;
+
+    private final Building building;
+    private final double peoplePerSquareMetre;
+    private final double stairFlowPerMinute;
+    private final double exitFlowPerMinute;
+    private final double walkMinutes;
+    private final double descentMinutesPerFloor;
+
+    // Floors from lowest to highest, with the people on each
+    private Floor[] floors = new Floor[0];
+    private FloorTotal[] totals = new FloorTotal[0];
+    private final Map<Floor, FloorTotal> totalsByFloor =
+            new IdentityHashMap<>();
+
+    // Estimates, valid while dirty is false
+    private double[] clearanceMinutes = new double[0];
+    private double evacuationMinutes;
+    private boolean dirty;
+    private long recomputeCount;
+
+    // What each room counted adds to its floor's total
+    private Map<Room, RoomCount> rooms = new IdentityHashMap<>();
+
+    // Structure version of the building last checked for new floors, rooms
+    // and sensors
+    private long structureVersion = -1;
+
+    /**
+     * Creates an estimator for a building using typical office densities,
+     * flows and walking times.
+     *
+     * @param building building to estimate
+     */
+    public EvacuationEstimator(Building building) {
+        this(building, DEFAULT_DENSITY, DEFAULT_STAIR_FLOW, DEFAULT_EXIT_FLOW,
+                DEFAULT_WALK_MINUTES, DEFAULT_DESCENT_MINUTES);
+    }
+
+    /**
+     * Creates an estimator for a building.
+     *
+     * @param building building to estimate
+     * @param peoplePerSquareMetre people assumed in rooms without an
+     * occupancy sensor, per square metre
+     * @param stairFlowPerMinute people per minute the stairs between two
+     * floors can pass
+     * @param exitFlowPerMinute people per minute the exits can pass
+     * @param walkMinutes minutes to walk from a room to the stairs
+     * @param descentMinutesPerFloor minutes to descend one floor
+     * @throws IllegalArgumentException if either flow is not positive, or
+     * any other value is negative
+     */
+    public EvacuationEstimator(Building building, double peoplePerSquareMetre,
+                               double stairFlowPerMinute,
+                               double exitFlowPerMinute, double walkMinutes,
+                               double descentMinutesPerFloor) {
+        if (!(stairFlowPerMinute > 0) || !(exitFlowPerMinute > 0)
+                || !(peoplePerSquareMetre >= 0) || !(walkMinutes >= 0)
+                || !(descentMinutesPerFloor >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.building = building;
+        this.peoplePerSquareMetre = peoplePerSquareMetre;
+        this.stairFlowPerMinute = stairFlowPerMinute;
+        this.exitFlowPerMinute = exitFlowPerMinute;
+        this.walkMinutes = walkMinutes;
+        this.descentMinutesPerFloor = descentMinutesPerFloor;
+        refresh();
+    }
+
+    /**
+     * Returns the estimated number of people in the building.
+     *
+     * @return estimated occupants
+     */
+    public synchronized double getEstimatedOccupants() {
+        refresh();
+        double total = 0;
+        for (FloorTotal floorTotal : this.totals) {
+            total += floorTotal.people;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the estimated number of people on a floor.
+     *
+     * @param floorNumber floor to query
+     * @return estimated occupants of the floor
+     * @throws IllegalArgumentException if the building has no such floor
+     */
+    public synchronized double getEstimatedOccupants(int floorNumber) {
+        refresh();
+        return this.totals[indexOf(floorNumber)].people;
+    }
+
+    /**
+     * Returns the estimated time until everyone has left a floor.
+     *
+     * @param floorNumber floor to query
+     * @return clearance time of the floor in minutes; 0 if it is empty
+     * @throws IllegalArgumentException if the building has no such floor
+     */
+    public synchronized double getClearanceMinutes(int floorNumber) {
+        refresh();
+        return this.clearanceMinutes[indexOf(floorNumber)];
+    }
+
+    /**
+     * Returns the estimated time until everyone has left the building.
+     *
+     * @return evacuation time in minutes; 0 if the building is empty
+     */
+    public synchronized double getEvacuationMinutes() {
+        refresh();
+        return this.evacuationMinutes;
+    }
+
+    /**
+     * Returns the number of times the estimates have been recomputed, which
+     * only happens when the number of people has changed.
+     *
+     * @return number of recomputations
+     */
+    public synchronized long getRecomputeCount() {
+        return this.recomputeCount;
+    }
+
+    private int indexOf(int floorNumber) {
+        for (int i = 0; i < this.floors.length; i++) {
+            if (this.floors[i].getFloorNumber() == floorNumber) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    // Picks up structural changes, then recomputes the estimates if needed
+    private void refresh() {
+        long version = this.building.getCounters().getStructureVersion();
+        if (version != this.structureVersion) {
+            this.structureVersion = version;
+            rescan();
+        }
+        if (this.dirty) {
+            recompute();
+        }
+    }
+
+    // Counts the building's floors and rooms as they now are, keeping the
+    // count of every room still on the same floor with the same sensor
+    private void rescan() {
+        List<Floor> sorted = new ArrayList<>(this.building.getFloors());
+        sorted.sort(Comparator.comparingInt(Floor::getFloorNumber));
+        // Floors do not override equals, so this compares them by identity
+        if (!Arrays.asList(this.floors).equals(sorted)) {
+            Map<Floor, FloorTotal> kept = new IdentityHashMap<>();
+            for (Floor floor : sorted) {
+                FloorTotal total = this.totalsByFloor.get(floor);
+                kept.put(floor, total == null ? new FloorTotal() : total);
+            }
+            this.totalsByFloor.clear();
+            this.totalsByFloor.putAll(kept);
+            this.floors = sorted.toArray(new Floor[0]);
+            this.totals = new FloorTotal[this.floors.length];
+            for (int i = 0; i < this.floors.length; i++) {
+                this.totals[i] = kept.get(this.floors[i]);
+            }
+            this.clearanceMinutes = new double[this.floors.length];
+            this.dirty = true;
+        }
+
+        Map<Room, RoomCount> current = new IdentityHashMap<>();
+        for (int i = 0; i < this.floors.length; i++) {
+            for (Room room : this.floors[i].getRooms()) {
+                Sensor sensor = room.getSensor("OccupancySensor");
+                RoomCount count = this.rooms.remove(room);
+                if (count != null && (count.total != this.totals[i]
+                        || count.sensor != sensor)) {
+                    count.stop();
+                    count = null;
+                }
+                if (count == null) {
+                    count = new RoomCount(this.totals[i], room,
+                            (OccupancySensor) sensor);
+                }
+                current.put(room, count);
+            }
+        }
+        // Whatever is left has gone from the building
+        for (RoomCount count : this.rooms.values()) {
+            count.stop();
+        }
+        this.rooms = current;
+    }
+
+    // Applies a change in the people on a floor, called by its sensors
+    private synchronized void changed(FloorTotal total, double delta) {
+        total.people += delta;
+        this.dirty = true;
+    }
+
+    private void recompute() {
+        this.dirty = false;
+        this.recomputeCount++;
+        double evacuation = 0;
+        double above = 0;
+        for (int i = this.floors.length - 1; i >= 0; i--) {
+            double floorPeople = this.totals[i].people;
+            above += floorPeople;
+            if (above <= 0) {
+                this.clearanceMinutes[i] = 0;
+                continue;
+            }
+            double flow = i == 0 ? this.exitFlowPerMinute
+                    : this.stairFlowPerMinute;
+            double clearance = this.walkMinutes + above / flow;
+            this.clearanceMinutes[i] = floorPeople <= 0 ? 0 : clearance;
+            evacuation = Math.max(evacuation,
+                    clearance + i * this.descentMinutesPerFloor);
+        }
+        this.evacuationMinutes = evacuation;
+    }
+
+    /**
+     * Number of people on one floor.
+     */
+    private static class FloorTotal {
+        private double people;
+    }
+
+    /**
+     * The people a room adds to its floor's total: its occupancy sensor's
+     * reading, or an estimate from its area if it has no sensor.
+     */
+    private class RoomCount implements SensorListener {
+        private final FloorTotal total;
+        private final OccupancySensor sensor;
+        private double counted;
+
+        RoomCount(FloorTotal total, Room room, OccupancySensor sensor) {
+            this.total = total;
+            this.sensor = sensor;
+            if (sensor == null) {
+                this.counted = room.getArea() * peoplePerSquareMetre;
+            } else {
+                this.counted = sensor.getCurrentReading();
+                sensor.addListener(this);
+            }
+            changed(total, this.counted);
+        }
+
+        @Override
+        public void readingChanged(Sensor changedSensor, int previousReading,
+                                   int currentReading) {
+            synchronized (EvacuationEstimator.this) {
+                this.counted += currentReading - previousReading;
+                changed(this.total, currentReading - previousReading);
+            }
+        }
+
+        // Takes the room out of its floor's total
+        void stop() {
+            if (this.sensor != null) {
+                this.sensor.removeListener(this);
+            }
+            changed(this.total, -this.counted);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package bms.analytics;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+import bms.util.TimedItem;
+import bms.util.TimedItemManager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Records the number of people on each floor of a building, and in the whole
+ * building, every minute, so capacity planning questions such as "total
+ * people on floor 3 between minutes 480 and 600" or "peak building
+ * occupancy today" can be answered in O(log n).
+ *
+ * Minutes are counted from 0, the first minute recorded, and the most recent
+ * horizonMinutes minutes are kept. The current total of each floor is kept
+ * up to date through a SensorListener on every occupancy sensor, so each
+ * tick records one value per floor rather than reading every sensor. When
+ * the structure of the building changes, its occupancy sensors are checked
+ * again by identity on the next tick: sensors added are counted, and
+ * sensors removed or replaced, for example by Building.reload(Building),
+ * stop being counted.
+ *
+ * A tick records the totals as they stand when the analytics is ticked,
+ * which is after every sensor registered with the TimedItemManager before
+ * it.
+ */
+public class OccupancyAnalytics implements TimedItem {
+    // Default number of minutes kept: one day
+    private static final int DEFAULT_HORIZON = 1440;
+
+    private final Building building;
+    private final int horizonMinutes;
+
+    // Index of each floor by floor number
+    private final Map<Integer, Integer> floorIndices = new HashMap<>();
+
+    // Current total occupancy and timeline of each floor, by index
+    private long[] floorTotals = new long[0];
+    private OccupancyTimeline[] floorTimelines = new OccupancyTimeline[0];
+
+    private long buildingTotal;
+    private final OccupancyTimeline buildingTimeline;
+
+    // Sensors being counted
+    private Map<Sensor, Watch> watches = new IdentityHashMap<>();
+
+    // Structure version of the building last checked for new floors and
+    // changed sensors
+    private long structureVersion = -1;
+
+    /**
+     * Creates analytics for a building keeping one day of minutes, and
+     * registers it as a timed item.
+     *
+     * @param building building to record
+     */
+    public OccupancyAnalytics(Building building) {
+        this(building, DEFAULT_HORIZON);
+    }
+
+    /**
+     * Creates analytics for a building and registers it as a timed item.
+     *
+     * @param building building to record
+     * @param horizonMinutes number of most recent minutes kept
+     * @throws IllegalArgumentException if horizonMinutes is less than one
+     */
+    public OccupancyAnalytics(Building building, int horizonMinutes) {
+        if (horizonMinutes < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.building = building;
+        this.horizonMinutes = horizonMinutes;
+        this.buildingTimeline = new OccupancyTimeline(horizonMinutes, 0);
+        refresh();
+        TimedItemManager.getInstance().registerTimedItem(this);
+    }
+
+    /**
+     * Records the current occupancy of every floor and of the building as
+     * the next minute.
+     */
+    @Override
+    public synchronized void elapseOneMinute() {
+        refresh();
+        for (int i = 0; i < this.floorTimelines.length; i++) {
+            this.floorTimelines[i].record(this.floorTotals[i]);
+        }
+        this.buildingTimeline.record(this.buildingTotal);
+    }
+
+    /**
+     * Returns the number of most recent minutes kept.
+     *
+     * @return horizon in minutes
+     */
+    public int getHorizonMinutes() {
+        return this.horizonMinutes;
+    }
+
+    /**
+     * Returns the number of minutes recorded so far. The latest minute
+     * recorded is one less than this.
+     *
+     * @return number of minutes recorded
+     */
+    public synchronized long getMinutesRecorded() {
+        return this.buildingTimeline.getMinutes();
+    }
+
+    /**
+     * Returns the earliest minute still kept.
+     *
+     * @return earliest minute that can be queried
+     */
+    public synchronized long getEarliestMinute() {
+        return this.buildingTimeline.getEarliestMinute();
+    }
+
+    /**
+     * Returns the number of people currently in the building.
+     *
+     * @return current building occupancy
+     */
+    public synchronized long getCurrentOccupancy() {
+        return this.buildingTotal;
+    }
+
+    /**
+     * Returns the number of people currently on a floor.
+     *
+     * @param floorNumber floor to query
+     * @return current floor occupancy
+     * @throws IllegalArgumentException if the floor has not been recorded
+     */
+    public synchronized long getCurrentOccupancy(int floorNumber) {
+        return this.floorTotals[indexOf(floorNumber)];
+    }
+
+    /**
+     * Returns the building occupancy summed over a range of minutes, that is
+     * the number of person-minutes spent in the building.
+     *
+     * @param from first minute, inclusive
+     * @param to last minute, inclusive
+     * @return total occupancy over the range
+     * @throws IllegalArgumentException if from is after to, or the range is
+     * not within the minutes kept
+     */
+    public synchronized long getTotalOccupancy(long from, long to) {
+        return this.buildingTimeline.sum(from, to);
+    }
+
+    /**
+     * Returns a floor's occupancy summed over a range of minutes.
+     *
+     * @param floorNumber floor to query
+     * @param from first minute, inclusive
+     * @param to last minute, inclusive
+     * @return total occupancy of the floor over the range
+     * @throws IllegalArgumentException if the floor has not been recorded,
+     * from is after to, or the range is not within the minutes kept
+     */
+    public synchronized long getTotalOccupancy(int floorNumber, long from,
+                                               long to) {
+        return timelineOf(floorNumber).sum(from, to);
+    }
+
+    /**
+     * Returns the highest building occupancy in a range of minutes.
+     *
+     * @param from first minute, inclusive
+     * @param to last minute, inclusive
+     * @return peak occupancy over the range
+     * @throws IllegalArgumentException if from is after to, or the range is
+     * not within the minutes kept
+     */
+    public synchronized long getPeakOccupancy(long from, long to) {
+        return this.buildingTimeline.max(from, to);
+    }
+
+    /**
+     * Returns the highest occupancy of a floor in a range of minutes.
+     *
+     * @param floorNumber floor to query
+     * @param from first minute, inclusive
+     * @param to last minute, inclusive
+     * @return peak occupancy of the floor over the range
+     * @throws IllegalArgumentException if the floor has not been recorded,
+     * from is after to, or the range is not within the minutes kept
+     */
+    public synchronized long getPeakOccupancy(int floorNumber, long from,
+                                              long to) {
+        return timelineOf(floorNumber).max(from, to);
+    }
+
+    private OccupancyTimeline timelineOf(int floorNumber) {
+        return this.floorTimelines[indexOf(floorNumber)];
+    }
+
+    private int indexOf(int floorNumber) {
+        Integer index = this.floorIndices.get(floorNumber);
+        if (index == null) {
+            throw new IllegalArgumentException();
+        }
+        return index;
+    }
+
+    // Brings the floors and occupancy sensors counted up to date with the
+    // building, if its structure changed since the last check
+    private synchronized void refresh() {
+        long version = this.building.getCounters().getStructureVersion();
+        if (version == this.structureVersion) {
+            return;
+        }
+        this.structureVersion = version;
+        Map<Sensor, Watch> current = new IdentityHashMap<>();
+        for (Floor floor : this.building.getFloors()) {
+            int index = this.floorIndices.computeIfAbsent(
+                    floor.getFloorNumber(), number -> addFloor());
+            for (Room room : floor.getRooms()) {
+                Sensor sensor = room.getSensor("OccupancySensor");
+                if (sensor == null) {
+                    continue;
+                }
+                Watch watch = this.watches.remove(sensor);
+                if (watch != null && watch.floorIndex != index) {
+                    watch.stop();
+                    watch = null;
+                }
+                if (watch == null) {
+                    watch = new Watch(index, (OccupancySensor) sensor);
+                }
+                current.put(sensor, watch);
+            }
+        }
+        // Whatever is left has gone from the building
+        for (Watch watch : this.watches.values()) {
+            watch.stop();
+        }
+        this.watches = current;
+    }
+
+    private int addFloor() {
+        int index = this.floorTotals.length;
+        this.floorTotals = Arrays.copyOf(this.floorTotals, index + 1);
+        this.floorTimelines = Arrays.copyOf(this.floorTimelines, index + 1);
+        // Earlier minutes of a new floor had no one on it
+        this.floorTimelines[index] = new OccupancyTimeline(
+                this.horizonMinutes, this.buildingTimeline.getMinutes());
+        return index;
+    }
+
+    private synchronized void changed(int floorIndex, long delta) {
+        this.floorTotals[floorIndex] += delta;
+        this.buildingTotal += delta;
+    }
+
+    /**
+     * An occupancy sensor being counted on a floor, and what it adds to the
+     * floor's total.
+     */
+    private class Watch implements SensorListener {
+        private final int floorIndex;
+        private final OccupancySensor sensor;
+        private long counted;
+
+        Watch(int floorIndex, OccupancySensor sensor) {
+            this.floorIndex = floorIndex;
+            this.sensor = sensor;
+            this.counted = sensor.getCurrentReading();
+            changed(floorIndex, this.counted);
+            sensor.addListener(this);
+        }
+
+        @Override
+        public void readingChanged(Sensor changed, int previousReading,
+                                   int currentReading) {
+            synchronized (OccupancyAnalytics.this) {
+                this.counted += currentReading - previousReading;
+                changed(this.floorIndex, currentReading - previousReading);
+            }
+        }
+
+        // Takes the sensor out of its floor's total
+        void stop() {
+            this.sensor.removeListener(this);
+            changed(this.floorIndex, -this.counted);
+        }
+    }
+}
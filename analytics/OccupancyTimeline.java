@@ -0,0 +1,131 @@
+package bms.analytics;
+
+/**
+ * The occupancy recorded each minute over a fixed horizon of recent minutes,
+ * answering range sums and peaks in O(log n).
+ *
+ * Minutes are held in a ring of horizon slots. A Fenwick tree over the ring
+ * gives prefix sums, and a segment tree gives range maxima; recording a
+ * minute overwrites the oldest slot and updates both in O(log n). A range
+ * that wraps around the end of the ring is answered as two pieces.
+ */
+final class OccupancyTimeline {
+    private final int horizon;
+
+    // Value in each ring slot
+    private final long[] values;
+
+    // Fenwick tree over the ring slots, 1-based
+    private final long[] sums;
+
+    // Segment tree of maxima over the ring slots; leaves start at leafBase
+    private final long[] maxima;
+    private final int leafBase;
+
+    // Number of minutes recorded so far
+    private long minutes;
+
+    /**
+     * Creates a timeline whose first minute recorded will be startMinute,
+     * with every earlier minute kept taken as zero.
+     */
+    OccupancyTimeline(int horizon, long startMinute) {
+        this.horizon = horizon;
+        this.minutes = startMinute;
+        this.values = new long[horizon];
+        this.sums = new long[horizon + 1];
+        int base = 1;
+        while (base < horizon) {
+            base <<= 1;
+        }
+        this.leafBase = base;
+        this.maxima = new long[2 * base];
+    }
+
+    /**
+     * Records the value of the next minute, replacing the oldest minute once
+     * the horizon is full.
+     */
+    void record(long value) {
+        int slot = (int) (this.minutes % this.horizon);
+        long delta = value - this.values[slot];
+        this.values[slot] = value;
+        for (int i = slot + 1; i <= this.horizon; i += i & -i) {
+            this.sums[i] += delta;
+        }
+        int node = this.leafBase + slot;
+        this.maxima[node] = value;
+        for (node >>= 1; node > 0; node >>= 1) {
+            this.maxima[node] = Math.max(this.maxima[2 * node],
+                    this.maxima[2 * node + 1]);
+        }
+        this.minutes++;
+    }
+
+    long getMinutes() {
+        return this.minutes;
+    }
+
+    long getEarliestMinute() {
+        return Math.max(0, this.minutes - this.horizon);
+    }
+
+    /**
+     * Returns the sum of the values of minutes from to to, inclusive.
+     */
+    long sum(long from, long to) {
+        checkRange(from, to);
+        int first = (int) (from % this.horizon);
+        int last = (int) (to % this.horizon);
+        if (first <= last) {
+            return prefix(last) - prefix(first - 1);
+        }
+        return prefix(this.horizon - 1) - prefix(first - 1) + prefix(last);
+    }
+
+    /**
+     * Returns the largest value of the minutes from to to, inclusive.
+     */
+    long max(long from, long to) {
+        checkRange(from, to);
+        int first = (int) (from % this.horizon);
+        int last = (int) (to % this.horizon);
+        if (first <= last) {
+            return max(first, last);
+        }
+        return Math.max(max(first, this.horizon - 1), max(0, last));
+    }
+
+    // Sum of slots 0 to slot, inclusive
+    private long prefix(int slot) {
+        long sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += this.sums[i];
+        }
+        return sum;
+    }
+
+    // Largest value of slots first to last, inclusive
+    private long max(int first, int last) {
+        long max = Long.MIN_VALUE;
+        int low = first + this.leafBase;
+        int high = last + this.leafBase + 1;
+        while (low < high) {
+            if ((low & 1) == 1) {
+                max = Math.max(max, this.maxima[low++]);
+            }
+            if ((high & 1) == 1) {
+                max = Math.max(max, this.maxima[--high]);
+            }
+            low >>= 1;
+            high >>= 1;
+        }
+        return max;
+    }
+
+    private void checkRange(long from, long to) {
+        if (from > to || from < getEarliestMinute() || to >= this.minutes) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package bms.analytics;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+import bms.sensors.TemperatureSensor;
+import bms.util.TimedItem;
+import bms.util.TimedItemManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rate-of-rise fire detection: flags temperature sensors whose reading has
+ * risen by more than a threshold over the last few minutes, and reports an
+ * early hazard level for them before the absolute cutoff of
+ * TemperatureSensor.getHazardLevel() is reached.
+ *
+ * The last windowMinutes + 1 readings of every sensor are kept in one flat
+ * ring of ints, one column per minute with one entry per sensor. Each tick
+ * writes the current readings into the next column and compares them with
+ * the oldest column, so a tick is a single sequential pass over primitive
+ * arrays and allocates nothing.
+ *
+ * Sensors stop being watched as soon as they are retired, for example by
+ * Building.reload(Building). When the structure of a building given to
+ * addBuilding(Building) changes, its temperature sensors are checked again
+ * by identity on the next tick: sensors added are watched, and sensors that
+ * have left the building are not. The indices freed are reclaimed on the
+ * next tick, keeping the other sensors in order.
+ */
+public class TemperatureRiseDetector implements TimedItem {
+    // Initial number of sensors space is reserved for
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int windowMinutes;
+    private final int riseThreshold;
+    private final int earlyHazardLevel;
+    private final AnomalyListener listener;
+
+    // Number of readings kept per sensor, windowMinutes + 1
+    private final int columns;
+
+    // Sensors and the rooms holding them, by index
+    private TemperatureSensor[] sensors =
+            new TemperatureSensor[INITIAL_CAPACITY];
+    private Room[] rooms = new Room[INITIAL_CAPACITY];
+
+    // Building each sensor was found in, or null if it was added directly
+    private Building[] origins = new Building[INITIAL_CAPACITY];
+
+    // Listener on each sensor, told when it is retired
+    private Watch[] watches = new Watch[INITIAL_CAPACITY];
+
+    // Recent readings: entry column * capacity + index
+    private int[] readings;
+
+    // Column holding the latest readings
+    private int latest;
+
+    // Sensors whose temperature is rising too fast
+    private final BitSet rising = new BitSet();
+
+    // Sensors no longer watched whose indices are yet to be reclaimed
+    private final BitSet removed = new BitSet();
+
+    // Index of each sensor, for lookups
+    private final Map<TemperatureSensor, Integer> indices =
+            new IdentityHashMap<>();
+
+    // Buildings watched, and the structure version each was last checked at
+    private final List<Building> buildings = new ArrayList<>();
+    private long[] buildingVersions = new long[0];
+
+    private int count;
+
+    /**
+     * Creates a new detector and registers it as a timed item.
+     *
+     * @param windowMinutes number of minutes the rise is measured over
+     * @param riseThreshold rise in degrees over the window above which a
+     * sensor is flagged
+     * @param earlyHazardLevel hazard level reported for flagged sensors
+     * @param listener listener told when sensors are flagged and cleared; may
+     * be null
+     * @throws IllegalArgumentException if windowMinutes or riseThreshold is
+     * less than one, or earlyHazardLevel is not between 1 and 100
+     */
+    public TemperatureRiseDetector(int windowMinutes, int riseThreshold,
+                                   int earlyHazardLevel,
+                                   AnomalyListener listener) {
+        if (windowMinutes < 1 || riseThreshold < 1 || earlyHazardLevel < 1 ||
+                earlyHazardLevel > 100) {
+            throw new IllegalArgumentException();
+        }
+        this.windowMinutes = windowMinutes;
+        this.riseThreshold = riseThreshold;
+        this.earlyHazardLevel = earlyHazardLevel;
+        this.listener = listener;
+        this.columns = windowMinutes + 1;
+        this.readings = new int[this.columns * INITIAL_CAPACITY];
+        TimedItemManager.getInstance().registerTimedItem(this);
+    }
+
+    /**
+     * Watches every temperature sensor in the given building, including
+     * those added to it later. Adding a building that is already watched
+     * does nothing.
+     *
+     * @param building building to watch
+     */
+    public synchronized void addBuilding(Building building) {
+        for (Building watched : this.buildings) {
+            if (watched == building) {
+                return;
+            }
+        }
+        this.buildings.add(building);
+        this.buildingVersions = Arrays.copyOf(this.buildingVersions,
+                this.buildings.size());
+        scan(this.buildings.size() - 1);
+    }
+
+    /**
+     * Watches a temperature sensor in a room. Its history starts filled with
+     * its current reading, so it is not flagged until its temperature rises.
+     * Adding a sensor that is already watched does nothing.
+     *
+     * @param room room holding the sensor
+     * @param sensor sensor to watch
+     */
+    public synchronized void addSensor(Room room, TemperatureSensor sensor) {
+        if (!this.indices.containsKey(sensor)) {
+            add(room, sensor, null);
+        }
+    }
+
+    private void add(Room room, TemperatureSensor sensor, Building origin) {
+        if (this.count == this.sensors.length) {
+            compact();
+            if (this.count == this.sensors.length) {
+                grow();
+            }
+        }
+        int index = this.count;
+        this.sensors[index] = sensor;
+        this.rooms[index] = room;
+        this.origins[index] = origin;
+        int reading = sensor.getCurrentReading();
+        int capacity = this.sensors.length;
+        for (int column = 0; column < this.columns; column++) {
+            this.readings[column * capacity + index] = reading;
+        }
+        this.indices.put(sensor, index);
+        this.count++;
+
+        this.watches[index] = new Watch(index);
+        sensor.addListener(this.watches[index]);
+    }
+
+    /**
+     * Returns the number of sensors being watched.
+     *
+     * @return number of sensors
+     */
+    public synchronized int getSensorCount() {
+        return this.count - this.removed.cardinality();
+    }
+
+    /**
+     * Returns how far a sensor's reading has risen over the window; negative
+     * if it has fallen.
+     *
+     * @param sensor watched sensor
+     * @return rise in degrees
+     * @throws IllegalArgumentException if the sensor is not watched
+     */
+    public synchronized int getRise(TemperatureSensor sensor) {
+        int index = indexOf(sensor);
+        int capacity = this.sensors.length;
+        int oldest = (this.latest + 1) % this.columns;
+        return this.readings[this.latest * capacity + index]
+                - this.readings[oldest * capacity + index];
+    }
+
+    /**
+     * Returns whether a sensor is currently flagged as rising too fast.
+     *
+     * @param sensor watched sensor
+     * @return true if the rise over the window exceeds the threshold
+     * @throws IllegalArgumentException if the sensor is not watched
+     */
+    public synchronized boolean isRising(TemperatureSensor sensor) {
+        return this.rising.get(indexOf(sensor));
+    }
+
+    /**
+     * Returns the hazard level of a sensor taking its rate of rise into
+     * account: the sensor's own hazard level, or the early hazard level if
+     * it is flagged and that is higher.
+     *
+     * @param sensor watched sensor
+     * @return hazard level, 0 to 100
+     * @throws IllegalArgumentException if the sensor is not watched
+     */
+    public int getHazardLevel(TemperatureSensor sensor) {
+        int hazard = sensor.getHazardLevel();
+        if (isRising(sensor)) {
+            hazard = Math.max(hazard, this.earlyHazardLevel);
+        }
+        return hazard;
+    }
+
+    /**
+     * Returns the rooms holding a sensor currently flagged as rising too
+     * fast.
+     *
+     * @return new list of flagged rooms, in the order their sensors were
+     * added
+     */
+    public synchronized List<Room> getRisingRooms() {
+        List<Room> result = new ArrayList<>(this.rising.cardinality());
+        for (int i = this.rising.nextSetBit(0); i >= 0;
+             i = this.rising.nextSetBit(i + 1)) {
+            result.add(this.rooms[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Records the current reading of every sensor and flags or clears each
+     * one according to its rise over the window.
+     */
+    @Override
+    public synchronized void elapseOneMinute() {
+        for (int b = 0; b < this.buildings.size(); b++) {
+            long version =
+                    this.buildings.get(b).getCounters().getStructureVersion();
+            if (version != this.buildingVersions[b]) {
+                scan(b);
+            }
+        }
+        compact();
+        int capacity = this.sensors.length;
+        this.latest = (this.latest + 1) % this.columns;
+        // The column after the latest holds the readings windowMinutes ago
+        int current = this.latest * capacity;
+        int oldest = ((this.latest + 1) % this.columns) * capacity;
+        for (int i = 0; i < this.count; i++) {
+            int reading = this.sensors[i].getCurrentReading();
+            this.readings[current + i] = reading;
+            boolean rise = reading - this.readings[oldest + i]
+                    > this.riseThreshold;
+            if (rise != this.rising.get(i)) {
+                this.rising.set(i, rise);
+                notifyListener(i, rise);
+            }
+        }
+    }
+
+    // Watches the temperature sensors now in a building, and stops watching
+    // those found in it before that have since left
+    private void scan(int buildingIndex) {
+        Building building = this.buildings.get(buildingIndex);
+        this.buildingVersions[buildingIndex] =
+                building.getCounters().getStructureVersion();
+        List<Room> found = new ArrayList<>();
+        Set<Sensor> present =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Floor floor : building.getFloors()) {
+            for (Room room : floor.getRooms()) {
+                Sensor sensor = room.getSensor("TemperatureSensor");
+                if (sensor != null) {
+                    found.add(room);
+                    present.add(sensor);
+                }
+            }
+        }
+        for (int i = 0; i < this.count; i++) {
+            if (this.origins[i] == building
+                    && !present.contains(this.sensors[i])) {
+                remove(i);
+            }
+        }
+        for (Room room : found) {
+            TemperatureSensor sensor = (TemperatureSensor)
+                    room.getSensor("TemperatureSensor");
+            Integer index = this.indices.get(sensor);
+            if (index == null) {
+                add(room, sensor, building);
+            } else {
+                this.rooms[index] = room;
+            }
+        }
+    }
+
+    // Stops watching the sensor at an index, clearing any flag it had; the
+    // index is reclaimed by compact()
+    private void remove(int index) {
+        if (this.removed.get(index)) {
+            return;
+        }
+        this.removed.set(index);
+        if (this.rising.get(index)) {
+            this.rising.clear(index);
+            notifyListener(index, false);
+        }
+        this.watches[index].stopped = true;
+        this.sensors[index].removeListener(this.watches[index]);
+        this.indices.remove(this.sensors[index]);
+    }
+
+    // Moves the sensors still watched down over the indices of those that
+    // are not, keeping them in the order they were added
+    private void compact() {
+        if (this.removed.isEmpty()) {
+            return;
+        }
+        int capacity = this.sensors.length;
+        int kept = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (this.removed.get(i)) {
+                continue;
+            }
+            if (kept != i) {
+                for (int column = 0; column < this.columns; column++) {
+                    this.readings[column * capacity + kept] =
+                            this.readings[column * capacity + i];
+                }
+                this.sensors[kept] = this.sensors[i];
+                this.rooms[kept] = this.rooms[i];
+                this.origins[kept] = this.origins[i];
+                this.rising.set(kept, this.rising.get(i));
+                this.watches[kept] = this.watches[i];
+                this.watches[kept].index = kept;
+                this.indices.put(this.sensors[kept], kept);
+            }
+            kept++;
+        }
+        Arrays.fill(this.sensors, kept, this.count, null);
+        Arrays.fill(this.rooms, kept, this.count, null);
+        Arrays.fill(this.origins, kept, this.count, null);
+        Arrays.fill(this.watches, kept, this.count, null);
+        this.rising.clear(kept, this.count);
+        this.removed.clear();
+        this.count = kept;
+    }
+
+    private void notifyListener(int index, boolean rise) {
+        if (this.listener == null) {
+            return;
+        }
+        if (rise) {
+            this.listener.anomalyStarted(this.rooms[index],
+                    this.sensors[index]);
+        } else {
+            this.listener.anomalyEnded(this.rooms[index], this.sensors[index]);
+        }
+    }
+
+    private int indexOf(TemperatureSensor sensor) {
+        Integer index = this.indices.get(sensor);
+        if (index == null) {
+            throw new IllegalArgumentException();
+        }
+        return index;
+    }
+
+    // Doubles the space reserved for sensors, moving each column of readings
+    private void grow() {
+        int capacity = this.sensors.length;
+        int grown = capacity * 2;
+        int[] moved = new int[this.columns * grown];
+        for (int column = 0; column < this.columns; column++) {
+            System.arraycopy(this.readings, column * capacity, moved,
+                    column * grown, capacity);
+        }
+        this.readings = moved;
+        this.sensors = Arrays.copyOf(this.sensors, grown);
+        this.rooms = Arrays.copyOf(this.rooms, grown);
+        this.origins = Arrays.copyOf(this.origins, grown);
+        this.watches = Arrays.copyOf(this.watches, grown);
+    }
+
+    /**
+     * Listener on a watched sensor which stops it being watched once it is
+     * retired, following the sensor's index as the detector reclaims the
+     * indices of sensors no longer watched.
+     */
+    private class Watch implements SensorListener {
+        private int index;
+        private boolean stopped;
+
+        Watch(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void readingChanged(Sensor sensor, int previousReading,
+                                   int currentReading) {
+        }
+
+        @Override
+        public void sensorRetired(Sensor sensor) {
+            synchronized (TemperatureRiseDetector.this) {
+                if (!this.stopped) {
+                    remove(this.index);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package bms.benchmark;
+
+import bms.export.Column;
+import bms.export.ColumnarExporter;
+import bms.export.ColumnarReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures writing 10 million rows with ColumnarExporter, and scanning one
+ * column of them with ColumnarReader.
+ */
+public class ColumnarExportBenchmark {
+    private static final int SENSORS = 10_000;
+    private static final int TICKS = 1_000;
+
+    /**
+     * Runs the benchmark and prints the time taken by each step.
+     *
+     * @param args command line arguments (ignored)
+     * @throws IOException if the export cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("columnar-benchmark");
+
+        long start = System.nanoTime();
+        try (ColumnarExporter exporter = new ColumnarExporter(directory)) {
+            for (int tick = 1; tick <= TICKS; tick++) {
+                for (int sensor = 0; sensor < SENSORS; sensor++) {
+                    int reading = (tick + sensor) % 100;
+                    exporter.append(tick, sensor, reading, reading);
+                }
+            }
+        }
+        long writeNanos = System.nanoTime() - start;
+
+        ColumnarReader reader = new ColumnarReader(directory);
+        // Scan once to warm up, then time the second
+        reader.sum(Column.READING);
+        start = System.nanoTime();
+        long sum = reader.sum(Column.READING);
+        long scanNanos = System.nanoTime() - start;
+
+        System.out.printf("%d rows: write %.1f ms, scan one column %.1f ms "
+                        + "(sum=%d)%n", reader.getRowCount(),
+                writeNanos / 1e6, scanNanos / 1e6, sum);
+    }
+}
@@ -0,0 +1,83 @@
+package bms.benchmark;
+
+import bms.building.Building;
+import bms.compact.CompactBuilding;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+
+/**
+ * Compares the heap used by a million-room building in the object model and
+ * in CompactBuilding. Sensors are left out, as they are the same objects in
+ * both models.
+ */
+public class CompactModelBenchmark {
+    private static final int FLOORS = 1_000;
+    private static final int ROOMS_PER_FLOOR = 1_000;
+
+    // Type of the given room, mostly offices and studies
+    private static RoomType typeOf(int room) {
+        RoomType[] types = RoomType.values();
+        return room % 50 == 0 ? RoomType.LABORATORY
+                : types[1 + room % (types.length - 1)];
+    }
+
+    private static Building objectModel() throws Exception {
+        Building building = new Building("Objects");
+        for (int f = 1; f <= FLOORS; f++) {
+            Floor floor = new Floor(f, 100, 100);
+            building.addFloor(floor);
+            for (int r = 0; r < ROOMS_PER_FLOOR; r++) {
+                floor.addRoom(new Room(f * 10_000 + r, typeOf(r), 10));
+            }
+        }
+        return building;
+    }
+
+    private static CompactBuilding compactModel() throws Exception {
+        CompactBuilding building = new CompactBuilding("Compact", FLOORS,
+                FLOORS * ROOMS_PER_FLOOR);
+        for (int f = 1; f <= FLOORS; f++) {
+            building.addFloor(f, 100, 100);
+            for (int r = 0; r < ROOMS_PER_FLOOR; r++) {
+                building.addRoom(f, f * 10_000 + r, typeOf(r), 10);
+            }
+        }
+        return building;
+    }
+
+    // Heap in use after collecting garbage
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs the benchmark and prints the heap used by each model.
+     *
+     * @param args command line arguments (ignored)
+     * @throws Exception if either building cannot be created
+     */
+    public static void main(String[] args) throws Exception {
+        int rooms = FLOORS * ROOMS_PER_FLOOR;
+
+        long before = usedHeap();
+        Building objects = objectModel();
+        long objectBytes = usedHeap() - before;
+        System.out.printf("object model  %8.1f MB  %6.1f bytes/room%n",
+                objectBytes / 1e6, objectBytes / (double) rooms);
+
+        before = usedHeap();
+        CompactBuilding compact = compactModel();
+        long compactBytes = usedHeap() - before;
+        System.out.printf("compact model %8.1f MB  %6.1f bytes/room%n",
+                compactBytes / 1e6, compactBytes / (double) rooms);
+
+        // Keep both models reachable until both are measured
+        System.out.println("rooms: " + objects.getCounters().getRoomCount()
+                + " / " + compact.getRoomCount());
+    }
+}
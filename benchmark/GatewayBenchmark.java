@@ -0,0 +1,58 @@
+package bms.benchmark;
+
+import bms.gateway.IngestionServer;
+import bms.gateway.LoadGenerator;
+import bms.sensors.LiveSensor;
+import bms.sensors.LiveSensorRegistry;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Drives a local IngestionServer with a LoadGenerator and reports the
+ * throughput of the whole path, from the sockets to the live sensors, and
+ * the time readings spent queued between decoding and ingestion.
+ */
+public class GatewayBenchmark {
+    private static final int SENSORS = 100_000;
+    private static final int CONNECTIONS = 4;
+    private static final int FRAMES_PER_CONNECTION = 5_000;
+    private static final int READINGS_PER_FRAME = 256;
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args command line arguments (ignored)
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        LiveSensorRegistry registry = new LiveSensorRegistry();
+        for (int id = 0; id < SENSORS; id++) {
+            registry.register(new LiveSensor(id, LiveSensor.Kind.NOISE));
+        }
+        InetAddress local = InetAddress.getLoopbackAddress();
+        IngestionServer server = new IngestionServer(registry,
+                new InetSocketAddress(local, 0), null, 1 << 16);
+        server.start();
+
+        LoadGenerator generator = new LoadGenerator(
+                new InetSocketAddress(local, server.getTcpPort()),
+                CONNECTIONS, SENSORS, FRAMES_PER_CONNECTION,
+                READINGS_PER_FRAME);
+        long start = System.nanoTime();
+        long sent = generator.run();
+        while (server.getReadingsApplied() < sent) {
+            Thread.sleep(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        server.stop();
+
+        System.out.printf("readings %d in %.3f s: %.0f readings/s%n", sent,
+                seconds, sent / seconds);
+        System.out.printf("queue latency mean %.1f us, max %.1f us%n",
+                server.getMeanLatencyNanos() / 1e3,
+                server.getMaxLatencyNanos() / 1e3);
+        System.out.println("pauses " + server.getPauses() + ", accepted " +
+                server.getReadingsAccepted() + ", " + server);
+    }
+}
@@ -0,0 +1,174 @@
+package bms.benchmark;
+
+import bms.building.Building;
+import bms.exceptions.DuplicateFloorException;
+import bms.exceptions.DuplicateRoomException;
+import bms.exceptions.DuplicateSensorException;
+import bms.exceptions.FloorTooSmallException;
+import bms.exceptions.InsufficientSpaceException;
+import bms.exceptions.NoFloorBelowException;
+import bms.floor.Floor;
+import bms.query.RoomIndex;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+
+/**
+ * Compares RoomQuery against the hand-written traversal of floors, rooms
+ * and sensors on a building of 100,000 rooms.
+ */
+public class QueryBenchmark {
+    private static final int FLOORS = 100;
+    private static final int ROOMS_PER_FLOOR = 1000;
+    private static final int ITERATIONS = 200;
+
+    /**
+     * Builds a 100 floor building of 1000 rooms per floor. Every room has an
+     * occupancy sensor, and every fifth room a carbon dioxide sensor.
+     *
+     * @return populated building
+     */
+    static Building createBuilding() throws DuplicateFloorException,
+            NoFloorBelowException, FloorTooSmallException,
+            DuplicateRoomException, InsufficientSpaceException,
+            DuplicateSensorException {
+        Building building = new Building("Benchmark");
+        RoomType[] types = RoomType.values();
+        for (int f = 1; f <= FLOORS; f++) {
+            Floor floor = new Floor(f, 100, 100);
+            building.addFloor(floor);
+            for (int r = 0; r < ROOMS_PER_FLOOR; r++) {
+                // Laboratories are rare, as they are on a real campus
+                RoomType type = r % 50 == 0 ? RoomType.LABORATORY
+                        : types[1 + r % (types.length - 1)];
+                Room room = new Room(f * 10_000 + r, type, 10);
+                floor.addRoom(room);
+                room.addSensor(new OccupancySensor(
+                        new int[] {r % 10, r % 7}, 1, 8));
+                if (r % 5 == 0) {
+                    room.addSensor(new CarbonDioxideSensor(
+                            new int[] {600 + r * 10}, 1, 700, 150));
+                }
+            }
+        }
+        return building;
+    }
+
+    // "All LABORATORY rooms above floor 3 with CO2 hazard >= 50"
+    private static int naiveLaboratories(Building building) {
+        int count = 0;
+        for (Floor f : building.getFloors()) {
+            if (f.getFloorNumber() <= 3) {
+                continue;
+            }
+            for (Room r : f.getRooms()) {
+                if (r.getType() != RoomType.LABORATORY) {
+                    continue;
+                }
+                for (Sensor s : r.getSensors()) {
+                    if (s instanceof CarbonDioxideSensor &&
+                            ((CarbonDioxideSensor) s).getHazardLevel() >= 50) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // "Rooms over 80% occupancy"
+    private static int naiveOccupancy(Building building) {
+        int count = 0;
+        for (Floor f : building.getFloors()) {
+            for (Room r : f.getRooms()) {
+                for (Sensor s : r.getSensors()) {
+                    if (s instanceof OccupancySensor && s.getCurrentReading() >
+                            0.8 * ((OccupancySensor) s).getCapacity()) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void report(String name, long naiveNanos,
+                               long indexedNanos, long naiveCount,
+                               long indexedCount) {
+        System.out.printf("%-22s naive %9.3f ms  indexed %9.3f ms  "
+                        + "speedup %7.1fx  (results %d / %d)%n", name,
+                naiveNanos / 1e6 / ITERATIONS, indexedNanos / 1e6 / ITERATIONS,
+                (double) naiveNanos / indexedNanos, naiveCount, indexedCount);
+    }
+
+    /**
+     * Runs the benchmark and prints the average time per query.
+     *
+     * @param args command line arguments (ignored)
+     * @throws Exception if the benchmark building cannot be created
+     */
+    public static void main(String[] args) throws Exception {
+        Building building = createBuilding();
+        RoomIndex index = new RoomIndex(building);
+        System.out.println("Indexed rooms: " + index.size());
+
+        for (int warmup = 0; warmup < 50; warmup++) {
+            naiveLaboratories(building);
+            naiveOccupancy(building);
+            index.query().aboveFloor(3).ofType(RoomType.LABORATORY)
+                    .hazardAtLeast(CarbonDioxideSensor.class, 50).count();
+            index.query().occupancyAbove(0.8).count();
+        }
+
+        long naiveCount = 0;
+        long indexedCount = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            naiveCount = naiveLaboratories(building);
+        }
+        long naive = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            indexedCount = index.query().aboveFloor(3)
+                    .ofType(RoomType.LABORATORY)
+                    .hazardAtLeast(CarbonDioxideSensor.class, 50).count();
+        }
+        report("laboratories", naive, System.nanoTime() - start, naiveCount,
+                indexedCount);
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            naiveCount = naiveOccupancy(building);
+        }
+        naive = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            indexedCount = index.query().occupancyAbove(0.8).count();
+        }
+        report("occupancy over 80%", naive, System.nanoTime() - start,
+                naiveCount, indexedCount);
+
+        // Rooms keep being added to another building between queries,
+        // which must not cause this building's index to be rebuilt
+        Building other = new Building("Other");
+        Floor otherFloor = new Floor(1, 100, 100);
+        other.addFloor(otherFloor);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            otherFloor.addRoom(new Room(i, RoomType.OFFICE, 10));
+            naiveCount = naiveLaboratories(building);
+        }
+        naive = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            otherFloor.addRoom(new Room(ITERATIONS + i, RoomType.OFFICE, 10));
+            indexedCount = index.query().aboveFloor(3)
+                    .ofType(RoomType.LABORATORY)
+                    .hazardAtLeast(CarbonDioxideSensor.class, 50).count();
+        }
+        report("labs, other changing", naive, System.nanoTime() - start,
+                naiveCount, indexedCount);
+    }
+}
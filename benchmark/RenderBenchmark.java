@@ -0,0 +1,121 @@
+package bms.benchmark;
+
+import bms.building.Building;
+import bms.display.ReportRenderer;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+import bms.sensors.TimedSensor;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+
+/**
+ * Compares ReportRenderer with the string-building report that
+ * SimpleDisplay used to produce, on the 100,000-room building of
+ * QueryBenchmark, checking that both produce the same text.
+ */
+public class RenderBenchmark {
+    private static final int ITERATIONS = 10;
+
+    private static final DecimalFormat DECIMAL_FORMAT =
+            new DecimalFormat("0.00");
+
+    // The report as built by the original toString methods
+    private static void legacyReport(Building building, Writer out)
+            throws Exception {
+        out.write(building.toString() + System.lineSeparator());
+        for (Floor floor : building.getFloors()) {
+            out.write("\t" + "Floor #" + floor.getFloorNumber() + ": width=" +
+                    DECIMAL_FORMAT.format(floor.getWidth()) + "m," +
+                    " length=" + DECIMAL_FORMAT.format(floor.getLength()) +
+                    "m, rooms=" + floor.getRooms().size() +
+                    System.lineSeparator());
+            for (Room room : floor.getRooms()) {
+                out.write("\t\t" + "Room #" + room.getRoomNumber() +
+                        ": type=" + room.getType() + ", area=" +
+                        DECIMAL_FORMAT.format(room.getArea()) + "m^2, sensors=" +
+                        room.getSensors().size() + System.lineSeparator());
+                for (Sensor sensor : room.getSensors()) {
+                    out.write("\t\t\t" + legacySensor((TimedSensor) sensor) +
+                            System.lineSeparator());
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static String legacySensor(TimedSensor sensor) {
+        String converted = Arrays.toString(sensor.getSensorReadings());
+        // Removing square brackets at beginning and end
+        converted = converted.substring(1, converted.length() - 1);
+        // Removing white spaces
+        converted = converted.replaceAll("\\s+", "");
+        String suffix = "";
+        if (sensor instanceof CarbonDioxideSensor) {
+            CarbonDioxideSensor co2 = (CarbonDioxideSensor) sensor;
+            suffix = ", idealPPM=" + co2.getIdealValue() + ", varLimit=" +
+                    co2.getVariationLimit();
+        } else if (sensor instanceof OccupancySensor) {
+            suffix = ", capacity=" + ((OccupancySensor) sensor).getCapacity();
+        }
+        return "TimedSensor: freq=" + sensor.getUpdateFrequency() +
+                ", readings=" + converted + ", type=" +
+                sensor.getClass().getSimpleName() + suffix;
+    }
+
+    // Bytes allocated so far by the current thread
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs the benchmark and prints time and allocation per report.
+     *
+     * @param args command line arguments (ignored)
+     * @throws Exception if the benchmark building cannot be created
+     */
+    public static void main(String[] args) throws Exception {
+        Building building = QueryBenchmark.createBuilding();
+
+        StringWriter legacy = new StringWriter();
+        legacyReport(building, legacy);
+        StringWriter streamed = new StringWriter();
+        new ReportRenderer(streamed).renderBuilding(building);
+        System.out.println("identical output: " +
+                legacy.toString().equals(streamed.toString()) + " (" +
+                streamed.getBuffer().length() + " chars)");
+
+        Writer discard = Writer.nullWriter();
+        ReportRenderer renderer = new ReportRenderer(discard);
+        for (int i = 0; i < 3; i++) {
+            legacyReport(building, discard);
+            renderer.renderBuilding(building);
+        }
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            legacyReport(building, discard);
+        }
+        System.out.printf("legacy    %8.1f ms  %8.1f MB allocated%n",
+                (System.nanoTime() - start) / 1e6 / ITERATIONS,
+                (allocatedBytes() - bytes) / 1e6 / ITERATIONS);
+
+        bytes = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            renderer.renderBuilding(building);
+        }
+        System.out.printf("streaming %8.1f ms  %8.1f MB allocated%n",
+                (System.nanoTime() - start) / 1e6 / ITERATIONS,
+                (allocatedBytes() - bytes) / 1e6 / ITERATIONS);
+    }
+}
@@ -0,0 +1,54 @@
+package bms.benchmark;
+
+import bms.simulation.OfficeSurgeScenario;
+import bms.simulation.ScenarioRunner;
+import bms.simulation.ScenarioStatistics;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares running 2,000 office surge scenario runs on one thread with
+ * running them across all available cores.
+ */
+public class ScenarioBenchmark {
+    private static final int RUNS = 2_000;
+
+    /**
+     * Runs the benchmark and prints the time taken by each.
+     *
+     * @param args command line arguments (ignored)
+     */
+    public static void main(String[] args) {
+        OfficeSurgeScenario scenario = new OfficeSurgeScenario(5, 20, 0.1, 0.05);
+        ScenarioRunner runner = new ScenarioRunner(60, 80);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool all = new ForkJoinPool(cores);
+        ScenarioStatistics sequential;
+        ScenarioStatistics parallel;
+        long sequentialNanos;
+        long parallelNanos;
+        try {
+            // Warm up
+            runner.run(scenario, RUNS / 10, 0, single);
+
+            long start = System.nanoTime();
+            sequential = runner.run(scenario, RUNS, 1, single);
+            sequentialNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parallel = runner.run(scenario, RUNS, 1, all);
+            parallelNanos = System.nanoTime() - start;
+        } finally {
+            single.shutdown();
+            all.shutdown();
+        }
+
+        System.out.printf("1 thread: %.1f ms%n", sequentialNanos / 1e6);
+        System.out.printf("%d threads: %.1f ms%n", cores, parallelNanos / 1e6);
+        System.out.println(parallel);
+        System.out.println("Same results: "
+                + sequential.toString().equals(parallel.toString()));
+    }
+}
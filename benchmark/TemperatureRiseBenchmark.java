@@ -0,0 +1,61 @@
+package bms.benchmark;
+
+import bms.analytics.TemperatureRiseDetector;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.TemperatureSensor;
+
+/**
+ * Measures the cost of one TemperatureRiseDetector tick with 100,000
+ * temperature sensors, one in every hundred of which is heating up quickly.
+ */
+public class TemperatureRiseBenchmark {
+    private static final int SENSORS = 100_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    /**
+     * Runs the benchmark and prints the time per tick.
+     *
+     * @param args command line arguments (ignored)
+     */
+    public static void main(String[] args) {
+        int[] steady = {20, 21, 20, 21};
+        // Long enough that the heating sensors are still rising at the end
+        int[] heating = new int[WARMUP + ITERATIONS + 1];
+        for (int i = 0; i < heating.length; i++) {
+            heating[i] = 20 + 2 * i;
+        }
+
+        TemperatureRiseDetector detector =
+                new TemperatureRiseDetector(5, 8, 75, null);
+        TemperatureSensor[] sensors = new TemperatureSensor[SENSORS];
+        for (int i = 0; i < SENSORS; i++) {
+            sensors[i] = new TemperatureSensor(i % 100 == 0 ? heating : steady);
+            detector.addSensor(new Room(i, RoomType.OFFICE, 10), sensors[i]);
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            advance(sensors);
+            detector.elapseOneMinute();
+        }
+
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            advance(sensors);
+            long start = System.nanoTime();
+            detector.elapseOneMinute();
+            total += System.nanoTime() - start;
+        }
+        System.out.printf("%d sensors: %.3f ms per tick, %d rooms rising%n",
+                SENSORS, total / 1e6 / ITERATIONS,
+                detector.getRisingRooms().size());
+    }
+
+    // Moves the sensors on by a minute without ticking anything else
+    private static void advance(TemperatureSensor[] sensors) {
+        for (TemperatureSensor sensor : sensors) {
+            sensor.elapseOneMinute();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package bms.benchmark;
+
+import bms.control.VentilationController;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+
+/**
+ * Measures the cost of one VentilationController pass over 50,000 rooms,
+ * whose carbon dioxide readings drift up and down.
+ */
+public class VentilationBenchmark {
+    private static final int ROOMS = 50_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    /**
+     * Runs the benchmark and prints the time per pass.
+     *
+     * @param args command line arguments (ignored)
+     */
+    public static void main(String[] args) {
+        int[][] profiles = {
+                {500, 550, 600, 650},
+                {600, 700, 900, 1100, 900, 700},
+                {800, 800, 600, 400, 400}
+        };
+        long[] changes = new long[1];
+        VentilationController controller = new VentilationController(
+                (rooms, setpoints, count) -> changes[0] += count);
+        CarbonDioxideSensor[] sensors = new CarbonDioxideSensor[ROOMS];
+        for (int i = 0; i < ROOMS; i++) {
+            sensors[i] = new CarbonDioxideSensor(profiles[i % 3], 1, 600, 200);
+            controller.addRoom(new Room(i, RoomType.OFFICE, 10), sensors[i]);
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            advance(sensors);
+            controller.controlPass();
+        }
+
+        changes[0] = 0;
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            advance(sensors);
+            long start = System.nanoTime();
+            controller.controlPass();
+            total += System.nanoTime() - start;
+        }
+        System.out.printf("%d rooms: %.3f ms per pass, %.0f setpoint "
+                        + "changes per pass%n", ROOMS,
+                total / 1e6 / ITERATIONS, changes[0] / (double) ITERATIONS);
+    }
+
+    // Moves the sensors on by a minute without ticking anything else
+    private static void advance(CarbonDioxideSensor[] sensors) {
+        for (CarbonDioxideSensor sensor : sensors) {
+            sensor.elapseOneMinute();
+        }
+    }
+}
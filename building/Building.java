@@ -5,10 +5,27 @@ import bms.exceptions.FireDrillException;
 import bms.exceptions.FloorTooSmallException;
 import bms.exceptions.NoFloorBelowException;
 import bms.floor.Floor;
+import bms.room.Room;
 import bms.room.RoomType;
 import bms.util.FireDrill;
+import bms.util.FireDrillActuator;
+import bms.util.ModelCounters;
+import bms.util.Renderable;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Represents a building of floors, which in turn, contain rooms.
@@ -16,11 +33,25 @@ import java.util.List;
  * building.
  * A building can be evacuated, which causes all rooms on all floors within
  * the building to be evacuated.
+ *
+ * A building is safe to share between threads. The list of floors is kept as
+ * an immutable snapshot which is replaced (copy-on-write) whenever a floor is
+ * added, so readers never block and always iterate a consistent set of
+ * floors, while structural changes are serialised on the building.
  */
-public class Building implements FireDrill {
+public class Building implements FireDrill, Renderable {
+    // Outcomes of a room in an asynchronous fire drill
+    private static final int PENDING = 0;
+    private static final int ACKNOWLEDGED = 1;
+    private static final int ACKNOWLEDGED_LATE = 2;
+    private static final int FAILED = 3;
+
     String name;
-    // The list of floors in building
-    private List<Floor> floorList;
+    // Immutable snapshot of the floors in building, replaced on every change
+    private volatile List<Floor> floorList;
+
+    // Running totals of everything in the building
+    private final ModelCounters counters = new ModelCounters();
 
     /**
      * Creates a new empty building with no rooms.
@@ -29,7 +60,7 @@ public class Building implements FireDrill {
      */
     public Building(String name){
         this.name = name;
-        this.floorList = new ArrayList<>();
+        this.floorList = Collections.emptyList();
     }
 
     /**
@@ -41,6 +72,17 @@ public class Building implements FireDrill {
         return this.name;
     }
 
+    /**
+     * Returns the running totals of the floors, rooms, sensors, fire drills
+     * and hazard bands in this building, which are kept up to date as the
+     * building changes.
+     *
+     * @return counters of this building
+     */
+    public ModelCounters getCounters(){
+        return this.counters;
+    }
+
     /**
      *Returns a new list containing all the floors in this building.
      * Adding or removing floors from this list should not affect the
@@ -49,7 +91,7 @@ public class Building implements FireDrill {
      * @return new list containing all floors in the building
      */
     public List<Floor> getFloors(){
-        return this.floorList;
+        return new ArrayList<>(this.floorList);
     }
 
     /**
@@ -87,7 +129,7 @@ public class Building implements FireDrill {
      * @throws FloorTooSmallException if this is at level 2 or above
      * and the floor below is not big enough to support this new floor
      */
-    public void addFloor(Floor newFloor)throws IllegalArgumentException,
+    public synchronized void addFloor(Floor newFloor)throws IllegalArgumentException,
             DuplicateFloorException, NoFloorBelowException,
             FloorTooSmallException {
         if (newFloor.getFloorNumber() <= 0 ||
@@ -109,17 +151,88 @@ public class Building implements FireDrill {
                 throw new DuplicateFloorException();
             }
         }
-        this.floorList.add(newFloor);
+        List<Floor> updatedFloors = new ArrayList<>(this.floorList);
+        updatedFloors.add(newFloor);
+        this.floorList = Collections.unmodifiableList(updatedFloors);
+        newFloor.attachCounters(this.counters);
+        this.counters.incrementStructureVersion();
+    }
+
+    /**
+     * Brings this building into line with a new definition of it without
+     * rebuilding it, for changing the building while it is running.
+     *
+     * Floors are matched by floor number, rooms by room number and sensors
+     * by type. Sensors whose definition is unchanged keep running where
+     * they are in their readings, and rooms that are kept, or replaced
+     * because their type or area changed, keep their fire drill state.
+     * Everything new is taken from the definition, whose sensors stop being
+     * ticked unless adopted; the definition should not be used afterwards.
+     * Sensors are deregistered from TimedItemManager.getInstance(), so a
+     * building running in a SimulationContext should be reloaded with that
+     * context bound. Once the reload is applied, every listener of a sensor
+     * taken out of the building is removed and told through
+     * SensorListener.sensorRetired(Sensor).
+     *
+     * Only the floors, rooms and sensors that changed are touched, in place.
+     * Each floor's rooms, each room's sensors and the list of floors are
+     * replaced in a single step, so a reader never sees one of them half
+     * updated, but a reader walking the building while it is reloaded may
+     * see some floors or rooms already updated and others not yet. Each
+     * step bumps the structure version, so a reader that caches by it sees
+     * a new version once the reload is complete.
+     *
+     * @param definition new definition of the building
+     * @return summary of the changes made
+     */
+    public synchronized BuildingDiff reload(Building definition){
+        return reload(new BuildingReloader(this.counters,
+                definition.getFloors(), false));
+    }
+
+    /**
+     * Brings only the given floors of this building into line with new
+     * definitions of them, as reload(Building) does for the whole building.
+     * Floors are matched by floor number; floors of this building that are
+     * not given are left as they are, and floors with new numbers are added
+     * after the others.
+     *
+     * @param definitions new definitions of the floors to reload, not part
+     * of any building
+     * @return summary of the changes made
+     * @throws IllegalArgumentException if two of the floors have the same
+     * number
+     */
+    public synchronized BuildingDiff reloadFloors(List<Floor> definitions){
+        Set<Integer> numbers = new HashSet<>();
+        for (Floor floor : definitions){
+            if (!numbers.add(floor.getFloorNumber())){
+                throw new IllegalArgumentException();
+            }
+        }
+        return reload(new BuildingReloader(this.counters,
+                new ArrayList<>(definitions), true));
+    }
+
+    private BuildingDiff reload(BuildingReloader reloader){
+        List<Floor> floors = reloader.reload(this.floorList);
+        if (floors != this.floorList){
+            this.floorList = Collections.unmodifiableList(floors);
+            this.counters.incrementStructureVersion();
+        }
+        return reloader.getDiff();
     }
 
     @Override
     public void fireDrill(RoomType roomType) throws FireDrillException {
+        // Work on one snapshot so concurrent additions are not half-visited
+        List<Floor> floors = this.floorList;
         // No floor in building
-        if (this.floorList.size() == 0){
+        if (floors.size() == 0){
             throw new FireDrillException();
         }
         // No room on floor
-        for (Floor f: this.floorList){
+        for (Floor f: floors){
             if (f.getRooms().size() == 0){
                 throw new FireDrillException();
             }
@@ -127,6 +240,129 @@ public class Building implements FireDrill {
         }
     }
 
+    /**
+     * Starts a fire drill on every floor in parallel, using the rooms' own
+     * fire drill flags as the actuators and the common fork-join pool.
+     *
+     * @param roomType type of room, or null for all rooms
+     * @param deadline time allowed for each room to acknowledge the alarm
+     * @return future completing with the report once every room has
+     * responded, or at the deadline
+     * @throws FireDrillException if there are no floors, or a floor has no
+     * rooms
+     * @see #fireDrillAsync(RoomType, Duration, FireDrillActuator, Executor)
+     */
+    public CompletableFuture<FireDrillReport> fireDrillAsync(
+            RoomType roomType, Duration deadline) throws FireDrillException {
+        return fireDrillAsync(roomType, deadline, FireDrillActuator.LOCAL,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts a fire drill on every floor in parallel.
+     * Each floor is handled by its own task on the given executor, which
+     * raises the alarm in each targeted room of that floor through the
+     * actuator. A slow floor therefore no longer delays the floors above it.
+     *
+     * The returned future completes once every targeted room has responded,
+     * or when the deadline (measured from the start of the drill) passes,
+     * whichever is sooner. Its report gives the latency of each floor whose
+     * rooms had all responded by then, and lists each room that acknowledged
+     * later than the deadline, had not acknowledged by the deadline, or whose
+     * actuator failed. Floors still running at the deadline carry on raising
+     * the alarm, but are no longer reported on.
+     *
+     * @param roomType type of room, or null for all rooms
+     * @param deadline time allowed for each room to acknowledge the alarm
+     * @param actuator raises the alarm in a single room
+     * @param executor runs the per-floor tasks
+     * @return future completing with the report once every room has
+     * responded, or at the deadline
+     * @throws FireDrillException if there are no floors, or a floor has no
+     * rooms
+     */
+    public CompletableFuture<FireDrillReport> fireDrillAsync(
+            RoomType roomType, Duration deadline, FireDrillActuator actuator,
+            Executor executor) throws FireDrillException {
+        List<Floor> floors = this.floorList;
+        // Same preconditions as fireDrill, checked before anything starts
+        if (floors.size() == 0){
+            throw new FireDrillException();
+        }
+        for (Floor f: floors){
+            if (f.getRooms().size() == 0){
+                throw new FireDrillException();
+            }
+        }
+
+        // Targeted rooms, grouped by floor from floorStart[i] onwards
+        List<Room> targets = new ArrayList<>();
+        int[] floorStart = new int[floors.size() + 1];
+        for (int i = 0; i < floors.size(); i++){
+            floorStart[i] = targets.size();
+            for (Room r: floors.get(i).getRooms()){
+                if (roomType == null || roomType == r.getType()){
+                    targets.add(r);
+                }
+            }
+        }
+        floorStart[floors.size()] = targets.size();
+
+        long start = System.nanoTime();
+        long deadlineNanos = deadline.toNanos();
+        Map<Integer, Duration> latencies = new ConcurrentHashMap<>();
+        // Outcome of each targeted room, indexed as in targets
+        AtomicIntegerArray outcomes = new AtomicIntegerArray(targets.size());
+
+        CompletableFuture<?>[] floorDrills =
+                new CompletableFuture<?>[floors.size()];
+        for (int i = 0; i < floors.size(); i++){
+            Floor floor = floors.get(i);
+            int from = floorStart[i];
+            int to = floorStart[i + 1];
+            floorDrills[i] = CompletableFuture.runAsync(() -> {
+                for (int t = from; t < to; t++){
+                    int outcome;
+                    try {
+                        actuator.activate(targets.get(t));
+                        outcome = System.nanoTime() - start > deadlineNanos
+                                ? ACKNOWLEDGED_LATE : ACKNOWLEDGED;
+                    } catch (RuntimeException e){
+                        // An actuator failure counts as a missed room
+                        outcome = FAILED;
+                    }
+                    outcomes.set(t, outcome);
+                }
+                latencies.put(floor.getFloorNumber(),
+                        Duration.ofNanos(System.nanoTime() - start));
+            }, executor);
+        }
+
+        long remaining = deadlineNanos - (System.nanoTime() - start);
+        return CompletableFuture.allOf(floorDrills)
+                .completeOnTimeout(null, Math.max(0, remaining),
+                        TimeUnit.NANOSECONDS)
+                .thenApply(done -> {
+                    Duration total = Duration.ofNanos(System.nanoTime() - start);
+                    // Latencies first, so that no floor is reported complete
+                    // with a room that was read as pending
+                    Map<Integer, Duration> finished = new HashMap<>(latencies);
+                    List<Room> missed = new ArrayList<>();
+                    int acknowledged = 0;
+                    for (int t = 0; t < targets.size(); t++){
+                        int outcome = outcomes.get(t);
+                        if (outcome != PENDING && outcome != FAILED){
+                            acknowledged++;
+                        }
+                        if (outcome != ACKNOWLEDGED){
+                            missed.add(targets.get(t));
+                        }
+                    }
+                    return new FireDrillReport(finished, missed, acknowledged,
+                            total, deadline);
+                });
+    }
+
     /**
      * public void cancelFireDrill()
      * Cancels any ongoing fire drill in the building.
@@ -138,9 +374,48 @@ public class Building implements FireDrill {
         }
     }
 
+    /**
+     * Returns the number of rooms in the building with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    public int countRoomsInFireDrill(){
+        int count = 0;
+        for (Floor f: this.floorList){
+            count += f.countRoomsInFireDrill();
+        }
+        return count;
+    }
+
+    /**
+     * Returns every room in the building which has a fire drill ongoing and
+     * is currently occupied, according to its occupancy sensor.
+     *
+     * @return new list of occupied rooms in fire drill, ordered by floor
+     */
+    public List<Room> getOccupiedRoomsInFireDrill(){
+        List<Room> rooms = new ArrayList<>();
+        for (Floor f: this.floorList){
+            BitSet slots = f.getFireDrillSlots();
+            if (slots.isEmpty()){
+                continue;
+            }
+            slots.and(f.getOccupiedSlots());
+            rooms.addAll(f.getRoomsInSlots(slots));
+        }
+        return rooms;
+    }
+
+    @Override
+    public void appendTo(StringBuilder builder){
+        builder.append("Building: name=\"").append(this.name)
+                .append("\", floors=").append(this.floorList.size());
+    }
+
     @Override
     public String toString(){
-        return "Building: name=" + "\"" + this.name + "\"" + ", floors=" +
-                this.floorList.size();
+        StringBuilder builder = new StringBuilder(64);
+        appendTo(builder);
+        return builder.toString();
     }
 }
@@ -0,0 +1,127 @@
+package bms.building;
+
+/**
+ * Summary of the structural changes made by reloading a building, see
+ * Building.reload(Building).
+ *
+ * A sensor whose definition changed counts as one removed and one added; a
+ * room whose type or area changed counts as replaced.
+ */
+public final class BuildingDiff {
+    private final int floorsAdded;
+    private final int floorsRemoved;
+    private final int floorsChanged;
+    private final int roomsAdded;
+    private final int roomsRemoved;
+    private final int roomsReplaced;
+    private final int sensorsAdded;
+    private final int sensorsRemoved;
+
+    BuildingDiff(int floorsAdded, int floorsRemoved, int floorsChanged,
+                 int roomsAdded, int roomsRemoved, int roomsReplaced,
+                 int sensorsAdded, int sensorsRemoved) {
+        this.floorsAdded = floorsAdded;
+        this.floorsRemoved = floorsRemoved;
+        this.floorsChanged = floorsChanged;
+        this.roomsAdded = roomsAdded;
+        this.roomsRemoved = roomsRemoved;
+        this.roomsReplaced = roomsReplaced;
+        this.sensorsAdded = sensorsAdded;
+        this.sensorsRemoved = sensorsRemoved;
+    }
+
+    /**
+     * Returns the number of floors added.
+     *
+     * @return floors added
+     */
+    public int getFloorsAdded() {
+        return this.floorsAdded;
+    }
+
+    /**
+     * Returns the number of floors removed.
+     *
+     * @return floors removed
+     */
+    public int getFloorsRemoved() {
+        return this.floorsRemoved;
+    }
+
+    /**
+     * Returns the number of floors kept whose size or set of rooms changed.
+     *
+     * @return floors changed
+     */
+    public int getFloorsChanged() {
+        return this.floorsChanged;
+    }
+
+    /**
+     * Returns the number of rooms added to floors that were kept.
+     *
+     * @return rooms added
+     */
+    public int getRoomsAdded() {
+        return this.roomsAdded;
+    }
+
+    /**
+     * Returns the number of rooms removed from floors that were kept.
+     *
+     * @return rooms removed
+     */
+    public int getRoomsRemoved() {
+        return this.roomsRemoved;
+    }
+
+    /**
+     * Returns the number of rooms replaced because their type or area
+     * changed.
+     *
+     * @return rooms replaced
+     */
+    public int getRoomsReplaced() {
+        return this.roomsReplaced;
+    }
+
+    /**
+     * Returns the number of sensors added to rooms that were kept or
+     * replaced.
+     *
+     * @return sensors added
+     */
+    public int getSensorsAdded() {
+        return this.sensorsAdded;
+    }
+
+    /**
+     * Returns the number of sensors removed from rooms that were kept or
+     * replaced.
+     *
+     * @return sensors removed
+     */
+    public int getSensorsRemoved() {
+        return this.sensorsRemoved;
+    }
+
+    /**
+     * Returns whether the reload changed nothing.
+     *
+     * @return true if the building was already up to date
+     */
+    public boolean isEmpty() {
+        return this.floorsAdded == 0 && this.floorsRemoved == 0
+                && this.floorsChanged == 0 && this.roomsReplaced == 0
+                && this.sensorsAdded == 0 && this.sensorsRemoved == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BuildingDiff: floors +" + this.floorsAdded + " -"
+                + this.floorsRemoved + " ~" + this.floorsChanged + ", rooms +"
+                + this.roomsAdded + " -" + this.roomsRemoved + " ~"
+                + this.roomsReplaced + ", sensors +" + this.sensorsAdded
+                + " -" + this.sensorsRemoved;
+    }
+}
@@ -0,0 +1,292 @@
+package bms.building;
+
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.ObservableSensor;
+import bms.sensors.Sensor;
+import bms.sensors.TimedSensor;
+import bms.util.ModelCounters;
+import bms.util.TimedItem;
+import bms.util.TimedItemManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out the structural differences between a live building and a new
+ * definition of it, or of some of its floors, and applies them to the live
+ * building, for Building.reload(Building) and Building.reloadFloors(List).
+ *
+ * Floors are matched by floor number, rooms by room number and sensors by
+ * type. Anything that matches and has the same definition is kept as it
+ * is, so running sensors keep their place in their readings and rooms keep
+ * their fire drill state; everything else is taken from the definition.
+ * Floors and rooms with nothing changed are not copied or touched.
+ *
+ * Sensors leaving the live building, and sensors of the definition that
+ * are not adopted, are deregistered together once everything is applied.
+ * The listeners of the sensors that left are then told they were retired.
+ */
+final class BuildingReloader {
+    private final ModelCounters counters;
+    private final List<Floor> definitionFloors;
+    private final boolean keepOtherFloors;
+    private final TimedItemManager manager = TimedItemManager.getInstance();
+
+    // Sensors of the definition moved into the live building
+    private final Set<Sensor> adopted =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Sensors of the live building taken out of it
+    private final List<Sensor> retired = new ArrayList<>();
+
+    private int floorsAdded;
+    private int floorsRemoved;
+    private int floorsChanged;
+    private int roomsAdded;
+    private int roomsRemoved;
+    private int roomsReplaced;
+    private int sensorsAdded;
+    private int sensorsRemoved;
+
+    /**
+     * Creates a reloader for the given floors of a definition.
+     *
+     * @param counters counters of the live building
+     * @param definitionFloors floors of the definition, each with a
+     * different floor number
+     * @param keepOtherFloors true to keep live floors that are not in the
+     * definition; false to remove them
+     */
+    BuildingReloader(ModelCounters counters, List<Floor> definitionFloors,
+                     boolean keepOtherFloors) {
+        this.counters = counters;
+        this.definitionFloors = definitionFloors;
+        this.keepOtherFloors = keepOtherFloors;
+    }
+
+    /**
+     * Brings the given live floors into line with the definition. Floors
+     * keep their order; floors new in the definition are added after them.
+     *
+     * @param liveFloors floors of the live building
+     * @return floors the live building should now have; liveFloors itself if
+     * the list of floors is unchanged
+     */
+    List<Floor> reload(List<Floor> liveFloors) {
+        // Definition sensors are registered as timed items when created, so
+        // any not adopted must be deregistered once done
+        List<Sensor> definitionSensors = sensorsOf(this.definitionFloors);
+
+        Map<Integer, Floor> defined = new LinkedHashMap<>();
+        for (Floor floor : this.definitionFloors) {
+            defined.put(floor.getFloorNumber(), floor);
+        }
+        List<Floor> result = new ArrayList<>();
+        boolean floorsReplaced = false;
+        for (Floor liveFloor : liveFloors) {
+            Floor floor = defined.remove(liveFloor.getFloorNumber());
+            if (floor != null) {
+                Floor reloaded = reloadFloor(liveFloor, floor);
+                result.add(reloaded);
+                floorsReplaced |= reloaded != liveFloor;
+            } else if (this.keepOtherFloors) {
+                result.add(liveFloor);
+            } else {
+                liveFloor.detachCounters();
+                this.retired.addAll(sensorsOf(List.of(liveFloor)));
+                this.floorsRemoved++;
+                floorsReplaced = true;
+            }
+        }
+        for (Floor floor : defined.values()) {
+            adoptFloor(floor);
+            result.add(floor);
+            this.floorsAdded++;
+            floorsReplaced = true;
+        }
+
+        List<TimedItem> stopped = new ArrayList<>();
+        for (Sensor sensor : this.retired) {
+            if (sensor instanceof TimedItem) {
+                stopped.add((TimedItem) sensor);
+            }
+        }
+        for (Sensor sensor : definitionSensors) {
+            if (!this.adopted.contains(sensor) && sensor instanceof TimedItem) {
+                stopped.add((TimedItem) sensor);
+            }
+        }
+        this.manager.deregisterTimedItems(stopped);
+        for (Sensor sensor : this.retired) {
+            if (sensor instanceof ObservableSensor) {
+                ((ObservableSensor) sensor).retire();
+            }
+        }
+        return floorsReplaced ? result : liveFloors;
+    }
+
+    BuildingDiff getDiff() {
+        return new BuildingDiff(this.floorsAdded, this.floorsRemoved,
+                this.floorsChanged, this.roomsAdded, this.roomsRemoved,
+                this.roomsReplaced, this.sensorsAdded, this.sensorsRemoved);
+    }
+
+    // Brings one live floor into line with its definition; returns the floor
+    // the live building should now have in its place
+    private Floor reloadFloor(Floor liveFloor, Floor floor) {
+        if (liveFloor.getWidth() != floor.getWidth()
+                || liveFloor.getLength() != floor.getLength()) {
+            replaceFloor(liveFloor, floor);
+            this.floorsChanged++;
+            return floor;
+        }
+        List<Room> rooms = mergeRooms(liveFloor, floor);
+        if (rooms != null) {
+            liveFloor.setRooms(rooms);
+            this.floorsChanged++;
+        }
+        return liveFloor;
+    }
+
+    // Takes a whole floor of the definition into the live building
+    private void adoptFloor(Floor floor) {
+        floor.detachCounters();
+        for (Sensor sensor : sensorsOf(List.of(floor))) {
+            this.adopted.add(sensor);
+        }
+        floor.attachCounters(this.counters);
+    }
+
+    // Replaces a live floor whose size changed with the definition's floor,
+    // moving the rooms that are kept onto it
+    private void replaceFloor(Floor liveFloor, Floor floor) {
+        List<Room> rooms = mergeRooms(liveFloor, floor);
+        if (rooms == null) {
+            rooms = liveFloor.getRooms();
+        }
+        liveFloor.detachCounters();
+        floor.detachCounters();
+        floor.setRooms(rooms);
+        floor.attachCounters(this.counters);
+    }
+
+    /**
+     * Works out the rooms a live floor should have, updating the sensors of
+     * rooms that are kept.
+     *
+     * @return new list of rooms; null if the floor keeps the same rooms
+     */
+    private List<Room> mergeRooms(Floor liveFloor, Floor floor) {
+        Map<Integer, Room> live = new LinkedHashMap<>();
+        for (Room room : liveFloor.getRooms()) {
+            live.put(room.getRoomNumber(), room);
+        }
+        List<Room> result = new ArrayList<>();
+        boolean changed = false;
+        for (Room room : floor.getRooms()) {
+            Room liveRoom = live.remove(room.getRoomNumber());
+            if (liveRoom == null) {
+                room.detachCounters();
+                for (Sensor sensor : room.getSensors()) {
+                    this.adopted.add(sensor);
+                }
+                result.add(room);
+                this.roomsAdded++;
+                changed = true;
+            } else if (liveRoom.getType() != room.getType()
+                    || liveRoom.getArea() != room.getArea()) {
+                room.detachCounters();
+                room.setSensors(mergeSensors(liveRoom.getSensors(),
+                        room.getSensors()));
+                room.setFireDrill(liveRoom.fireDrillOngoing());
+                result.add(room);
+                this.roomsReplaced++;
+                changed = true;
+            } else {
+                List<Sensor> current = liveRoom.getSensors();
+                List<Sensor> sensors = mergeSensors(current, room.getSensors());
+                if (!sameInstances(current, sensors)) {
+                    liveRoom.setSensors(sensors);
+                }
+                result.add(liveRoom);
+            }
+        }
+        for (Room room : live.values()) {
+            this.retired.addAll(room.getSensors());
+            this.roomsRemoved++;
+            changed = true;
+        }
+        return changed ? result : null;
+    }
+
+    /**
+     * Works out the sensors a room should have: each live sensor whose type
+     * and definition match a sensor of the definition is kept, and every
+     * other sensor of the definition is adopted.
+     */
+    private List<Sensor> mergeSensors(List<Sensor> liveSensors,
+                                      List<Sensor> sensors) {
+        Map<String, Sensor> live = new HashMap<>();
+        for (Sensor sensor : liveSensors) {
+            live.put(sensor.getClass().getSimpleName(), sensor);
+        }
+        List<Sensor> result = new ArrayList<>(sensors.size());
+        for (Sensor sensor : sensors) {
+            Sensor liveSensor = live.remove(sensor.getClass().getSimpleName());
+            if (liveSensor != null && sameDefinition(liveSensor, sensor)) {
+                result.add(liveSensor);
+                continue;
+            }
+            if (liveSensor != null) {
+                this.retired.add(liveSensor);
+                this.sensorsRemoved++;
+            }
+            this.adopted.add(sensor);
+            this.sensorsAdded++;
+            result.add(sensor);
+        }
+        for (Sensor sensor : live.values()) {
+            this.retired.add(sensor);
+            this.sensorsRemoved++;
+        }
+        return result;
+    }
+
+    private static boolean sameDefinition(Sensor live, Sensor sensor) {
+        if (live == sensor) {
+            return true;
+        }
+        return live instanceof TimedSensor && sensor instanceof TimedSensor
+                && ((TimedSensor) live).hasSameDefinition((TimedSensor) sensor);
+    }
+
+    private static boolean sameInstances(List<Sensor> first,
+                                         List<Sensor> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (first.get(i) != second.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Sensor> sensorsOf(List<Floor> floors) {
+        List<Sensor> sensors = new ArrayList<>();
+        for (Floor floor : floors) {
+            for (Room room : floor.getRooms()) {
+                sensors.addAll(room.getSensors());
+            }
+        }
+        return sensors;
+    }
+}
@@ -0,0 +1,193 @@
+package bms.building;
+
+import bms.exceptions.DuplicateBuildingException;
+import bms.exceptions.FireDrillException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.util.FireDrill;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Represents a campus made up of many buildings.
+ * Buildings are indexed by name, so they can be looked up without searching.
+ *
+ * Campus-wide operations (fire drills, hazard sweeps and statistics) are run
+ * on a work-stealing fork-join pool, one task per building. Each building's
+ * result is computed independently and the results are combined by the
+ * stream reduction, so the buildings never contend on shared state.
+ */
+public class Campus implements FireDrill {
+    private final String name;
+
+    // Buildings in this campus, indexed and ordered by name
+    private final Map<String, Building> buildings =
+            new ConcurrentSkipListMap<>();
+
+    // Pool used to run campus-wide operations
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new empty campus which runs its operations on the common
+     * fork-join pool.
+     *
+     * @param name name of this campus
+     */
+    public Campus(String name) {
+        this(name, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new empty campus which runs its operations on the given
+     * fork-join pool.
+     *
+     * @param name name of this campus
+     * @param pool pool used for campus-wide operations
+     */
+    public Campus(String name, ForkJoinPool pool) {
+        this.name = name;
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Returns the name of the campus.
+     *
+     * @return name of this campus
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Adds a building to the campus.
+     *
+     * @param building building to add
+     * @throws DuplicateBuildingException if the campus already has a building
+     * with the same name
+     */
+    public void addBuilding(Building building)
+            throws DuplicateBuildingException {
+        if (this.buildings.putIfAbsent(building.getName(), building) != null) {
+            throw new DuplicateBuildingException();
+        }
+    }
+
+    /**
+     * Returns the building with the given name.
+     *
+     * @param buildingName name of the building to look up
+     * @return building with the given name if found; null if not found
+     */
+    public Building getBuildingByName(String buildingName) {
+        return this.buildings.get(buildingName);
+    }
+
+    /**
+     * Returns a new list containing all the buildings of the campus, ordered
+     * by name.
+     *
+     * @return new list containing all buildings
+     */
+    public List<Building> getBuildings() {
+        return new ArrayList<>(this.buildings.values());
+    }
+
+    /**
+     * Carries out a fire drill in every building of the campus in parallel.
+     * Every building is drilled even if some of them fail.
+     *
+     * @param roomType type of room, or null for all rooms
+     * @throws FireDrillException if the campus has no buildings, or the drill
+     * could not be started in at least one building (see
+     * Building.fireDrill(RoomType))
+     */
+    @Override
+    public void fireDrill(RoomType roomType) throws FireDrillException {
+        if (this.buildings.isEmpty()) {
+            throw new FireDrillException();
+        }
+        List<String> failed = this.pool.submit(() ->
+                this.buildings.values().parallelStream()
+                        .filter(b -> !tryFireDrill(b, roomType))
+                        .map(Building::getName)
+                        .collect(Collectors.toList())).join();
+        if (!failed.isEmpty()) {
+            throw new FireDrillException("Fire drill failed in " + failed);
+        }
+    }
+
+    /**
+     * Cancels any ongoing fire drill in every building of the campus.
+     */
+    public void cancelFireDrill() {
+        this.pool.submit(() -> this.buildings.values().parallelStream()
+                .forEach(Building::cancelFireDrill)).join();
+    }
+
+    /**
+     * Finds every room on the campus in which at least one hazard sensor
+     * reports a hazard level of at least the given threshold.
+     *
+     * @param threshold minimum hazard level, 0 to 100
+     * @return rooms at or above the threshold, keyed by building name; only
+     * buildings with at least one such room are included
+     */
+    public Map<String, List<Room>> hazardSweep(int threshold) {
+        return this.pool.submit(() -> this.buildings.values().parallelStream()
+                .map(b -> Map.entry(b.getName(), hazardousRooms(b, threshold)))
+                .filter(e -> !e.getValue().isEmpty())
+                .collect(Collectors.toMap(Map.Entry::getKey,
+                        Map.Entry::getValue, (a, b) -> a,
+                        ConcurrentSkipListMap::new))).join();
+    }
+
+    /**
+     * Computes the combined statistics of all the buildings of the campus.
+     *
+     * @return campus-wide statistics
+     */
+    public CampusStatistics getStatistics() {
+        return this.pool.submit(() -> this.buildings.values().parallelStream()
+                .map(CampusStatistics::of)
+                .reduce(CampusStatistics.empty(), CampusStatistics::merge))
+                .join();
+    }
+
+    // Drills one building, reporting failure instead of throwing
+    private static boolean tryFireDrill(Building building, RoomType roomType) {
+        try {
+            building.fireDrill(roomType);
+            return true;
+        } catch (FireDrillException e) {
+            return false;
+        }
+    }
+
+    // Rooms of one building with a hazard at or above the threshold
+    private static List<Room> hazardousRooms(Building building,
+                                             int threshold) {
+        List<Room> rooms = new ArrayList<>();
+        for (Floor f : building.getFloors()) {
+            for (Room r : f.getRooms()) {
+                if (r.getMaxHazardLevel() >= threshold) {
+                    rooms.add(r);
+                }
+            }
+        }
+        return rooms.isEmpty() ? Collections.emptyList() : rooms;
+    }
+
+    @Override
+    public String toString() {
+        return "Campus: name=\"" + this.name + "\", buildings=" +
+                this.buildings.size();
+    }
+}
@@ -0,0 +1,150 @@
+package bms.building;
+
+import bms.floor.Floor;
+import bms.room.Room;
+
+/**
+ * Immutable summary of the size and hazard state of one or more buildings.
+ * Statistics of separate buildings are computed independently and then
+ * combined with merge(CampusStatistics), so they can be gathered in
+ * parallel without any shared counters.
+ */
+public class CampusStatistics {
+    private final int buildings;
+    private final int floors;
+    private final int rooms;
+    private final int sensors;
+    private final int roomsInFireDrill;
+    private final int maxHazardLevel;
+
+    /**
+     * Creates a new set of statistics.
+     *
+     * @param buildings number of buildings
+     * @param floors number of floors
+     * @param rooms number of rooms
+     * @param sensors number of sensors
+     * @param roomsInFireDrill number of rooms with a fire drill ongoing
+     * @param maxHazardLevel highest hazard level of any hazard sensor
+     */
+    public CampusStatistics(int buildings, int floors, int rooms, int sensors,
+                            int roomsInFireDrill, int maxHazardLevel) {
+        this.buildings = buildings;
+        this.floors = floors;
+        this.rooms = rooms;
+        this.sensors = sensors;
+        this.roomsInFireDrill = roomsInFireDrill;
+        this.maxHazardLevel = maxHazardLevel;
+    }
+
+    /**
+     * Returns statistics covering no buildings.
+     *
+     * @return empty statistics
+     */
+    public static CampusStatistics empty() {
+        return new CampusStatistics(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Computes the statistics of a single building.
+     *
+     * @param building building to summarise
+     * @return statistics of the building
+     */
+    public static CampusStatistics of(Building building) {
+        int floors = 0;
+        int rooms = 0;
+        int sensors = 0;
+        int roomsInFireDrill = 0;
+        int maxHazardLevel = 0;
+        for (Floor f : building.getFloors()) {
+            floors++;
+            roomsInFireDrill += f.countRoomsInFireDrill();
+            for (Room r : f.getRooms()) {
+                rooms++;
+                sensors += r.getSensors().size();
+                maxHazardLevel = Math.max(maxHazardLevel,
+                        r.getMaxHazardLevel());
+            }
+        }
+        return new CampusStatistics(1, floors, rooms, sensors,
+                roomsInFireDrill, maxHazardLevel);
+    }
+
+    /**
+     * Combines these statistics with those of other buildings.
+     *
+     * @param other statistics to combine with
+     * @return new statistics covering both sets of buildings
+     */
+    public CampusStatistics merge(CampusStatistics other) {
+        return new CampusStatistics(this.buildings + other.buildings,
+                this.floors + other.floors, this.rooms + other.rooms,
+                this.sensors + other.sensors,
+                this.roomsInFireDrill + other.roomsInFireDrill,
+                Math.max(this.maxHazardLevel, other.maxHazardLevel));
+    }
+
+    /**
+     * Returns the number of buildings covered.
+     *
+     * @return number of buildings
+     */
+    public int getBuildings() {
+        return this.buildings;
+    }
+
+    /**
+     * Returns the total number of floors.
+     *
+     * @return number of floors
+     */
+    public int getFloors() {
+        return this.floors;
+    }
+
+    /**
+     * Returns the total number of rooms.
+     *
+     * @return number of rooms
+     */
+    public int getRooms() {
+        return this.rooms;
+    }
+
+    /**
+     * Returns the total number of sensors.
+     *
+     * @return number of sensors
+     */
+    public int getSensors() {
+        return this.sensors;
+    }
+
+    /**
+     * Returns the total number of rooms with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    public int getRoomsInFireDrill() {
+        return this.roomsInFireDrill;
+    }
+
+    /**
+     * Returns the highest current hazard level of any hazard sensor.
+     *
+     * @return maximum hazard level, 0 to 100
+     */
+    public int getMaxHazardLevel() {
+        return this.maxHazardLevel;
+    }
+
+    @Override
+    public String toString() {
+        return "CampusStatistics: buildings=" + this.buildings + ", floors=" +
+                this.floors + ", rooms=" + this.rooms + ", sensors=" +
+                this.sensors + ", inFireDrill=" + this.roomsInFireDrill +
+                ", maxHazard=" + this.maxHazardLevel;
+    }
+}
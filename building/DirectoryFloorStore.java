@@ -0,0 +1,57 @@
+package bms.building;
+
+import bms.floor.Floor;
+import bms.util.SlotBitSet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps floors as text files in a local directory, one file per floor named
+ * floor-&lt;number&gt;.txt, in the format of FloorCodec.
+ */
+public class DirectoryFloorStore implements FloorStore {
+    private final Path directory;
+
+    /**
+     * Creates a store backed by the given directory, creating the directory
+     * if it does not exist.
+     *
+     * @param directory directory to keep floors in
+     * @throws IOException if the directory cannot be created
+     */
+    public DirectoryFloorStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public void save(Floor floor) throws IOException {
+        Path file = fileOf(floor.getFloorNumber());
+        // Written aside and moved into place, so a failed save never
+        // leaves a half-written floor behind
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(partial,
+                StandardCharsets.UTF_8)) {
+            FloorCodec.write(floor, out);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public Floor load(int floorNumber, SlotBitSet fireDrillSlots)
+            throws IOException {
+        try (Reader in = Files.newBufferedReader(fileOf(floorNumber),
+                StandardCharsets.UTF_8)) {
+            return FloorCodec.read(in, fireDrillSlots);
+        }
+    }
+
+    private Path fileOf(int floorNumber) {
+        return this.directory.resolve("floor-" + floorNumber + ".txt");
+    }
+}
@@ -0,0 +1,128 @@
+package bms.building;
+
+import bms.room.Room;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary of a fire drill that was fanned out to every floor of a building
+ * in parallel.
+ * Records how long each floor took to have all of its targeted rooms
+ * acknowledge the alarm, and which rooms failed to acknowledge within the
+ * deadline of the drill.
+ */
+public class FireDrillReport {
+    // Time taken by each floor, keyed and ordered by floor number
+    private final Map<Integer, Duration> floorLatencies;
+
+    // Rooms which acknowledged late or not at all
+    private final List<Room> missedRooms;
+
+    private final int acknowledgedRooms;
+    private final Duration totalTime;
+    private final Duration deadline;
+
+    /**
+     * Creates a new report of a completed fire drill.
+     *
+     * @param floorLatencies time taken by each floor, keyed by floor number
+     * @param missedRooms rooms which did not acknowledge within the deadline
+     * @param acknowledgedRooms number of rooms that acknowledged the alarm
+     * @param totalTime time from the start of the drill until the last floor
+     * completed, or the deadline passed
+     * @param deadline time allowed for each room to acknowledge
+     */
+    public FireDrillReport(Map<Integer, Duration> floorLatencies,
+                           List<Room> missedRooms, int acknowledgedRooms,
+                           Duration totalTime, Duration deadline) {
+        this.floorLatencies = Collections.unmodifiableMap(
+                new TreeMap<>(floorLatencies));
+        this.missedRooms = Collections.unmodifiableList(
+                new ArrayList<>(missedRooms));
+        this.acknowledgedRooms = acknowledgedRooms;
+        this.totalTime = totalTime;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the time each floor took until all of its targeted rooms had
+     * responded, ordered by floor number.
+     *
+     * @return per-floor latency keyed by floor number
+     */
+    public Map<Integer, Duration> getFloorLatencies() {
+        return this.floorLatencies;
+    }
+
+    /**
+     * Returns the latency of the given floor.
+     *
+     * @param floorNumber number of the floor
+     * @return latency of the floor; null if the floor was not part of the
+     * drill, or had not completed by the deadline
+     */
+    public Duration getFloorLatency(int floorNumber) {
+        return this.floorLatencies.get(floorNumber);
+    }
+
+    /**
+     * Returns the rooms which acknowledged the alarm after the deadline, had
+     * not acknowledged it by the deadline, or whose actuator failed.
+     *
+     * @return rooms that missed the deadline
+     */
+    public List<Room> getMissedRooms() {
+        return this.missedRooms;
+    }
+
+    /**
+     * Returns whether every targeted room acknowledged within the deadline.
+     *
+     * @return true if no room missed the deadline
+     */
+    public boolean metDeadline() {
+        return this.missedRooms.isEmpty();
+    }
+
+    /**
+     * Returns the number of rooms which acknowledged the alarm, including
+     * those which did so late.
+     *
+     * @return number of acknowledged rooms
+     */
+    public int getAcknowledgedRooms() {
+        return this.acknowledgedRooms;
+    }
+
+    /**
+     * Returns the time from the start of the drill until every floor had
+     * completed, or the deadline passed.
+     *
+     * @return total duration of the drill
+     */
+    public Duration getTotalTime() {
+        return this.totalTime;
+    }
+
+    /**
+     * Returns the time each room was allowed to acknowledge the alarm.
+     *
+     * @return deadline of the drill
+     */
+    public Duration getDeadline() {
+        return this.deadline;
+    }
+
+    @Override
+    public String toString() {
+        return "FireDrillReport: floors=" + this.floorLatencies.size() +
+                ", acknowledged=" + this.acknowledgedRooms + ", missed=" +
+                this.missedRooms.size() + ", totalMs=" +
+                this.totalTime.toMillis();
+    }
+}
@@ -0,0 +1,278 @@
+package bms.building;
+
+import bms.exceptions.DuplicateRoomException;
+import bms.exceptions.InsufficientSpaceException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.NoiseSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.ReadingPool;
+import bms.sensors.Sensor;
+import bms.sensors.TemperatureSensor;
+import bms.sensors.TimedSensor;
+import bms.util.SlotBitSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the definition of a floor, its rooms and their sensors
+ * as plain text, one item per line:
+ *
+ * <pre>
+ * floor 2 25.0 30.0
+ * room 201 OFFICE 20.5
+ * sensor CarbonDioxideSensor 2 700 150 600,700,800
+ * sensor NoiseSensor 1 55,60
+ * sensor OccupancySensor 1 8 1,2,3
+ * sensor TemperatureSensor 1 20,21
+ * </pre>
+ *
+ * Each sensor line gives the sensor type and update frequency, then any
+ * other constructor arguments, then the readings. Rooms with no type have a
+ * type of "-". Only the definition is stored, not the current state such as
+ * how far through its readings a sensor is, or fire drills.
+ *
+ * Sensor readings are read into arrays shared through the ReadingPool, so
+ * many floors built from the same templates share their readings.
+ */
+public final class FloorCodec {
+    // Marks a room with no type
+    private static final String NO_TYPE = "-";
+
+    private FloorCodec() {
+    }
+
+    /**
+     * Writes the definition of a floor.
+     *
+     * @param floor floor to write
+     * @param out writer to write to
+     * @throws IOException if the writer fails
+     * @throws IllegalArgumentException if the floor has a sensor that is not
+     * one of the four timed sensor types
+     */
+    public static void write(Floor floor, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        line.append("floor ").append(floor.getFloorNumber()).append(' ')
+                .append(floor.getWidth()).append(' ')
+                .append(floor.getLength()).append('\n');
+        for (Room room : floor.getRooms()) {
+            line.append("room ").append(room.getRoomNumber()).append(' ')
+                    .append(room.getType() == null ? NO_TYPE : room.getType())
+                    .append(' ').append(room.getArea()).append('\n');
+            for (Sensor sensor : room.getSensors()) {
+                line.append("sensor ");
+                appendSensor(line, sensor);
+                line.append('\n');
+            }
+            out.append(line);
+            line.setLength(0);
+        }
+        out.append(line);
+    }
+
+    /**
+     * Returns the definition of a sensor as written in a sensor line. To
+     * compare two sensors by definition, use
+     * TimedSensor.hasSameDefinition(TimedSensor), which does not build
+     * strings.
+     *
+     * @param sensor sensor to describe
+     * @return sensor definition, e.g. "NoiseSensor 1 55,60"
+     * @throws IllegalArgumentException if the sensor is not one of the four
+     * timed sensor types
+     */
+    public static String encodeSensor(Sensor sensor) {
+        StringBuilder builder = new StringBuilder(64);
+        appendSensor(builder, sensor);
+        return builder.toString();
+    }
+
+    /**
+     * Reads the definition of a floor, creating a floor with new rooms and
+     * sensors.
+     *
+     * @param in reader to read from
+     * @return new floor
+     * @throws IOException if the reader fails or the definition is malformed
+     */
+    public static Floor read(Reader in) throws IOException {
+        return read(in, new SlotBitSet());
+    }
+
+    /**
+     * Reads the definition of a floor, creating a floor whose fire drill
+     * state is kept in the given bit set.
+     *
+     * @param in reader to read from
+     * @param fireDrillSlots fire drill state of the floor's rooms, by slot
+     * @return new floor
+     * @throws IOException if the reader fails or the definition is malformed
+     * @see Floor#Floor(int, double, double, SlotBitSet)
+     */
+    public static Floor read(Reader in, SlotBitSet fireDrillSlots)
+            throws IOException {
+        BufferedReader reader = in instanceof BufferedReader
+                ? (BufferedReader) in : new BufferedReader(in);
+        String[] header = fields(reader.readLine(), "floor", 4);
+        Floor floor;
+        try {
+            floor = new Floor(Integer.parseInt(header[1]),
+                    Double.parseDouble(header[2]),
+                    Double.parseDouble(header[3]), fireDrillSlots);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed floor line", e);
+        }
+
+        // Rooms are added together once read, copying the floor's rooms once
+        List<Room> rooms = new ArrayList<>();
+        String[] room = null;
+        List<Sensor> sensors = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("sensor ")) {
+                if (room == null) {
+                    throw new IOException("Sensor outside a room");
+                }
+                sensors.add(decodeSensor(line.substring("sensor ".length())));
+            } else {
+                if (room != null) {
+                    rooms.add(room(room, sensors));
+                }
+                room = fields(line, "room", 4);
+                sensors.clear();
+            }
+        }
+        if (room != null) {
+            rooms.add(room(room, sensors));
+        }
+        try {
+            floor.addRooms(rooms);
+        } catch (IllegalArgumentException | DuplicateRoomException
+                | InsufficientSpaceException e) {
+            throw new IOException("Malformed rooms on floor "
+                    + floor.getFloorNumber(), e);
+        }
+        return floor;
+    }
+
+    /**
+     * Creates a sensor from its definition, as returned by
+     * encodeSensor(Sensor).
+     *
+     * @param definition sensor definition
+     * @return new sensor, registered as a timed item
+     * @throws IOException if the definition is malformed
+     */
+    public static TimedSensor decodeSensor(String definition)
+            throws IOException {
+        String[] fields = definition.split(" ");
+        try {
+            String type = fields[0];
+            int frequency = Integer.parseInt(fields[1]);
+            int[] readings = readings(fields[fields.length - 1]);
+            switch (type) {
+                case "CarbonDioxideSensor":
+                    checkLength(fields, 5);
+                    return new CarbonDioxideSensor(readings, frequency,
+                            Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]));
+                case "NoiseSensor":
+                    checkLength(fields, 3);
+                    return new NoiseSensor(readings, frequency);
+                case "OccupancySensor":
+                    checkLength(fields, 4);
+                    return new OccupancySensor(readings, frequency,
+                            Integer.parseInt(fields[2]));
+                case "TemperatureSensor":
+                    checkLength(fields, 3);
+                    return new TemperatureSensor(readings);
+                default:
+                    throw new IOException("Unknown sensor type " + type);
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            // Includes NumberFormatException and invalid sensor arguments
+            throw new IOException("Malformed sensor " + definition, e);
+        }
+    }
+
+    private static void appendSensor(StringBuilder builder, Sensor sensor) {
+        if (!(sensor instanceof TimedSensor)) {
+            throw new IllegalArgumentException();
+        }
+        TimedSensor timed = (TimedSensor) sensor;
+        builder.append(sensor.getClass().getSimpleName()).append(' ')
+                .append(timed.getUpdateFrequency()).append(' ');
+        if (sensor instanceof CarbonDioxideSensor) {
+            CarbonDioxideSensor co2 = (CarbonDioxideSensor) sensor;
+            builder.append(co2.getIdealValue()).append(' ')
+                    .append(co2.getVariationLimit()).append(' ');
+        } else if (sensor instanceof OccupancySensor) {
+            builder.append(((OccupancySensor) sensor).getCapacity())
+                    .append(' ');
+        } else if (!(sensor instanceof NoiseSensor
+                || sensor instanceof TemperatureSensor)) {
+            throw new IllegalArgumentException();
+        }
+        int[] readings = timed.getSensorReadings();
+        for (int i = 0; i < readings.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(readings[i]);
+        }
+    }
+
+    private static Room room(String[] fields, List<Sensor> sensors)
+            throws IOException {
+        try {
+            RoomType type = NO_TYPE.equals(fields[2]) ? null
+                    : RoomType.valueOf(fields[2]);
+            return new Room(Integer.parseInt(fields[1]), type,
+                    Double.parseDouble(fields[3]), sensors);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed room " + String.join(" ", fields),
+                    e);
+        }
+    }
+
+    // Splits a line, checking its keyword and number of fields
+    private static String[] fields(String line, String keyword, int count)
+            throws IOException {
+        if (line == null) {
+            throw new IOException("Missing " + keyword + " line");
+        }
+        String[] fields = line.split(" ");
+        if (fields.length != count || !fields[0].equals(keyword)) {
+            throw new IOException("Malformed " + keyword + " line: " + line);
+        }
+        return fields;
+    }
+
+    private static void checkLength(String[] fields, int length)
+            throws IOException {
+        if (fields.length != length) {
+            throw new IOException("Wrong number of fields for "
+                    + fields[0]);
+        }
+    }
+
+    private static int[] readings(String field) {
+        String[] values = field.split(",");
+        int[] readings = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            readings[i] = Integer.parseInt(values[i]);
+        }
+        return ReadingPool.getInstance().intern(readings);
+    }
+}
@@ -0,0 +1,33 @@
+package bms.building;
+
+import bms.floor.Floor;
+import bms.util.SlotBitSet;
+
+import java.io.IOException;
+
+/**
+ * Somewhere the floors of a LazyBuilding are kept while they are not
+ * loaded.
+ */
+public interface FloorStore {
+    /**
+     * Saves the definition of a floor, replacing any floor with the same
+     * number.
+     *
+     * @param floor floor to save
+     * @throws IOException if the floor cannot be saved
+     */
+    void save(Floor floor) throws IOException;
+
+    /**
+     * Loads a floor, creating new rooms and sensors.
+     *
+     * @param floorNumber number of the floor to load
+     * @param fireDrillSlots fire drill state of the floor's rooms, by slot,
+     * for the loaded floor to use
+     * @return new floor
+     * @throws IOException if the floor is not in the store, or cannot be
+     * loaded
+     */
+    Floor load(int floorNumber, SlotBitSet fireDrillSlots) throws IOException;
+}
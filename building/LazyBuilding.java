@@ -0,0 +1,591 @@
+package bms.building;
+
+import bms.exceptions.DuplicateFloorException;
+import bms.exceptions.FireDrillException;
+import bms.exceptions.FloorTooSmallException;
+import bms.exceptions.NoFloorBelowException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.HazardSensor;
+import bms.sensors.Sensor;
+import bms.sensors.TimedSensor;
+import bms.util.FireDrill;
+import bms.util.Renderable;
+import bms.util.SlotBitSet;
+import bms.util.TimedItemManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A building whose floors are kept in a FloorStore and only loaded, with
+ * their rooms and sensors, when they are asked for through
+ * getFloorByNumber(int) or getFloors(). At most maxResidentFloors floors are
+ * loaded at once; loading another unloads the least recently used one,
+ * saving it first if rooms or sensors were added to it.
+ *
+ * A small summary of every floor stays loaded: its size, the slots of its
+ * rooms of each type, and the fire drill state of its rooms. Fire drills
+ * therefore start, stop and are counted without loading any floor, and a
+ * loaded floor keeps its fire drill state in the same bit set as its
+ * summary, so no change is ever lost when it is unloaded. The summary also
+ * holds the hazard level of each of the floor's readings, so the highest
+ * hazard level on an unloaded floor follows its sensors as time passes.
+ * Sensors whose readings give the same hazard levels, such as those built
+ * from one template, share a single array of levels across all floors.
+ *
+ * Unloaded sensors stop being ticked. When a floor is loaded again, each of
+ * its timed sensors is moved on by the minutes that passed, so it carries
+ * on where it would have been.
+ *
+ * Floor objects returned by this building belong to it only until they are
+ * unloaded; rooms or sensors added to an unloaded Floor object are not kept.
+ */
+public class LazyBuilding implements FireDrill, Renderable {
+    // Fewest hazard cycles at which unused ones are looked for
+    private static final int MIN_HAZARD_CYCLES_PRUNE_AT = 64;
+
+    private final String name;
+    private final FloorStore store;
+    private final int maxResidentFloors;
+
+    // Summary of every floor, in the order they were added
+    private final List<FloorSummary> summaries = new ArrayList<>();
+
+    // Loaded floors by floor number, least recently used first
+    private final LinkedHashMap<Integer, Floor> resident =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    // Hazard levels of the readings of unloaded sensors, shared by content
+    private Map<HazardCycle, byte[]> hazardCycles = new HashMap<>();
+
+    // Number of hazard cycles at which those no longer used are dropped
+    private int hazardCyclesPruneAt = MIN_HAZARD_CYCLES_PRUNE_AT;
+
+    private long loadCount;
+
+    /**
+     * Creates a new empty lazy building.
+     *
+     * @param name name of this building
+     * @param store where floors are kept while not loaded
+     * @param maxResidentFloors maximum number of floors loaded at once
+     * @throws IllegalArgumentException if maxResidentFloors is less than one
+     */
+    public LazyBuilding(String name, FloorStore store, int maxResidentFloors) {
+        if (maxResidentFloors < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.name = name;
+        this.store = store;
+        this.maxResidentFloors = maxResidentFloors;
+    }
+
+    /**
+     * Returns the name of the building.
+     *
+     * @return name of this building
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Adds a floor to the building, following the same rules as
+     * Building.addFloor(Floor). The floor is written to the store and its
+     * sensors stop being ticked; the floor is loaded again from the store
+     * when next asked for.
+     *
+     * @param newFloor floor to add
+     * @throws IllegalArgumentException if floor number is <= 0, width < Floor
+     * .getMinWidth(), or length < Floor.getMinLength()
+     * @throws DuplicateFloorException if a floor at this level already
+     * exists in the building
+     * @throws NoFloorBelowException if there is no floor below
+     * @throws FloorTooSmallException if the floor below is smaller in area
+     * @throws IOException if the floor cannot be written to the store
+     */
+    public synchronized void addFloor(Floor newFloor)
+            throws DuplicateFloorException, NoFloorBelowException,
+            FloorTooSmallException, IOException {
+        checkNewFloor(newFloor.getFloorNumber(), newFloor.getWidth(),
+                newFloor.getLength());
+        this.store.save(newFloor);
+        FloorSummary summary = new FloorSummary(newFloor.getFloorNumber(),
+                newFloor.getWidth(), newFloor.getLength());
+        summary.fireDrillSlots.or(newFloor.getFireDrillSlots());
+        this.summaries.add(summary);
+        summarize(summary, newFloor);
+        stopTicking(newFloor);
+    }
+
+    /**
+     * Adds a floor that is already in the store, for example when opening a
+     * building saved earlier, following the same rules as addFloor(Floor).
+     * The floor is loaded.
+     *
+     * @param floorNumber number of the stored floor
+     * @throws DuplicateFloorException if a floor at this level already
+     * exists in the building
+     * @throws NoFloorBelowException if there is no floor below
+     * @throws FloorTooSmallException if the floor below is smaller in area
+     * @throws IOException if the floor cannot be loaded from the store
+     */
+    public synchronized void addStoredFloor(int floorNumber)
+            throws DuplicateFloorException, NoFloorBelowException,
+            FloorTooSmallException, IOException {
+        SlotBitSet fireDrillSlots = new SlotBitSet();
+        Floor floor = this.store.load(floorNumber, fireDrillSlots);
+        checkNewFloor(floor.getFloorNumber(), floor.getWidth(),
+                floor.getLength());
+        FloorSummary summary = new FloorSummary(floor.getFloorNumber(),
+                floor.getWidth(), floor.getLength(), fireDrillSlots);
+        this.summaries.add(summary);
+        summarize(summary, floor);
+        this.loadCount++;
+        makeResident(summary, floor);
+    }
+
+    /**
+     * Returns the floor with the given number, loading it if necessary.
+     *
+     * @param floorNumber floor number of floor to search for
+     * @return floor with the given number if found; null if not found
+     * @throws UncheckedIOException if the floor cannot be loaded, or another
+     * floor cannot be saved to make room for it
+     */
+    public synchronized Floor getFloorByNumber(int floorNumber) {
+        FloorSummary summary = summaryOf(floorNumber);
+        if (summary == null) {
+            return null;
+        }
+        Floor floor = this.resident.get(floorNumber);
+        if (floor != null) {
+            return floor;
+        }
+        try {
+            floor = this.store.load(floorNumber, summary.fireDrillSlots);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.loadCount++;
+        summary.restoreSensors(floor);
+        makeResident(summary, floor);
+        return floor;
+    }
+
+    /**
+     * Returns a new list of every floor, loading each in turn. With more
+     * floors than maxResidentFloors, the floors at the start of the list
+     * will have been unloaded again by the time it is returned.
+     *
+     * @return new list of all floors in the building
+     * @throws UncheckedIOException if a floor cannot be loaded or saved
+     */
+    public synchronized List<Floor> getFloors() {
+        List<Floor> floors = new ArrayList<>(this.summaries.size());
+        for (FloorSummary summary : this.summaries) {
+            floors.add(getFloorByNumber(summary.floorNumber));
+        }
+        return floors;
+    }
+
+    /**
+     * Returns the number of floors in the building, loaded or not.
+     *
+     * @return number of floors
+     */
+    public synchronized int getFloorCount() {
+        return this.summaries.size();
+    }
+
+    /**
+     * Returns the number of floors currently loaded.
+     *
+     * @return number of loaded floors
+     */
+    public synchronized int getResidentFloorCount() {
+        return this.resident.size();
+    }
+
+    /**
+     * Returns the number of times a floor has been loaded from the store.
+     *
+     * @return number of loads
+     */
+    public synchronized long getLoadCount() {
+        return this.loadCount;
+    }
+
+    /**
+     * Returns the number of distinct arrays of hazard levels held for the
+     * readings of the building's sensors.
+     *
+     * @return number of hazard level arrays
+     */
+    public synchronized int getHazardCycleCount() {
+        return this.hazardCycles.size();
+    }
+
+    /**
+     * Returns the highest hazard level reported by a sensor on a floor. If
+     * the floor is not loaded, this is the level its sensors would report
+     * now had they kept ticking. Does not load the floor.
+     *
+     * @param floorNumber floor number
+     * @return hazard level, 0 to 100
+     * @throws IllegalArgumentException if there is no such floor
+     */
+    public synchronized int getFloorHazardLevel(int floorNumber) {
+        FloorSummary summary = summaryOf(floorNumber);
+        if (summary == null) {
+            throw new IllegalArgumentException();
+        }
+        Floor floor = this.resident.get(floorNumber);
+        if (floor != null) {
+            return maxHazardLevel(floor);
+        }
+        return summary.hazardLevel();
+    }
+
+    /**
+     * Starts a fire drill in the rooms of the given type on every floor, or
+     * in every room if the type is null, without loading any floor.
+     *
+     * @param roomType type of room, or null for all rooms
+     * @throws FireDrillException if there are no floors, or a floor has no
+     * rooms
+     */
+    @Override
+    public synchronized void fireDrill(RoomType roomType)
+            throws FireDrillException {
+        if (this.summaries.isEmpty()) {
+            throw new FireDrillException();
+        }
+        for (FloorSummary summary : this.summaries) {
+            refresh(summary);
+            if (summary.roomCount == 0) {
+                throw new FireDrillException();
+            }
+        }
+        for (FloorSummary summary : this.summaries) {
+            if (roomType == null) {
+                BitSet all = new BitSet();
+                all.set(0, summary.roomCount);
+                summary.fireDrillSlots.or(all);
+            } else {
+                summary.fireDrillSlots.or(
+                        summary.typeSlots[roomType.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Cancels any ongoing fire drill in the building, without loading any
+     * floor.
+     */
+    public synchronized void cancelFireDrill() {
+        for (FloorSummary summary : this.summaries) {
+            summary.fireDrillSlots.clear();
+        }
+    }
+
+    /**
+     * Returns the number of rooms in the building with a fire drill ongoing,
+     * without loading any floor.
+     *
+     * @return number of rooms in fire drill
+     */
+    public synchronized int countRoomsInFireDrill() {
+        int count = 0;
+        for (FloorSummary summary : this.summaries) {
+            count += summary.fireDrillSlots.cardinality();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void appendTo(StringBuilder builder) {
+        builder.append("Building: name=\"").append(this.name)
+                .append("\", floors=").append(this.summaries.size());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(64);
+        appendTo(builder);
+        return builder.toString();
+    }
+
+    // Same checks as Building.addFloor(), against the summaries
+    private void checkNewFloor(int floorNumber, double width, double length)
+            throws DuplicateFloorException, NoFloorBelowException,
+            FloorTooSmallException {
+        if (floorNumber <= 0 || width < Floor.getMinWidth() ||
+                length < Floor.getMinLength()) {
+            throw new IllegalArgumentException();
+        }
+        if (summaryOf(floorNumber) != null) {
+            throw new DuplicateFloorException();
+        }
+        if (floorNumber >= 2) {
+            FloorSummary below = summaryOf(floorNumber - 1);
+            if (below == null) {
+                throw new NoFloorBelowException();
+            } else if (below.width * below.length < width * length) {
+                throw new FloorTooSmallException();
+            }
+        }
+    }
+
+    private FloorSummary summaryOf(int floorNumber) {
+        for (FloorSummary summary : this.summaries) {
+            if (summary.floorNumber == floorNumber) {
+                return summary;
+            }
+        }
+        return null;
+    }
+
+    // Brings a summary up to date with its floor, if loaded
+    private void refresh(FloorSummary summary) {
+        Floor floor = this.resident.get(summary.floorNumber);
+        if (floor != null) {
+            summarize(summary, floor);
+        }
+    }
+
+    // Brings a summary up to date with a floor, then drops the hazard
+    // cycles no floor uses once there are twice as many as after the last
+    // time, so dropping them takes amortised constant time
+    private void summarize(FloorSummary summary, Floor floor) {
+        summary.update(floor, this.hazardCycles);
+        if (this.hazardCycles.size() < this.hazardCyclesPruneAt) {
+            return;
+        }
+        Map<HazardCycle, byte[]> used = new HashMap<>();
+        for (FloorSummary each : this.summaries) {
+            for (byte[] levels : each.sensorHazards) {
+                if (levels != null) {
+                    used.put(new HazardCycle(levels), levels);
+                }
+            }
+        }
+        this.hazardCycles = used;
+        this.hazardCyclesPruneAt = Math.max(MIN_HAZARD_CYCLES_PRUNE_AT,
+                2 * used.size());
+    }
+
+    // Adds a floor to the loaded floors, unloading others if there are too
+    // many
+    private void makeResident(FloorSummary summary, Floor floor) {
+        this.resident.put(summary.floorNumber, floor);
+        summary.loadedRooms = floor.getRoomCount();
+        summary.loadedSensors = countSensors(floor);
+        Iterator<Map.Entry<Integer, Floor>> eldest =
+                this.resident.entrySet().iterator();
+        while (this.resident.size() > this.maxResidentFloors) {
+            Map.Entry<Integer, Floor> entry = eldest.next();
+            unload(summaryOf(entry.getKey()), entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    private void unload(FloorSummary summary, Floor floor) {
+        summarize(summary, floor);
+        // Rooms and sensors can only be added, so counts show any change
+        if (floor.getRoomCount() != summary.loadedRooms
+                || countSensors(floor) != summary.loadedSensors) {
+            try {
+                this.store.save(floor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        stopTicking(floor);
+    }
+
+    private static void stopTicking(Floor floor) {
+        List<TimedSensor> sensors = new ArrayList<>();
+        for (Room room : floor.getRooms()) {
+            for (Sensor sensor : room.getSensors()) {
+                if (sensor instanceof TimedSensor) {
+                    sensors.add((TimedSensor) sensor);
+                }
+            }
+        }
+        TimedItemManager.getInstance().deregisterTimedItems(sensors);
+    }
+
+    private static int countSensors(Floor floor) {
+        int count = 0;
+        for (Room room : floor.getRooms()) {
+            count += room.getSensors().size();
+        }
+        return count;
+    }
+
+    private static int maxHazardLevel(Floor floor) {
+        int hazard = 0;
+        for (Room room : floor.getRooms()) {
+            hazard = Math.max(hazard, room.getMaxHazardLevel());
+        }
+        return hazard;
+    }
+
+    // What is kept of a floor whether it is loaded or not
+    private static class FloorSummary {
+        final int floorNumber;
+        final double width;
+        final double length;
+        final SlotBitSet fireDrillSlots;
+
+        // Rooms on the floor, and the slots of the rooms of each type
+        int roomCount;
+        BitSet[] typeSlots = new BitSet[RoomType.values().length];
+
+        // Highest hazard level of the sensors that are not timed
+        int fixedHazardLevel;
+
+        // Minutes elapsed for each timed sensor, in room and sensor order,
+        // and the tick at which they were recorded
+        int[] sensorMinutes = new int[0];
+        long recordedAtTick;
+
+        // Update frequency of each timed sensor, and the hazard level of
+        // each of its readings, or null if it does not detect hazards; the
+        // arrays of levels are shared through the building's hazard cycles
+        int[] sensorFrequencies = new int[0];
+        byte[][] sensorHazards = new byte[0][];
+
+        // Rooms and sensors on the floor when it was loaded
+        int loadedRooms;
+        int loadedSensors;
+
+        FloorSummary(int floorNumber, double width, double length) {
+            this(floorNumber, width, length, new SlotBitSet());
+        }
+
+        FloorSummary(int floorNumber, double width, double length,
+                     SlotBitSet fireDrillSlots) {
+            this.floorNumber = floorNumber;
+            this.width = width;
+            this.length = length;
+            this.fireDrillSlots = fireDrillSlots;
+            for (int i = 0; i < this.typeSlots.length; i++) {
+                this.typeSlots[i] = new BitSet();
+            }
+        }
+
+        // Records everything needed while the floor is not loaded, taking
+        // arrays of hazard levels from, or adding them to, the given cycles
+        void update(Floor floor, Map<HazardCycle, byte[]> hazardCycles) {
+            this.roomCount = floor.getRoomCount();
+            for (RoomType type : RoomType.values()) {
+                this.typeSlots[type.ordinal()] = floor.getSlotsOfType(type);
+            }
+
+            List<TimedSensor> timed = new ArrayList<>();
+            int fixed = 0;
+            for (Room room : floor.getRooms()) {
+                for (Sensor sensor : room.getSensors()) {
+                    if (sensor instanceof TimedSensor) {
+                        timed.add((TimedSensor) sensor);
+                    } else if (sensor instanceof HazardSensor) {
+                        fixed = Math.max(fixed,
+                                ((HazardSensor) sensor).getHazardLevel());
+                    }
+                }
+            }
+            this.fixedHazardLevel = fixed;
+            this.sensorMinutes = new int[timed.size()];
+            this.sensorFrequencies = new int[timed.size()];
+            this.sensorHazards = new byte[timed.size()][];
+            for (int i = 0; i < timed.size(); i++) {
+                TimedSensor sensor = timed.get(i);
+                this.sensorMinutes[i] = sensor.getTimeElapsed();
+                this.sensorFrequencies[i] = sensor.getUpdateFrequency();
+                if (sensor instanceof HazardSensor) {
+                    byte[] levels = hazards((HazardSensor) sensor,
+                            sensor.getSensorReadings());
+                    this.sensorHazards[i] = hazardCycles.computeIfAbsent(
+                            new HazardCycle(levels), cycle -> levels);
+                }
+            }
+            this.recordedAtTick = TimedItemManager.getInstance().getTickCount();
+        }
+
+        // Works out the highest hazard level the floor's sensors report now
+        int hazardLevel() {
+            long passed = TimedItemManager.getInstance().getTickCount()
+                    - this.recordedAtTick;
+            int hazard = this.fixedHazardLevel;
+            for (int i = 0; i < this.sensorHazards.length; i++) {
+                byte[] levels = this.sensorHazards[i];
+                if (levels != null) {
+                    long index = (this.sensorMinutes[i] + passed)
+                            / this.sensorFrequencies[i];
+                    hazard = Math.max(hazard,
+                            levels[(int) (index % levels.length)]);
+                }
+            }
+            return hazard;
+        }
+
+        private static byte[] hazards(HazardSensor sensor, int[] readings) {
+            byte[] levels = new byte[readings.length];
+            for (int i = 0; i < readings.length; i++) {
+                // Hazard levels are 0 to 100, so they fit in a byte
+                levels[i] = (byte) sensor.getHazardLevel(readings[i]);
+            }
+            return levels;
+        }
+
+        // Moves freshly loaded sensors on to where they would have been
+        void restoreSensors(Floor floor) {
+            int passed = (int) (TimedItemManager.getInstance().getTickCount()
+                    - this.recordedAtTick);
+            int i = 0;
+            for (Room room : floor.getRooms()) {
+                for (Sensor sensor : room.getSensors()) {
+                    if (sensor instanceof TimedSensor
+                            && i < this.sensorMinutes.length) {
+                        ((TimedSensor) sensor).advanceMinutes(
+                                this.sensorMinutes[i++] + passed);
+                    }
+                }
+            }
+        }
+    }
+
+    // Compares arrays of hazard levels by their contents
+    private static final class HazardCycle {
+        private final byte[] levels;
+        private final int hash;
+
+        HazardCycle(byte[] levels) {
+            this.levels = levels;
+            this.hash = Arrays.hashCode(levels);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof HazardCycle
+                    && Arrays.equals(this.levels, ((HazardCycle) other).levels);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,732 @@
+package bms.compact;
+
+import bms.building.Building;
+import bms.exceptions.DuplicateFloorException;
+import bms.exceptions.DuplicateRoomException;
+import bms.exceptions.DuplicateSensorException;
+import bms.exceptions.FloorTooSmallException;
+import bms.exceptions.InsufficientSpaceException;
+import bms.exceptions.NoFloorBelowException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.Sensor;
+import bms.util.FireDrill;
+import bms.util.SlotBitSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A building whose floors, rooms and sensor attachments are stored in
+ * primitive arrays rather than as one object (and list) each, for
+ * simulations with around a million rooms, where object headers and list
+ * overhead would otherwise dominate the heap.
+ *
+ * Floors and rooms are identified by their index, in the order they were
+ * added. Room types are stored as bytes and room areas as fixed-point
+ * hundredths of a square metre, the precision rooms are displayed with.
+ * The space taken on each floor is summed from the areas as given, the
+ * same way as Floor.occupiedArea(), so a room fits exactly when it would
+ * fit on a Floor. The rooms of a floor, and the sensors of a room, are
+ * chained together through arrays of next indices, and the room numbers
+ * of every floor are kept in one hash table of primitive keys. The fire
+ * drill state of every room is one bit in a SlotBitSet of its floor, as it
+ * is in a Floor, so drills start, stop and are counted 64 rooms at a time,
+ * and drills on different floors never touch the same words.
+ *
+ * The same rules apply as to adding floors, rooms and sensors to a Building.
+ * For code written against the object model, getRoom(int) returns a Room
+ * that reads and writes its fire drill state in this building, and
+ * getFloor(int) returns a lightweight CompactFloor view.
+ *
+ * Adding to a compact building is synchronized, but a building should be
+ * fully built before it is read from other threads.
+ */
+public class CompactBuilding implements FireDrill {
+    // Marks the end of a chain of rooms or sensors
+    private static final int NONE = -1;
+
+    // Stored type of rooms with no type
+    private static final byte NO_TYPE = -1;
+
+    // Fixed-point scale of room areas
+    private static final int AREA_SCALE = 100;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Empty entry of the room number table; floor indices are never
+    // negative, so no key has its top bit set
+    private static final long NO_KEY = Long.MIN_VALUE;
+
+    // Orders sensors alphabetically by their class name, as Room does
+    private static final Comparator<Sensor> SENSOR_ORDER =
+            Comparator.comparing(sensor -> sensor.getClass().getSimpleName());
+
+    private final String name;
+
+    // Floors, by floor index
+    private int floorCount;
+    private int[] floorNumbers;
+    private double[] floorWidths;
+    private double[] floorLengths;
+    private float[] floorOccupiedAreas;
+    private int[] floorRoomCounts;
+    private int[] firstRooms;
+    private int[] lastRooms;
+
+    // Fire drill state of the rooms of each floor, and the slots of the
+    // rooms of each type on each floor, by floor index and then type
+    private SlotBitSet[] fireDrillSlots;
+    private BitSet[][] typeSlots;
+
+    // Rooms, by room index
+    private int roomCount;
+    private int[] roomNumbers;
+    private byte[] roomTypes;
+    private int[] roomAreas;
+    private int[] roomFloors;
+    private int[] roomSlots;
+    private int[] nextRooms;
+    private int[] firstSensors;
+
+    // Floor index and room number of every room, packed by roomKey(), in
+    // an open-addressing table at most half full
+    private long[] roomKeys;
+
+    // Sensor attachments, by sensor index
+    private int sensorCount;
+    private Sensor[] sensors;
+    private int[] nextSensors;
+
+    /**
+     * Creates a new empty compact building.
+     *
+     * @param name name of this building
+     */
+    public CompactBuilding(String name) {
+        this(name, DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty compact building with space reserved for the
+     * given number of floors and rooms, so that building it does not need
+     * to grow the arrays.
+     *
+     * @param name name of this building
+     * @param floorCapacity number of floors to reserve space for
+     * @param roomCapacity number of rooms to reserve space for
+     */
+    public CompactBuilding(String name, int floorCapacity, int roomCapacity) {
+        this.name = name;
+        floorCapacity = Math.max(1, floorCapacity);
+        roomCapacity = Math.max(1, roomCapacity);
+        this.floorNumbers = new int[floorCapacity];
+        this.floorWidths = new double[floorCapacity];
+        this.floorLengths = new double[floorCapacity];
+        this.floorOccupiedAreas = new float[floorCapacity];
+        this.floorRoomCounts = new int[floorCapacity];
+        this.firstRooms = new int[floorCapacity];
+        this.lastRooms = new int[floorCapacity];
+        this.fireDrillSlots = new SlotBitSet[floorCapacity];
+        this.typeSlots = new BitSet[floorCapacity][];
+        this.roomNumbers = new int[roomCapacity];
+        this.roomTypes = new byte[roomCapacity];
+        this.roomAreas = new int[roomCapacity];
+        this.roomFloors = new int[roomCapacity];
+        this.roomSlots = new int[roomCapacity];
+        this.nextRooms = new int[roomCapacity];
+        this.firstSensors = new int[roomCapacity];
+        this.roomKeys = newRoomKeys(roomCapacity);
+        this.sensors = new Sensor[DEFAULT_CAPACITY];
+        this.nextSensors = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a compact copy of a building, including its fire drill state.
+     * The sensors are shared with the original building.
+     *
+     * @param building building to copy
+     * @return new compact building
+     * @throws IllegalStateException if the building breaks the rules for
+     * adding floors, rooms or sensors, which a Building does not allow
+     */
+    public static CompactBuilding of(Building building) {
+        List<Floor> floors = building.getFloors();
+        int rooms = 0;
+        for (Floor floor : floors) {
+            rooms += floor.getRoomCount();
+        }
+        CompactBuilding compact = new CompactBuilding(building.getName(),
+                floors.size(), rooms);
+        try {
+            for (Floor floor : floors) {
+                compact.addFloor(floor.getFloorNumber(), floor.getWidth(),
+                        floor.getLength());
+                for (Room room : floor.getRooms()) {
+                    int index = compact.addRoom(floor.getFloorNumber(),
+                            room.getRoomNumber(), room.getType(),
+                            room.getArea());
+                    for (Sensor sensor : room.getSensors()) {
+                        compact.addSensor(index, sensor);
+                    }
+                    compact.setFireDrill(index, room.fireDrillOngoing());
+                }
+            }
+        } catch (DuplicateFloorException | NoFloorBelowException
+                | FloorTooSmallException | DuplicateRoomException
+                | InsufficientSpaceException | DuplicateSensorException e) {
+            throw new IllegalStateException(e);
+        }
+        return compact;
+    }
+
+    /**
+     * Returns the name of the building.
+     *
+     * @return name of this building
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Adds a floor to the building, following the same rules as
+     * Building.addFloor(Floor).
+     *
+     * @param floorNumber floor number, 1 for the ground floor
+     * @param width width of the floor in metres
+     * @param length length of the floor in metres
+     * @return index of the new floor
+     * @throws IllegalArgumentException if floorNumber is less than one, or
+     * width or length is below the minimum for floors
+     * @throws DuplicateFloorException if the floor number is already taken
+     * @throws NoFloorBelowException if there is no floor below
+     * @throws FloorTooSmallException if the floor below is smaller in area
+     */
+    public synchronized int addFloor(int floorNumber, double width,
+                                     double length)
+            throws DuplicateFloorException, NoFloorBelowException,
+            FloorTooSmallException {
+        if (floorNumber <= 0 || width < Floor.getMinWidth() ||
+                length < Floor.getMinLength()) {
+            throw new IllegalArgumentException();
+        }
+        if (getFloorIndex(floorNumber) != NONE) {
+            throw new DuplicateFloorException();
+        }
+        if (floorNumber >= 2) {
+            int below = getFloorIndex(floorNumber - 1);
+            if (below == NONE) {
+                throw new NoFloorBelowException();
+            } else if (getFloorArea(below) < width * length) {
+                throw new FloorTooSmallException();
+            }
+        }
+
+        int floor = this.floorCount;
+        if (floor == this.floorNumbers.length) {
+            growFloors();
+        }
+        this.floorNumbers[floor] = floorNumber;
+        this.floorWidths[floor] = width;
+        this.floorLengths[floor] = length;
+        this.firstRooms[floor] = NONE;
+        this.lastRooms[floor] = NONE;
+        this.fireDrillSlots[floor] = new SlotBitSet();
+        this.typeSlots[floor] = new BitSet[RoomType.values().length];
+        for (int i = 0; i < this.typeSlots[floor].length; i++) {
+            this.typeSlots[floor][i] = new BitSet();
+        }
+        this.floorCount++;
+        return floor;
+    }
+
+    /**
+     * Adds a room to a floor, following the same rules as
+     * Floor.addRoom(Room).
+     *
+     * @param floorNumber number of the floor to add the room to
+     * @param roomNumber room number, unique on the floor
+     * @param type type of room
+     * @param area area of the room in square metres, stored to the nearest
+     * hundredth
+     * @return index of the new room
+     * @throws IllegalArgumentException if there is no such floor, or area is
+     * less than Room.getMinArea()
+     * @throws DuplicateRoomException if the room number is already taken on
+     * the floor
+     * @throws InsufficientSpaceException if there is not enough space left
+     * on the floor
+     */
+    public synchronized int addRoom(int floorNumber, int roomNumber,
+                                    RoomType type, double area)
+            throws DuplicateRoomException, InsufficientSpaceException {
+        int floor = getFloorIndex(floorNumber);
+        if (floor == NONE || area < Room.getMinArea()) {
+            throw new IllegalArgumentException();
+        }
+        // Compared as Floor.addRoom(Room) does, not in hundredths
+        if ((getFloorArea(floor) - this.floorOccupiedAreas[floor]) < area) {
+            throw new InsufficientSpaceException();
+        }
+        long key = roomKey(floor, roomNumber);
+        int keySlot = findRoomKey(key);
+        if (this.roomKeys[keySlot] == key) {
+            throw new DuplicateRoomException();
+        }
+
+        int room = this.roomCount;
+        if (room == this.roomNumbers.length) {
+            growRooms();
+        }
+        if (2 * (room + 1) > this.roomKeys.length) {
+            growRoomKeys();
+            keySlot = findRoomKey(key);
+        }
+        this.roomKeys[keySlot] = key;
+        this.roomNumbers[room] = roomNumber;
+        this.roomTypes[room] = type == null ? NO_TYPE : (byte) type.ordinal();
+        this.roomAreas[room] = (int) Math.round(area * AREA_SCALE);
+        this.roomFloors[room] = floor;
+        // The new room takes the next slot on the floor
+        this.roomSlots[room] = this.floorRoomCounts[floor];
+        this.nextRooms[room] = NONE;
+        this.firstSensors[room] = NONE;
+        if (type != null) {
+            this.typeSlots[floor][type.ordinal()].set(this.roomSlots[room]);
+        }
+
+        // Append to the floor's chain of rooms
+        if (this.lastRooms[floor] == NONE) {
+            this.firstRooms[floor] = room;
+        } else {
+            this.nextRooms[this.lastRooms[floor]] = room;
+        }
+        this.lastRooms[floor] = room;
+        this.floorRoomCounts[floor]++;
+        this.floorOccupiedAreas[floor] += area;
+        this.roomCount++;
+        return room;
+    }
+
+    /**
+     * Adds a sensor to a room, following the same rules as
+     * Room.addSensor(Sensor).
+     *
+     * @param roomIndex index of the room
+     * @param sensor sensor to add
+     * @throws IndexOutOfBoundsException if there is no such room
+     * @throws DuplicateSensorException if the sensor is already in the room
+     */
+    public synchronized void addSensor(int roomIndex, Sensor sensor)
+            throws DuplicateSensorException {
+        checkRoom(roomIndex);
+        for (int s = this.firstSensors[roomIndex]; s != NONE;
+             s = this.nextSensors[s]) {
+            if (this.sensors[s] == sensor) {
+                throw new DuplicateSensorException();
+            }
+        }
+        int index = this.sensorCount;
+        if (index == this.sensors.length) {
+            int capacity = grow(index);
+            this.sensors = Arrays.copyOf(this.sensors, capacity);
+            this.nextSensors = Arrays.copyOf(this.nextSensors, capacity);
+        }
+        // Sensors are prepended; getSensors() sorts them as Room does
+        this.sensors[index] = sensor;
+        this.nextSensors[index] = this.firstSensors[roomIndex];
+        this.firstSensors[roomIndex] = index;
+        this.sensorCount++;
+    }
+
+    /**
+     * Returns the number of floors.
+     *
+     * @return number of floors
+     */
+    public int getFloorCount() {
+        return this.floorCount;
+    }
+
+    /**
+     * Returns the number of rooms.
+     *
+     * @return number of rooms
+     */
+    public int getRoomCount() {
+        return this.roomCount;
+    }
+
+    /**
+     * Returns the number of sensors.
+     *
+     * @return number of sensors
+     */
+    public int getSensorCount() {
+        return this.sensorCount;
+    }
+
+    /**
+     * Returns the index of the floor with the given number.
+     *
+     * @param floorNumber floor number
+     * @return floor index; -1 if there is no such floor
+     */
+    public int getFloorIndex(int floorNumber) {
+        for (int f = 0; f < this.floorCount; f++) {
+            if (this.floorNumbers[f] == floorNumber) {
+                return f;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns a view of a floor.
+     *
+     * @param floorIndex index of the floor
+     * @return view of the floor
+     * @throws IndexOutOfBoundsException if there is no such floor
+     */
+    public CompactFloor getFloor(int floorIndex) {
+        checkFloor(floorIndex);
+        return new CompactFloor(this, floorIndex);
+    }
+
+    /**
+     * Returns the floor number of a floor.
+     *
+     * @param floorIndex index of the floor
+     * @return floor number
+     */
+    public int getFloorNumber(int floorIndex) {
+        checkFloor(floorIndex);
+        return this.floorNumbers[floorIndex];
+    }
+
+    /**
+     * Returns the width of a floor.
+     *
+     * @param floorIndex index of the floor
+     * @return width in metres
+     */
+    public double getFloorWidth(int floorIndex) {
+        checkFloor(floorIndex);
+        return this.floorWidths[floorIndex];
+    }
+
+    /**
+     * Returns the length of a floor.
+     *
+     * @param floorIndex index of the floor
+     * @return length in metres
+     */
+    public double getFloorLength(int floorIndex) {
+        checkFloor(floorIndex);
+        return this.floorLengths[floorIndex];
+    }
+
+    /**
+     * Returns the area of a floor, its width multiplied by its length.
+     *
+     * @param floorIndex index of the floor
+     * @return area in square metres
+     */
+    public double getFloorArea(int floorIndex) {
+        checkFloor(floorIndex);
+        return this.floorWidths[floorIndex] * this.floorLengths[floorIndex];
+    }
+
+    /**
+     * Returns the area of a floor occupied by its rooms.
+     *
+     * @param floorIndex index of the floor
+     * @return occupied area in square metres
+     */
+    public double getOccupiedArea(int floorIndex) {
+        checkFloor(floorIndex);
+        return this.floorOccupiedAreas[floorIndex];
+    }
+
+    /**
+     * Returns the indices of the rooms on a floor, in the order they were
+     * added.
+     *
+     * @param floorIndex index of the floor
+     * @return new array of room indices
+     */
+    public int[] getRoomIndices(int floorIndex) {
+        checkFloor(floorIndex);
+        int[] rooms = new int[this.floorRoomCounts[floorIndex]];
+        int i = 0;
+        for (int r = this.firstRooms[floorIndex]; r != NONE;
+             r = this.nextRooms[r]) {
+            rooms[i++] = r;
+        }
+        return rooms;
+    }
+
+    /**
+     * Returns the room number of a room.
+     *
+     * @param roomIndex index of the room
+     * @return room number
+     */
+    public int getRoomNumber(int roomIndex) {
+        checkRoom(roomIndex);
+        return this.roomNumbers[roomIndex];
+    }
+
+    /**
+     * Returns the type of a room.
+     *
+     * @param roomIndex index of the room
+     * @return room type; null if the room has none
+     */
+    public RoomType getRoomType(int roomIndex) {
+        checkRoom(roomIndex);
+        byte type = this.roomTypes[roomIndex];
+        return type == NO_TYPE ? null : RoomType.values()[type];
+    }
+
+    /**
+     * Returns the area of a room.
+     *
+     * @param roomIndex index of the room
+     * @return area in square metres, to the nearest hundredth
+     */
+    public double getRoomArea(int roomIndex) {
+        checkRoom(roomIndex);
+        return this.roomAreas[roomIndex] / (double) AREA_SCALE;
+    }
+
+    /**
+     * Returns the index of the floor a room is on.
+     *
+     * @param roomIndex index of the room
+     * @return floor index
+     */
+    public int getRoomFloor(int roomIndex) {
+        checkRoom(roomIndex);
+        return this.roomFloors[roomIndex];
+    }
+
+    /**
+     * Returns the sensors of a room, in the order Room.getSensors() would.
+     *
+     * @param roomIndex index of the room
+     * @return new list of the room's sensors
+     */
+    public List<Sensor> getSensors(int roomIndex) {
+        checkRoom(roomIndex);
+        List<Sensor> result = new ArrayList<>();
+        for (int s = this.firstSensors[roomIndex]; s != NONE;
+             s = this.nextSensors[s]) {
+            result.add(this.sensors[s]);
+        }
+        result.sort(SENSOR_ORDER);
+        return result;
+    }
+
+    /**
+     * Returns a Room for a room of this building, for use with code written
+     * against the object model. Its fire drill state is read from and
+     * written to this building; its other fields are a snapshot.
+     *
+     * @param roomIndex index of the room
+     * @return new room object backed by this building's fire drill state
+     */
+    public Room getRoom(int roomIndex) {
+        Room room = new Room(getRoomNumber(roomIndex),
+                getRoomType(roomIndex), getRoomArea(roomIndex),
+                getSensors(roomIndex));
+        room.attachFireDrillState(
+                this.fireDrillSlots[this.roomFloors[roomIndex]],
+                this.roomSlots[roomIndex]);
+        return room;
+    }
+
+    /**
+     * Returns whether a fire drill is ongoing in a room.
+     *
+     * @param roomIndex index of the room
+     * @return true if the room is in a fire drill
+     */
+    public boolean fireDrillOngoing(int roomIndex) {
+        checkRoom(roomIndex);
+        return this.fireDrillSlots[this.roomFloors[roomIndex]]
+                .get(this.roomSlots[roomIndex]);
+    }
+
+    /**
+     * Starts or stops a fire drill in a single room.
+     *
+     * @param roomIndex index of the room
+     * @param fireDrill whether there is a fire drill ongoing
+     */
+    public void setFireDrill(int roomIndex, boolean fireDrill) {
+        checkRoom(roomIndex);
+        this.fireDrillSlots[this.roomFloors[roomIndex]]
+                .set(this.roomSlots[roomIndex], fireDrill);
+    }
+
+    /**
+     * Starts a fire drill in every room of the given type, or in every room
+     * if the type is null.
+     *
+     * @param roomType type of room to start a fire drill in; null for all
+     */
+    @Override
+    public void fireDrill(RoomType roomType) {
+        for (int f = 0; f < this.floorCount; f++) {
+            fireDrill(f, roomType);
+        }
+    }
+
+    /**
+     * Starts a fire drill in every room of the given type on a floor, or in
+     * every room on the floor if the type is null.
+     *
+     * @param floorIndex index of the floor
+     * @param roomType type of room to start a fire drill in; null for all
+     */
+    public void fireDrill(int floorIndex, RoomType roomType) {
+        checkFloor(floorIndex);
+        if (roomType == null) {
+            BitSet all = new BitSet();
+            all.set(0, this.floorRoomCounts[floorIndex]);
+            this.fireDrillSlots[floorIndex].or(all);
+        } else {
+            this.fireDrillSlots[floorIndex].or(
+                    this.typeSlots[floorIndex][roomType.ordinal()]);
+        }
+    }
+
+    /**
+     * Cancels any ongoing fire drill in every room.
+     */
+    public void cancelFireDrill() {
+        for (int f = 0; f < this.floorCount; f++) {
+            this.fireDrillSlots[f].clear();
+        }
+    }
+
+    /**
+     * Cancels any ongoing fire drill in every room on a floor.
+     *
+     * @param floorIndex index of the floor
+     */
+    public void cancelFireDrill(int floorIndex) {
+        checkFloor(floorIndex);
+        this.fireDrillSlots[floorIndex].clear();
+    }
+
+    /**
+     * Returns the number of rooms with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    public int countRoomsInFireDrill() {
+        int count = 0;
+        for (int f = 0; f < this.floorCount; f++) {
+            count += this.fireDrillSlots[f].cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of rooms on a floor with a fire drill ongoing.
+     *
+     * @param floorIndex index of the floor
+     * @return number of rooms in fire drill on the floor
+     */
+    public int countRoomsInFireDrill(int floorIndex) {
+        checkFloor(floorIndex);
+        return this.fireDrillSlots[floorIndex].cardinality();
+    }
+
+    private void checkFloor(int floorIndex) {
+        if (floorIndex < 0 || floorIndex >= this.floorCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(floorIndex));
+        }
+    }
+
+    private void checkRoom(int roomIndex) {
+        if (roomIndex < 0 || roomIndex >= this.roomCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(roomIndex));
+        }
+    }
+
+    private static long roomKey(int floorIndex, int roomNumber) {
+        return ((long) floorIndex << 32) | (roomNumber & 0xFFFFFFFFL);
+    }
+
+    // Slot of the room number table holding the key, or the empty slot
+    // where it belongs
+    private int findRoomKey(long key) {
+        int mask = this.roomKeys.length - 1;
+        // Spreads floor and room number over the low bits used for slots
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+        while (this.roomKeys[slot] != NO_KEY && this.roomKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Room number table for the given number of rooms, at most half full
+    private static long[] newRoomKeys(int rooms) {
+        int size = 2;
+        while (size < 2 * rooms) {
+            size <<= 1;
+        }
+        long[] keys = new long[size];
+        Arrays.fill(keys, NO_KEY);
+        return keys;
+    }
+
+    private void growRoomKeys() {
+        long[] previous = this.roomKeys;
+        this.roomKeys = newRoomKeys(previous.length);
+        for (long key : previous) {
+            if (key != NO_KEY) {
+                this.roomKeys[findRoomKey(key)] = key;
+            }
+        }
+    }
+
+    // New capacity for arrays that are full at the given size
+    private static int grow(int size) {
+        return size + Math.max(DEFAULT_CAPACITY, size >> 1);
+    }
+
+    private void growFloors() {
+        int capacity = grow(this.floorNumbers.length);
+        this.floorNumbers = Arrays.copyOf(this.floorNumbers, capacity);
+        this.floorWidths = Arrays.copyOf(this.floorWidths, capacity);
+        this.floorLengths = Arrays.copyOf(this.floorLengths, capacity);
+        this.floorOccupiedAreas =
+                Arrays.copyOf(this.floorOccupiedAreas, capacity);
+        this.floorRoomCounts = Arrays.copyOf(this.floorRoomCounts, capacity);
+        this.firstRooms = Arrays.copyOf(this.firstRooms, capacity);
+        this.lastRooms = Arrays.copyOf(this.lastRooms, capacity);
+        this.fireDrillSlots = Arrays.copyOf(this.fireDrillSlots, capacity);
+        this.typeSlots = Arrays.copyOf(this.typeSlots, capacity);
+    }
+
+    private void growRooms() {
+        int capacity = grow(this.roomNumbers.length);
+        this.roomNumbers = Arrays.copyOf(this.roomNumbers, capacity);
+        this.roomTypes = Arrays.copyOf(this.roomTypes, capacity);
+        this.roomAreas = Arrays.copyOf(this.roomAreas, capacity);
+        this.roomFloors = Arrays.copyOf(this.roomFloors, capacity);
+        this.roomSlots = Arrays.copyOf(this.roomSlots, capacity);
+        this.nextRooms = Arrays.copyOf(this.nextRooms, capacity);
+        this.firstSensors = Arrays.copyOf(this.firstSensors, capacity);
+    }
+}
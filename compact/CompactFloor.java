@@ -0,0 +1,132 @@
+package bms.compact;
+
+import bms.room.Room;
+import bms.room.RoomType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lightweight view of one floor of a CompactBuilding, offering the
+ * read methods of Floor. Views hold only the building and the floor index,
+ * so they can be created whenever needed and thrown away.
+ */
+public class CompactFloor {
+    private final CompactBuilding building;
+    private final int index;
+
+    CompactFloor(CompactBuilding building, int index) {
+        this.building = building;
+        this.index = index;
+    }
+
+    /**
+     * Returns the index of this floor in its building.
+     *
+     * @return floor index
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the floor number of this floor.
+     *
+     * @return floor number
+     */
+    public int getFloorNumber() {
+        return this.building.getFloorNumber(this.index);
+    }
+
+    /**
+     * Returns width of the floor.
+     *
+     * @return floor width
+     */
+    public double getWidth() {
+        return this.building.getFloorWidth(this.index);
+    }
+
+    /**
+     * Returns length of the floor.
+     *
+     * @return floor length
+     */
+    public double getLength() {
+        return this.building.getFloorLength(this.index);
+    }
+
+    /**
+     * Calculates the area of the floor in square metres.
+     *
+     * @return area of the floor in square metres
+     */
+    public double calculateArea() {
+        return this.building.getFloorArea(this.index);
+    }
+
+    /**
+     * Returns the area of the floor occupied by its rooms.
+     *
+     * @return occupied area in square metres
+     */
+    public double occupiedArea() {
+        return this.building.getOccupiedArea(this.index);
+    }
+
+    /**
+     * Returns new Room objects for the rooms on this floor, whose fire drill
+     * state is backed by the building, in the order they were added.
+     *
+     * @return new list of the rooms on the floor
+     */
+    public List<Room> getRooms() {
+        int[] indices = this.building.getRoomIndices(this.index);
+        List<Room> rooms = new ArrayList<>(indices.length);
+        for (int room : indices) {
+            rooms.add(this.building.getRoom(room));
+        }
+        return rooms;
+    }
+
+    /**
+     * Searches for the room with the given room number.
+     *
+     * @param roomNumber room number to search for
+     * @return room with the given number if found; null if not found
+     */
+    public Room getRoomByNumber(int roomNumber) {
+        for (int room : this.building.getRoomIndices(this.index)) {
+            if (this.building.getRoomNumber(room) == roomNumber) {
+                return this.building.getRoom(room);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts a fire drill in the rooms on this floor of the given type, or in
+     * every room on this floor if the type is null.
+     *
+     * @param roomType type of room to start a fire drill in; null for all
+     */
+    public void fireDrill(RoomType roomType) {
+        this.building.fireDrill(this.index, roomType);
+    }
+
+    /**
+     * Cancels any ongoing fire drill in rooms on this floor.
+     */
+    public void cancelFireDrill() {
+        this.building.cancelFireDrill(this.index);
+    }
+
+    /**
+     * Returns the number of rooms on this floor with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    public int countRoomsInFireDrill() {
+        return this.building.countRoomsInFireDrill(this.index);
+    }
+}
@@ -0,0 +1,23 @@
+package bms.control;
+
+import bms.room.Room;
+
+/**
+ * Receives the ventilation setpoints that changed in one pass of a
+ * VentilationController, to drive the HVAC equipment.
+ *
+ * The arrays are reused from pass to pass, so they are only valid for the
+ * duration of the call and only their first count entries are meaningful.
+ */
+@FunctionalInterface
+public interface VentilationActuator {
+    /**
+     * Applies a batch of changed setpoints.
+     *
+     * @param rooms rooms whose setpoint changed
+     * @param setpoints new setpoint of each room, as a percentage of full
+     * ventilation, 0 to 100
+     * @param count number of changed setpoints, at least one
+     */
+    void apply(Room[] rooms, int[] setpoints, int count);
+}
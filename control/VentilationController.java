@@ -0,0 +1,398 @@
+package bms.control;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.Sensor;
+import bms.util.TimedItem;
+import bms.util.TimedItemManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sets the ventilation of each room from its carbon dioxide reading, using
+ * a proportional-integral (PI) controller per room.
+ *
+ * The error of a room is how far its reading is above the ideal value of
+ * its sensor, as a fraction of the sensor's variation limit, so a reading
+ * at the top of the acceptable range has an error of 1. Its setpoint, as a
+ * percentage of full ventilation, is
+ * <pre>
+ * baseSetpoint + proportionalGain * error + integralGain * integral
+ * </pre>
+ * rounded and held between 0 and 100, where the integral is the sum of each
+ * pass's error times the minutes the pass covers. The integral stops
+ * growing while the setpoint is held at a limit, so it does not wind up.
+ * Because each error is weighted by the time it lasted, the integral term
+ * responds the same however often passes are made.
+ *
+ * Each control pass reads every sensor and updates every room in one loop
+ * over primitive arrays indexed by room, allocating nothing. Only the
+ * setpoints that changed are handed to the VentilationActuator, in a single
+ * batch. A pass covering one minute is made every tick;
+ * controlPass(double) can also be called directly to control on a shorter
+ * period.
+ *
+ * Buildings added with addBuilding(Building) are followed: when the
+ * structure of one changes, the next pass checks every controlled room's
+ * sensor by identity, takes up a sensor that replaced the one it had, and
+ * starts or stops controlling rooms that joined or left the building.
+ */
+public class VentilationController implements TimedItem {
+    // Default gains, in percent per unit of error, and per unit of error
+    // lasting a minute
+    private static final double DEFAULT_PROPORTIONAL_GAIN = 40;
+    private static final double DEFAULT_INTEGRAL_GAIN = 4;
+
+    // Default setpoint of a room at its ideal value
+    private static final double DEFAULT_BASE_SETPOINT = 20;
+
+    // Limits of a setpoint
+    private static final int MIN_SETPOINT = 0;
+    private static final int MAX_SETPOINT = 100;
+
+    // Initial number of rooms space is reserved for
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final VentilationActuator actuator;
+    private final double proportionalGain;
+    private final double integralGain;
+    private final double baseSetpoint;
+
+    // Sensors and the rooms holding them, by index
+    private CarbonDioxideSensor[] sensors =
+            new CarbonDioxideSensor[INITIAL_CAPACITY];
+    private Room[] rooms = new Room[INITIAL_CAPACITY];
+
+    // Ideal value and reciprocal variation limit of each sensor
+    private int[] idealValues = new int[INITIAL_CAPACITY];
+    private double[] inverseLimits = new double[INITIAL_CAPACITY];
+
+    // Sum of errors and current setpoint of each room
+    private double[] integrals = new double[INITIAL_CAPACITY];
+    private int[] setpoints = new int[INITIAL_CAPACITY];
+
+    // Rooms and setpoints that changed in the current pass
+    private Room[] changedRooms = new Room[INITIAL_CAPACITY];
+    private int[] changedSetpoints = new int[INITIAL_CAPACITY];
+
+    // Index of each room, for lookups
+    private final Map<Room, Integer> indices = new IdentityHashMap<>();
+
+    // Whether each room was added as part of a building, by index
+    private boolean[] fromBuilding = new boolean[INITIAL_CAPACITY];
+
+    // Buildings followed, and the structure version of each when last
+    // checked
+    private final List<Building> buildings = new ArrayList<>();
+    private long[] buildingVersions = new long[0];
+
+    private int count;
+    private long passes;
+    private long setpointChanges;
+
+    /**
+     * Creates a new controller with default gains, and registers it as a
+     * timed item.
+     *
+     * @param actuator actuator that changed setpoints are sent to
+     */
+    public VentilationController(VentilationActuator actuator) {
+        this(actuator, DEFAULT_PROPORTIONAL_GAIN, DEFAULT_INTEGRAL_GAIN,
+                DEFAULT_BASE_SETPOINT);
+    }
+
+    /**
+     * Creates a new controller and registers it as a timed item.
+     *
+     * @param actuator actuator that changed setpoints are sent to
+     * @param proportionalGain setpoint change per unit of error
+     * @param integralGain setpoint change per unit of error lasting a
+     * minute
+     * @param baseSetpoint setpoint of a room at its ideal value, 0 to 100
+     * @throws IllegalArgumentException if either gain is negative, or
+     * baseSetpoint is not between 0 and 100
+     */
+    public VentilationController(VentilationActuator actuator,
+                                 double proportionalGain, double integralGain,
+                                 double baseSetpoint) {
+        if (!(proportionalGain >= 0) || !(integralGain >= 0)
+                || !(baseSetpoint >= MIN_SETPOINT
+                && baseSetpoint <= MAX_SETPOINT)) {
+            throw new IllegalArgumentException();
+        }
+        this.actuator = actuator;
+        this.proportionalGain = proportionalGain;
+        this.integralGain = integralGain;
+        this.baseSetpoint = baseSetpoint;
+        TimedItemManager.getInstance().registerTimedItem(this);
+    }
+
+    /**
+     * Controls every room with a carbon dioxide sensor in the given
+     * building, now and as the building changes.
+     *
+     * @param building building to control
+     */
+    public synchronized void addBuilding(Building building) {
+        this.buildings.add(building);
+        this.buildingVersions = Arrays.copyOf(this.buildingVersions,
+                this.buildings.size());
+        this.buildingVersions[this.buildings.size() - 1] =
+                building.getCounters().getStructureVersion();
+        addRooms(building);
+    }
+
+    /**
+     * Controls a room from its carbon dioxide sensor. The room's setpoint
+     * starts at the base setpoint and is first sent on the next pass.
+     * Adding a room that is already controlled with the same sensor does
+     * nothing; with another sensor, the room is controlled from that sensor
+     * from then on, starting again from its ideal value.
+     *
+     * @param room room to control
+     * @param sensor sensor in the room
+     */
+    public synchronized void addRoom(Room room, CarbonDioxideSensor sensor) {
+        addRoom(room, sensor, false);
+    }
+
+    private void addRoom(Room room, CarbonDioxideSensor sensor,
+                         boolean inBuilding) {
+        Integer existing = this.indices.get(room);
+        if (existing != null) {
+            if (this.sensors[existing] != sensor) {
+                useSensor(existing, sensor);
+            }
+            this.fromBuilding[existing] |= inBuilding;
+            return;
+        }
+        int index = this.count;
+        if (index == this.rooms.length) {
+            grow();
+        }
+        this.rooms[index] = room;
+        this.fromBuilding[index] = inBuilding;
+        useSensor(index, sensor);
+        // Out of range, so the first pass always sends it
+        this.setpoints[index] = -1;
+        this.indices.put(room, index);
+        this.count++;
+    }
+
+    // Controls the room at an index from a sensor, with a fresh integral
+    private void useSensor(int index, CarbonDioxideSensor sensor) {
+        this.sensors[index] = sensor;
+        this.idealValues[index] = sensor.getIdealValue();
+        this.inverseLimits[index] = 1.0 / sensor.getVariationLimit();
+        this.integrals[index] = 0;
+    }
+
+    private void addRooms(Building building) {
+        for (Floor floor : building.getFloors()) {
+            for (Room room : floor.getRooms()) {
+                Sensor sensor = room.getSensor("CarbonDioxideSensor");
+                if (sensor != null) {
+                    addRoom(room, (CarbonDioxideSensor) sensor, true);
+                }
+            }
+        }
+    }
+
+    // Brings the rooms and sensors controlled up to date with the buildings
+    // followed, if the structure of any has changed
+    private void refresh() {
+        boolean changed = false;
+        for (int i = 0; i < this.buildings.size(); i++) {
+            long version = this.buildings.get(i).getCounters()
+                    .getStructureVersion();
+            if (version != this.buildingVersions[i]) {
+                this.buildingVersions[i] = version;
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return;
+        }
+        Set<Room> present = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Building building : this.buildings) {
+            for (Floor floor : building.getFloors()) {
+                present.addAll(floor.getRooms());
+            }
+        }
+        // Backwards, so removing a room moves only rooms already checked.
+        // Rooms added on their own outside these buildings are left alone.
+        for (int i = this.count - 1; i >= 0; i--) {
+            if (!present.contains(this.rooms[i])) {
+                if (this.fromBuilding[i]) {
+                    removeRoom(i);
+                }
+                continue;
+            }
+            Sensor sensor = this.rooms[i].getSensor("CarbonDioxideSensor");
+            if (sensor == null) {
+                removeRoom(i);
+            } else if (sensor != this.sensors[i]) {
+                useSensor(i, (CarbonDioxideSensor) sensor);
+            }
+        }
+        for (Building building : this.buildings) {
+            addRooms(building);
+        }
+    }
+
+    // Stops controlling the room at an index, moving the last room into it
+    private void removeRoom(int index) {
+        int last = this.count - 1;
+        this.indices.remove(this.rooms[index]);
+        if (index != last) {
+            this.sensors[index] = this.sensors[last];
+            this.rooms[index] = this.rooms[last];
+            this.idealValues[index] = this.idealValues[last];
+            this.inverseLimits[index] = this.inverseLimits[last];
+            this.integrals[index] = this.integrals[last];
+            this.setpoints[index] = this.setpoints[last];
+            this.fromBuilding[index] = this.fromBuilding[last];
+            this.indices.put(this.rooms[index], index);
+        }
+        this.sensors[last] = null;
+        this.rooms[last] = null;
+        this.count--;
+    }
+
+    /**
+     * Returns the number of rooms being controlled.
+     *
+     * @return number of rooms
+     */
+    public synchronized int getRoomCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the current setpoint of a room.
+     *
+     * @param room controlled room
+     * @return setpoint as a percentage of full ventilation; -1 if no pass
+     * has been made since the room was added
+     * @throws IllegalArgumentException if the room is not controlled
+     */
+    public synchronized int getSetpoint(Room room) {
+        Integer index = this.indices.get(room);
+        if (index == null) {
+            throw new IllegalArgumentException();
+        }
+        return this.setpoints[index];
+    }
+
+    /**
+     * Returns the number of control passes made.
+     *
+     * @return number of passes
+     */
+    public synchronized long getPassCount() {
+        return this.passes;
+    }
+
+    /**
+     * Returns the number of setpoint changes sent to the actuator.
+     *
+     * @return number of changes sent
+     */
+    public synchronized long getSetpointChanges() {
+        return this.setpointChanges;
+    }
+
+    /**
+     * Makes a control pass covering one minute.
+     */
+    @Override
+    public void elapseOneMinute() {
+        controlPass();
+    }
+
+    /**
+     * Makes a control pass covering one minute, see controlPass(double).
+     *
+     * @return number of setpoints that changed
+     */
+    public int controlPass() {
+        return controlPass(1);
+    }
+
+    /**
+     * Reads every sensor, updates every room's controller, and sends the
+     * setpoints that changed to the actuator. Each room's error is added to
+     * its integral weighted by the time since the previous pass.
+     *
+     * @param elapsedMinutes minutes since the previous pass, which may be a
+     * fraction of a minute
+     * @return number of setpoints that changed
+     * @throws IllegalArgumentException if elapsedMinutes is not positive
+     */
+    public synchronized int controlPass(double elapsedMinutes) {
+        if (!(elapsedMinutes > 0)) {
+            throw new IllegalArgumentException();
+        }
+        refresh();
+        int changed = 0;
+        for (int i = 0; i < this.count; i++) {
+            double error = (this.sensors[i].getCurrentReading()
+                    - this.idealValues[i]) * this.inverseLimits[i];
+            double integral = this.integrals[i] + error * elapsedMinutes;
+            double output = this.baseSetpoint + this.proportionalGain * error
+                    + this.integralGain * integral;
+
+            int setpoint;
+            if (output >= MAX_SETPOINT) {
+                setpoint = MAX_SETPOINT;
+            } else if (output <= MIN_SETPOINT) {
+                setpoint = MIN_SETPOINT;
+            } else {
+                setpoint = (int) Math.round(output);
+            }
+            // Only accumulate error while it can still move the setpoint
+            boolean saturated = setpoint == MAX_SETPOINT && error > 0
+                    || setpoint == MIN_SETPOINT && error < 0;
+            if (!saturated) {
+                this.integrals[i] = integral;
+            }
+
+            if (setpoint != this.setpoints[i]) {
+                this.setpoints[i] = setpoint;
+                this.changedRooms[changed] = this.rooms[i];
+                this.changedSetpoints[changed] = setpoint;
+                changed++;
+            }
+        }
+        this.passes++;
+        if (changed > 0) {
+            this.setpointChanges += changed;
+            this.actuator.apply(this.changedRooms, this.changedSetpoints,
+                    changed);
+            // Let go of the rooms until the next pass
+            Arrays.fill(this.changedRooms, 0, changed, null);
+        }
+        return changed;
+    }
+
+    private void grow() {
+        int capacity = this.rooms.length * 2;
+        this.sensors = Arrays.copyOf(this.sensors, capacity);
+        this.rooms = Arrays.copyOf(this.rooms, capacity);
+        this.idealValues = Arrays.copyOf(this.idealValues, capacity);
+        this.inverseLimits = Arrays.copyOf(this.inverseLimits, capacity);
+        this.integrals = Arrays.copyOf(this.integrals, capacity);
+        this.setpoints = Arrays.copyOf(this.setpoints, capacity);
+        this.fromBuilding = Arrays.copyOf(this.fromBuilding, capacity);
+        this.changedRooms = Arrays.copyOf(this.changedRooms, capacity);
+        this.changedSetpoints = Arrays.copyOf(this.changedSetpoints, capacity);
+    }
+}
@@ -0,0 +1,240 @@
+package bms.display;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.util.ModelCounters;
+import bms.util.TimedItemManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A live console view of a building that follows the simulation as it
+ * runs, on an ANSI terminal.
+ *
+ * The building is shown as a tree of rows: one for the building, one per
+ * floor and one per room, with the room's highest hazard level and fire
+ * drill state. Only a window of viewportRows rows is shown at a time, and
+ * only the rows inside that window are ever built, so a building with
+ * hundreds of thousands of rooms costs no more to follow than a small one.
+ *
+ * Frames are drawn at a fixed rate. A frame does nothing unless the
+ * building's structure or state, the tick count or the window has changed
+ * since the last frame, and then only redraws the rows whose text changed.
+ * Ticks are counted by the TimedItemManager that was current when the
+ * display was created.
+ */
+public class LiveDisplay {
+    // ANSI sequence that clears the current line
+    private static final String CLEAR_LINE = "\u001b[2K";
+
+    private final Building building;
+    private final TimedItemManager clock;
+    private final Writer out;
+    private final int viewportRows;
+    private final long frameNanos;
+
+    // Text of each row of the window as last drawn
+    private final String[] drawnRows;
+
+    // Reused to build each row's text
+    private final StringBuilder row = new StringBuilder(128);
+
+    // Snapshot of the floors, and the first row of each floor
+    private List<Floor> floors;
+    private int[] floorStartRows;
+    private int totalRows;
+
+    // Versions shown by the last frame
+    private long drawnStructure = -1;
+    private long drawnState = -1;
+    private long drawnTicks = -1;
+    private int drawnTopRow = -1;
+
+    // First row of the window
+    private volatile int topRow;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new live display, which does not draw until started.
+     *
+     * @param building building to display
+     * @param out writer connected to an ANSI terminal
+     * @param viewportRows number of rows shown at once
+     * @param framesPerSecond maximum number of frames drawn per second
+     * @throws IllegalArgumentException if viewportRows or framesPerSecond is
+     * less than one
+     */
+    public LiveDisplay(Building building, Writer out, int viewportRows,
+                       int framesPerSecond) {
+        if (viewportRows < 1 || framesPerSecond < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.building = building;
+        this.clock = TimedItemManager.getInstance();
+        this.out = out;
+        this.viewportRows = viewportRows;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        this.drawnRows = new String[viewportRows];
+    }
+
+    /**
+     * Starts drawing frames at the configured rate on a background thread.
+     */
+    public synchronized void start() {
+        if (this.scheduler != null) {
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bms-live-display");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.scheduler.scheduleAtFixedRate(() -> {
+            try {
+                drawFrame();
+            } catch (IOException e) {
+                stop();
+            }
+        }, 0, this.frameNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops drawing frames.
+     */
+    public synchronized void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdown();
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Scrolls the window so that it starts at the given row.
+     *
+     * @param firstRow first row to show, 0 being the building row
+     */
+    public void scrollTo(int firstRow) {
+        this.topRow = Math.max(0, firstRow);
+    }
+
+    /**
+     * Returns the number of rows in the whole tree, as of the last frame.
+     *
+     * @return number of rows
+     */
+    public int getTotalRows() {
+        return this.totalRows;
+    }
+
+    /**
+     * Draws one frame, redrawing only the rows that changed since the last
+     * one. Called by the background thread once started, but can also be
+     * called directly to drive the display by hand.
+     *
+     * @return number of rows redrawn
+     * @throws IOException if the writer fails
+     */
+    public synchronized int drawFrame() throws IOException {
+        ModelCounters counters = this.building.getCounters();
+        long structure = counters.getStructureVersion();
+        long state = counters.getStateVersion();
+        long ticks = this.clock.getTickCount();
+        int top = this.topRow;
+        if (structure == this.drawnStructure && state == this.drawnState &&
+                ticks == this.drawnTicks && top == this.drawnTopRow) {
+            return 0;
+        }
+        if (structure != this.drawnStructure || this.floors == null) {
+            layOut();
+        }
+
+        int redrawn = 0;
+        for (int i = 0; i < this.viewportRows; i++) {
+            this.row.setLength(0);
+            buildRow(top + i, ticks);
+            String drawn = this.drawnRows[i];
+            if (drawn != null && drawn.contentEquals(this.row)) {
+                continue;
+            }
+            // Move to the row, clear it and write the new text
+            this.out.write("\u001b[" + (i + 1) + ";1H" + CLEAR_LINE);
+            this.out.append(this.row);
+            this.drawnRows[i] = this.row.toString();
+            redrawn++;
+        }
+        if (redrawn > 0) {
+            this.out.flush();
+        }
+
+        this.drawnStructure = structure;
+        this.drawnState = state;
+        this.drawnTicks = ticks;
+        this.drawnTopRow = top;
+        return redrawn;
+    }
+
+    // Works out the first row of each floor
+    private void layOut() {
+        this.floors = this.building.getFloors();
+        this.floorStartRows = new int[this.floors.size()];
+        // Row 0 is the building itself
+        int next = 1;
+        for (int f = 0; f < this.floors.size(); f++) {
+            this.floorStartRows[f] = next;
+            next += 1 + this.floors.get(f).getRoomCount();
+        }
+        this.totalRows = next;
+    }
+
+    // Builds the text of one row of the tree into row
+    private void buildRow(int index, long ticks) {
+        if (index == 0) {
+            this.building.appendTo(this.row);
+            this.row.append(" | minute=").append(ticks)
+                    .append(", inFireDrill=")
+                    .append(this.building.countRoomsInFireDrill());
+            return;
+        }
+        if (index >= this.totalRows) {
+            return;
+        }
+        // Last floor starting at or before this row
+        int low = 0;
+        int high = this.floorStartRows.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (this.floorStartRows[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        Floor floor = this.floors.get(low);
+        int slot = index - this.floorStartRows[low] - 1;
+        if (slot < 0) {
+            this.row.append('\t');
+            floor.appendTo(this.row);
+            this.row.append(" | inFireDrill=")
+                    .append(floor.countRoomsInFireDrill());
+            return;
+        }
+        Room room = floor.getRoomInSlot(slot);
+        if (room == null) {
+            return;
+        }
+        this.row.append("\t\t");
+        room.appendTo(this.row);
+        this.row.append(" | hazard=").append(room.getMaxHazardLevel());
+        if (room.fireDrillOngoing()) {
+            this.row.append(" FIRE DRILL");
+        }
+    }
+}
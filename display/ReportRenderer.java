@@ -0,0 +1,100 @@
+package bms.display;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.Sensor;
+import bms.util.Renderable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams the textual report of a building, as printed by SimpleDisplay,
+ * to a Writer.
+ *
+ * Every line is appended into one reusable buffer using each object's
+ * appendTo method, and the buffer is copied out to the writer in chunks, so
+ * rendering allocates no strings per line. The output is identical to
+ * printing the toString() of the building, each floor, room and sensor on
+ * its own line, indented with one tab per level.
+ */
+public class ReportRenderer {
+    // Buffered characters above which the buffer is written out
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final StringBuilder buffer = new StringBuilder(2 * FLUSH_THRESHOLD);
+    private char[] chunk = new char[2 * FLUSH_THRESHOLD];
+
+    /**
+     * Creates a new renderer writing to the given writer.
+     *
+     * @param out writer to send the report to
+     */
+    public ReportRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Renders the building, its floors, rooms and sensors, then flushes the
+     * writer.
+     *
+     * @param building building to render
+     * @throws IOException if the writer fails
+     */
+    public void renderBuilding(Building building) throws IOException {
+        line(0, building);
+        for (Floor floor : building.getFloors()) {
+            line(1, floor);
+            for (Room room : floor.getRooms()) {
+                line(2, room);
+                List<Sensor> sensors = room.getSensors();
+                for (int i = 0; i < sensors.size(); i++) {
+                    line(3, sensors.get(i));
+                }
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes out everything buffered so far and flushes the writer.
+     *
+     * @throws IOException if the writer fails
+     */
+    public void flush() throws IOException {
+        drain();
+        this.out.flush();
+    }
+
+    // Appends one indented line, writing the buffer out when it is full
+    private void line(int depth, Object item) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            this.buffer.append('\t');
+        }
+        if (item instanceof Renderable) {
+            ((Renderable) item).appendTo(this.buffer);
+        } else {
+            this.buffer.append(item);
+        }
+        this.buffer.append(LINE_SEPARATOR);
+        if (this.buffer.length() >= FLUSH_THRESHOLD) {
+            drain();
+        }
+    }
+
+    // Copies the buffer to the writer and empties it
+    private void drain() throws IOException {
+        int length = this.buffer.length();
+        if (length > this.chunk.length) {
+            this.chunk = new char[length];
+        }
+        this.buffer.getChars(0, length, this.chunk, 0);
+        this.out.write(this.chunk, 0, length);
+        this.buffer.setLength(0);
+    }
+}
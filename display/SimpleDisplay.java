@@ -6,6 +6,11 @@ import bms.floor.Floor;
 import bms.room.Room;
 import bms.room.RoomType;
 import bms.sensors.*;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
 /**
  * A class to create and display a building managed by the BMS.
  * <p>
@@ -132,23 +137,23 @@ public class SimpleDisplay {
     }
 
     /**
-     * Outputs the given building to the console by calling the toString methods
+     * Outputs the given building to the console using the toString methods
      * in Building, Floor, Room and TimedSensor.
      *
+     * The report is streamed through a ReportRenderer, which produces the
+     * same text as printing each toString() on its own line, without
+     * creating a string per line.
+     *
      * You can modify this method if you wish, but it is not necessary.
      *
      * @param building building to display
      */
     private static void displayBuilding(Building building) {
-        System.out.println(building.toString());
-        for (Floor floor : building.getFloors()) {
-            System.out.println("\t" + floor.toString());
-            for (Room room : floor.getRooms()) {
-                System.out.println("\t\t" + room.toString());
-                for (Sensor sensor : room.getSensors()) {
-                    System.out.println("\t\t\t" + sensor.toString());
-                }
-            }
+        Writer out = new OutputStreamWriter(System.out);
+        try {
+            new ReportRenderer(out).renderBuilding(building);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
@@ -0,0 +1,24 @@
+package bms.exceptions;
+
+/**
+ * Exception thrown when a building is added to a campus that already contains
+ * a building with the same name.
+ */
+public class DuplicateBuildingException extends Exception {
+    /**
+     * Constructs a normal DuplicateBuildingException with no error
+     * message or cause.
+     */
+    public DuplicateBuildingException(){
+    }
+
+    /**
+     * Constructs a DuplicateBuildingException that contains a helpful message
+     * detailing why the exception occurred.
+     *
+     * @param message detail message
+     */
+    public DuplicateBuildingException(String message){
+        super(message);
+    }
+}
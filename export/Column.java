@@ -0,0 +1,43 @@
+package bms.export;
+
+/**
+ * The columns of a sensor history exported by ColumnarExporter, each kept
+ * in its own file of fixed-width little-endian values.
+ */
+public enum Column {
+    /** Tick at which the row was recorded, as a long. */
+    TICK("tick.col", Long.BYTES),
+    /** Index of the sensor in the export's sensor list, as an int. */
+    SENSOR("sensor.col", Integer.BYTES),
+    /** The sensor's reading, as an int. */
+    READING("reading.col", Integer.BYTES),
+    /** The sensor's hazard level, 0 to 100, or -1 if not a hazard sensor,
+     * as a byte. */
+    HAZARD_LEVEL("hazard.col", Byte.BYTES);
+
+    private final String fileName;
+    private final int width;
+
+    Column(String fileName, int width) {
+        this.fileName = fileName;
+        this.width = width;
+    }
+
+    /**
+     * Returns the name of the file holding this column.
+     *
+     * @return file name within the export directory
+     */
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Returns the number of bytes taken by each value of this column.
+     *
+     * @return value width in bytes
+     */
+    public int getWidth() {
+        return this.width;
+    }
+}
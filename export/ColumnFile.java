@@ -0,0 +1,26 @@
+package bms.export;
+
+/**
+ * Layout shared by the writer and reader of a column file: a fixed header,
+ * then one fixed-width little-endian value per row.
+ *
+ * The header holds a magic number, the column's ordinal and value width,
+ * and the number of rows, which is written when the file is closed.
+ */
+final class ColumnFile {
+    // "BMSC" in ASCII
+    static final int MAGIC = 0x424D5343;
+
+    static final int HEADER_BYTES = 16;
+
+    // Offsets of the header fields
+    static final int ORDINAL_OFFSET = 4;
+    static final int WIDTH_OFFSET = 6;
+    static final int ROW_COUNT_OFFSET = 8;
+
+    // Name of the file listing the exported sensors
+    static final String SENSORS_FILE = "sensors.txt";
+
+    private ColumnFile() {
+    }
+}
@@ -0,0 +1,107 @@
+package bms.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the values of one column to its file through a memory-mapped
+ * chunk, mapping the next chunk on from the end of the last when it fills.
+ */
+final class ColumnWriter {
+    private final Column column;
+    private final FileChannel channel;
+    private final int chunkBytes;
+
+    // Chunk currently written, and its position in the file
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+
+    private long rows;
+
+    ColumnWriter(Path file, Column column, int chunkRows) throws IOException {
+        this.column = column;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.chunkBytes = chunkRows * column.getWidth();
+        this.chunkStart = ColumnFile.HEADER_BYTES;
+        writeHeader();
+        mapChunk();
+    }
+
+    void putLong(long value) throws IOException {
+        ensureSpace();
+        this.chunk.putLong(value);
+        this.rows++;
+    }
+
+    void putInt(int value) throws IOException {
+        ensureSpace();
+        this.chunk.putInt(value);
+        this.rows++;
+    }
+
+    void putByte(byte value) throws IOException {
+        ensureSpace();
+        this.chunk.put(value);
+        this.rows++;
+    }
+
+    long getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Records the number of rows in the header and forces everything to
+     * the storage device, so a reader sees every row written so far.
+     */
+    void flush() throws IOException {
+        this.chunk.force();
+        writeHeader();
+        this.channel.force(false);
+    }
+
+    /**
+     * Flushes, trims the unused end of the last chunk, and closes the file.
+     */
+    void close() throws IOException {
+        try {
+            flush();
+            this.chunk = null;
+            this.channel.truncate(ColumnFile.HEADER_BYTES
+                    + this.rows * this.column.getWidth());
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private void ensureSpace() throws IOException {
+        if (!this.chunk.hasRemaining()) {
+            this.chunkStart += this.chunkBytes;
+            mapChunk();
+        }
+    }
+
+    // Mapping past the end of the file grows it to fit
+    private void mapChunk() throws IOException {
+        this.chunk = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                this.chunkStart, this.chunkBytes);
+        this.chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ColumnFile.HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(ColumnFile.MAGIC);
+        header.putShort((short) this.column.ordinal());
+        header.putShort((short) this.column.getWidth());
+        header.putLong(this.rows);
+        header.flip();
+        this.channel.write(header, 0);
+    }
+}
@@ -0,0 +1,240 @@
+package bms.export;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.HazardSensor;
+import bms.sensors.Sensor;
+import bms.util.TimedItem;
+import bms.util.TimedItemManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a history of sensor readings and hazard levels to a directory in a
+ * columnar layout, for analytics tools to scan quickly.
+ *
+ * Each row is one reading of one sensor at one tick. Every Column is kept
+ * in its own file, so a scan of one column reads nothing of the others.
+ * Values are appended through memory-mapped chunks of the file, mapping the
+ * next chunk as each one fills, so writing a row is a few stores into
+ * memory. The sensors are listed, by index, in sensors.txt as their floor
+ * number, room number and type, since room numbers are only unique on
+ * their floor.
+ *
+ * The exporter is registered as a timed item, and records a row for every
+ * sensor added to it each tick. Rows from elsewhere, such as recorded
+ * readings, can be written with append. The row count in each file's
+ * header is brought up to date by flush() and close(); a ColumnarReader
+ * only sees rows written before then.
+ */
+public class ColumnarExporter implements TimedItem, Closeable {
+    // Default number of rows in each mapped chunk
+    private static final int DEFAULT_CHUNK_ROWS = 1 << 16;
+
+    private final Path directory;
+    private final Map<Column, ColumnWriter> writers =
+            new EnumMap<>(Column.class);
+
+    // Sensors recorded each tick, and the floors and rooms holding them
+    private final List<Sensor> sensors = new ArrayList<>();
+    private final List<Integer> floorNumbers = new ArrayList<>();
+    private final List<Room> rooms = new ArrayList<>();
+
+    private long ticks;
+    private boolean closed;
+
+    /**
+     * Creates an exporter writing to the given directory, creating the
+     * directory if it does not exist and replacing any export already in
+     * it, and registers it as a timed item.
+     *
+     * @param directory directory to write the column files to
+     * @throws IOException if the directory or files cannot be created
+     */
+    public ColumnarExporter(Path directory) throws IOException {
+        this(directory, DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * Creates an exporter mapping the given number of rows at a time, and
+     * registers it as a timed item.
+     *
+     * @param directory directory to write the column files to
+     * @param chunkRows number of rows in each mapped chunk
+     * @throws IOException if the directory or files cannot be created
+     * @throws IllegalArgumentException if chunkRows is less than one
+     */
+    public ColumnarExporter(Path directory, int chunkRows) throws IOException {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.directory = Files.createDirectories(directory);
+        try {
+            for (Column column : Column.values()) {
+                this.writers.put(column, new ColumnWriter(
+                        directory.resolve(column.getFileName()), column,
+                        chunkRows));
+            }
+        } catch (IOException e) {
+            closeWriters();
+            throw e;
+        }
+        TimedItemManager.getInstance().registerTimedItem(this);
+    }
+
+    /**
+     * Records every sensor currently in the given building each tick.
+     *
+     * @param building building to record
+     */
+    public void addBuilding(Building building) {
+        for (Floor floor : building.getFloors()) {
+            for (Room room : floor.getRooms()) {
+                for (Sensor sensor : room.getSensors()) {
+                    addSensor(floor, room, sensor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a sensor each tick.
+     *
+     * @param floor floor holding the room
+     * @param room room holding the sensor
+     * @param sensor sensor to record
+     * @return index of the sensor in the export
+     */
+    public synchronized int addSensor(Floor floor, Room room, Sensor sensor) {
+        this.sensors.add(sensor);
+        this.floorNumbers.add(floor.getFloorNumber());
+        this.rooms.add(room);
+        return this.sensors.size() - 1;
+    }
+
+    /**
+     * Writes a row for every sensor added, at the next tick.
+     *
+     * @throws UncheckedIOException if the rows cannot be written
+     */
+    @Override
+    public synchronized void elapseOneMinute() {
+        if (this.closed) {
+            return;
+        }
+        long tick = ++this.ticks;
+        try {
+            for (int i = 0; i < this.sensors.size(); i++) {
+                Sensor sensor = this.sensors.get(i);
+                int reading = sensor.getCurrentReading();
+                int hazardLevel = sensor instanceof HazardSensor
+                        ? ((HazardSensor) sensor).getHazardLevel(reading) : -1;
+                append(tick, i, reading, hazardLevel);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes one row.
+     *
+     * @param tick tick the reading was taken at
+     * @param sensorIndex index of the sensor, as returned by addSensor
+     * @param reading the sensor's reading
+     * @param hazardLevel hazard level of the reading, or -1 if none
+     * @throws IOException if the row cannot be written
+     * @throws IllegalStateException if the exporter is closed
+     */
+    public synchronized void append(long tick, int sensorIndex, int reading,
+                                    int hazardLevel) throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException();
+        }
+        this.writers.get(Column.TICK).putLong(tick);
+        this.writers.get(Column.SENSOR).putInt(sensorIndex);
+        this.writers.get(Column.READING).putInt(reading);
+        this.writers.get(Column.HAZARD_LEVEL).putByte((byte) hazardLevel);
+    }
+
+    /**
+     * Returns the number of rows written.
+     *
+     * @return rows written
+     */
+    public synchronized long getRowCount() {
+        return this.writers.get(Column.TICK).getRows();
+    }
+
+    /**
+     * Makes every row written so far visible to readers, and writes the
+     * sensor list.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        for (ColumnWriter writer : this.writers.values()) {
+            writer.flush();
+        }
+        writeSensors();
+    }
+
+    /**
+     * Flushes and closes every file, and stops recording each tick.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        TimedItemManager.getInstance().deregisterTimedItem(this);
+        writeSensors();
+        closeWriters();
+    }
+
+    private void writeSensors() throws IOException {
+        try (Writer out = Files.newBufferedWriter(
+                this.directory.resolve(ColumnFile.SENSORS_FILE),
+                StandardCharsets.UTF_8)) {
+            for (int i = 0; i < this.sensors.size(); i++) {
+                out.write(i + " " + this.floorNumbers.get(i) + " "
+                        + this.rooms.get(i).getRoomNumber() + " "
+                        + this.sensors.get(i).getClass().getSimpleName()
+                        + "\n");
+            }
+        }
+    }
+
+    // Closes every writer, throwing the first failure once all are tried
+    private void closeWriters() throws IOException {
+        IOException failure = null;
+        for (ColumnWriter writer : this.writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package bms.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads an export written by ColumnarExporter, one column at a time.
+ *
+ * A scan maps only the file of the column asked for, in windows of up to
+ * 1 GiB, and reads its values straight from the mapping, so a column of
+ * millions of rows is scanned without loading the others or copying the
+ * file onto the heap.
+ */
+public class ColumnarReader {
+    // Largest window of a column file mapped at once
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final Path directory;
+    private final long rowCount;
+
+    // Floor number, room number and type of each exported sensor, by index
+    private final List<Integer> floorNumbers = new ArrayList<>();
+    private final List<Integer> roomNumbers = new ArrayList<>();
+    private final List<String> sensorTypes = new ArrayList<>();
+
+    /**
+     * Opens the export in the given directory.
+     *
+     * @param directory directory written by a ColumnarExporter
+     * @throws IOException if the export cannot be read, or is malformed
+     */
+    public ColumnarReader(Path directory) throws IOException {
+        this.directory = directory;
+        long rows = -1;
+        for (Column column : Column.values()) {
+            long columnRows = readRowCount(column);
+            if (rows >= 0 && columnRows != rows) {
+                throw new IOException("Columns have different lengths");
+            }
+            rows = columnRows;
+        }
+        this.rowCount = rows;
+        for (String line : Files.readAllLines(
+                directory.resolve(ColumnFile.SENSORS_FILE),
+                StandardCharsets.UTF_8)) {
+            String[] fields = line.split(" ");
+            if (fields.length != 4) {
+                throw new IOException("Malformed sensor line: " + line);
+            }
+            try {
+                this.floorNumbers.add(Integer.parseInt(fields[1]));
+                this.roomNumbers.add(Integer.parseInt(fields[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed sensor line: " + line, e);
+            }
+            this.sensorTypes.add(fields[3]);
+        }
+    }
+
+    /**
+     * Returns the number of rows in the export.
+     *
+     * @return number of rows
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of sensors in the export.
+     *
+     * @return number of sensors
+     */
+    public int getSensorCount() {
+        return this.roomNumbers.size();
+    }
+
+    /**
+     * Returns the number of the floor holding an exported sensor.
+     *
+     * @param sensorIndex index of the sensor
+     * @return floor number
+     */
+    public int getFloorNumber(int sensorIndex) {
+        return this.floorNumbers.get(sensorIndex);
+    }
+
+    /**
+     * Returns the number of the room holding an exported sensor, which is
+     * unique only together with its floor number.
+     *
+     * @param sensorIndex index of the sensor
+     * @return room number
+     */
+    public int getRoomNumber(int sensorIndex) {
+        return this.roomNumbers.get(sensorIndex);
+    }
+
+    /**
+     * Returns the type of an exported sensor, its simple class name.
+     *
+     * @param sensorIndex index of the sensor
+     * @return sensor type
+     */
+    public String getSensorType(int sensorIndex) {
+        return this.sensorTypes.get(sensorIndex);
+    }
+
+    /**
+     * Passes every value of a column to the consumer, in row order, widened
+     * to a long.
+     *
+     * @param column column to scan
+     * @param consumer consumer of the values
+     * @throws IOException if the column cannot be read
+     */
+    public void scan(Column column, LongConsumer consumer) throws IOException {
+        int width = column.getWidth();
+        // Whole values per window, so none straddles two windows
+        long windowRows = WINDOW_BYTES / width;
+        try (FileChannel channel = FileChannel.open(fileOf(column),
+                StandardOpenOption.READ)) {
+            for (long first = 0; first < this.rowCount; first += windowRows) {
+                int rows = (int) Math.min(windowRows, this.rowCount - first);
+                MappedByteBuffer window = channel.map(
+                        FileChannel.MapMode.READ_ONLY,
+                        ColumnFile.HEADER_BYTES + first * width,
+                        (long) rows * width);
+                window.order(ByteOrder.LITTLE_ENDIAN);
+                switch (width) {
+                    case Long.BYTES:
+                        for (int i = 0; i < rows; i++) {
+                            consumer.accept(window.getLong(i * Long.BYTES));
+                        }
+                        break;
+                    case Integer.BYTES:
+                        for (int i = 0; i < rows; i++) {
+                            consumer.accept(window.getInt(i * Integer.BYTES));
+                        }
+                        break;
+                    default:
+                        for (int i = 0; i < rows; i++) {
+                            consumer.accept(window.get(i));
+                        }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of every value of a column.
+     *
+     * @param column column to sum
+     * @return sum of the column
+     * @throws IOException if the column cannot be read
+     */
+    public long sum(Column column) throws IOException {
+        long[] sum = new long[1];
+        scan(column, value -> sum[0] += value);
+        return sum[0];
+    }
+
+    /**
+     * Returns the largest value of a column.
+     *
+     * @param column column to scan
+     * @return largest value; Long.MIN_VALUE if there are no rows
+     * @throws IOException if the column cannot be read
+     */
+    public long max(Column column) throws IOException {
+        long[] max = {Long.MIN_VALUE};
+        scan(column, value -> max[0] = Math.max(max[0], value));
+        return max[0];
+    }
+
+    private long readRowCount(Column column) throws IOException {
+        try (FileChannel channel = FileChannel.open(fileOf(column),
+                StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(ColumnFile.HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Truncated header: "
+                            + column.getFileName());
+                }
+            }
+            if (header.getInt(0) != ColumnFile.MAGIC
+                    || header.getShort(ColumnFile.ORDINAL_OFFSET)
+                    != column.ordinal()
+                    || header.getShort(ColumnFile.WIDTH_OFFSET)
+                    != column.getWidth()) {
+                throw new IOException("Not a " + column + " column: "
+                        + column.getFileName());
+            }
+            long rows = header.getLong(ColumnFile.ROW_COUNT_OFFSET);
+            if (ColumnFile.HEADER_BYTES + rows * column.getWidth()
+                    > channel.size()) {
+                throw new IOException("Truncated column: "
+                        + column.getFileName());
+            }
+            return rows;
+        }
+    }
+
+    private Path fileOf(Column column) {
+        return this.directory.resolve(column.getFileName());
+    }
+}
@@ -4,11 +4,20 @@ import bms.exceptions.DuplicateRoomException;
 import bms.exceptions.InsufficientSpaceException;
 import bms.room.Room;
 import bms.room.RoomType;
+import bms.sensors.Sensor;
 import bms.util.FireDrill;
+import bms.util.ModelCounters;
+import bms.util.Renderable;
+import bms.util.SlotBitSet;
+import bms.util.TextFormat;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a floor of a building.
@@ -17,17 +26,30 @@ import java.util.List;
  *
  * A floor can be evacuated, which causes all rooms on the floor to be
  * evacuated.
+ *
+ * Rooms are held in an immutable snapshot that is replaced whenever a room
+ * is added, so a floor can be read from any thread without locking.
+ *
+ * Each room is given a slot, its position on the floor, and the fire drill
+ * state of all rooms is kept in one bit set indexed by slot. Starting,
+ * cancelling and counting fire drills therefore work on 64 rooms at a time.
  */
-public class Floor implements FireDrill {
+public class Floor implements FireDrill, Renderable {
     int floorNumber;
     double width;
     double length;
 
-    // Two decimal places format
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.00");
+    // Immutable snapshot of the rooms on the floor, replaced on every change
+    private volatile List<Room> roomList;
+
+    // Fire drill state of every room, indexed by slot
+    private final SlotBitSet fireDrillSlots;
+
+    // Slots of the rooms of each type, indexed by RoomType ordinal
+    private volatile BitSet[] typeSlots = new BitSet[RoomType.values().length];
 
-    // List of rooms on the floor
-    private List<Room> roomList;
+    // Counters of the building holding this floor, if any
+    private volatile ModelCounters counters;
 
     /**
      *Creates a new floor with the given floor number.
@@ -38,10 +60,32 @@ public class Floor implements FireDrill {
      * @param length the length of the floor in metres
      */
     public Floor(int floorNumber, double width, double length) {
+        this(floorNumber, width, length, new SlotBitSet());
+    }
+
+    /**
+     * Creates a new floor whose fire drill state is kept in the given bit
+     * set, for floors whose state must outlive the Floor object, such as
+     * floors that are unloaded and loaded again. Slots already set in the
+     * bit set put the rooms later added in those slots in a fire drill.
+     *
+     * @param floorNumber a unique floor number, corresponds to how many floors
+     * above ground floor (inclusive)
+     * @param width the width of the floor in metres
+     * @param length the length of the floor in metres
+     * @param fireDrillSlots bit set holding the fire drill state of each
+     * room, indexed by slot
+     */
+    public Floor(int floorNumber, double width, double length,
+                 SlotBitSet fireDrillSlots) {
+        this.fireDrillSlots = fireDrillSlots;
         this.floorNumber = floorNumber;
         this.width = width;
         this.length = length;
-        this.roomList = new ArrayList<>();
+        this.roomList = Collections.emptyList();
+        for (int i = 0; i < this.typeSlots.length; i++) {
+            this.typeSlots[i] = new BitSet();
+        }
     }
 
     /**
@@ -84,6 +128,30 @@ public class Floor implements FireDrill {
         return new ArrayList<>(this.roomList);
     }
 
+    /**
+     * Returns the number of rooms on this floor.
+     *
+     * @return number of rooms
+     */
+    public int getRoomCount() {
+        return this.roomList.size();
+    }
+
+    /**
+     * Returns the room in the given slot, i.e. the room at that position in
+     * getRooms(), without copying the list of rooms.
+     *
+     * @param slot slot of the room
+     * @return room in the slot; null if there is no such slot
+     */
+    public Room getRoomInSlot(int slot) {
+        List<Room> rooms = this.roomList;
+        if (slot < 0 || slot >= rooms.size()) {
+            return null;
+        }
+        return rooms.get(slot);
+    }
+
     /**
      * Returns width of the floor.
      *
@@ -161,7 +229,7 @@ public class Floor implements FireDrill {
      * @throws InsufficientSpaceException if there is insufficient space
      * available on the floor to be able to add the room
      */
-    public void addRoom(Room newRoom) throws DuplicateRoomException,
+    public synchronized void addRoom(Room newRoom) throws DuplicateRoomException,
             InsufficientSpaceException {
         if (newRoom.getArea() < Room.getMinArea()) {
             throw new IllegalArgumentException();
@@ -175,23 +243,211 @@ public class Floor implements FireDrill {
             }
         }
 
-        this.roomList.add(newRoom);
+        // The new room takes the next slot on the floor
+        int slot = this.roomList.size();
+        newRoom.attachFireDrillState(this.fireDrillSlots, slot);
+        if (newRoom.getType() != null) {
+            BitSet[] updatedTypes = this.typeSlots.clone();
+            int type = newRoom.getType().ordinal();
+            updatedTypes[type] = (BitSet) updatedTypes[type].clone();
+            updatedTypes[type].set(slot);
+            this.typeSlots = updatedTypes;
+        }
+
+        List<Room> updatedRooms = new ArrayList<>(this.roomList);
+        updatedRooms.add(newRoom);
+        this.roomList = Collections.unmodifiableList(updatedRooms);
+        if (this.counters != null) {
+            countRoom(this.counters, newRoom);
+            this.counters.incrementStructureVersion();
+        }
+    }
+
+    /**
+     * Adds several rooms to the floor at once, in list order, following the
+     * same rules as addRoom(Room). The rooms are published together, so
+     * adding n rooms copies the list of rooms once rather than n times.
+     * Either every room is added or, if any breaks the rules, none is.
+     *
+     * @param newRooms the rooms to add
+     * @throws IllegalArgumentException if the area of a room is less than
+     * Room.getMinArea()
+     * @throws DuplicateRoomException if a room number is already taken on
+     * this floor, or appears twice in the list
+     * @throws InsufficientSpaceException if there is insufficient space
+     * available on the floor for all the rooms
+     */
+    public synchronized void addRooms(List<Room> newRooms)
+            throws DuplicateRoomException, InsufficientSpaceException {
+        Set<Integer> numbers = new HashSet<>();
+        for (Room r : this.roomList) {
+            numbers.add(r.getRoomNumber());
+        }
+        // Summed the same way as occupiedArea()
+        float occupied = occupiedArea();
+        for (Room newRoom : newRooms) {
+            if (newRoom.getArea() < Room.getMinArea()) {
+                throw new IllegalArgumentException();
+            } else if ((calculateArea() - occupied) < newRoom.getArea()) {
+                throw new InsufficientSpaceException();
+            } else if (!numbers.add(newRoom.getRoomNumber())) {
+                throw new DuplicateRoomException();
+            }
+            occupied += newRoom.getArea();
+        }
+
+        BitSet[] updatedTypes = this.typeSlots.clone();
+        for (int i = 0; i < updatedTypes.length; i++) {
+            updatedTypes[i] = (BitSet) updatedTypes[i].clone();
+        }
+        List<Room> updatedRooms = new ArrayList<>(
+                this.roomList.size() + newRooms.size());
+        updatedRooms.addAll(this.roomList);
+        for (Room newRoom : newRooms) {
+            int slot = updatedRooms.size();
+            newRoom.attachFireDrillState(this.fireDrillSlots, slot);
+            if (newRoom.getType() != null) {
+                updatedTypes[newRoom.getType().ordinal()].set(slot);
+            }
+            updatedRooms.add(newRoom);
+        }
+        this.typeSlots = updatedTypes;
+        this.roomList = Collections.unmodifiableList(updatedRooms);
+        if (this.counters != null) {
+            for (Room newRoom : newRooms) {
+                countRoom(this.counters, newRoom);
+            }
+            this.counters.incrementStructureVersion();
+        }
     }
 
+    /**
+     * Counts this floor and everything on it, and anything added to it
+     * later, in the given counters, normally those of the building the
+     * floor is in.
+     *
+     * @param counters counters to update
+     */
+    public synchronized void attachCounters(ModelCounters counters) {
+        counters.addFloor();
+        for (Room r : this.roomList) {
+            countRoom(counters, r);
+        }
+        this.counters = counters;
+    }
+
+    /**
+     * Stops counting this floor and everything on it in the counters given
+     * to attachCounters(ModelCounters), removing them from the counts.
+     */
+    public synchronized void detachCounters() {
+        ModelCounters building = this.counters;
+        if (building != null) {
+            building.removeFloor();
+            for (Room r : this.roomList) {
+                uncountRoom(building, r);
+            }
+            this.counters = null;
+        }
+    }
+
+    /**
+     * Replaces the rooms on this floor all at once, for reloading a changed
+     * floor definition. The rooms are given slots in list order, and each
+     * keeps its fire drill state, whether it was on this floor before or
+     * is moved here from another. The rooms are expected to come from a
+     * valid floor definition, so are not checked against the floor's space
+     * or against each other.
+     *
+     * @param rooms the new rooms on the floor
+     */
+    public synchronized void setRooms(List<Room> rooms) {
+        List<Room> previous = this.roomList;
+        Set<Room> previousRooms = identitySet(previous);
+        Set<Room> updatedRooms = identitySet(rooms);
+        ModelCounters building = this.counters;
+        if (building != null) {
+            for (Room r : previous) {
+                if (!updatedRooms.contains(r)) {
+                    uncountRoom(building, r);
+                }
+            }
+        }
+
+        // Take every room's state out of the bit set before reusing slots
+        for (Room r : previous) {
+            r.detachFireDrillState();
+        }
+        for (Room r : rooms) {
+            r.detachFireDrillState();
+        }
+        this.fireDrillSlots.clear();
+        BitSet[] updatedTypes = new BitSet[this.typeSlots.length];
+        for (int i = 0; i < updatedTypes.length; i++) {
+            updatedTypes[i] = new BitSet();
+        }
+        for (int slot = 0; slot < rooms.size(); slot++) {
+            Room r = rooms.get(slot);
+            r.attachFireDrillState(this.fireDrillSlots, slot);
+            if (r.getType() != null) {
+                updatedTypes[r.getType().ordinal()].set(slot);
+            }
+        }
+        this.typeSlots = updatedTypes;
+        this.roomList = Collections.unmodifiableList(new ArrayList<>(rooms));
+
+        if (building != null) {
+            for (Room r : rooms) {
+                if (!previousRooms.contains(r)) {
+                    countRoom(building, r);
+                }
+            }
+            building.incrementStructureVersion();
+        }
+    }
+
+    private static Set<Room> identitySet(List<Room> rooms) {
+        Set<Room> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(rooms);
+        return set;
+    }
+
+    // Counts a room on this floor, its sensors and its fire drill state
+    private static void countRoom(ModelCounters counters, Room room) {
+        counters.addRoom();
+        room.attachCounters(counters);
+        if (room.fireDrillOngoing()) {
+            counters.addRoomsInFireDrill(1);
+        }
+    }
+
+    // Reverses countRoom for a room leaving this floor
+    private static void uncountRoom(ModelCounters counters, Room room) {
+        counters.removeRoom();
+        room.detachCounters();
+        if (room.fireDrillOngoing()) {
+            counters.addRoomsInFireDrill(-1);
+        }
+    }
+
+    // Locked against setRooms(List), which gives rooms new slots
     @Override
-    public void fireDrill(RoomType roomType) {
+    public synchronized void fireDrill(RoomType roomType) {
+        int started;
         // Starts fire drill in all rooms
         if (roomType == null) {
-            for (Room r : this.roomList) {
-                r.setFireDrill(true);
-            }
+            BitSet allSlots = new BitSet();
+            allSlots.set(0, this.roomList.size());
+            started = this.fireDrillSlots.or(allSlots);
         // Starts fire drill in given room type
         } else {
-            for (Room r : this.roomList) {
-                if (roomType == r.getType()) {
-                    r.setFireDrill(true);
-                }
-            }
+            started = this.fireDrillSlots.or(
+                    this.typeSlots[roomType.ordinal()]);
+        }
+        ModelCounters building = this.counters;
+        if (building != null) {
+            building.addRoomsInFireDrill(started);
+            building.incrementStateVersion();
         }
     }
 
@@ -199,19 +455,94 @@ public class Floor implements FireDrill {
      * Cancels any ongoing fire drill in rooms on the floor.
      * All rooms must have their fire alarm cancelled regardless of room type.
      */
-    public void cancelFireDrill() {
-        for (Room r : this.roomList) {
-            r.setFireDrill(false);
+    public synchronized void cancelFireDrill() {
+        int cancelled = this.fireDrillSlots.clear();
+        ModelCounters building = this.counters;
+        if (building != null) {
+            building.addRoomsInFireDrill(-cancelled);
+            building.incrementStateVersion();
         }
     }
 
+    /**
+     * Returns the number of rooms on this floor with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    public int countRoomsInFireDrill() {
+        return this.fireDrillSlots.cardinality();
+    }
+
+    /**
+     * Returns the slots of the rooms on this floor with a fire drill
+     * ongoing. A room's slot is its position in getRooms().
+     *
+     * @return new bit set of the slots of rooms in fire drill
+     */
+    public BitSet getFireDrillSlots() {
+        return this.fireDrillSlots.toBitSet();
+    }
+
+    /**
+     * Returns the slots of the rooms of the given type on this floor.
+     *
+     * @param roomType type of room
+     * @return new bit set of the slots of rooms of that type
+     */
+    public BitSet getSlotsOfType(RoomType roomType) {
+        return (BitSet) this.typeSlots[roomType.ordinal()].clone();
+    }
+
+    /**
+     * Returns the slots of the rooms on this floor whose occupancy sensor
+     * currently reports at least one person.
+     *
+     * @return new bit set of the slots of occupied rooms
+     */
+    public BitSet getOccupiedSlots() {
+        BitSet occupied = new BitSet();
+        List<Room> rooms = this.roomList;
+        for (int slot = 0; slot < rooms.size(); slot++) {
+            Sensor sensor = rooms.get(slot).getSensor("OccupancySensor");
+            if (sensor != null && sensor.getCurrentReading() > 0) {
+                occupied.set(slot);
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Returns the rooms in the given slots, for example the result of
+     * combining getFireDrillSlots() and getOccupiedSlots() with BitSet.and().
+     *
+     * @param slots slots of the rooms to return
+     * @return new list of the rooms in those slots, in slot order
+     */
+    public List<Room> getRoomsInSlots(BitSet slots) {
+        List<Room> rooms = this.roomList;
+        List<Room> result = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0 && slot < rooms.size();
+             slot = slots.nextSetBit(slot + 1)) {
+            result.add(rooms.get(slot));
+        }
+        return result;
+    }
+
     @Override
-    public String toString(){
-        String widthRound = DECIMAL_FORMAT.format(this.width);
-        String lengthRound = DECIMAL_FORMAT.format(this.length);
+    public void appendTo(StringBuilder builder){
+        // Width and length to two decimal places
+        builder.append("Floor #").append(this.floorNumber).append(": width=");
+        TextFormat.appendTwoDecimals(builder, this.width);
+        builder.append("m, length=");
+        TextFormat.appendTwoDecimals(builder, this.length);
+        builder.append("m, rooms=").append(this.roomList.size());
+    }
 
-        return "Floor #" + this.floorNumber + ": width=" + widthRound + "m," +
-                " length=" + lengthRound + "m, rooms=" + this.roomList.size();
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder(64);
+        appendTo(builder);
+        return builder.toString();
     }
 
 }
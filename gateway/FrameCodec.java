@@ -0,0 +1,136 @@
+package bms.gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary frame format used by field gateways to push sensor readings.
+ *
+ * A frame is a 4 byte header followed by one 16 byte record per reading,
+ * all big-endian:
+ *
+ * <pre>
+ * header: u16 magic (0xB35A), u16 record count (1 to MAX_RECORDS)
+ * record: i32 sensorId, i32 value, i64 timestamp
+ * </pre>
+ *
+ * Frames are decoded in place, straight out of the buffer the channel read
+ * into, without copying bytes or allocating objects.
+ */
+public final class FrameCodec {
+    /**
+     * Value of the first two bytes of every frame.
+     */
+    public static final short MAGIC = (short) 0xB35A;
+
+    /**
+     * Size of the frame header in bytes.
+     */
+    public static final int HEADER_BYTES = 4;
+
+    /**
+     * Size of one reading in bytes.
+     */
+    public static final int RECORD_BYTES = 16;
+
+    /**
+     * Maximum number of readings in one frame.
+     */
+    public static final int MAX_RECORDS = 4096;
+
+    /**
+     * Size of the largest possible frame in bytes.
+     */
+    public static final int MAX_FRAME_BYTES =
+            HEADER_BYTES + MAX_RECORDS * RECORD_BYTES;
+
+    /**
+     * Returned by decode when the buffer holds a malformed frame.
+     */
+    public static final int MALFORMED = -1;
+
+    private FrameCodec() {
+    }
+
+    /**
+     * Writes one frame holding the given readings at the buffer's position.
+     *
+     * @param buffer buffer to write into
+     * @param sensorIds id of the sensor each reading is for
+     * @param values the readings
+     * @param timestamps time at which each reading was taken
+     * @param offset index of the first reading to write
+     * @param count number of readings, 1 to MAX_RECORDS
+     * @throws IllegalArgumentException if count is out of range
+     * @throws java.nio.BufferOverflowException if the frame does not fit
+     */
+    public static void encode(ByteBuffer buffer, int[] sensorIds,
+                              int[] values, long[] timestamps, int offset,
+                              int count) {
+        if (count < 1 || count > MAX_RECORDS) {
+            throw new IllegalArgumentException();
+        }
+        buffer.putShort(MAGIC);
+        buffer.putShort((short) count);
+        for (int i = offset; i < offset + count; i++) {
+            buffer.putInt(sensorIds[i]);
+            buffer.putInt(values[i]);
+            buffer.putLong(timestamps[i]);
+        }
+    }
+
+    /**
+     * Returns whether the buffer, between its position and limit, starts
+     * with a complete frame.
+     *
+     * @param buffer buffer to inspect
+     * @return true if a whole frame is available
+     */
+    public static boolean hasCompleteFrame(ByteBuffer buffer) {
+        int position = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return false;
+        }
+        int count = Short.toUnsignedInt(buffer.getShort(position + 2));
+        return buffer.remaining() >= HEADER_BYTES + count * RECORD_BYTES;
+    }
+
+    /**
+     * Decodes as many complete frames as possible from the buffer, between
+     * its position and limit, into the ring. Decoding stops at an incomplete
+     * frame, or at a frame that does not fit in the ring's free space. The
+     * buffer's position is left at the first byte not decoded.
+     *
+     * @param buffer buffer holding the received bytes
+     * @param ring ring to append the readings to
+     * @param now time stamp recorded with each reading, in nanoseconds
+     * @return number of frames decoded; MALFORMED if a frame has a bad magic
+     * number or record count
+     */
+    static int decode(ByteBuffer buffer, ReadingRing ring, long now) {
+        int frames = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int position = buffer.position();
+            if (buffer.getShort(position) != MAGIC) {
+                return MALFORMED;
+            }
+            int count = Short.toUnsignedInt(buffer.getShort(position + 2));
+            if (count < 1 || count > MAX_RECORDS) {
+                return MALFORMED;
+            }
+            int frameBytes = HEADER_BYTES + count * RECORD_BYTES;
+            if (buffer.remaining() < frameBytes ||
+                    ring.remainingCapacity() < count) {
+                break;
+            }
+            int record = position + HEADER_BYTES;
+            for (int i = 0; i < count; i++, record += RECORD_BYTES) {
+                ring.put(buffer.getInt(record), buffer.getInt(record + 4),
+                        buffer.getLong(record + 8), now);
+            }
+            ring.publish();
+            buffer.position(position + frameBytes);
+            frames++;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,436 @@
+package bms.gateway;
+
+import bms.sensors.LiveSensorRegistry;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local server through which field gateways push sensor readings into the
+ * BMS, over TCP or UDP, using the frames described by FrameCodec.
+ *
+ * All sockets are served by a single selector thread. Each TCP connection
+ * reads into its own direct buffer, and frames are decoded in place from
+ * that buffer into a bounded ring of primitive readings. A separate
+ * ingestion thread drains the ring in batches into a LiveSensorRegistry,
+ * which routes each reading to its sensor by id.
+ *
+ * When the ingestion thread falls behind and the ring fills up, the
+ * selector stops reading from every socket until the ring has drained to
+ * half its capacity. For TCP this pushes back on the senders through flow
+ * control; for UDP the operating system drops datagrams while reads are
+ * paused.
+ */
+public class IngestionServer {
+    // Size of each connection's receive buffer, room for two full frames
+    private static final int BUFFER_BYTES = 2 * FrameCodec.MAX_FRAME_BYTES;
+
+    // Most readings handed to the registry at once
+    private static final int BATCH_SIZE = 4096;
+
+    private final LiveSensorRegistry registry;
+    private final ReadingRing ring;
+    private final InetSocketAddress tcpAddress;
+    private final InetSocketAddress udpAddress;
+
+    private Selector selector;
+    private ServerSocketChannel tcpChannel;
+    private DatagramChannel udpChannel;
+    private ByteBuffer datagramBuffer;
+    private Thread selectorThread;
+    private Thread ingestionThread;
+    private volatile boolean running;
+
+    // Whether reads are paused because the ring is full
+    private volatile boolean paused;
+
+    // Written by the selector thread only
+    private volatile long framesDecoded;
+    private volatile long malformedFrames;
+    private volatile long pauses;
+    private volatile long droppedDatagrams;
+
+    // Written by the ingestion thread only
+    private volatile long readingsApplied;
+    private volatile long readingsAccepted;
+    private volatile long batches;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    /**
+     * Creates a new server, which is not started until start() is called.
+     *
+     * @param registry registry that readings are routed through
+     * @param tcpAddress address to accept TCP connections on; null for none
+     * @param udpAddress address to receive UDP datagrams on; null for none
+     * @param queueCapacity number of decoded readings that may be waiting
+     * for ingestion before reads are paused; at least MAX_RECORDS
+     * @throws IllegalArgumentException if queueCapacity is less than
+     * FrameCodec.MAX_RECORDS
+     */
+    public IngestionServer(LiveSensorRegistry registry,
+                           InetSocketAddress tcpAddress,
+                           InetSocketAddress udpAddress, int queueCapacity) {
+        if (queueCapacity < FrameCodec.MAX_RECORDS) {
+            throw new IllegalArgumentException();
+        }
+        this.registry = registry;
+        this.tcpAddress = tcpAddress;
+        this.udpAddress = udpAddress;
+        this.ring = new ReadingRing(queueCapacity);
+    }
+
+    /**
+     * Binds the sockets and starts the selector and ingestion threads.
+     *
+     * @throws IOException if a socket cannot be bound
+     * @throws IllegalStateException if the server was already started
+     */
+    public synchronized void start() throws IOException {
+        if (this.selector != null) {
+            throw new IllegalStateException();
+        }
+        this.selector = Selector.open();
+        if (this.tcpAddress != null) {
+            this.tcpChannel = ServerSocketChannel.open();
+            this.tcpChannel.bind(this.tcpAddress);
+            this.tcpChannel.configureBlocking(false);
+            this.tcpChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        }
+        if (this.udpAddress != null) {
+            this.udpChannel = DatagramChannel.open();
+            this.udpChannel.bind(this.udpAddress);
+            this.udpChannel.configureBlocking(false);
+            this.udpChannel.register(this.selector, SelectionKey.OP_READ);
+            this.datagramBuffer = ByteBuffer.allocateDirect(65536);
+        }
+        this.running = true;
+        this.selectorThread = new Thread(this::selectLoop,
+                "bms-ingestion-selector");
+        this.ingestionThread = new Thread(this::ingestLoop,
+                "bms-ingestion-consumer");
+        this.selectorThread.setDaemon(true);
+        this.ingestionThread.setDaemon(true);
+        this.selectorThread.start();
+        this.ingestionThread.start();
+    }
+
+    /**
+     * Stops both threads, closes every socket, and waits for the readings
+     * already decoded to be ingested.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.selector.wakeup();
+        this.selectorThread.join();
+        this.ingestionThread.join();
+    }
+
+    /**
+     * Returns the TCP port the server is listening on.
+     *
+     * @return bound TCP port; -1 if TCP is not enabled or not started
+     */
+    public int getTcpPort() {
+        return this.tcpChannel == null ? -1
+                : this.tcpChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the UDP port the server is receiving on.
+     *
+     * @return bound UDP port; -1 if UDP is not enabled or not started
+     */
+    public int getUdpPort() {
+        return this.udpChannel == null ? -1
+                : this.udpChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of complete frames decoded.
+     *
+     * @return frames decoded
+     */
+    public long getFramesDecoded() {
+        return this.framesDecoded;
+    }
+
+    /**
+     * Returns the number of frames rejected as malformed. The connection
+     * that sent a malformed frame is closed.
+     *
+     * @return malformed frames
+     */
+    public long getMalformedFrames() {
+        return this.malformedFrames;
+    }
+
+    /**
+     * Returns the number of times reads were paused because ingestion fell
+     * behind.
+     *
+     * @return number of pauses
+     */
+    public long getPauses() {
+        return this.pauses;
+    }
+
+    /**
+     * Returns the number of datagrams whose readings were dropped, in whole
+     * or in part, because the queue was full.
+     *
+     * @return dropped datagrams
+     */
+    public long getDroppedDatagrams() {
+        return this.droppedDatagrams;
+    }
+
+    /**
+     * Returns the number of readings handed to the registry.
+     *
+     * @return readings ingested
+     */
+    public long getReadingsApplied() {
+        return this.readingsApplied;
+    }
+
+    /**
+     * Returns the number of readings the registry accepted, i.e. excluding
+     * unknown sensors and out of date readings.
+     *
+     * @return readings accepted
+     */
+    public long getReadingsAccepted() {
+        return this.readingsAccepted;
+    }
+
+    /**
+     * Returns the number of readings decoded but not yet ingested.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return this.ring.size();
+    }
+
+    /**
+     * Returns the mean time a batch of readings waited in the queue between
+     * being decoded and being ingested.
+     *
+     * @return mean queueing latency in nanoseconds
+     */
+    public long getMeanLatencyNanos() {
+        long count = this.batches;
+        return count == 0 ? 0 : this.totalLatencyNanos / count;
+    }
+
+    /**
+     * Returns the longest time a batch of readings waited in the queue.
+     *
+     * @return maximum queueing latency in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return this.maxLatencyNanos;
+    }
+
+    // Body of the selector thread
+    private void selectLoop() {
+        try {
+            while (this.running) {
+                this.selector.select(100);
+                if (this.paused &&
+                        this.ring.size() <= this.ring.capacity() / 2) {
+                    resume();
+                }
+                Iterator<SelectionKey> keys =
+                        this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        if (key.channel() == this.udpChannel) {
+                            receiveDatagrams();
+                        } else {
+                            readConnection(key);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            this.running = false;
+        } finally {
+            for (SelectionKey key : this.selector.keys()) {
+                close(key);
+            }
+            try {
+                this.selector.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    // Accepts a new TCP connection with its own direct receive buffer
+    private void accept() throws IOException {
+        SocketChannel channel = this.tcpChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(this.selector, this.paused ? 0 : SelectionKey.OP_READ,
+                ByteBuffer.allocateDirect(BUFFER_BYTES));
+    }
+
+    // Reads from a TCP connection and decodes its complete frames
+    private void readConnection(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        try {
+            if (channel.read(buffer) < 0) {
+                close(key);
+                return;
+            }
+        } catch (IOException e) {
+            close(key);
+            return;
+        }
+        decodeConnection(key, buffer);
+    }
+
+    // Decodes what a connection's buffer holds, leaving partial frames
+    private void decodeConnection(SelectionKey key, ByteBuffer buffer) {
+        buffer.flip();
+        int frames = FrameCodec.decode(buffer, this.ring, System.nanoTime());
+        if (frames == FrameCodec.MALFORMED) {
+            this.malformedFrames++;
+            close(key);
+            return;
+        }
+        this.framesDecoded += frames;
+        boolean blocked = FrameCodec.hasCompleteFrame(buffer);
+        buffer.compact();
+        if (blocked) {
+            pause();
+        }
+    }
+
+    // Receives every waiting datagram, each holding whole frames
+    private void receiveDatagrams() throws IOException {
+        while (!this.paused) {
+            this.datagramBuffer.clear();
+            if (this.udpChannel.receive(this.datagramBuffer) == null) {
+                return;
+            }
+            this.datagramBuffer.flip();
+            int frames = FrameCodec.decode(this.datagramBuffer, this.ring,
+                    System.nanoTime());
+            if (frames == FrameCodec.MALFORMED) {
+                this.malformedFrames++;
+                continue;
+            }
+            this.framesDecoded += frames;
+            if (FrameCodec.hasCompleteFrame(this.datagramBuffer)) {
+                // A datagram cannot be held back, so the rest is lost
+                this.droppedDatagrams++;
+                pause();
+            }
+        }
+    }
+
+    // Stops reading from every socket until the ring drains
+    private void pause() {
+        if (this.paused) {
+            return;
+        }
+        this.paused = true;
+        this.pauses++;
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.isValid() && key.channel() != this.tcpChannel) {
+                key.interestOps(0);
+            }
+        }
+    }
+
+    // Decodes frames held back while paused, then reads again
+    private void resume() {
+        this.paused = false;
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof ByteBuffer) {
+                decodeConnection(key, (ByteBuffer) key.attachment());
+            }
+        }
+        if (this.paused) {
+            return;
+        }
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.isValid() && key.channel() != this.tcpChannel) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    // Body of the ingestion thread
+    private void ingestLoop() {
+        int[] ids = new int[BATCH_SIZE];
+        int[] values = new int[BATCH_SIZE];
+        long[] timestamps = new long[BATCH_SIZE];
+        while (this.running || this.ring.size() > 0) {
+            int count = this.ring.drain(ids, values, timestamps, BATCH_SIZE);
+            if (count == 0) {
+                LockSupport.parkNanos(50_000);
+                continue;
+            }
+            long queuedAt = this.ring.oldestQueuedAt();
+            int accepted = this.registry.ingest(ids, values, timestamps,
+                    count);
+            this.ring.release(count);
+
+            long latency = System.nanoTime() - queuedAt;
+            this.readingsApplied += count;
+            this.readingsAccepted += accepted;
+            this.batches++;
+            this.totalLatencyNanos += latency;
+            if (latency > this.maxLatencyNanos) {
+                this.maxLatencyNanos = latency;
+            }
+            if (this.paused) {
+                this.selector.wakeup();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IngestionServer: tcpPort=" + getTcpPort() + ", udpPort=" +
+                getUdpPort() + ", frames=" + this.framesDecoded +
+                ", applied=" + this.readingsApplied + ", queueDepth=" +
+                getQueueDepth();
+    }
+}
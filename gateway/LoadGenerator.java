@@ -0,0 +1,121 @@
+package bms.gateway;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates a set of field gateways pushing readings to an IngestionServer
+ * over local TCP connections, one thread per connection.
+ */
+public class LoadGenerator {
+    private final InetSocketAddress server;
+    private final int connections;
+    private final int sensorCount;
+    private final int framesPerConnection;
+    private final int readingsPerFrame;
+
+    /**
+     * Creates a new load generator.
+     *
+     * @param server address of the server's TCP socket
+     * @param connections number of concurrent connections
+     * @param sensorCount readings are spread over sensor ids 0 to
+     * sensorCount - 1; each connection writes its own share of the ids
+     * @param framesPerConnection number of frames each connection sends
+     * @param readingsPerFrame number of readings in each frame
+     * @throws IllegalArgumentException if readingsPerFrame is not between 1
+     * and FrameCodec.MAX_RECORDS, or sensorCount is less than connections
+     */
+    public LoadGenerator(InetSocketAddress server, int connections,
+                         int sensorCount, int framesPerConnection,
+                         int readingsPerFrame) {
+        if (readingsPerFrame < 1 || readingsPerFrame > FrameCodec.MAX_RECORDS
+                || sensorCount < connections) {
+            throw new IllegalArgumentException();
+        }
+        this.server = server;
+        this.connections = connections;
+        this.sensorCount = sensorCount;
+        this.framesPerConnection = framesPerConnection;
+        this.readingsPerFrame = readingsPerFrame;
+    }
+
+    /**
+     * Returns the total number of readings a run sends.
+     *
+     * @return readings per run
+     */
+    public long getTotalReadings() {
+        return (long) this.connections * this.framesPerConnection *
+                this.readingsPerFrame;
+    }
+
+    /**
+     * Sends every frame and waits for all connections to finish writing.
+     *
+     * @return number of readings sent
+     * @throws IOException if a connection fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long run() throws IOException, InterruptedException {
+        AtomicLong sent = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        List<IOException> failures = new ArrayList<>();
+        for (int c = 0; c < this.connections; c++) {
+            int connection = c;
+            Thread thread = new Thread(() -> {
+                try {
+                    sent.addAndGet(send(connection));
+                } catch (IOException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "bms-load-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return sent.get();
+    }
+
+    // Sends every frame of one connection
+    private long send(int connection) throws IOException {
+        // Ids owned by this connection, so each sensor has a single writer
+        int share = this.sensorCount / this.connections;
+        int firstId = connection * share;
+        int[] ids = new int[this.readingsPerFrame];
+        int[] values = new int[this.readingsPerFrame];
+        long[] timestamps = new long[this.readingsPerFrame];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(FrameCodec.HEADER_BYTES
+                + this.readingsPerFrame * FrameCodec.RECORD_BYTES);
+        long timestamp = 0;
+        try (SocketChannel channel = SocketChannel.open(this.server)) {
+            for (int f = 0; f < this.framesPerConnection; f++) {
+                for (int i = 0; i < this.readingsPerFrame; i++) {
+                    ids[i] = firstId + (int) (timestamp % share);
+                    values[i] = (int) (timestamp % 100);
+                    timestamps[i] = timestamp++;
+                }
+                buffer.clear();
+                FrameCodec.encode(buffer, ids, values, timestamps, 0,
+                        this.readingsPerFrame);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+        return (long) this.framesPerConnection * this.readingsPerFrame;
+    }
+}
@@ -0,0 +1,125 @@
+package bms.gateway;
+
+/**
+ * Bounded queue of decoded readings between the selector thread, which is
+ * its only producer, and the ingestion thread, which is its only consumer.
+ *
+ * Readings are stored in parallel primitive arrays, so nothing is allocated
+ * per reading. Each side owns one of the two volatile cursors, so neither
+ * side takes a lock.
+ */
+class ReadingRing {
+    private final int capacity;
+    private final int mask;
+    private final int[] sensorIds;
+    private final int[] values;
+    private final long[] timestamps;
+
+    // Time each reading was queued, in nanoseconds
+    private final long[] queuedAt;
+
+    // Next reading to be taken by the consumer
+    private volatile long head;
+
+    // End of the readings published to the consumer
+    private volatile long tail;
+
+    // End of the readings written by the producer, published or not
+    private long pendingTail;
+
+    /**
+     * Creates a new ring able to hold at least the given number of readings.
+     *
+     * @param minimumCapacity number of readings the ring must be able to hold
+     */
+    ReadingRing(int minimumCapacity) {
+        int size = Integer.highestOneBit(Math.max(2, minimumCapacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.sensorIds = new int[size];
+        this.values = new int[size];
+        this.timestamps = new long[size];
+        this.queuedAt = new long[size];
+    }
+
+    /**
+     * Returns the number of readings the ring can hold.
+     *
+     * @return capacity of the ring
+     */
+    int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of readings queued and not yet taken.
+     *
+     * @return number of queued readings
+     */
+    int size() {
+        return (int) (this.tail - this.head);
+    }
+
+    /**
+     * Returns the number of readings the producer can still add, including
+     * those written but not yet published.
+     *
+     * @return free space in the ring
+     */
+    int remainingCapacity() {
+        return this.capacity - (int) (this.pendingTail - this.head);
+    }
+
+    /**
+     * Writes a reading without making it visible to the consumer. The
+     * caller must first check remainingCapacity().
+     */
+    void put(int sensorId, int value, long timestamp, long now) {
+        int slot = (int) this.pendingTail & this.mask;
+        this.sensorIds[slot] = sensorId;
+        this.values[slot] = value;
+        this.timestamps[slot] = timestamp;
+        this.queuedAt[slot] = now;
+        this.pendingTail++;
+    }
+
+    /**
+     * Makes every reading written so far visible to the consumer.
+     */
+    void publish() {
+        this.tail = this.pendingTail;
+    }
+
+    /**
+     * Moves up to max readings into the given arrays, oldest first.
+     *
+     * @return number of readings taken
+     */
+    int drain(int[] ids, int[] readings, long[] times, int max) {
+        long from = this.head;
+        int count = (int) Math.min(max, this.tail - from);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (from + i) & this.mask;
+            ids[i] = this.sensorIds[slot];
+            readings[i] = this.values[slot];
+            times[i] = this.timestamps[slot];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the time at which the oldest queued reading was added. Only
+     * valid after drain has returned at least one reading.
+     */
+    long oldestQueuedAt() {
+        return this.queuedAt[(int) this.head & this.mask];
+    }
+
+    /**
+     * Releases the given number of readings taken by drain back to the
+     * producer.
+     */
+    void release(int count) {
+        this.head = this.head + count;
+    }
+}
@@ -0,0 +1,199 @@
+package bms.hazard;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.HazardSensor;
+import bms.sensors.Sensor;
+import bms.sensors.TimedSensor;
+
+/**
+ * Works out future hazard levels of rooms, floors and buildings without
+ * moving the clock.
+ *
+ * A timed sensor cycles through its readings, so its reading k minutes from
+ * now follows directly from its time elapsed, and the first minute at which
+ * it reaches a hazard level is found by checking each of its readings once.
+ * Forecasts therefore cost the same however far ahead they look. Sensors
+ * that are not timed, such as live sensors, are taken to keep their current
+ * reading.
+ *
+ * The hazard level of a room is the highest level of its hazard sensors,
+ * that of a floor the highest of its rooms, and that of a building the
+ * highest of its floors.
+ */
+public final class HazardForecast {
+    private HazardForecast() {
+    }
+
+    /**
+     * Returns the hazard level a sensor will detect the given number of
+     * minutes from now.
+     *
+     * @param sensor sensor to forecast
+     * @param minutes minutes ahead, 0 for now
+     * @return forecast hazard level, 0 to 100
+     * @throws IllegalArgumentException if minutes is less than zero
+     */
+    public static int hazardLevel(HazardSensor sensor, long minutes) {
+        if (minutes < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (!(sensor instanceof TimedSensor)) {
+            return sensor.getHazardLevel();
+        }
+        TimedSensor timed = (TimedSensor) sensor;
+        return sensor.getHazardLevel(
+                timed.getReadingAt(timed.getTimeElapsed() + minutes));
+    }
+
+    /**
+     * Returns the hazard level of a room the given number of minutes from
+     * now.
+     *
+     * @param room room to forecast
+     * @param minutes minutes ahead, 0 for now
+     * @return forecast hazard level, 0 to 100; 0 if the room has no hazard
+     * sensors
+     * @throws IllegalArgumentException if minutes is less than zero
+     */
+    public static int hazardLevel(Room room, long minutes) {
+        int level = 0;
+        for (Sensor sensor : room.getSensors()) {
+            if (sensor instanceof HazardSensor) {
+                level = Math.max(level,
+                        hazardLevel((HazardSensor) sensor, minutes));
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Returns the hazard level of a floor the given number of minutes from
+     * now.
+     *
+     * @param floor floor to forecast
+     * @param minutes minutes ahead, 0 for now
+     * @return forecast hazard level, 0 to 100
+     * @throws IllegalArgumentException if minutes is less than zero
+     */
+    public static int hazardLevel(Floor floor, long minutes) {
+        int level = 0;
+        for (Room room : floor.getRooms()) {
+            level = Math.max(level, hazardLevel(room, minutes));
+        }
+        return level;
+    }
+
+    /**
+     * Returns the hazard level of a building the given number of minutes
+     * from now.
+     *
+     * @param building building to forecast
+     * @param minutes minutes ahead, 0 for now
+     * @return forecast hazard level, 0 to 100
+     * @throws IllegalArgumentException if minutes is less than zero
+     */
+    public static int hazardLevel(Building building, long minutes) {
+        int level = 0;
+        for (Floor floor : building.getFloors()) {
+            level = Math.max(level, hazardLevel(floor, minutes));
+        }
+        return level;
+    }
+
+    /**
+     * Returns the number of minutes from now until a sensor first detects
+     * at least the given hazard level.
+     *
+     * @param sensor sensor to forecast
+     * @param threshold hazard level to look for
+     * @return minutes until the threshold is reached, 0 if it already is;
+     * -1 if it never will be
+     */
+    public static long minutesUntil(HazardSensor sensor, int threshold) {
+        if (!(sensor instanceof TimedSensor)) {
+            return sensor.getHazardLevel() >= threshold ? 0 : -1;
+        }
+        TimedSensor timed = (TimedSensor) sensor;
+        long elapsed = timed.getTimeElapsed();
+        int frequency = timed.getUpdateFrequency();
+        int changes = timed.getPeriod() / frequency;
+
+        // The reading holds until the next multiple of the frequency, then
+        // moves on once every frequency minutes; one period covers them all
+        long minutes = 0;
+        long untilChange = frequency - elapsed % frequency;
+        for (int i = 0; i < changes; i++) {
+            if (sensor.getHazardLevel(timed.getReadingAt(elapsed + minutes))
+                    >= threshold) {
+                return minutes;
+            }
+            minutes = untilChange + (long) i * frequency;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of minutes from now until a room first reaches at
+     * least the given hazard level.
+     *
+     * @param room room to forecast
+     * @param threshold hazard level to look for
+     * @return minutes until the threshold is reached, 0 if it already is;
+     * -1 if it never will be
+     */
+    public static long minutesUntil(Room room, int threshold) {
+        // A room reaches the threshold as soon as any of its sensors does
+        long soonest = -1;
+        for (Sensor sensor : room.getSensors()) {
+            if (sensor instanceof HazardSensor) {
+                soonest = sooner(soonest,
+                        minutesUntil((HazardSensor) sensor, threshold));
+            }
+        }
+        return soonest;
+    }
+
+    /**
+     * Returns the number of minutes from now until any room on a floor
+     * first reaches at least the given hazard level.
+     *
+     * @param floor floor to forecast
+     * @param threshold hazard level to look for
+     * @return minutes until the threshold is reached, 0 if it already is;
+     * -1 if it never will be
+     */
+    public static long minutesUntil(Floor floor, int threshold) {
+        long soonest = -1;
+        for (Room room : floor.getRooms()) {
+            soonest = sooner(soonest, minutesUntil(room, threshold));
+        }
+        return soonest;
+    }
+
+    /**
+     * Returns the number of minutes from now until any room in a building
+     * first reaches at least the given hazard level.
+     *
+     * @param building building to forecast
+     * @param threshold hazard level to look for
+     * @return minutes until the threshold is reached, 0 if it already is;
+     * -1 if it never will be
+     */
+    public static long minutesUntil(Building building, int threshold) {
+        long soonest = -1;
+        for (Floor floor : building.getFloors()) {
+            soonest = sooner(soonest, minutesUntil(floor, threshold));
+        }
+        return soonest;
+    }
+
+    // The sooner of two forecasts, where -1 means never
+    private static long sooner(long first, long second) {
+        if (first < 0) {
+            return second;
+        }
+        return second < 0 ? first : Math.min(first, second);
+    }
+}
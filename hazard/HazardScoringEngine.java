@@ -0,0 +1,402 @@
+package bms.hazard;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.HazardSensor;
+import bms.sensors.ObservableSensor;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes one hazard score per room by combining the hazard levels of the
+ * room's sensors, according to a HazardScoringPolicy chosen by room type.
+ *
+ * Scores are cached. A room's score is only recomputed after one of its
+ * sensors reports a changed reading (through a SensorListener), its sensors
+ * change, or the policy for its type changes. Rooms whose hazard sensors
+ * cannot be observed are recomputed every time they are needed. When the
+ * structure of a watched building changes, each room's sensors are checked
+ * by identity, so a sensor replaced by one of the same type is picked up,
+ * and rooms no longer in any watched building stop being watched.
+ *
+ * Rooms are also kept in one bucket per score, so the most hazardous rooms
+ * of all watched buildings are found by walking the buckets from the top,
+ * without looking at any other room.
+ */
+public class HazardScoringEngine {
+    // Number of possible scores, 0 to 100
+    private static final int SCORES = 101;
+
+    // Policy used for room types with no policy set
+    private static final HazardScoringPolicy DEFAULT_POLICY =
+            new HazardScoringPolicy(HazardScoringPolicy.Combination.WEIGHTED_MAX);
+
+    // Policy of each room type
+    private final Map<RoomType, HazardScoringPolicy> policies =
+            new EnumMap<>(RoomType.class);
+
+    // Buildings whose rooms are watched, and the structure version of each
+    // when last checked for new rooms and sensors
+    private final List<Building> buildings = new ArrayList<>();
+    private long[] buildingVersions = new long[0];
+
+    // Every room ever watched, by index, and the entry of each room still
+    // watched
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Room, Entry> entriesByRoom = new IdentityHashMap<>();
+
+    // Indices of the rooms with each score
+    private final BitSet[] byScore = new BitSet[SCORES];
+
+    // Indices of rooms whose score must be recomputed
+    private final BitSet dirty = new BitSet();
+
+    // Rooms watched on their own rather than as part of a building
+    private final List<Entry> singleRooms = new ArrayList<>();
+
+    // Number of scores computed so far
+    private long computeCount;
+
+    /**
+     * Creates a new engine that scores every room by its highest hazard
+     * level, until other policies are set.
+     */
+    public HazardScoringEngine() {
+        for (int i = 0; i < SCORES; i++) {
+            this.byScore[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Sets the policy used to score rooms of a type. Existing scores of
+     * rooms of that type are recomputed when next needed.
+     *
+     * @param type room type
+     * @param policy policy to use
+     */
+    public synchronized void setPolicy(RoomType type,
+                                       HazardScoringPolicy policy) {
+        this.policies.put(type, policy);
+        for (Entry entry : this.entries) {
+            if (!entry.removed && entry.room.getType() == type) {
+                entry.reweigh(policy);
+                this.dirty.set(entry.index);
+            }
+        }
+    }
+
+    /**
+     * Returns the policy used to score rooms of a type.
+     *
+     * @param type room type
+     * @return policy of the room type
+     */
+    public synchronized HazardScoringPolicy getPolicy(RoomType type) {
+        return policyOf(type);
+    }
+
+    /**
+     * Watches every room in a building, including rooms added later.
+     *
+     * @param building building to watch
+     */
+    public synchronized void addBuilding(Building building) {
+        this.buildings.add(building);
+        this.buildingVersions = Arrays.copyOf(this.buildingVersions,
+                this.buildings.size());
+        this.buildingVersions[this.buildings.size() - 1] =
+                building.getCounters().getStructureVersion();
+        addRooms(building);
+    }
+
+    /**
+     * Watches a single room. Watching a room that is already watched does
+     * nothing. Sensors added to the room later are picked up even if it is
+     * not in a watched building, by looking at its sensors whenever scores
+     * are needed.
+     *
+     * @param room room to watch
+     */
+    public synchronized void addRoom(Room room) {
+        Entry entry = watch(room);
+        if (entry != null) {
+            entry.single = true;
+            this.singleRooms.add(entry);
+        }
+    }
+
+    // Starts watching a room; null if it was already watched
+    private Entry watch(Room room) {
+        if (this.entriesByRoom.containsKey(room)) {
+            return null;
+        }
+        HazardScoringPolicy policy = policyOf(room.getType());
+        Entry entry = new Entry(room, this.entries.size(), policy);
+        this.entries.add(entry);
+        this.entriesByRoom.put(room, entry);
+        entry.attach(policy);
+        this.byScore[0].set(entry.index);
+        this.dirty.set(entry.index);
+        return entry;
+    }
+
+    /**
+     * Returns the hazard score of a room.
+     *
+     * @param room watched room
+     * @return score, 0 to 100
+     * @throws IllegalArgumentException if the room is not watched
+     */
+    public synchronized int getScore(Room room) {
+        refresh();
+        Entry entry = this.entriesByRoom.get(room);
+        if (entry == null) {
+            throw new IllegalArgumentException();
+        }
+        return entry.score;
+    }
+
+    /**
+     * Returns the most hazardous watched rooms, highest score first. Rooms
+     * with the same score are in the order they were first watched.
+     *
+     * @param count maximum number of rooms to return
+     * @return new list of at most count rooms
+     */
+    public synchronized List<Room> mostHazardous(int count) {
+        refresh();
+        List<Room> result = new ArrayList<>(
+                Math.min(count, this.entries.size()));
+        for (int score = SCORES - 1; score >= 0; score--) {
+            BitSet bucket = this.byScore[score];
+            for (int i = bucket.nextSetBit(0); i >= 0;
+                 i = bucket.nextSetBit(i + 1)) {
+                if (result.size() == count) {
+                    return result;
+                }
+                result.add(this.entries.get(i).room);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the most hazardous watched rooms on a floor, highest score
+     * first. Rooms with the same score are in the order they are on the
+     * floor.
+     *
+     * @param floor floor to rank
+     * @param count maximum number of rooms to return
+     * @return new list of at most count rooms
+     */
+    public synchronized List<Room> mostHazardous(Floor floor, int count) {
+        refresh();
+        List<Entry> onFloor = new ArrayList<>(floor.getRoomCount());
+        for (Room room : floor.getRooms()) {
+            Entry entry = this.entriesByRoom.get(room);
+            if (entry != null) {
+                onFloor.add(entry);
+            }
+        }
+        // Stable, so ties keep floor order
+        onFloor.sort((a, b) -> Integer.compare(b.score, a.score));
+        List<Room> result = new ArrayList<>(Math.min(count, onFloor.size()));
+        for (int i = 0; i < onFloor.size() && i < count; i++) {
+            result.add(onFloor.get(i).room);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of room scores computed so far, which shows how
+     * often the cache was used instead.
+     *
+     * @return number of scores computed
+     */
+    public synchronized long getComputeCount() {
+        return this.computeCount;
+    }
+
+    // Brings every cached score up to date
+    private void refresh() {
+        boolean changed = false;
+        for (int i = 0; i < this.buildings.size(); i++) {
+            long version = this.buildings.get(i).getCounters()
+                    .getStructureVersion();
+            if (version != this.buildingVersions[i]) {
+                this.buildingVersions[i] = version;
+                changed = true;
+            }
+        }
+        if (changed) {
+            removeDepartedRooms();
+            for (Building building : this.buildings) {
+                addRooms(building);
+            }
+        }
+        for (Entry entry : changed ? this.entries : this.singleRooms) {
+            if (!entry.removed
+                    && entry.attach(policyOf(entry.room.getType()))) {
+                this.dirty.set(entry.index);
+            }
+        }
+        for (int i = this.dirty.nextSetBit(0); i >= 0;
+             i = this.dirty.nextSetBit(i + 1)) {
+            Entry entry = this.entries.get(i);
+            // A sensor may have invalidated a room just as it was removed
+            if (!entry.removed) {
+                rescore(entry);
+            }
+        }
+        this.dirty.clear();
+        for (Entry entry : this.entries) {
+            if (entry.unobserved && !entry.removed) {
+                rescore(entry);
+            }
+        }
+    }
+
+    // Stops watching rooms that have left every watched building
+    private void removeDepartedRooms() {
+        Set<Room> present = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Building building : this.buildings) {
+            for (Floor floor : building.getFloors()) {
+                present.addAll(floor.getRooms());
+            }
+        }
+        for (Entry entry : this.entries) {
+            if (!entry.removed && !entry.single
+                    && !present.contains(entry.room)) {
+                entry.detach();
+                this.entriesByRoom.remove(entry.room);
+                this.byScore[entry.score].clear(entry.index);
+                this.dirty.clear(entry.index);
+            }
+        }
+    }
+
+    private void addRooms(Building building) {
+        for (Floor floor : building.getFloors()) {
+            for (Room room : floor.getRooms()) {
+                watch(room);
+            }
+        }
+    }
+
+    private void rescore(Entry entry) {
+        int score = entry.policy.score(entry.sensors, entry.weights);
+        this.computeCount++;
+        if (score != entry.score) {
+            this.byScore[entry.score].clear(entry.index);
+            this.byScore[score].set(entry.index);
+            entry.score = score;
+        }
+    }
+
+    private HazardScoringPolicy policyOf(RoomType type) {
+        HazardScoringPolicy policy = type == null ? null
+                : this.policies.get(type);
+        return policy == null ? DEFAULT_POLICY : policy;
+    }
+
+    // Marks a room's score as out of date, called by its sensors
+    private synchronized void invalidate(int index) {
+        this.dirty.set(index);
+    }
+
+    // A watched room and its cached score
+    private class Entry implements SensorListener {
+        final Room room;
+        final int index;
+
+        // The room's hazard sensors and their weights
+        HazardSensor[] sensors = new HazardSensor[0];
+        double[] weights = new double[0];
+        HazardScoringPolicy policy;
+
+        // Whether a hazard sensor cannot tell us when it changes
+        boolean unobserved;
+
+        // Whether the room was watched on its own, and whether it is no
+        // longer watched
+        boolean single;
+        boolean removed;
+
+        int score;
+
+        Entry(Room room, int index, HazardScoringPolicy policy) {
+            this.room = room;
+            this.index = index;
+            this.policy = policy;
+        }
+
+        // Picks up the room's current hazard sensors, comparing them by
+        // identity; true if they changed
+        boolean attach(HazardScoringPolicy policy) {
+            List<HazardSensor> hazardSensors = new ArrayList<>();
+            for (Sensor sensor : this.room.getSensors()) {
+                if (sensor instanceof HazardSensor) {
+                    hazardSensors.add((HazardSensor) sensor);
+                }
+            }
+            List<HazardSensor> previous = Arrays.asList(this.sensors);
+            if (hazardSensors.equals(previous)) {
+                return false;
+            }
+            // Sensors do not override equals, so contains is by identity
+            for (HazardSensor sensor : previous) {
+                if (!hazardSensors.contains(sensor)
+                        && sensor instanceof ObservableSensor) {
+                    ((ObservableSensor) sensor).removeListener(this);
+                }
+            }
+            this.unobserved = false;
+            for (HazardSensor sensor : hazardSensors) {
+                if (!(sensor instanceof ObservableSensor)) {
+                    this.unobserved = true;
+                } else if (!previous.contains(sensor)) {
+                    ((ObservableSensor) sensor).addListener(this);
+                }
+            }
+            this.sensors = hazardSensors.toArray(new HazardSensor[0]);
+            reweigh(policy);
+            return true;
+        }
+
+        // Stops listening to the room's sensors
+        void detach() {
+            for (HazardSensor sensor : this.sensors) {
+                if (sensor instanceof ObservableSensor) {
+                    ((ObservableSensor) sensor).removeListener(this);
+                }
+            }
+            this.removed = true;
+        }
+
+        void reweigh(HazardScoringPolicy policy) {
+            this.policy = policy;
+            this.weights = new double[this.sensors.length];
+            for (int i = 0; i < this.sensors.length; i++) {
+                this.weights[i] = policy.getWeight(this.sensors[i]);
+            }
+        }
+
+        @Override
+        public void readingChanged(Sensor sensor, int previousReading,
+                                   int currentReading) {
+            invalidate(this.index);
+        }
+    }
+}
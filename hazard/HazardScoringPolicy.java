@@ -0,0 +1,136 @@
+package bms.hazard;
+
+import bms.sensors.HazardSensor;
+import bms.sensors.LiveSensor;
+import bms.sensors.Sensor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How the hazard levels of the sensors in a room are combined into one room
+ * hazard score.
+ *
+ * Each sensor type has a weight (1.0 unless set otherwise), which its hazard
+ * level is multiplied by. The weighted levels are then combined either by
+ * taking the highest, or by adding them up. Either way the score is rounded
+ * down and capped at 100.
+ *
+ * Policies are immutable; withWeight(String, double) returns a new policy.
+ */
+public final class HazardScoringPolicy {
+    /**
+     * How weighted hazard levels are combined.
+     */
+    public enum Combination {
+        /** The highest weighted hazard level. */
+        WEIGHTED_MAX,
+        /** The sum of the weighted hazard levels. */
+        WEIGHTED_SUM
+    }
+
+    // Weight of sensor types with no weight set
+    private static final double DEFAULT_WEIGHT = 1.0;
+
+    // Highest possible score
+    private static final int MAX_SCORE = 100;
+
+    private final Combination combination;
+    private final Map<String, Double> weights;
+
+    /**
+     * Creates a new policy in which every sensor type has a weight of 1.0.
+     *
+     * @param combination how weighted hazard levels are combined
+     */
+    public HazardScoringPolicy(Combination combination) {
+        this(combination, Collections.emptyMap());
+    }
+
+    private HazardScoringPolicy(Combination combination,
+                                Map<String, Double> weights) {
+        if (combination == null) {
+            throw new IllegalArgumentException();
+        }
+        this.combination = combination;
+        this.weights = weights;
+    }
+
+    /**
+     * Returns a copy of this policy with the weight of one sensor type
+     * changed.
+     *
+     * @param sensorType simple class name of the sensor type, e.g.
+     * "NoiseSensor"; live sensors use the type of their kind
+     * @param weight weight of the sensor type, greater than or equal to zero
+     * @return new policy
+     * @throws IllegalArgumentException if weight is negative or not a number
+     */
+    public HazardScoringPolicy withWeight(String sensorType, double weight) {
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException();
+        }
+        Map<String, Double> updated = new HashMap<>(this.weights);
+        updated.put(sensorType, weight);
+        return new HazardScoringPolicy(this.combination,
+                Collections.unmodifiableMap(updated));
+    }
+
+    /**
+     * Returns how weighted hazard levels are combined.
+     *
+     * @return combination
+     */
+    public Combination getCombination() {
+        return this.combination;
+    }
+
+    /**
+     * Returns the weight of a sensor type.
+     *
+     * @param sensorType simple class name of the sensor type
+     * @return weight
+     */
+    public double getWeight(String sensorType) {
+        return this.weights.getOrDefault(sensorType, DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Returns the weight of a sensor under this policy.
+     *
+     * @param sensor sensor to weigh
+     * @return weight
+     */
+    public double getWeight(Sensor sensor) {
+        return getWeight(sensorType(sensor));
+    }
+
+    /**
+     * Combines the current hazard levels of some sensors into a score.
+     *
+     * @param sensors sensors to combine
+     * @param weights weight of each sensor, in the same order
+     * @return score, 0 to 100
+     */
+    int score(HazardSensor[] sensors, double[] weights) {
+        double score = 0;
+        for (int i = 0; i < sensors.length; i++) {
+            double weighted = sensors[i].getHazardLevel() * weights[i];
+            if (this.combination == Combination.WEIGHTED_MAX) {
+                score = Math.max(score, weighted);
+            } else {
+                score += weighted;
+            }
+        }
+        return (int) Math.min(MAX_SCORE, score);
+    }
+
+    // Name the weight of a sensor is looked up by
+    static String sensorType(Sensor sensor) {
+        if (sensor instanceof LiveSensor) {
+            return ((LiveSensor) sensor).getKind().getSensorType();
+        }
+        return sensor.getClass().getSimpleName();
+    }
+}
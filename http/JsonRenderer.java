@@ -0,0 +1,201 @@
+package bms.http;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.HazardSensor;
+import bms.sensors.LiveSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+import bms.sensors.TimedSensor;
+
+import java.util.List;
+
+/**
+ * Renders the building model as JSON.
+ * Each method appends one JSON value to the given builder.
+ */
+public final class JsonRenderer {
+    private JsonRenderer() {
+    }
+
+    /**
+     * Appends a building with a summary of each of its floors.
+     *
+     * @param json builder to append to
+     * @param building building to render
+     */
+    public static void appendBuilding(StringBuilder json, Building building) {
+        json.append("{\"name\":");
+        appendString(json, building.getName());
+        json.append(",\"roomsInFireDrill\":")
+                .append(building.countRoomsInFireDrill())
+                .append(",\"floors\":[");
+        List<Floor> floors = building.getFloors();
+        for (int i = 0; i < floors.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendFloorSummary(json, floors.get(i));
+            json.append('}');
+        }
+        json.append("]}");
+    }
+
+    /**
+     * Appends a floor with a summary of each of its rooms.
+     *
+     * @param json builder to append to
+     * @param floor floor to render
+     */
+    public static void appendFloor(StringBuilder json, Floor floor) {
+        appendFloorSummary(json, floor);
+        json.append(",\"rooms\":[");
+        List<Room> rooms = floor.getRooms();
+        for (int i = 0; i < rooms.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendRoomSummary(json, rooms.get(i));
+            json.append('}');
+        }
+        json.append("]}");
+    }
+
+    /**
+     * Appends a room with each of its sensors.
+     *
+     * @param json builder to append to
+     * @param room room to render
+     */
+    public static void appendRoom(StringBuilder json, Room room) {
+        appendRoomSummary(json, room);
+        json.append(",\"sensors\":");
+        appendSensors(json, room.getSensors());
+        json.append('}');
+    }
+
+    /**
+     * Appends an array of sensors.
+     *
+     * @param json builder to append to
+     * @param sensors sensors to render
+     */
+    public static void appendSensors(StringBuilder json, List<Sensor> sensors) {
+        json.append('[');
+        for (int i = 0; i < sensors.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendSensor(json, sensors.get(i));
+        }
+        json.append(']');
+    }
+
+    /**
+     * Appends a single sensor, with its hazard level if it is a hazard
+     * sensor.
+     *
+     * @param json builder to append to
+     * @param sensor sensor to render
+     */
+    public static void appendSensor(StringBuilder json, Sensor sensor) {
+        json.append("{\"type\":");
+        if (sensor instanceof LiveSensor) {
+            LiveSensor live = (LiveSensor) sensor;
+            appendString(json, live.getKind().getSensorType());
+            json.append(",\"live\":true,\"id\":").append(live.getSensorId());
+            if (live.getKind() == LiveSensor.Kind.OCCUPANCY) {
+                json.append(",\"capacity\":").append(live.getCapacity());
+            }
+        } else {
+            appendString(json, sensor.getClass().getSimpleName());
+        }
+        json.append(",\"reading\":").append(sensor.getCurrentReading());
+        if (sensor instanceof HazardSensor) {
+            json.append(",\"hazardLevel\":")
+                    .append(((HazardSensor) sensor).getHazardLevel());
+        }
+        if (sensor instanceof TimedSensor) {
+            json.append(",\"updateFrequency\":")
+                    .append(((TimedSensor) sensor).getUpdateFrequency());
+        }
+        if (sensor instanceof OccupancySensor) {
+            json.append(",\"capacity\":")
+                    .append(((OccupancySensor) sensor).getCapacity());
+        }
+        if (sensor instanceof CarbonDioxideSensor) {
+            CarbonDioxideSensor co2 = (CarbonDioxideSensor) sensor;
+            json.append(",\"idealValue\":").append(co2.getIdealValue())
+                    .append(",\"variationLimit\":")
+                    .append(co2.getVariationLimit());
+        }
+        json.append('}');
+    }
+
+    /**
+     * Appends an array of every room whose highest sensor hazard level is
+     * above zero, with that level.
+     *
+     * @param json builder to append to
+     * @param building building to render
+     */
+    public static void appendHazards(StringBuilder json, Building building) {
+        json.append('[');
+        boolean first = true;
+        for (Floor f : building.getFloors()) {
+            for (Room r : f.getRooms()) {
+                int hazard = r.getMaxHazardLevel();
+                if (hazard == 0) {
+                    continue;
+                }
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"floor\":").append(f.getFloorNumber())
+                        .append(",\"room\":").append(r.getRoomNumber())
+                        .append(",\"hazardLevel\":").append(hazard)
+                        .append(",\"fireDrill\":")
+                        .append(r.fireDrillOngoing()).append('}');
+            }
+        }
+        json.append(']');
+    }
+
+    // Appends an unterminated object with the floor's own fields
+    private static void appendFloorSummary(StringBuilder json, Floor floor) {
+        json.append("{\"number\":").append(floor.getFloorNumber())
+                .append(",\"width\":").append(floor.getWidth())
+                .append(",\"length\":").append(floor.getLength())
+                .append(",\"roomsInFireDrill\":")
+                .append(floor.countRoomsInFireDrill());
+    }
+
+    // Appends an unterminated object with the room's own fields
+    private static void appendRoomSummary(StringBuilder json, Room room) {
+        json.append("{\"number\":").append(room.getRoomNumber())
+                .append(",\"type\":");
+        appendString(json, String.valueOf(room.getType()));
+        json.append(",\"area\":").append(room.getArea())
+                .append(",\"fireDrill\":").append(room.fireDrillOngoing())
+                .append(",\"hazardLevel\":").append(room.getMaxHazardLevel());
+    }
+
+    // Appends a quoted, escaped JSON string
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,341 @@
+package bms.http;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.util.ModelCounters;
+import bms.util.TimedItemManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Embedded HTTP server giving read-only JSON access to a building, using
+ * the JDK's built-in HTTP server. The following paths are served:
+ *
+ * <pre>
+ * GET /building                          the building and its floors
+ * GET /floors/{floor}                    a floor and its rooms
+ * GET /floors/{floor}/rooms/{room}       a room and its sensors
+ * GET /floors/{floor}/rooms/{room}/sensors   the sensors of a room
+ * GET /hazards                           every room with a hazard above 0
+ * </pre>
+ *
+ * The rendered body of each object is cached together with the building's
+ * structure and state versions and the tick count at the time it was
+ * rendered. A poll of an object that has not changed since is
+ * answered from the cache, without any serialisation work. Ticks are
+ * counted by the TimedItemManager that was current when the server was
+ * created, so a server for a building in a SimulationContext follows that
+ * context's clock.
+ *
+ * Responses are cached by the path of the object they render rather than
+ * by the object itself, so objects removed from the building are never
+ * kept alive by the cache. The cache holds at most a fixed number of
+ * responses; once full, out of date responses are dropped first, then
+ * arbitrary ones.
+ *
+ * Requests are handled on the given executor. On a JDK with virtual
+ * threads, Executors.newVirtualThreadPerTaskExecutor() can be passed in.
+ */
+public class ModelHttpServer {
+    private final Building building;
+    private final HttpServer server;
+
+    // Executor created by this server, shut down when it stops
+    private final ExecutorService ownExecutor;
+
+    // Number of responses cached by default
+    private static final int DEFAULT_MAX_CACHED_RESPONSES = 10_000;
+
+    // Clock whose ticks change the readings of the building
+    private final TimedItemManager clock;
+
+    // Rendered responses, keyed by the canonical path of what they render
+    private final Map<String, CachedResponse> cache =
+            new ConcurrentHashMap<>();
+    private final int maxCachedResponses;
+
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * Creates a new server for the given building, handling requests on a
+     * cached thread pool.
+     *
+     * @param building building to serve
+     * @param address address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public ModelHttpServer(Building building, InetSocketAddress address)
+            throws IOException {
+        this(building, address, null);
+    }
+
+    /**
+     * Creates a new server for the given building.
+     *
+     * @param building building to serve
+     * @param address address to listen on; port 0 picks a free port
+     * @param executor executor to handle requests on; null for a cached
+     * thread pool owned by the server
+     * @throws IOException if the address cannot be bound
+     */
+    public ModelHttpServer(Building building, InetSocketAddress address,
+                           Executor executor) throws IOException {
+        this(building, address, executor, DEFAULT_MAX_CACHED_RESPONSES);
+    }
+
+    /**
+     * Creates a new server for the given building, caching at most the
+     * given number of responses.
+     *
+     * @param building building to serve
+     * @param address address to listen on; port 0 picks a free port
+     * @param executor executor to handle requests on; null for a cached
+     * thread pool owned by the server
+     * @param maxCachedResponses most responses to keep in the cache
+     * @throws IllegalArgumentException if maxCachedResponses is less than
+     * one
+     * @throws IOException if the address cannot be bound
+     */
+    public ModelHttpServer(Building building, InetSocketAddress address,
+                           Executor executor, int maxCachedResponses)
+            throws IOException {
+        if (maxCachedResponses < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.building = building;
+        this.clock = TimedItemManager.getInstance();
+        this.maxCachedResponses = maxCachedResponses;
+        this.server = HttpServer.create(address, 0);
+        if (executor == null) {
+            this.ownExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "bms-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor = this.ownExecutor;
+        } else {
+            this.ownExecutor = null;
+        }
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stops serving requests and releases the port.
+     */
+    public void stop() {
+        this.server.stop(0);
+        if (this.ownExecutor != null) {
+            this.ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return bound port
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of responses that had to be rendered.
+     *
+     * @return number of renders
+     */
+    public long getRenderCount() {
+        return this.renders.get();
+    }
+
+    /**
+     * Returns the number of responses served from the cache.
+     *
+     * @return number of cache hits
+     */
+    public long getCacheHits() {
+        return this.cacheHits.get();
+    }
+
+    /**
+     * Returns the number of responses currently cached.
+     *
+     * @return number of cached responses
+     */
+    public int getCachedResponseCount() {
+        return this.cache.size();
+    }
+
+    // Handles one request
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, null);
+                return;
+            }
+            send(exchange, 200, route(exchange.getRequestURI().getPath()));
+        } catch (NotFound e) {
+            send(exchange, 404, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Returns the body for a path
+    private byte[] route(String path) throws NotFound {
+        String[] parts = path.split("/");
+        // A leading slash gives an empty first part
+        if (parts.length == 2 && parts[1].equals("building")) {
+            return cached("/building",
+                    json -> JsonRenderer.appendBuilding(json, this.building));
+        }
+        if (parts.length == 2 && parts[1].equals("hazards")) {
+            return cached("/hazards",
+                    json -> JsonRenderer.appendHazards(json, this.building));
+        }
+        if (parts.length < 3 || !parts[1].equals("floors")) {
+            throw new NotFound();
+        }
+        Floor floor = this.building.getFloorByNumber(parseNumber(parts[2]));
+        if (floor == null) {
+            throw new NotFound();
+        }
+        String floorPath = "/floors/" + floor.getFloorNumber();
+        if (parts.length == 3) {
+            return cached(floorPath,
+                    json -> JsonRenderer.appendFloor(json, floor));
+        }
+        if (parts.length < 5 || !parts[3].equals("rooms")) {
+            throw new NotFound();
+        }
+        Room room = floor.getRoomByNumber(parseNumber(parts[4]));
+        if (room == null) {
+            throw new NotFound();
+        }
+        String roomPath = floorPath + "/rooms/" + room.getRoomNumber();
+        if (parts.length == 5) {
+            return cached(roomPath,
+                    json -> JsonRenderer.appendRoom(json, room));
+        }
+        if (parts.length == 6 && parts[5].equals("sensors")) {
+            return cached(roomPath + "/sensors", json ->
+                    JsonRenderer.appendSensors(json, room.getSensors()));
+        }
+        throw new NotFound();
+    }
+
+    // Returns the cached body for a key, rendering it again if the model
+    // may have changed since it was cached
+    private byte[] cached(String key, Consumer<StringBuilder> renderer) {
+        ModelCounters counters = this.building.getCounters();
+        long structure = counters.getStructureVersion();
+        long state = counters.getStateVersion();
+        long ticks = this.clock.getTickCount();
+        CachedResponse response = this.cache.get(key);
+        if (response != null && response.structure == structure &&
+                response.state == state && response.ticks == ticks) {
+            this.cacheHits.incrementAndGet();
+            return response.body;
+        }
+        StringBuilder json = new StringBuilder(256);
+        renderer.accept(json);
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        // Stamped with the versions read before rendering, so a change made
+        // during rendering causes another render on the next request
+        if (response == null &&
+                this.cache.size() >= this.maxCachedResponses) {
+            evict(structure, state, ticks);
+        }
+        this.cache.put(key, new CachedResponse(body, structure, state, ticks));
+        this.renders.incrementAndGet();
+        return body;
+    }
+
+    // Makes room in the full cache for at least an eighth of its capacity,
+    // dropping responses rendered before the given versions first
+    private void evict(long structure, long state, long ticks) {
+        int target = this.maxCachedResponses - 1
+                - this.maxCachedResponses / 8;
+        this.cache.values().removeIf(response ->
+                response.structure != structure || response.state != state
+                        || response.ticks != ticks);
+        Iterator<String> keys = this.cache.keySet().iterator();
+        while (this.cache.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static int parseNumber(String part) throws NotFound {
+        try {
+            return Integer.parseInt(part);
+        } catch (NumberFormatException e) {
+            throw new NotFound();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body)
+            throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * A rendered body and the model versions it was rendered at.
+     */
+    private static class CachedResponse {
+        final byte[] body;
+        final long structure;
+        final long state;
+        final long ticks;
+
+        CachedResponse(byte[] body, long structure, long state, long ticks) {
+            this.body = body;
+            this.structure = structure;
+            this.state = state;
+            this.ticks = ticks;
+        }
+    }
+
+    /**
+     * Thrown while routing a path that names nothing in the model.
+     */
+    private static class NotFound extends Exception {
+    }
+
+    @Override
+    public String toString() {
+        return "ModelHttpServer: port=" + getPort() + ", renders=" +
+                this.renders.get() + ", cacheHits=" + this.cacheHits.get();
+    }
+}
@@ -0,0 +1,42 @@
+package bms.monitoring;
+
+/**
+ * Management interface exposing the size and fire drill state of a building
+ * over JMX.
+ */
+public interface BuildingMXBean {
+    /**
+     * Returns the name of the building.
+     *
+     * @return building name
+     */
+    String getName();
+
+    /**
+     * Returns the number of floors in the building.
+     *
+     * @return number of floors
+     */
+    long getFloorCount();
+
+    /**
+     * Returns the number of rooms in the building.
+     *
+     * @return number of rooms
+     */
+    long getRoomCount();
+
+    /**
+     * Returns the number of sensors in the building.
+     *
+     * @return number of sensors
+     */
+    long getSensorCount();
+
+    /**
+     * Returns the number of rooms with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    long getRoomsInFireDrill();
+}
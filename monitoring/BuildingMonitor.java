@@ -0,0 +1,48 @@
+package bms.monitoring;
+
+import bms.building.Building;
+import bms.util.ModelCounters;
+
+/**
+ * Exposes the counters maintained by a building, so reading any attribute
+ * costs the same however large the building is.
+ */
+public class BuildingMonitor implements BuildingMXBean {
+    private final String name;
+    private final ModelCounters counters;
+
+    /**
+     * Creates a monitor for the given building.
+     *
+     * @param building building to monitor
+     */
+    public BuildingMonitor(Building building) {
+        this.name = building.getName();
+        this.counters = building.getCounters();
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public long getFloorCount() {
+        return this.counters.getFloorCount();
+    }
+
+    @Override
+    public long getRoomCount() {
+        return this.counters.getRoomCount();
+    }
+
+    @Override
+    public long getSensorCount() {
+        return this.counters.getSensorCount();
+    }
+
+    @Override
+    public long getRoomsInFireDrill() {
+        return this.counters.getRoomsInFireDrill();
+    }
+}
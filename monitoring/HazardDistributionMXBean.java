@@ -0,0 +1,42 @@
+package bms.monitoring;
+
+/**
+ * Management interface exposing how many hazard sensors of a building
+ * currently report a hazard level in each band.
+ */
+public interface HazardDistributionMXBean {
+    /**
+     * Returns the number of sensors reporting no hazard (level 0).
+     *
+     * @return number of sensors
+     */
+    long getNone();
+
+    /**
+     * Returns the number of sensors reporting a hazard level of 1 to 25.
+     *
+     * @return number of sensors
+     */
+    long getLow();
+
+    /**
+     * Returns the number of sensors reporting a hazard level of 26 to 50.
+     *
+     * @return number of sensors
+     */
+    long getModerate();
+
+    /**
+     * Returns the number of sensors reporting a hazard level of 51 to 75.
+     *
+     * @return number of sensors
+     */
+    long getHigh();
+
+    /**
+     * Returns the number of sensors reporting a hazard level of 76 to 100.
+     *
+     * @return number of sensors
+     */
+    long getSevere();
+}
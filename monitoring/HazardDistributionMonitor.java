@@ -0,0 +1,45 @@
+package bms.monitoring;
+
+import bms.building.Building;
+import bms.util.ModelCounters;
+
+/**
+ * Exposes the hazard band counters maintained by a building.
+ */
+public class HazardDistributionMonitor implements HazardDistributionMXBean {
+    private final ModelCounters counters;
+
+    /**
+     * Creates a monitor for the hazard sensors of the given building.
+     *
+     * @param building building to monitor
+     */
+    public HazardDistributionMonitor(Building building) {
+        this.counters = building.getCounters();
+    }
+
+    @Override
+    public long getNone() {
+        return this.counters.getHazardBandCount(0);
+    }
+
+    @Override
+    public long getLow() {
+        return this.counters.getHazardBandCount(1);
+    }
+
+    @Override
+    public long getModerate() {
+        return this.counters.getHazardBandCount(2);
+    }
+
+    @Override
+    public long getHigh() {
+        return this.counters.getHazardBandCount(3);
+    }
+
+    @Override
+    public long getSevere() {
+        return this.counters.getHazardBandCount(4);
+    }
+}
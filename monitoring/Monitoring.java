@@ -0,0 +1,92 @@
+package bms.monitoring;
+
+import bms.building.Building;
+import bms.util.TimedItemManager;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the building management MBeans with the platform MBean server,
+ * where they can be read by standard tools such as JConsole.
+ *
+ * MBeans are registered in the "bms" domain:
+ * bms:type=TimedItemManager for the timer, and
+ * bms:type=Building,name=... and bms:type=HazardDistribution,name=... for
+ * each building.
+ */
+public final class Monitoring {
+    // Domain of every MBean registered here
+    private static final String DOMAIN = "bms";
+
+    private Monitoring() {
+    }
+
+    /**
+     * Registers an MBean for the timed item manager.
+     *
+     * @return name the MBean was registered under
+     * @throws JMException if it is already registered
+     */
+    public static ObjectName registerTimedItemManager() throws JMException {
+        ObjectName name = new ObjectName(DOMAIN, "type", "TimedItemManager");
+        server().registerMBean(
+                new TimedItemManagerMonitor(TimedItemManager.getInstance()),
+                name);
+        return name;
+    }
+
+    /**
+     * Registers the building and hazard distribution MBeans for a building.
+     *
+     * @param building building to register
+     * @throws JMException if a building with the same name is already
+     * registered
+     */
+    public static void registerBuilding(Building building) throws JMException {
+        MBeanServer server = server();
+        ObjectName buildingName = buildingName("Building", building);
+        server.registerMBean(new BuildingMonitor(building), buildingName);
+        try {
+            server.registerMBean(new HazardDistributionMonitor(building),
+                    buildingName("HazardDistribution", building));
+        } catch (JMException e) {
+            server.unregisterMBean(buildingName);
+            throw e;
+        }
+    }
+
+    /**
+     * Unregisters the MBeans registered for a building by
+     * registerBuilding(Building).
+     *
+     * @param building building to unregister
+     * @throws JMException if the building is not registered
+     */
+    public static void unregisterBuilding(Building building)
+            throws JMException {
+        MBeanServer server = server();
+        server.unregisterMBean(buildingName("Building", building));
+        server.unregisterMBean(buildingName("HazardDistribution", building));
+    }
+
+    /**
+     * Returns the name of one of a building's MBeans.
+     *
+     * @param type "Building" or "HazardDistribution"
+     * @param building building the MBean belongs to
+     * @return object name of the MBean
+     * @throws JMException if the name cannot be formed
+     */
+    public static ObjectName buildingName(String type, Building building)
+            throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name="
+                + ObjectName.quote(building.getName()));
+    }
+
+    private static MBeanServer server() {
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+}
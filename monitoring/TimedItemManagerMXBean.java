@@ -0,0 +1,41 @@
+package bms.monitoring;
+
+/**
+ * Management interface exposing the timed item manager over JMX.
+ */
+public interface TimedItemManagerMXBean {
+    /**
+     * Returns the number of timed items registered with the manager.
+     *
+     * @return number of registered items
+     */
+    int getRegisteredItemCount();
+
+    /**
+     * Returns the number of ticks (simulated minutes) so far.
+     *
+     * @return number of completed ticks
+     */
+    long getTickCount();
+
+    /**
+     * Returns the recent rate of ticks.
+     *
+     * @return ticks per second
+     */
+    double getTicksPerSecond();
+
+    /**
+     * Returns how long the latest tick took.
+     *
+     * @return duration of the latest tick in milliseconds
+     */
+    double getLastTickMillis();
+
+    /**
+     * Returns how long the longest tick so far took.
+     *
+     * @return duration of the longest tick in milliseconds
+     */
+    double getMaxTickMillis();
+}
@@ -0,0 +1,47 @@
+package bms.monitoring;
+
+import bms.util.TimedItemManager;
+
+/**
+ * Exposes the tick metrics kept by a timed item manager.
+ */
+public class TimedItemManagerMonitor implements TimedItemManagerMXBean {
+    // Nanoseconds in a millisecond
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final TimedItemManager manager;
+
+    /**
+     * Creates a monitor for the given manager.
+     *
+     * @param manager timed item manager to monitor
+     */
+    public TimedItemManagerMonitor(TimedItemManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public int getRegisteredItemCount() {
+        return this.manager.getRegisteredItemCount();
+    }
+
+    @Override
+    public long getTickCount() {
+        return this.manager.getTickCount();
+    }
+
+    @Override
+    public double getTicksPerSecond() {
+        return this.manager.getTicksPerSecond();
+    }
+
+    @Override
+    public double getLastTickMillis() {
+        return this.manager.getLastTickNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxTickMillis() {
+        return this.manager.getMaxTickNanos() / NANOS_PER_MILLI;
+    }
+}
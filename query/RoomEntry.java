@@ -0,0 +1,85 @@
+package bms.query;
+
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.Sensor;
+
+import java.util.List;
+
+/**
+ * A room as recorded in a RoomIndex, together with the floor it is on and
+ * a snapshot of its sensors, so that queries do not need to copy and sort
+ * the room's sensor list on every evaluation.
+ */
+public class RoomEntry {
+    private final Floor floor;
+    private final Room room;
+    private final Sensor[] sensors;
+
+    /**
+     * Creates a new entry for a room on the given floor.
+     *
+     * @param floor floor the room is on
+     * @param room room to record
+     */
+    RoomEntry(Floor floor, Room room) {
+        this.floor = floor;
+        this.room = room;
+        List<Sensor> roomSensors = room.getSensors();
+        this.sensors = roomSensors.toArray(new Sensor[0]);
+    }
+
+    /**
+     * Returns the floor the room is on.
+     *
+     * @return floor of the room
+     */
+    public Floor getFloor() {
+        return this.floor;
+    }
+
+    /**
+     * Returns the number of the floor the room is on.
+     *
+     * @return floor number of the room
+     */
+    public int getFloorNumber() {
+        return this.floor.getFloorNumber();
+    }
+
+    /**
+     * Returns the room.
+     *
+     * @return indexed room
+     */
+    public Room getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Returns the room's sensor of the given type, as recorded when the
+     * index was built.
+     *
+     * @param sensorType class or interface the sensor must be an instance of
+     * @param <T> type of sensor
+     * @return the first matching sensor; null if the room has none
+     */
+    public <T extends Sensor> T getSensor(Class<T> sensorType) {
+        for (Sensor s : this.sensors) {
+            if (sensorType.isInstance(s)) {
+                return sensorType.cast(s);
+            }
+        }
+        return null;
+    }
+
+    // Sensors of the room when the entry was made
+    Sensor[] getSensors() {
+        return this.sensors;
+    }
+
+    @Override
+    public String toString() {
+        return "Floor #" + getFloorNumber() + " " + this.room;
+    }
+}
@@ -0,0 +1,167 @@
+package bms.query;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.Sensor;
+import bms.util.ModelCounters;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary indexes over the rooms of a building, used to answer
+ * RoomQuery queries without walking every floor, room and sensor.
+ *
+ * The index keeps every room ordered by floor number, once for all rooms,
+ * once per RoomType and once per sensor class, so that a query can start
+ * from the smallest matching list and narrow it to a range of floors with a
+ * binary search. Hazard levels change every tick and are therefore not
+ * indexed; they are evaluated only on the rooms left after these steps.
+ *
+ * The index is rebuilt lazily, on the next query after the structure of the
+ * building changes (see ModelCounters.getStructureVersion()). Changes to
+ * other buildings leave it alone.
+ */
+public class RoomIndex {
+    private final Building building;
+
+    // Current contents of the index, replaced when the model changes
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a new index over the rooms of the given building.
+     *
+     * @param building building to index
+     */
+    public RoomIndex(Building building) {
+        this.building = building;
+    }
+
+    /**
+     * Starts a new query over the rooms of the building.
+     *
+     * @return new query matching every room
+     */
+    public RoomQuery query() {
+        return new RoomQuery(current());
+    }
+
+    /**
+     * Returns the number of rooms in the index.
+     *
+     * @return number of indexed rooms
+     */
+    public int size() {
+        return current().all.size();
+    }
+
+    // Returns an up to date snapshot, rebuilding it if the model changed
+    Snapshot current() {
+        Snapshot current = this.snapshot;
+        ModelCounters counters = this.building.getCounters();
+        if (current == null ||
+                current.version != counters.getStructureVersion()) {
+            synchronized (this) {
+                current = this.snapshot;
+                if (current == null ||
+                        current.version != counters.getStructureVersion()) {
+                    current = new Snapshot(this.building);
+                    this.snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Rooms ordered by floor number, with the floor numbers in a parallel
+     * array for binary searching.
+     */
+    static class RoomList {
+        final RoomEntry[] entries;
+        final int[] floorNumbers;
+
+        RoomList(List<RoomEntry> entries) {
+            this.entries = entries.toArray(new RoomEntry[0]);
+            this.floorNumbers = new int[this.entries.length];
+            for (int i = 0; i < this.entries.length; i++) {
+                this.floorNumbers[i] = this.entries[i].getFloorNumber();
+            }
+        }
+
+        int size() {
+            return this.entries.length;
+        }
+
+        // Index of the first room on or above the given floor
+        int lowerBound(int floorNumber) {
+            int low = 0;
+            int high = this.floorNumbers.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.floorNumbers[mid] < floorNumber) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Index after the last room on or below the given floor
+        int upperBound(int floorNumber) {
+            if (floorNumber == Integer.MAX_VALUE) {
+                return this.floorNumbers.length;
+            }
+            return lowerBound(floorNumber + 1);
+        }
+    }
+
+    /**
+     * Immutable contents of the index at one version of the model.
+     */
+    static class Snapshot {
+        final long version;
+        final RoomList all;
+        final Map<RoomType, RoomList> byType = new EnumMap<>(RoomType.class);
+        final Map<Class<?>, RoomList> bySensorType = new HashMap<>();
+
+        Snapshot(Building building) {
+            // Read the version first so a concurrent change forces a rebuild
+            this.version = building.getCounters().getStructureVersion();
+
+            List<Floor> floors = new ArrayList<>(building.getFloors());
+            floors.sort((f1, f2) -> Integer.compare(f1.getFloorNumber(),
+                    f2.getFloorNumber()));
+
+            List<RoomEntry> allRooms = new ArrayList<>();
+            Map<RoomType, List<RoomEntry>> typeRooms =
+                    new EnumMap<>(RoomType.class);
+            Map<Class<?>, List<RoomEntry>> sensorRooms = new HashMap<>();
+            for (Floor f : floors) {
+                for (Room r : f.getRooms()) {
+                    RoomEntry entry = new RoomEntry(f, r);
+                    allRooms.add(entry);
+                    if (r.getType() != null) {
+                        typeRooms.computeIfAbsent(r.getType(),
+                                t -> new ArrayList<>()).add(entry);
+                    }
+                    for (Sensor s : entry.getSensors()) {
+                        sensorRooms.computeIfAbsent(s.getClass(),
+                                c -> new ArrayList<>()).add(entry);
+                    }
+                }
+            }
+
+            this.all = new RoomList(allRooms);
+            typeRooms.forEach((t, l) -> this.byType.put(t, new RoomList(l)));
+            sensorRooms.forEach((c, l) ->
+                    this.bySensorType.put(c, new RoomList(l)));
+        }
+    }
+}
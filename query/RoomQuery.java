@@ -0,0 +1,283 @@
+package bms.query;
+
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.HazardSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A query over the rooms of a building, created by RoomIndex.query().
+ * Conditions are added by chaining, for example all laboratories above
+ * floor 3 with a carbon dioxide hazard of at least 50:
+ *
+ * <pre>
+ * index.query().aboveFloor(3).ofType(RoomType.LABORATORY)
+ *         .hazardAtLeast(CarbonDioxideSensor.class, 50).list();
+ * </pre>
+ *
+ * The query starts from the smallest index list matching its room type and
+ * sensor conditions, narrows it to the floor range with a binary search,
+ * and evaluates the remaining conditions only on those rooms. Large scans
+ * are evaluated with a parallel stream.
+ *
+ * Hazard and occupancy conditions depend on current readings, so they are
+ * not indexed: they are checked on every candidate room in the floor range.
+ * Narrowing the query by type, sensor or floor first keeps them cheap.
+ */
+public class RoomQuery {
+    /**
+     * Number of candidate rooms above which the query is evaluated in
+     * parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 10_000;
+
+    private final RoomIndex.Snapshot index;
+
+    private int minFloor = Integer.MIN_VALUE;
+    private int maxFloor = Integer.MAX_VALUE;
+    private RoomType type;
+    private final List<Class<? extends Sensor>> sensorTypes =
+            new ArrayList<>();
+    private final List<Predicate<RoomEntry>> conditions = new ArrayList<>();
+
+    /**
+     * Creates a new query matching every room in the given index.
+     *
+     * @param index contents of the index to query
+     */
+    RoomQuery(RoomIndex.Snapshot index) {
+        this.index = index;
+    }
+
+    /**
+     * Restricts the query to rooms on floors in the given range.
+     *
+     * @param lowest lowest floor number, inclusive
+     * @param highest highest floor number, inclusive
+     * @return this query
+     */
+    public RoomQuery floors(int lowest, int highest) {
+        this.minFloor = Math.max(this.minFloor, lowest);
+        this.maxFloor = Math.min(this.maxFloor, highest);
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms strictly above the given floor.
+     *
+     * @param floorNumber floor number the rooms must be above
+     * @return this query
+     */
+    public RoomQuery aboveFloor(int floorNumber) {
+        if (floorNumber == Integer.MAX_VALUE) {
+            // No floor is above the highest floor number
+            return matchNothing();
+        }
+        return floors(floorNumber + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Restricts the query to rooms strictly below the given floor.
+     *
+     * @param floorNumber floor number the rooms must be below
+     * @return this query
+     */
+    public RoomQuery belowFloor(int floorNumber) {
+        if (floorNumber == Integer.MIN_VALUE) {
+            // No floor is below the lowest floor number
+            return matchNothing();
+        }
+        return floors(Integer.MIN_VALUE, floorNumber - 1);
+    }
+
+    // Leaves an empty floor range, which no room can match
+    private RoomQuery matchNothing() {
+        this.minFloor = Integer.MAX_VALUE;
+        this.maxFloor = Integer.MIN_VALUE;
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms of the given type.
+     *
+     * @param roomType type of room
+     * @return this query
+     */
+    public RoomQuery ofType(RoomType roomType) {
+        if (this.type != null && this.type != roomType) {
+            // Two different types can never both match
+            this.conditions.add(entry -> false);
+        }
+        this.type = roomType;
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms with a sensor of the given type.
+     *
+     * @param sensorType class of sensor the room must contain
+     * @return this query
+     */
+    public RoomQuery withSensor(Class<? extends Sensor> sensorType) {
+        this.sensorTypes.add(sensorType);
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms whose sensor of the given type currently
+     * reports a hazard level of at least the given level. Only the sensor
+     * type is indexed; the hazard level is checked room by room.
+     *
+     * @param sensorType class of hazard sensor to check
+     * @param level minimum hazard level, 0 to 100
+     * @return this query
+     */
+    public RoomQuery hazardAtLeast(Class<? extends HazardSensor> sensorType,
+                                   int level) {
+        withSensor(sensorType);
+        this.conditions.add(entry -> {
+            HazardSensor sensor = entry.getSensor(sensorType);
+            return sensor != null && sensor.getHazardLevel() >= level;
+        });
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms in which any hazard sensor currently
+     * reports a hazard level of at least the given level. This is not
+     * indexed, so every candidate room's sensors are checked.
+     *
+     * @param level minimum hazard level, 0 to 100
+     * @return this query
+     */
+    public RoomQuery hazardAtLeast(int level) {
+        this.conditions.add(entry -> {
+            for (Sensor s : entry.getSensors()) {
+                if (s instanceof HazardSensor &&
+                        ((HazardSensor) s).getHazardLevel() >= level) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms whose occupancy is above the given
+     * fraction of the capacity of their occupancy sensor, e.g. 0.8 for rooms
+     * over 80% occupancy. Only rooms with an occupancy sensor are
+     * candidates; the occupancy is checked room by room.
+     *
+     * @param fraction fraction of capacity the occupancy must exceed
+     * @return this query
+     */
+    public RoomQuery occupancyAbove(double fraction) {
+        withSensor(OccupancySensor.class);
+        this.conditions.add(entry -> {
+            OccupancySensor sensor = entry.getSensor(OccupancySensor.class);
+            return sensor != null && sensor.getCurrentReading() >
+                    fraction * sensor.getCapacity();
+        });
+        return this;
+    }
+
+    /**
+     * Restricts the query to rooms matching an arbitrary condition.
+     *
+     * @param condition condition the room must satisfy
+     * @return this query
+     */
+    public RoomQuery where(Predicate<Room> condition) {
+        this.conditions.add(entry -> condition.test(entry.getRoom()));
+        return this;
+    }
+
+    /**
+     * Returns the matching rooms, ordered by floor number.
+     *
+     * @return new list of matching rooms
+     */
+    public List<Room> list() {
+        return stream().map(RoomEntry::getRoom).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the index entries of the matching rooms, which also give the
+     * floor each room is on, ordered by floor number.
+     *
+     * @return new list of matching entries
+     */
+    public List<RoomEntry> entries() {
+        return stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of matching rooms.
+     *
+     * @return number of matching rooms
+     */
+    public long count() {
+        return stream().count();
+    }
+
+    // Stream of the matching entries
+    private Stream<RoomEntry> stream() {
+        if (this.minFloor > this.maxFloor) {
+            return Stream.empty();
+        }
+        RoomIndex.RoomList candidates = smallestCandidates();
+        int from = candidates.lowerBound(this.minFloor);
+        int to = candidates.upperBound(this.maxFloor);
+
+        Stream<RoomEntry> rooms = Arrays.stream(candidates.entries, from, to);
+        if (to - from >= PARALLEL_THRESHOLD) {
+            rooms = rooms.parallel();
+        }
+        // Conditions the chosen list does not already guarantee
+        if (this.type != null && candidates != this.index.byType.get(
+                this.type)) {
+            RoomType roomType = this.type;
+            rooms = rooms.filter(e -> e.getRoom().getType() == roomType);
+        }
+        for (Class<? extends Sensor> sensorType : this.sensorTypes) {
+            if (candidates != this.index.bySensorType.get(sensorType)) {
+                rooms = rooms.filter(e -> e.getSensor(sensorType) != null);
+            }
+        }
+        for (Predicate<RoomEntry> condition : this.conditions) {
+            rooms = rooms.filter(condition);
+        }
+        return rooms;
+    }
+
+    // The shortest index list that contains every possible match
+    private RoomIndex.RoomList smallestCandidates() {
+        RoomIndex.RoomList best = this.index.all;
+        if (this.type != null) {
+            best = shorter(best, this.index.byType.get(this.type));
+        }
+        for (Class<? extends Sensor> sensorType : this.sensorTypes) {
+            best = shorter(best, this.index.bySensorType.get(sensorType));
+        }
+        return best;
+    }
+
+    // A missing list keeps the current choice; the filters applied in
+    // stream() still exclude rooms that do not match
+    private RoomIndex.RoomList shorter(RoomIndex.RoomList current,
+                                       RoomIndex.RoomList candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return candidate.size() < current.size() ? candidate : current;
+    }
+}
@@ -1,10 +1,16 @@
 package bms.room;
 
 import bms.exceptions.DuplicateSensorException;
+import bms.sensors.HazardSensor;
 import bms.sensors.Sensor;
+import bms.util.ModelCounters;
+import bms.util.Renderable;
+import bms.util.SlotBitSet;
+import bms.util.TextFormat;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -14,23 +20,38 @@ import java.util.List;
  * intended purpose, and a total area occupied by the room in square metres.
  *
  * Rooms also need to record whether a fire drill is currently taking place
- * in the room.
+ * in the room. Once a room is placed on a floor, this is recorded in the
+ * floor's fire drill bit set rather than in the room itself.
  *
  * Rooms can have one or more sensors to monitor hazard levels in the room.
+ *
+ * The sensor list is an immutable, already sorted snapshot that is replaced
+ * whenever a sensor is added, and the fire drill flag is volatile, so a room
+ * can be read from any thread without locking.
  */
-public class Room {
+public class Room implements Renderable {
     int roomNumber;
     RoomType type;
     double area;
 
-    // Two decimal places format
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("0.00");
+    // Orders sensors alphabetically by their class name
+    private static final Comparator<Sensor> SENSOR_ORDER =
+            Comparator.comparing(sensor -> sensor.getClass().getSimpleName());
+
+    // Immutable, sorted snapshot of the sensors in the room
+    private volatile List<Sensor> sensorList;
+
+    // Whether the fire drill is on or not, while not attached to a floor
+    private volatile boolean fireDrillState;
+
+    // Fire drill state of the floor holding this room, if any
+    private volatile SlotBitSet fireDrillSlots;
 
-    // List of sensors in the room
-    private List<Sensor> sensorList;
+    // Slot of this room in fireDrillSlots
+    private int fireDrillSlot;
 
-    // Whether the fire drill is on or not
-    private boolean fireDrillState;
+    // Counters of the building holding this room, if any
+    private volatile ModelCounters counters;
 
     /**
      * Creates a new room with the given room number.
@@ -43,7 +64,25 @@ public class Room {
         this.roomNumber = roomNumber;
         this.type = type;
         this.area = area;
-        this.sensorList = new ArrayList<>();
+        this.sensorList = Collections.emptyList();
+    }
+
+    /**
+     * Creates a new room which already holds the given sensors, without
+     * recording a change to the model structure, for views of rooms that
+     * are stored elsewhere.
+     *
+     * @param roomNumber the unique room number of the room on this floor
+     * @param type the type of room
+     * @param area the area of the room in square metres
+     * @param sensors the sensors in the room, each a different instance
+     */
+    public Room(int roomNumber, RoomType type, double area,
+                List<Sensor> sensors){
+        this(roomNumber, type, area);
+        List<Sensor> sorted = new ArrayList<>(sensors);
+        sorted.sort(SENSOR_ORDER);
+        this.sensorList = Collections.unmodifiableList(sorted);
     }
 
     /**
@@ -90,6 +129,11 @@ public class Room {
      * @return current status of fire drill
      */
     public boolean fireDrillOngoing(){
+        // Read the set before the slot, which was written before the set
+        SlotBitSet slots = this.fireDrillSlots;
+        if (slots != null){
+            return slots.get(this.fireDrillSlot);
+        }
         return fireDrillState;
     }
 
@@ -104,18 +148,24 @@ public class Room {
      * @return list of all sensors in alphabetical order of class name
      */
     public List<Sensor> getSensors(){
-        List<Sensor> sensorListCopy = new ArrayList<>(this.sensorList);
-        // Comparing class name to sort alphabetically
-        sensorListCopy.sort((sensor1, sensor2) -> {
-            if (sensor1.getClass().getSimpleName().equals
-                    (sensor2.getClass().getSimpleName())){
-                return 0;
-            }
-            return sensor1.getClass().getSimpleName().compareTo
-                    (sensor2.getClass().getSimpleName());
-        });
+        // The snapshot is kept sorted by addSensor
+        return new ArrayList<>(this.sensorList);
+    }
 
-        return sensorListCopy;
+    /**
+     * Returns the highest hazard level currently reported by any of the
+     * room's hazard sensors.
+     *
+     * @return hazard level, 0 to 100; 0 if the room has no hazard sensors
+     */
+    public int getMaxHazardLevel(){
+        int hazard = 0;
+        for (Sensor s : this.sensorList){
+            if (s instanceof HazardSensor){
+                hazard = Math.max(hazard, ((HazardSensor) s).getHazardLevel());
+            }
+        }
+        return hazard;
     }
 
     /**
@@ -123,8 +173,80 @@ public class Room {
      *
      * @param fireDrill - whether there is a fire drill ongoing
      */
-    public void setFireDrill(boolean fireDrill){
-        fireDrillState = fireDrill;
+    public synchronized void setFireDrill(boolean fireDrill){
+        // Locked so the slot cannot move between reading and writing it
+        SlotBitSet slots = this.fireDrillSlots;
+        ModelCounters building = this.counters;
+        if (slots != null){
+            if (slots.set(this.fireDrillSlot, fireDrill) && building != null){
+                building.addRoomsInFireDrill(fireDrill ? 1 : -1);
+            }
+        } else {
+            fireDrillState = fireDrill;
+        }
+        if (building != null){
+            building.incrementStateVersion();
+        }
+    }
+
+    /**
+     * Stores the fire drill state of this room in the given slot of a shared
+     * bit set, normally the one belonging to the floor the room is on.
+     * A fire drill ongoing in the room is carried over, as is one already
+     * recorded in the slot, and from then on fireDrillOngoing() and
+     * setFireDrill(boolean) read and write that slot.
+     *
+     * @param slots fire drill bit set to store the state in
+     * @param slot the room's slot in the bit set
+     */
+    public synchronized void attachFireDrillState(SlotBitSet slots, int slot){
+        if (fireDrillOngoing()){
+            slots.set(slot, true);
+        }
+        this.fireDrillSlot = slot;
+        // Publishing the set also publishes the slot written above
+        this.fireDrillSlots = slots;
+    }
+
+    /**
+     * Stops storing the fire drill state of this room in a shared bit set,
+     * keeping the state it had there in the room itself, for example while
+     * the room is moved to another slot or floor.
+     */
+    public synchronized void detachFireDrillState(){
+        SlotBitSet slots = this.fireDrillSlots;
+        if (slots != null){
+            this.fireDrillState = slots.get(this.fireDrillSlot);
+            this.fireDrillSlots = null;
+        }
+    }
+
+    /**
+     * Counts this room's sensors, and any added later, in the given counters,
+     * normally those of the building the room is in. Rooms are counted by
+     * their floor, so this does not count the room itself.
+     *
+     * @param counters counters to update
+     */
+    public synchronized void attachCounters(ModelCounters counters){
+        for (Sensor s : this.sensorList){
+            counters.addSensor(s);
+        }
+        this.counters = counters;
+    }
+
+    /**
+     * Stops counting this room's sensors in the counters given to
+     * attachCounters(ModelCounters), removing them from the counts.
+     */
+    public synchronized void detachCounters(){
+        ModelCounters building = this.counters;
+        if (building != null){
+            for (Sensor s : this.sensorList){
+                building.removeSensor(s);
+            }
+            this.counters = null;
+        }
     }
 
     /**
@@ -159,31 +281,77 @@ public class Room {
      * @throws DuplicateSensorException - if the sensor to add is of the same
      * type as a sensor already in this room
      */
-    public void addSensor(Sensor sensor) throws DuplicateSensorException {
+    public synchronized void addSensor(Sensor sensor)
+            throws DuplicateSensorException {
         for (Sensor s: this.sensorList){
             if (sensor == s){
                 throw new DuplicateSensorException();
             }
         }
 
-        this.sensorList.add(sensor);
-        // Comparing class names to sort alphabetically
-        this.sensorList.sort((sensor1, sensor2) -> {
-        if (sensor1.getClass().getSimpleName().equals
-                (sensor2.getClass().getSimpleName())){
-            return 0;
+        List<Sensor> updatedSensors = new ArrayList<>(this.sensorList);
+        updatedSensors.add(sensor);
+        // Sort before publishing so readers never see an unsorted list
+        updatedSensors.sort(SENSOR_ORDER);
+        this.sensorList = Collections.unmodifiableList(updatedSensors);
+        if (this.counters != null){
+            this.counters.addSensor(sensor);
+            this.counters.incrementStructureVersion();
         }
-        return sensor1.getClass().getSimpleName().compareTo
-                (sensor2.getClass().getSimpleName());
-    });
+    }
+
+    /**
+     * Replaces the sensors in the room all at once, for reloading a changed
+     * room definition. Sensors in both the old and new lists stay counted
+     * and keep their listeners; the rest are uncounted or counted.
+     *
+     * @param sensors the new sensors in the room, each a different instance
+     */
+    public synchronized void setSensors(List<Sensor> sensors){
+        List<Sensor> previous = this.sensorList;
+        List<Sensor> updatedSensors = new ArrayList<>(sensors);
+        updatedSensors.sort(SENSOR_ORDER);
+        this.sensorList = Collections.unmodifiableList(updatedSensors);
+        ModelCounters building = this.counters;
+        if (building != null){
+            for (Sensor s : previous){
+                if (!containsInstance(updatedSensors, s)){
+                    building.removeSensor(s);
+                }
+            }
+            for (Sensor s : updatedSensors){
+                if (!containsInstance(previous, s)){
+                    building.addSensor(s);
+                }
+            }
+            building.incrementStructureVersion();
+        }
+    }
+
+    // Whether the list holds this very sensor; rooms hold only a few
+    private static boolean containsInstance(List<Sensor> sensors,
+                                            Sensor sensor){
+        for (Sensor s : sensors){
+            if (s == sensor){
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
-    public String toString(){
-        String areaRound = DECIMAL_FORMAT.format(this.area);
+    public void appendTo(StringBuilder builder){
+        builder.append("Room #").append(this.roomNumber).append(": type=")
+                .append(this.type).append(", area=");
+        // Area to two decimal places
+        TextFormat.appendTwoDecimals(builder, this.area);
+        builder.append("m^2, sensors=").append(this.sensorList.size());
+    }
 
-        return "Room #" + this.roomNumber + ": type=" + this.type + ", area=" +
-                areaRound + "m^2, sensors=" + this.sensorList.size();
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder(64);
+        appendTo(builder);
+        return builder.toString();
     }
 }
-
@@ -1,7 +1,5 @@
 package bms.sensors;
 
-import java.util.Arrays;
-
 /**
  * A sensor that measures levels of carbon dioxide (CO2) in the air, in parts
  * per million (ppm).
@@ -64,38 +62,30 @@ public class CarbonDioxideSensor extends TimedSensor implements HazardSensor {
     }
 
     @Override
-    public int getHazardLevel() {
-        final int NO_HAZARD = 0;
-        final int LOW_HAZARD = 25;
-        final int MEDIUM_HAZARD = 50;
-        final int EXTREME_HAZARD = 100;
-
-        // Current sensor readings determines hazard level
-        if (getCurrentReading() >= 0 && getCurrentReading() <= 999){
-            return NO_HAZARD;
+    public boolean hasSameDefinition(TimedSensor other) {
+        if (!super.hasSameDefinition(other)) {
+            return false;
         }
-        else if (getCurrentReading() >= 1000 && getCurrentReading() <= 1999){
-            return LOW_HAZARD;
-        }
-        else if (getCurrentReading() >= 2000 && getCurrentReading() <= 4999){
-            return MEDIUM_HAZARD;
-        }
-        return EXTREME_HAZARD;
+        CarbonDioxideSensor co2 = (CarbonDioxideSensor) other;
+        return co2.idealValue == this.idealValue
+                && co2.variationLimit == this.variationLimit;
     }
 
     @Override
-    public String toString(){
-        String sensorReadingsConverted = Arrays.toString(sensorReadings);
-        // Removing square brackets at beginning and end
-        sensorReadingsConverted = sensorReadingsConverted.substring
-                (1, sensorReadingsConverted.length()-1);
-        // Removing white spaces
-        sensorReadingsConverted = sensorReadingsConverted.replaceAll
-                ("\\s+", "");
+    public int getHazardLevel() {
+        return getHazardLevel(getCurrentReading());
+    }
 
-        return "TimedSensor: freq=" + this.updateFrequency + ", readings=" +
-                sensorReadingsConverted +
-                ", type=CarbonDioxideSensor, idealPPM=" +
-                this.idealValue + ", varLimit=" + this.variationLimit;
+    @Override
+    public int getHazardLevel(int reading) {
+        return HazardLevels.carbonDioxide(reading);
+    }
+
+    @Override
+    public void appendTo(StringBuilder builder){
+        super.appendTo(builder);
+        builder.append(", type=CarbonDioxideSensor, idealPPM=")
+                .append(this.idealValue).append(", varLimit=")
+                .append(this.variationLimit);
     }
 }
@@ -0,0 +1,95 @@
+package bms.sensors;
+
+/**
+ * The rules that turn a raw reading into a hazard level, shared by the timed
+ * sensors and by live sensors of the same kind.
+ */
+final class HazardLevels {
+    private static final int NO_HAZARD = 0;
+    private static final int LOW_HAZARD = 25;
+    private static final int MEDIUM_HAZARD = 50;
+    private static final int EXTREME_HAZARD = 100;
+
+    private HazardLevels() {
+    }
+
+    /**
+     * Hazard level of a carbon dioxide reading, in ppm.
+     *
+     * @param reading CO2 concentration in ppm
+     * @return 0, 25, 50 or 100
+     */
+    static int carbonDioxide(int reading) {
+        // Current sensor readings determines hazard level
+        if (reading >= 0 && reading <= 999){
+            return NO_HAZARD;
+        }
+        else if (reading >= 1000 && reading <= 1999){
+            return LOW_HAZARD;
+        }
+        else if (reading >= 2000 && reading <= 4999){
+            return MEDIUM_HAZARD;
+        }
+        return EXTREME_HAZARD;
+    }
+
+    /**
+     * Hazard level of a noise reading, in decibels: the relative loudness
+     * compared to 70dB as a percentage, rounded down and capped at 100.
+     *
+     * @param reading noise level in decibels
+     * @return hazard level, 0 to 100
+     */
+    static int noise(int reading) {
+        // Rounds down to nearest integer
+        double hazardNoise = Math.floor(relativeLoudness(reading) * 100);
+
+        if (hazardNoise > 100){
+            return EXTREME_HAZARD;
+        }
+        return (int) hazardNoise;
+    }
+
+    /**
+     * Loudness of a noise reading relative to 70 decibels.
+     *
+     * @param reading noise level in decibels
+     * @return 2^((reading - 70.0)/10.0)
+     */
+    static double relativeLoudness(int reading) {
+        return Math.pow(2, (reading - 70.0) / 10.0);
+    }
+
+    /**
+     * Hazard level of an occupancy reading: the percentage of the capacity
+     * in use, rounded down and capped at 100.
+     *
+     * @param reading number of people
+     * @param capacity maximum allowable number of people
+     * @return hazard level, 0 to 100
+     */
+    static int occupancy(int reading, int capacity) {
+        // Relative reading to max capacity
+        double hazardRatio = reading / (double) capacity;
+        // Max hazard if exceed max capacity
+        if (hazardRatio >= 1){
+            return EXTREME_HAZARD;
+        }
+        // If doesn't exceed, hazard is determined by ratio
+        return (int) Math.floor(hazardRatio * 100);
+    }
+
+    /**
+     * Hazard level of a temperature reading, in degrees Celsius.
+     *
+     * @param reading temperature in degrees
+     * @return 100 at 68 degrees or higher; 0 otherwise
+     */
+    static int temperature(int reading) {
+        // Higher or equal to 68 degree
+        if (reading >= 68){
+            return EXTREME_HAZARD;
+        }
+        return NO_HAZARD;
+    }
+}
@@ -14,4 +14,14 @@ public interface HazardSensor extends Sensor{
      * @return level of hazard at sensor location, 0 to 100
      */
     int getHazardLevel();
+
+    /**
+     * Returns the level of hazard this sensor would detect if its current
+     * reading were the given value, so future hazard levels can be worked
+     * out from future readings without waiting for them.
+     *
+     * @param reading raw reading, in this sensor's units
+     * @return level of hazard for the reading, 0 to 100
+     */
+    int getHazardLevel(int reading);
 }
@@ -0,0 +1,86 @@
+package bms.sensors;
+
+/**
+ * Holds the most recent value reported for a single live sensor.
+ *
+ * The cell has a single writer, the thread ingesting readings for that
+ * sensor, and any number of readers. Writes are plain volatile stores and
+ * reads are volatile loads, so neither side ever takes a lock or retries.
+ * Values older than the one already held are ignored, so readings that
+ * arrive out of order never overwrite newer ones.
+ */
+public class LatestValueCell {
+    // Most recent value
+    private volatile int value;
+
+    // Timestamp of the most recent value
+    private volatile long timestamp = Long.MIN_VALUE;
+
+    // Number of values accepted so far
+    private volatile long updates;
+
+    /**
+     * Creates a new cell holding the given initial value, which counts as
+     * older than any timestamped update.
+     *
+     * @param initialValue value held before the first update
+     */
+    public LatestValueCell(int initialValue) {
+        this.value = initialValue;
+    }
+
+    /**
+     * Returns the most recent value.
+     *
+     * @return current value
+     */
+    public int getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns the timestamp of the most recent value.
+     *
+     * @return timestamp of the current value; Long.MIN_VALUE if the cell has
+     * never been updated
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the number of values accepted by this cell. A reader can
+     * compare this count between two reads to see whether anything changed.
+     *
+     * @return number of accepted updates
+     */
+    public long getUpdateCount() {
+        return this.updates;
+    }
+
+    /**
+     * Stores a new value, unless it is older than the current one.
+     * Must only be called by the single writer of this cell.
+     *
+     * @param newValue value to store
+     * @param newTimestamp time at which the value was measured
+     * @return true if the value was stored; false if it was older than the
+     * current value
+     */
+    public boolean update(int newValue, long newTimestamp) {
+        if (newTimestamp < this.timestamp) {
+            return false;
+        }
+        this.timestamp = newTimestamp;
+        this.value = newValue;
+        // Only the single writer increments, so this cannot lose updates
+        this.updates = this.updates + 1;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "LatestValueCell: value=" + this.value + ", timestamp=" +
+                this.timestamp;
+    }
+}
@@ -0,0 +1,62 @@
+package bms.sensors;
+
+import java.util.Arrays;
+
+/**
+ * The listeners of one observable sensor.
+ *
+ * Listeners are held in an array that is replaced whenever one is added or
+ * removed, so notifying them takes no lock and, when there are none, costs
+ * only a volatile read.
+ */
+class ListenerList {
+    private static final SensorListener[] NONE = new SensorListener[0];
+
+    private volatile SensorListener[] listeners = NONE;
+
+    synchronized void add(SensorListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException();
+        }
+        SensorListener[] current = this.listeners;
+        SensorListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        this.listeners = updated;
+    }
+
+    synchronized void remove(SensorListener listener) {
+        SensorListener[] current = this.listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                SensorListener[] updated = new SensorListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i,
+                        current.length - i - 1);
+                this.listeners = updated;
+                return;
+            }
+        }
+    }
+
+    // Removes every listener, then tells each that the sensor was retired
+    void retire(Sensor sensor) {
+        SensorListener[] current;
+        synchronized (this) {
+            current = this.listeners;
+            this.listeners = NONE;
+        }
+        for (SensorListener listener : current) {
+            listener.sensorRetired(sensor);
+        }
+    }
+
+    boolean isEmpty() {
+        return this.listeners.length == 0;
+    }
+
+    void fire(Sensor sensor, int previousReading, int currentReading) {
+        for (SensorListener listener : this.listeners) {
+            listener.readingChanged(sensor, previousReading, currentReading);
+        }
+    }
+}
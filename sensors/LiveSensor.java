@@ -0,0 +1,207 @@
+package bms.sensors;
+
+import bms.util.Renderable;
+
+/**
+ * A sensor whose readings are pushed in from a real device, rather than
+ * replayed from a fixed array on a timer like a TimedSensor.
+ *
+ * Each live sensor measures one kind of quantity, and derives its hazard
+ * level using the same rules as the timed sensor of that kind. Its current
+ * reading is kept in a LatestValueCell, and is normally updated through a
+ * LiveSensorRegistry.
+ */
+public class LiveSensor implements HazardSensor, ObservableSensor, Renderable {
+    /**
+     * The quantity measured by a live sensor, named after the timed sensor
+     * whose hazard rules it follows.
+     */
+    public enum Kind {
+        CARBON_DIOXIDE("CarbonDioxideSensor"),
+        NOISE("NoiseSensor"),
+        OCCUPANCY("OccupancySensor"),
+        TEMPERATURE("TemperatureSensor");
+
+        private final String sensorType;
+
+        Kind(String sensorType) {
+            this.sensorType = sensorType;
+        }
+
+        /**
+         * Returns the simple class name of the timed sensor of this kind.
+         *
+         * @return timed sensor type, e.g. "NoiseSensor"
+         */
+        public String getSensorType() {
+            return this.sensorType;
+        }
+    }
+
+    private final int sensorId;
+    private final Kind kind;
+    private final int capacity;
+
+    // Latest reading pushed in for this sensor
+    private final LatestValueCell reading = new LatestValueCell(0);
+
+    // Listeners told when the current reading changes
+    private final ListenerList listeners = new ListenerList();
+
+    /**
+     * Creates a new live sensor of a kind that has no capacity, with an
+     * initial reading of zero.
+     *
+     * @param sensorId identifier used to route readings to this sensor;
+     * must be greater than or equal to zero
+     * @param kind the quantity measured by the sensor
+     * @throws IllegalArgumentException if sensorId is less than zero, or kind
+     * is OCCUPANCY (use LiveSensor(int, int) instead)
+     */
+    public LiveSensor(int sensorId, Kind kind) {
+        if (sensorId < 0 || kind == null || kind == Kind.OCCUPANCY) {
+            throw new IllegalArgumentException();
+        }
+        this.sensorId = sensorId;
+        this.kind = kind;
+        this.capacity = 0;
+    }
+
+    /**
+     * Creates a new live occupancy sensor with the given capacity, with an
+     * initial reading of zero.
+     *
+     * @param sensorId identifier used to route readings to this sensor;
+     * must be greater than or equal to zero
+     * @param capacity maximum allowable number of people in the room
+     * @throws IllegalArgumentException if sensorId or capacity is less than
+     * zero
+     */
+    public LiveSensor(int sensorId, int capacity) {
+        if (sensorId < 0 || capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.sensorId = sensorId;
+        this.kind = Kind.OCCUPANCY;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the identifier used to route readings to this sensor.
+     *
+     * @return sensor id
+     */
+    public int getSensorId() {
+        return this.sensorId;
+    }
+
+    /**
+     * Returns the quantity measured by this sensor.
+     *
+     * @return kind of sensor
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Returns the capacity of this sensor, if it is an occupancy sensor.
+     *
+     * @return capacity; 0 for other kinds of sensor
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the cell holding the latest reading of this sensor.
+     *
+     * @return latest value cell
+     */
+    public LatestValueCell getCell() {
+        return this.reading;
+    }
+
+    /**
+     * Records a new reading, unless it is older than the current one.
+     * Readings for one sensor must be recorded by a single thread, which
+     * also calls any listeners if the reading changed.
+     *
+     * @param value new reading
+     * @param timestamp time at which the reading was taken
+     * @return true if the reading was recorded
+     * @throws IllegalArgumentException if value is less than zero
+     */
+    public boolean update(int value, long timestamp) {
+        if (value < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (this.listeners.isEmpty()) {
+            return this.reading.update(value, timestamp);
+        }
+        int previous = this.reading.getValue();
+        if (!this.reading.update(value, timestamp)) {
+            return false;
+        }
+        if (previous != value) {
+            this.listeners.fire(this, previous, value);
+        }
+        return true;
+    }
+
+    @Override
+    public void addListener(SensorListener listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(SensorListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public void retire() {
+        this.listeners.retire(this);
+    }
+
+    @Override
+    public int getCurrentReading() {
+        return this.reading.getValue();
+    }
+
+    @Override
+    public int getHazardLevel() {
+        return getHazardLevel(getCurrentReading());
+    }
+
+    @Override
+    public int getHazardLevel(int reading) {
+        switch (this.kind) {
+            case CARBON_DIOXIDE:
+                return HazardLevels.carbonDioxide(reading);
+            case NOISE:
+                return HazardLevels.noise(reading);
+            case OCCUPANCY:
+                return HazardLevels.occupancy(reading, this.capacity);
+            default:
+                return HazardLevels.temperature(reading);
+        }
+    }
+
+    @Override
+    public void appendTo(StringBuilder builder) {
+        builder.append("LiveSensor: id=").append(this.sensorId)
+                .append(", reading=").append(getCurrentReading())
+                .append(", type=").append(this.kind.getSensorType());
+        if (this.kind == Kind.OCCUPANCY) {
+            builder.append(", capacity=").append(this.capacity);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(64);
+        appendTo(builder);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package bms.sensors;
+
+import bms.util.ModelCounters;
+
+import java.util.Arrays;
+
+/**
+ * Routes batches of incoming readings to live sensors by sensor id.
+ *
+ * Sensors are kept in a table indexed by id, split into chunks of ids that
+ * are only allocated once a sensor in them is registered, so routing a
+ * reading is two array loads and never takes a lock. Ingestion is
+ * allocation free, which allows hundreds of thousands of readings per
+ * second. Ids range from 0 to MAX_SENSOR_ID; registering a sensor takes
+ * amortised constant time, and memory grows with the chunks in use rather
+ * than with the largest id.
+ *
+ * Each sensor must only receive readings from one ingestion thread at a
+ * time, for example by giving each thread its own range of sensor ids.
+ * Every call that records readings advances the state version of the
+ * building the registry was created for once, see ModelCounters.
+ */
+public class LiveSensorRegistry {
+    /** Largest sensor id that can be registered. */
+    public static final int MAX_SENSOR_ID = (1 << 24) - 1;
+
+    // Number of ids in each chunk of the table, as a power of two
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    // Registered sensors: chunk id >>> CHUNK_BITS holds entry id & CHUNK_MASK.
+    // Chunks with no sensor registered are null.
+    private volatile LiveSensor[][] chunks = new LiveSensor[0][];
+
+    // Counters of the building the sensors are in, if known
+    private final ModelCounters counters;
+
+    /**
+     * Creates a new registry for sensors that are not in a building, or
+     * whose building need not be told about new readings.
+     */
+    public LiveSensorRegistry() {
+        this(null);
+    }
+
+    /**
+     * Creates a new registry for sensors in a building, whose state version
+     * is advanced whenever readings are recorded.
+     *
+     * @param counters counters of the building the sensors are in, see
+     * Building.getCounters(); null if there is none
+     */
+    public LiveSensorRegistry(ModelCounters counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * Registers a live sensor so that it receives readings for its id.
+     *
+     * @param sensor sensor to register
+     * @throws IllegalArgumentException if the sensor's id is greater than
+     * MAX_SENSOR_ID, or another sensor is already registered with the same
+     * id
+     */
+    public synchronized void register(LiveSensor sensor) {
+        int id = sensor.getSensorId();
+        if (id > MAX_SENSOR_ID || getSensor(id) != null) {
+            throw new IllegalArgumentException();
+        }
+        LiveSensor[][] current = this.chunks;
+        int chunk = id >>> CHUNK_BITS;
+        if (chunk >= current.length) {
+            // Doubling keeps the copies to amortised constant time
+            current = Arrays.copyOf(current,
+                    Math.max(chunk + 1, 2 * current.length));
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new LiveSensor[CHUNK_MASK + 1];
+        }
+        current[chunk][id & CHUNK_MASK] = sensor;
+        // A sensor's fields are final, so a reader seeing the entry early
+        // sees it whole; writing the table again publishes it to the rest
+        this.chunks = current;
+    }
+
+    /**
+     * Returns the sensor registered with the given id.
+     *
+     * @param sensorId id of the sensor
+     * @return registered sensor; null if there is none
+     */
+    public LiveSensor getSensor(int sensorId) {
+        return find(this.chunks, sensorId);
+    }
+
+    /**
+     * Records a single reading.
+     *
+     * @param sensorId id of the sensor the reading is for
+     * @param value the reading
+     * @param timestamp time at which the reading was taken
+     * @return true if the reading was recorded; false if no sensor has this
+     * id, the value is negative or the reading is older than the current one
+     */
+    public boolean ingest(int sensorId, int value, long timestamp) {
+        LiveSensor sensor = getSensor(sensorId);
+        if (sensor != null && value >= 0 && sensor.update(value, timestamp)) {
+            if (this.counters != null) {
+                this.counters.incrementStateVersion();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a batch of readings, given as parallel arrays of
+     * (sensorId, value, timestamp). Readings for unknown sensors, negative
+     * values and out of date readings are skipped.
+     *
+     * @param sensorIds id of the sensor each reading is for
+     * @param values the readings
+     * @param timestamps time at which each reading was taken
+     * @param count number of readings to take from the start of the arrays
+     * @return number of readings recorded
+     */
+    public int ingest(int[] sensorIds, int[] values, long[] timestamps,
+                      int count) {
+        LiveSensor[][] current = this.chunks;
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            LiveSensor sensor = find(current, sensorIds[i]);
+            if (sensor == null || values[i] < 0) {
+                continue;
+            }
+            if (sensor.update(values[i], timestamps[i])) {
+                accepted++;
+            }
+        }
+        // One state change per batch keeps the shared counter uncontended
+        if (accepted > 0 && this.counters != null) {
+            this.counters.incrementStateVersion();
+        }
+        return accepted;
+    }
+
+    // Looks a sensor up in a snapshot of the table
+    private static LiveSensor find(LiveSensor[][] table, int sensorId) {
+        int chunk = sensorId >>> CHUNK_BITS;
+        if (sensorId < 0 || chunk >= table.length || table[chunk] == null) {
+            return null;
+        }
+        return table[chunk][sensorId & CHUNK_MASK];
+    }
+
+    @Override
+    public String toString() {
+        int registered = 0;
+        for (LiveSensor[] chunk : this.chunks) {
+            if (chunk == null) {
+                continue;
+            }
+            for (LiveSensor s : chunk) {
+                if (s != null) {
+                    registered++;
+                }
+            }
+        }
+        return "LiveSensorRegistry: sensors=" + registered;
+    }
+}
@@ -1,7 +1,5 @@
 package bms.sensors;
 
-import java.util.Arrays;
-
 /**
  * A sensor that measures the noise levels in a room.
  */
@@ -33,32 +31,22 @@ public class NoiseSensor extends TimedSensor implements HazardSensor {
      * @return relative loudness of current reading to 70dB
      */
     public double calculateRelativeLoudness(){
-        return Math.pow(2, (getCurrentReading() - 70.0) / 10.0);
+        return HazardLevels.relativeLoudness(getCurrentReading());
     }
 
     @Override
     public int getHazardLevel() {
-        final int EXTREME_HAZARD = 100;
-        // Rounds down to nearest integer
-        double hazardNoise = Math.floor(calculateRelativeLoudness() * 100);
-
-        if (hazardNoise > 100){
-            return EXTREME_HAZARD;
-        }
-        return (int) hazardNoise;
+        return getHazardLevel(getCurrentReading());
     }
 
     @Override
-    public String toString(){
-        String sensorReadingsConverted = Arrays.toString(sensorReadings);
-        // Removing square brackets at beginning and end
-        sensorReadingsConverted = sensorReadingsConverted.substring
-                (1, sensorReadingsConverted.length()-1);
-        // Removing white spaces
-        sensorReadingsConverted = sensorReadingsConverted.replaceAll
-                ("\\s+", "");
-
-        return "TimedSensor: freq=" + this.updateFrequency + ", readings=" +
-                sensorReadingsConverted + ", type=NoiseSensor";
+    public int getHazardLevel(int reading) {
+        return HazardLevels.noise(reading);
     }
+
+    @Override
+    public void appendTo(StringBuilder builder){
+        super.appendTo(builder);
+        builder.append(", type=NoiseSensor");
     }
+}
@@ -0,0 +1,29 @@
+package bms.sensors;
+
+/**
+ * A sensor that notifies listeners whenever its current reading changes, so
+ * that values derived from its readings can be kept up to date without
+ * polling every sensor.
+ */
+public interface ObservableSensor extends Sensor {
+    /**
+     * Adds a listener to be called whenever the current reading changes.
+     *
+     * @param listener listener to add
+     */
+    void addListener(SensorListener listener);
+
+    /**
+     * Removes a listener previously added with addListener(SensorListener).
+     * Does nothing if the listener was not added.
+     *
+     * @param listener listener to remove
+     */
+    void removeListener(SensorListener listener);
+
+    /**
+     * Removes every listener, then calls SensorListener.sensorRetired(Sensor)
+     * on each, once this sensor has been taken out of its building for good.
+     */
+    void retire();
+}
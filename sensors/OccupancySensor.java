@@ -1,7 +1,5 @@
 package bms.sensors;
 
-import java.util.Arrays;
-
 /**
  * A sensor that measures the number of people in a room.
  */
@@ -39,31 +37,26 @@ public class OccupancySensor extends TimedSensor implements HazardSensor {
         return this.capacity;
     }
 
+    @Override
+    public boolean hasSameDefinition(TimedSensor other) {
+        return super.hasSameDefinition(other)
+                && ((OccupancySensor) other).capacity == this.capacity;
+    }
+
     @Override
     public int getHazardLevel() {
-        final int MAX_HAZARD = 100;
-        // Relative reading to max capacity
-        double hazardRatio = getCurrentReading() / (double)this.capacity;
-        // Max hazard if exceed max capacity
-        if (hazardRatio >= 1){
-            return MAX_HAZARD;
-        }
-        // If doesn't exceed, hazard is determined by ratio
-        return (int) Math.floor(hazardRatio * 100);
+        return getHazardLevel(getCurrentReading());
     }
 
     @Override
-    public String toString(){
-        String sensorReadingsConverted = Arrays.toString(sensorReadings);
-        // Removing square brackets at beginning and end
-        sensorReadingsConverted = sensorReadingsConverted.substring
-                (1, sensorReadingsConverted.length()-1);
-        // Removing white spaces
-        sensorReadingsConverted = sensorReadingsConverted.replaceAll
-                ("\\s+", "");
+    public int getHazardLevel(int reading) {
+        return HazardLevels.occupancy(reading, this.capacity);
+    }
 
-        return "TimedSensor: freq=" + this.updateFrequency + ", readings=" +
-                sensorReadingsConverted + ", type=OccupancySensor, capacity=" +
-                this.capacity;
+    @Override
+    public void appendTo(StringBuilder builder){
+        super.appendTo(builder);
+        builder.append(", type=OccupancySensor, capacity=")
+                .append(this.capacity);
     }
 }
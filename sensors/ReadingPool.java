@@ -0,0 +1,173 @@
+package bms.sensors;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Singleton pool of sensor reading arrays, so that sensors created from the
+ * same template of readings share one array instead of holding a copy each.
+ *
+ * intern(int[]) returns the pooled array with the same contents as the one
+ * given, adding a copy to the pool the first time those contents are seen.
+ * Arrays are validated when they are first added, and a TimedSensor given
+ * a pooled array does not validate it again. Pooled arrays must never be
+ * modified.
+ *
+ * Pooled arrays are kept for the lifetime of the JVM, so the pool is meant
+ * for a bounded set of templates rather than arbitrary readings.
+ */
+public class ReadingPool {
+    // Size of an array header, and the alignment of objects, in bytes
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int OBJECT_ALIGNMENT = 8;
+
+    // A singleton instance of class
+    private static final ReadingPool POOL = new ReadingPool();
+
+    // Pooled arrays by contents
+    private final Map<Contents, int[]> arrays = new ConcurrentHashMap<>();
+
+    // Pooled arrays by identity, as arrays do not override equals()
+    private final Set<int[]> pooled = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder bytesPooled = new LongAdder();
+
+    /**
+     * Returns the singleton instance of the reading pool.
+     *
+     * @return singleton instance
+     */
+    public static ReadingPool getInstance() {
+        return POOL;
+    }
+
+    /**
+     * Returns the pooled array with the same readings as the given one,
+     * adding a copy of it to the pool if there is none yet.
+     *
+     * @param readings sensor readings
+     * @return pooled array of the same readings, which must not be modified
+     * @throws IllegalArgumentException if readings is null or any reading is
+     * less than zero
+     */
+    public int[] intern(int[] readings) {
+        if (readings == null) {
+            throw new IllegalArgumentException();
+        }
+        this.requests.increment();
+        if (this.pooled.contains(readings)) {
+            return readings;
+        }
+        int[] existing = this.arrays.get(new Contents(readings));
+        if (existing == null) {
+            validate(readings);
+            int[] copy = readings.clone();
+            existing = this.arrays.putIfAbsent(new Contents(copy), copy);
+            if (existing == null) {
+                this.pooled.add(copy);
+                this.bytesPooled.add(arrayBytes(copy.length));
+                return copy;
+            }
+        }
+        // The caller's array is no longer needed once the pooled one is used
+        this.bytesSaved.add(arrayBytes(readings.length));
+        return existing;
+    }
+
+    /**
+     * Returns whether the given array is one held by the pool, i.e. one
+     * returned by intern(int[]). Takes constant time.
+     *
+     * @param readings array to check
+     * @return true if the array is pooled
+     */
+    public boolean isPooled(int[] readings) {
+        return this.pooled.contains(readings);
+    }
+
+    /**
+     * Returns the number of distinct reading arrays in the pool.
+     *
+     * @return number of pooled arrays
+     */
+    public int getPooledCount() {
+        return this.pooled.size();
+    }
+
+    /**
+     * Returns the number of calls made to intern(int[]).
+     *
+     * @return number of intern requests
+     */
+    public long getInternCount() {
+        return this.requests.sum();
+    }
+
+    /**
+     * Returns the approximate heap used by the pooled arrays.
+     *
+     * @return bytes held by the pool
+     */
+    public long getBytesPooled() {
+        return this.bytesPooled.sum();
+    }
+
+    /**
+     * Returns the approximate heap saved by sharing pooled arrays, i.e. the
+     * size of every array passed to intern(int[]) that was replaced by an
+     * existing pooled array.
+     *
+     * @return bytes saved
+     */
+    public long getBytesSaved() {
+        return this.bytesSaved.sum();
+    }
+
+    /**
+     * Checks that every reading is greater than or equal to zero.
+     *
+     * @param readings readings to check
+     * @throws IllegalArgumentException if any reading is less than zero
+     */
+    static void validate(int[] readings) {
+        for (int reading : readings) {
+            if (reading < 0) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    // Heap used by an int array of the given length
+    private static long arrayBytes(int length) {
+        long bytes = ARRAY_HEADER_BYTES + 4L * length;
+        return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT
+                * OBJECT_ALIGNMENT;
+    }
+
+    // Compares arrays by their contents
+    private static final class Contents {
+        private final int[] readings;
+        private final int hash;
+
+        Contents(int[] readings) {
+            this.readings = readings;
+            this.hash = Arrays.hashCode(readings);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Contents
+                    && Arrays.equals(this.readings, ((Contents) other).readings);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
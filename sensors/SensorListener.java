@@ -0,0 +1,32 @@
+package bms.sensors;
+
+/**
+ * Receives a callback whenever the current reading of an observable sensor
+ * changes.
+ *
+ * Callbacks are made on the thread that changed the reading: the tick
+ * thread for timed sensors, or the ingesting thread for live sensors. They
+ * should return quickly, as every other listener of the sensor waits
+ * behind them.
+ */
+@FunctionalInterface
+public interface SensorListener {
+    /**
+     * Called after the current reading of the sensor has changed.
+     *
+     * @param sensor sensor whose reading changed
+     * @param previousReading reading before the change
+     * @param currentReading reading after the change
+     */
+    void readingChanged(Sensor sensor, int previousReading, int currentReading);
+
+    /**
+     * Called once the sensor has been taken out of its building for good,
+     * after the listener has been removed from it. Does nothing unless
+     * overridden.
+     *
+     * @param sensor sensor that was retired
+     */
+    default void sensorRetired(Sensor sensor) {
+    }
+}
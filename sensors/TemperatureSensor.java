@@ -1,7 +1,5 @@
 package bms.sensors;
 
-import java.util.Arrays;
-
 /**
  * A sensor that measures ambient temperature in a room.
  */
@@ -20,27 +18,17 @@ public class TemperatureSensor extends TimedSensor implements HazardSensor{
 
     @Override
     public int getHazardLevel() {
-        final int HAS_HAZARD = 100;
-        final int NO_HAZARD = 0;
-        // Higher or equal to 68 degree
-        if (getCurrentReading() >= 68){
-            return HAS_HAZARD;
-        }
-        return NO_HAZARD;
+        return getHazardLevel(getCurrentReading());
     }
 
     @Override
-    public String toString(){
-        String sensorReadingsConverted = Arrays.toString(sensorReadings);
-        // Removing square brackets at beginning and end
-        sensorReadingsConverted = sensorReadingsConverted.substring
-                (1, sensorReadingsConverted.length()-1);
-        // Removing white spaces
-        sensorReadingsConverted = sensorReadingsConverted.replaceAll
-                ("\\s+", "");
-
-        return "TimedSensor: freq=" + this.updateFrequency + ", readings=" +
-                sensorReadingsConverted + ", type=TemperatureSensor";
+    public int getHazardLevel(int reading) {
+        return HazardLevels.temperature(reading);
     }
 
+    @Override
+    public void appendTo(StringBuilder builder){
+        super.appendTo(builder);
+        builder.append(", type=TemperatureSensor");
+    }
 }
@@ -1,5 +1,7 @@
 package bms.sensors;
 
+import bms.util.Renderable;
+import bms.util.TextFormat;
 import bms.util.TimedItem;
 import bms.util.TimedItemManager;
 
@@ -8,16 +10,23 @@ import java.util.Arrays;
 /**
  * An abstract class to represent a sensor that iterates through observed values
  * on a timer.
+ *
+ * The timer is advanced by a single tick thread; the cursor fields are
+ * volatile so that readings can be taken from any other thread.
  */
-public abstract class TimedSensor implements TimedItem, Sensor {
+public abstract class TimedSensor implements TimedItem, ObservableSensor,
+        Renderable {
     int[] sensorReadings;
     int updateFrequency;
 
     // Time elapsed in minutes
-    private int timeElapsed = 0;
+    private volatile int timeElapsed = 0;
 
     // Current index value for sensorReadings
-    private int currentValue = 0;
+    private volatile int currentValue = 0;
+
+    // Listeners told when the current reading changes
+    private final ListenerList listeners = new ListenerList();
 
     /**
      * Creates a new timed sensor, using the provided list of sensor readings
@@ -35,6 +44,9 @@ public abstract class TimedSensor implements TimedItem, Sensor {
      * The sensor should be registered as a timed item, see TimedItemManager
      * .registerTimedItem(TimedItem).
      *
+     * Sensors built from the same template of readings can share one array
+     * by passing the array returned by ReadingPool.intern(int[]).
+     *
      * @param sensorReadings a non-empty array of sensor readings
      * @param updateFrequency indicates how often the sensor readings
      * updates, in minutes
@@ -51,10 +63,9 @@ public abstract class TimedSensor implements TimedItem, Sensor {
             throw new IllegalArgumentException();
         }
 
-        for (int sr : sensorReadings) {
-            if (sr < 0) {
-                throw new IllegalArgumentException();
-            }
+        // Pooled arrays were validated when they were added to the pool
+        if (!ReadingPool.getInstance().isPooled(sensorReadings)) {
+            ReadingPool.validate(sensorReadings);
         }
         TimedItemManager.getInstance().registerTimedItem(this);
     }
@@ -65,6 +76,15 @@ public abstract class TimedSensor implements TimedItem, Sensor {
         return sensorReadings[currentValue % sensorReadings.length];
     }
 
+    /**
+     * Returns a copy of the readings this sensor cycles through.
+     *
+     * @return new array of the sensor's readings
+     */
+    public int[] getSensorReadings(){
+        return this.sensorReadings.clone();
+    }
+
     /**
      * Returns the number of minutes that have elapsed since the sensor was
      * instantiated. Should return 0 immediately after the constructor is
@@ -86,25 +106,125 @@ public abstract class TimedSensor implements TimedItem, Sensor {
         return this.updateFrequency;
     }
 
+    /**
+     * Returns the number of minutes after which this sensor's readings
+     * repeat.
+     *
+     * @return length of the sensor's cycle, in minutes
+     */
+    public int getPeriod(){
+        return this.sensorReadings.length * this.updateFrequency;
+    }
+
+    /**
+     * Returns the reading this sensor has once the given number of minutes
+     * have elapsed since it was instantiated, past or future, without
+     * moving the sensor.
+     *
+     * @param minute time elapsed to find the reading at
+     * @return the sensor's reading at that time
+     * @throws IllegalArgumentException if minute is less than zero
+     */
+    public int getReadingAt(long minute){
+        if (minute < 0){
+            throw new IllegalArgumentException();
+        }
+        long index = minute / updateFrequency;
+        return sensorReadings[(int) (index % sensorReadings.length)];
+    }
+
     @Override
     public void elapseOneMinute(){
         timeElapsed++;
         if (getTimeElapsed() % getUpdateFrequency() == 0){
+            if (listeners.isEmpty()) {
+                currentValue ++;
+                return;
+            }
+            int previous = getCurrentReading();
             currentValue ++;
+            int current = getCurrentReading();
+            if (previous != current) {
+                listeners.fire(this, previous, current);
+            }
+        }
+    }
+
+    /**
+     * Moves the sensor on by the given number of minutes at once, with the
+     * same result as that many calls to elapseOneMinute(). Listeners are
+     * told of the change in reading, if any, once.
+     *
+     * @param minutes number of minutes to move on by
+     * @throws IllegalArgumentException if minutes is less than zero
+     */
+    public void advanceMinutes(int minutes){
+        if (minutes < 0){
+            throw new IllegalArgumentException();
+        }
+        int previous = getCurrentReading();
+        timeElapsed += minutes;
+        // The cursor moves on once every updateFrequency minutes
+        currentValue = timeElapsed / updateFrequency;
+        int current = getCurrentReading();
+        if (previous != current){
+            listeners.fire(this, previous, current);
         }
     }
 
+    @Override
+    public void addListener(SensorListener listener){
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(SensorListener listener){
+        listeners.remove(listener);
+    }
+
+    /**
+     * Removes every listener, telling each it was retired. The sensor stays
+     * registered as a timed item; retiring does not deregister it.
+     */
+    @Override
+    public void retire(){
+        listeners.retire(this);
+    }
+
+    /**
+     * Returns whether another sensor is defined the same way as this one: of
+     * the same class, with the same update frequency and readings, and with
+     * the same settings of its own. Readings are compared by identity first,
+     * so sensors sharing a pooled array are compared without reading it.
+     * Where each sensor is in its readings is not compared.
+     *
+     * @param other sensor to compare with
+     * @return true if both sensors have the same definition
+     */
+    public boolean hasSameDefinition(TimedSensor other){
+        return other != null && other.getClass() == getClass()
+                && other.updateFrequency == this.updateFrequency
+                && (other.sensorReadings == this.sensorReadings
+                || Arrays.equals(other.sensorReadings, this.sensorReadings));
+    }
+
+    /**
+     * Appends the description of this sensor; concrete sensors append their
+     * type and any other fields after it.
+     *
+     * @param builder builder to append to
+     */
+    @Override
+    public void appendTo(StringBuilder builder){
+        builder.append("TimedSensor: freq=").append(this.updateFrequency)
+                .append(", readings=");
+        TextFormat.appendReadings(builder, this.sensorReadings);
+    }
+
     @Override
     public String toString(){
-        String sensorReadingsConverted = Arrays.toString(sensorReadings);
-        // Removing square brackets at beginning and end
-        sensorReadingsConverted = sensorReadingsConverted.substring
-                (1, sensorReadingsConverted.length()-1);
-        // Removing white spaces
-        sensorReadingsConverted = sensorReadingsConverted.replaceAll
-                ("\\s+", "");
-
-        return "TimedSensor: freq=" + this.updateFrequency + ", readings=" +
-                sensorReadingsConverted;
+        StringBuilder builder = new StringBuilder(64);
+        appendTo(builder);
+        return builder.toString();
     }
 }
@@ -0,0 +1,102 @@
+package bms.simulation;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.OccupancySensor;
+
+import java.util.Random;
+
+/**
+ * A what-if scenario of an office building over one hour, in which some
+ * rooms see an occupancy surge and some a CO2 spike, each starting at a
+ * random minute and lasting a random time.
+ */
+public class OfficeSurgeScenario implements Scenario {
+    // Minutes of readings given to each sensor
+    private static final int MINUTES = 60;
+
+    private static final int CAPACITY = 8;
+    private static final int ROOM_AREA = 10;
+
+    private final int floors;
+    private final int roomsPerFloor;
+    private final double surgeProbability;
+    private final double spikeProbability;
+
+    /**
+     * Creates a new scenario.
+     *
+     * @param floors number of floors
+     * @param roomsPerFloor number of offices on each floor
+     * @param surgeProbability chance of each room seeing an occupancy surge
+     * @param spikeProbability chance of each room seeing a CO2 spike
+     * @throws IllegalArgumentException if floors or roomsPerFloor is less
+     * than one, or a probability is not between 0 and 1
+     */
+    public OfficeSurgeScenario(int floors, int roomsPerFloor,
+                               double surgeProbability,
+                               double spikeProbability) {
+        if (floors < 1 || roomsPerFloor < 1
+                || !(surgeProbability >= 0 && surgeProbability <= 1)
+                || !(spikeProbability >= 0 && spikeProbability <= 1)) {
+            throw new IllegalArgumentException();
+        }
+        this.floors = floors;
+        this.roomsPerFloor = roomsPerFloor;
+        this.surgeProbability = surgeProbability;
+        this.spikeProbability = spikeProbability;
+    }
+
+    @Override
+    public Building build(Random random) throws Exception {
+        Building building = new Building("Scenario");
+        for (int f = 1; f <= this.floors; f++) {
+            Floor floor = new Floor(f, ROOM_AREA, this.roomsPerFloor);
+            building.addFloor(floor);
+            for (int r = 0; r < this.roomsPerFloor; r++) {
+                Room room = new Room(f * 1000 + r, RoomType.OFFICE, ROOM_AREA);
+                floor.addRoom(room);
+                room.addSensor(new OccupancySensor(occupancy(random), 1,
+                        CAPACITY));
+                room.addSensor(new CarbonDioxideSensor(carbonDioxide(random),
+                        1, 600, 200));
+            }
+        }
+        return building;
+    }
+
+    // Light occupancy, with an optional surge to or beyond capacity
+    private int[] occupancy(Random random) {
+        int[] readings = new int[MINUTES];
+        for (int i = 0; i < MINUTES; i++) {
+            readings[i] = random.nextInt(CAPACITY / 2);
+        }
+        if (random.nextDouble() < this.surgeProbability) {
+            int start = random.nextInt(MINUTES);
+            int end = Math.min(MINUTES, start + 5 + random.nextInt(20));
+            for (int i = start; i < end; i++) {
+                readings[i] = CAPACITY - 2 + random.nextInt(5);
+            }
+        }
+        return readings;
+    }
+
+    // Normal CO2 levels, with an optional spike
+    private int[] carbonDioxide(Random random) {
+        int[] readings = new int[MINUTES];
+        for (int i = 0; i < MINUTES; i++) {
+            readings[i] = 450 + random.nextInt(400);
+        }
+        if (random.nextDouble() < this.spikeProbability) {
+            int start = random.nextInt(MINUTES);
+            int end = Math.min(MINUTES, start + 3 + random.nextInt(10));
+            for (int i = start; i < end; i++) {
+                readings[i] = 1500 + random.nextInt(4500);
+            }
+        }
+        return readings;
+    }
+}
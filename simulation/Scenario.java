@@ -0,0 +1,25 @@
+package bms.simulation;
+
+import bms.building.Building;
+
+import java.util.Random;
+
+/**
+ * Builds the building for one randomised run of a what-if scenario.
+ *
+ * The scenario is called with the run's SimulationContext bound to the
+ * current thread, so the sensors it creates are ticked by that run alone.
+ * It may be called from several threads at once, and should take all of
+ * its randomness from the given generator so that runs can be repeated.
+ */
+@FunctionalInterface
+public interface Scenario {
+    /**
+     * Builds the building for one run.
+     *
+     * @param random source of randomness for this run
+     * @return building to simulate
+     * @throws Exception if the building cannot be built
+     */
+    Building build(Random random) throws Exception;
+}
@@ -0,0 +1,145 @@
+package bms.simulation;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.util.SimulationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs many randomised runs of a scenario in parallel and aggregates their
+ * hazard and fire drill statistics.
+ *
+ * Every run gets its own SimulationContext, so runs never tick each other's
+ * sensors. Each run builds its building, then for each simulated minute
+ * ticks its context and checks every room: a room whose highest sensor
+ * hazard level reaches the alarm level is put in a fire drill.
+ *
+ * Run i is given a generator seeded from the runner's seed and i, so the
+ * results do not depend on how runs are spread across threads.
+ */
+public class ScenarioRunner {
+    // Spreads the seeds of consecutive runs apart
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    private final int minutes;
+    private final int alarmHazardLevel;
+
+    /**
+     * Creates a new runner.
+     *
+     * @param minutes number of minutes to simulate in each run
+     * @param alarmHazardLevel hazard level at which a room is put in a fire
+     * drill
+     * @throws IllegalArgumentException if minutes is less than one, or
+     * alarmHazardLevel is not between 1 and 100
+     */
+    public ScenarioRunner(int minutes, int alarmHazardLevel) {
+        if (minutes < 1 || alarmHazardLevel < 1 || alarmHazardLevel > 100) {
+            throw new IllegalArgumentException();
+        }
+        this.minutes = minutes;
+        this.alarmHazardLevel = alarmHazardLevel;
+    }
+
+    /**
+     * Runs a scenario the given number of times on the common fork-join
+     * pool.
+     *
+     * @param scenario scenario to run
+     * @param runs number of runs
+     * @param seed seed the runs' generators are derived from
+     * @return statistics of all the runs
+     * @throws IllegalStateException if a run fails to build its building
+     */
+    public ScenarioStatistics run(Scenario scenario, int runs, long seed) {
+        return run(scenario, runs, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs a scenario the given number of times on the given pool.
+     *
+     * @param scenario scenario to run
+     * @param runs number of runs
+     * @param seed seed the runs' generators are derived from
+     * @param pool pool to run on
+     * @return statistics of all the runs
+     * @throws IllegalStateException if a run fails to build its building, or
+     * the runs are interrupted
+     */
+    public ScenarioStatistics run(Scenario scenario, int runs, long seed,
+                                  ForkJoinPool pool) {
+        try {
+            // A parallel stream started from inside a pool runs in that pool
+            return pool.submit(() -> IntStream.range(0, runs).parallel()
+                    .mapToObj(run -> runOnce(scenario,
+                            new Random(seed + run * SEED_STRIDE)))
+                    .reduce(ScenarioStatistics.empty(),
+                            ScenarioStatistics::merge)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Performs a single run of a scenario on the current thread.
+     *
+     * @param scenario scenario to run
+     * @param random source of randomness for the run
+     * @return statistics of the run
+     * @throws IllegalStateException if the scenario fails to build its
+     * building
+     */
+    @SuppressWarnings("try")
+    public ScenarioStatistics runOnce(Scenario scenario, Random random) {
+        SimulationContext context = new SimulationContext();
+        try (SimulationContext.Binding binding = context.bind()) {
+            Building building;
+            try {
+                building = scenario.build(random);
+            } catch (Exception e) {
+                throw new IllegalStateException("Scenario failed to build", e);
+            }
+
+            // The structure is fixed for the run, so look it up once
+            List<Room> rooms = new ArrayList<>();
+            for (Floor floor : building.getFloors()) {
+                rooms.addAll(floor.getRooms());
+            }
+
+            int peakHazardLevel = 0;
+            int roomsInFireDrill = 0;
+            int firstFireDrillMinute = -1;
+            boolean[] alarmed = new boolean[rooms.size()];
+            for (int minute = 1; minute <= this.minutes; minute++) {
+                context.elapseOneMinute();
+                for (int r = 0; r < alarmed.length; r++) {
+                    int hazard = rooms.get(r).getMaxHazardLevel();
+                    peakHazardLevel = Math.max(peakHazardLevel, hazard);
+                    if (hazard >= this.alarmHazardLevel && !alarmed[r]) {
+                        alarmed[r] = true;
+                        rooms.get(r).setFireDrill(true);
+                        roomsInFireDrill++;
+                        if (firstFireDrillMinute < 0) {
+                            firstFireDrillMinute = minute;
+                        }
+                    }
+                }
+            }
+            return ScenarioStatistics.ofRun(peakHazardLevel, roomsInFireDrill,
+                    firstFireDrillMinute);
+        }
+    }
+}
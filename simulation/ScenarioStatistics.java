@@ -0,0 +1,170 @@
+package bms.simulation;
+
+import bms.util.ModelCounters;
+
+/**
+ * Immutable summary of the hazards and fire drills seen in one or more
+ * scenario runs. Statistics of separate runs are computed independently and
+ * then combined with merge(ScenarioStatistics), so runs can be aggregated in
+ * parallel without any shared counters.
+ */
+public class ScenarioStatistics {
+    private final int runs;
+    private final int runsWithFireDrill;
+    private final long roomsInFireDrill;
+    private final long firstFireDrillMinutes;
+    private final long peakHazardLevels;
+    private final int maxPeakHazardLevel;
+
+    // Number of runs whose peak hazard level fell in each band
+    private final int[] peakHazardBands;
+
+    private ScenarioStatistics(int runs, int runsWithFireDrill,
+                               long roomsInFireDrill,
+                               long firstFireDrillMinutes,
+                               long peakHazardLevels, int maxPeakHazardLevel,
+                               int[] peakHazardBands) {
+        this.runs = runs;
+        this.runsWithFireDrill = runsWithFireDrill;
+        this.roomsInFireDrill = roomsInFireDrill;
+        this.firstFireDrillMinutes = firstFireDrillMinutes;
+        this.peakHazardLevels = peakHazardLevels;
+        this.maxPeakHazardLevel = maxPeakHazardLevel;
+        this.peakHazardBands = peakHazardBands;
+    }
+
+    /**
+     * Returns statistics covering no runs.
+     *
+     * @return empty statistics
+     */
+    public static ScenarioStatistics empty() {
+        return new ScenarioStatistics(0, 0, 0, 0, 0, 0,
+                new int[ModelCounters.HAZARD_BANDS]);
+    }
+
+    /**
+     * Returns the statistics of a single run.
+     *
+     * @param peakHazardLevel highest hazard level of any room during the run
+     * @param roomsInFireDrill number of rooms put in a fire drill
+     * @param firstFireDrillMinute minute of the first fire drill; -1 if
+     * there was none
+     * @return statistics of the run
+     */
+    public static ScenarioStatistics ofRun(int peakHazardLevel,
+                                           int roomsInFireDrill,
+                                           int firstFireDrillMinute) {
+        int[] bands = new int[ModelCounters.HAZARD_BANDS];
+        bands[ModelCounters.hazardBand(peakHazardLevel)] = 1;
+        boolean drilled = firstFireDrillMinute >= 0;
+        return new ScenarioStatistics(1, drilled ? 1 : 0, roomsInFireDrill,
+                drilled ? firstFireDrillMinute : 0, peakHazardLevel,
+                peakHazardLevel, bands);
+    }
+
+    /**
+     * Combines these statistics with another set.
+     *
+     * @param other statistics of other runs
+     * @return new statistics covering the runs of both
+     */
+    public ScenarioStatistics merge(ScenarioStatistics other) {
+        int[] bands = this.peakHazardBands.clone();
+        for (int i = 0; i < bands.length; i++) {
+            bands[i] += other.peakHazardBands[i];
+        }
+        return new ScenarioStatistics(this.runs + other.runs,
+                this.runsWithFireDrill + other.runsWithFireDrill,
+                this.roomsInFireDrill + other.roomsInFireDrill,
+                this.firstFireDrillMinutes + other.firstFireDrillMinutes,
+                this.peakHazardLevels + other.peakHazardLevels,
+                Math.max(this.maxPeakHazardLevel, other.maxPeakHazardLevel),
+                bands);
+    }
+
+    /**
+     * Returns the number of runs.
+     *
+     * @return number of runs
+     */
+    public int getRuns() {
+        return this.runs;
+    }
+
+    /**
+     * Returns the number of runs in which at least one fire drill started.
+     *
+     * @return number of runs with a fire drill
+     */
+    public int getRunsWithFireDrill() {
+        return this.runsWithFireDrill;
+    }
+
+    /**
+     * Returns the fraction of runs in which at least one fire drill started.
+     *
+     * @return fire drill probability, 0 to 1; 0 if there were no runs
+     */
+    public double getFireDrillProbability() {
+        return this.runs == 0 ? 0 : this.runsWithFireDrill / (double) this.runs;
+    }
+
+    /**
+     * Returns the mean number of rooms put in a fire drill per run.
+     *
+     * @return mean rooms in fire drill; 0 if there were no runs
+     */
+    public double getMeanRoomsInFireDrill() {
+        return this.runs == 0 ? 0 : this.roomsInFireDrill / (double) this.runs;
+    }
+
+    /**
+     * Returns the mean minute of the first fire drill, over the runs that
+     * had one.
+     *
+     * @return mean minute of the first fire drill; NaN if no run had one
+     */
+    public double getMeanFirstFireDrillMinute() {
+        return this.runsWithFireDrill == 0 ? Double.NaN
+                : this.firstFireDrillMinutes / (double) this.runsWithFireDrill;
+    }
+
+    /**
+     * Returns the mean over the runs of the highest hazard level in a run.
+     *
+     * @return mean peak hazard level; 0 if there were no runs
+     */
+    public double getMeanPeakHazardLevel() {
+        return this.runs == 0 ? 0 : this.peakHazardLevels / (double) this.runs;
+    }
+
+    /**
+     * Returns the highest hazard level seen in any run.
+     *
+     * @return maximum peak hazard level
+     */
+    public int getMaxPeakHazardLevel() {
+        return this.maxPeakHazardLevel;
+    }
+
+    /**
+     * Returns the number of runs whose peak hazard level fell in a band.
+     *
+     * @param band hazard band, see ModelCounters.hazardBand(int)
+     * @return number of runs
+     */
+    public int getPeakHazardBandCount(int band) {
+        return this.peakHazardBands[band];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("runs=%d, drillProbability=%.3f, "
+                        + "meanRoomsInDrill=%.2f, meanFirstDrillMinute=%.1f, "
+                        + "meanPeakHazard=%.1f, maxPeakHazard=%d",
+                this.runs, getFireDrillProbability(),
+                getMeanRoomsInFireDrill(), getMeanFirstFireDrillMinute(),
+                getMeanPeakHazardLevel(), this.maxPeakHazardLevel);
+    }
+}
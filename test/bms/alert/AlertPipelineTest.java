@@ -0,0 +1,168 @@
+package bms.alert;
+
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.NoiseSensor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class AlertPipelineTest {
+    private long now;
+    private List<Alert> delivered;
+    private Room room;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        delivered = new ArrayList<>();
+        room = new Room(101, RoomType.OFFICE, 20);
+    }
+
+    private AlertPipeline pipeline(int capacity, OverflowPolicy policy,
+                                   long dedupMillis, double perMinute,
+                                   int burst) {
+        return new AlertPipeline(delivered::addAll, capacity, policy,
+                dedupMillis, perMinute, burst, 16, () -> now);
+    }
+
+    private void advanceMillis(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void deduplicationTest() {
+        AlertPipeline pipeline = pipeline(16, OverflowPolicy.DROP_NEWEST,
+                1000, Double.POSITIVE_INFINITY, 1);
+        assertTrue(pipeline.raise(room, 50));
+        advanceMillis(100);
+        assertFalse(pipeline.raise(room, 50));
+        // A higher hazard level gets through the window
+        assertTrue(pipeline.raise(room, 100));
+        advanceMillis(1500);
+        assertTrue(pipeline.raise(room, 50));
+        assertEquals(1, pipeline.getDuplicates());
+        assertEquals(3, pipeline.deliverBatch());
+        assertEquals(3, delivered.size());
+    }
+
+    @Test
+    public void rateLimitTest() {
+        AlertPipeline pipeline = pipeline(16, OverflowPolicy.DROP_NEWEST,
+                0, 60, 2);
+        assertTrue(pipeline.raise(room, 50));
+        assertTrue(pipeline.raise(room, 50));
+        assertFalse(pipeline.raise(room, 50));
+        assertEquals(1, pipeline.getRateLimited());
+        advanceMillis(1000);
+        assertTrue(pipeline.raise(room, 50));
+        // Other rooms have their own buckets
+        assertTrue(pipeline.raise(new Room(102, RoomType.OFFICE, 20), 50));
+    }
+
+    @Test
+    public void dropNewestTest() {
+        AlertPipeline pipeline = pipeline(2, OverflowPolicy.DROP_NEWEST,
+                0, Double.POSITIVE_INFINITY, 1);
+        for (int i = 1; i <= 3; i++) {
+            pipeline.raise(new Room(i, RoomType.OFFICE, 20), 50);
+        }
+        assertEquals(2, pipeline.getQueueDepth());
+        assertEquals(1, pipeline.getDropped());
+        pipeline.deliverBatch();
+        assertEquals(1, delivered.get(0).getRoom().getRoomNumber());
+        assertEquals(2, delivered.get(1).getRoom().getRoomNumber());
+    }
+
+    @Test
+    public void dropOldestTest() {
+        AlertPipeline pipeline = pipeline(2, OverflowPolicy.DROP_OLDEST,
+                0, Double.POSITIVE_INFINITY, 1);
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(pipeline.raise(new Room(i, RoomType.OFFICE, 20), 50));
+        }
+        assertEquals(1, pipeline.getDropped());
+        pipeline.deliverBatch();
+        assertEquals(2, delivered.get(0).getRoom().getRoomNumber());
+        assertEquals(3, delivered.get(1).getRoom().getRoomNumber());
+    }
+
+    // Nothing makes room in a pipeline that is not running, so no waiting
+    @Test
+    public void blockWhenNotRunningDropsTest() {
+        AlertPipeline pipeline = pipeline(1, OverflowPolicy.BLOCK,
+                0, Double.POSITIVE_INFINITY, 1);
+        for (int i = 0; i < pipeline.getQueueCapacity(); i++) {
+            assertTrue(pipeline.raise(new Room(i, RoomType.OFFICE, 20), 50));
+        }
+        assertFalse(pipeline.raise(room, 50));
+        assertEquals(1, pipeline.getDropped());
+        assertEquals(0, pipeline.getBlocked());
+    }
+
+    @Test
+    public void meanLatencyOfEveryAlertTest() {
+        AlertPipeline pipeline = pipeline(16, OverflowPolicy.DROP_NEWEST,
+                0, Double.POSITIVE_INFINITY, 1);
+        pipeline.raise(room, 50);
+        advanceMillis(10);
+        pipeline.raise(new Room(102, RoomType.OFFICE, 20), 50);
+        advanceMillis(10);
+        assertEquals(2, pipeline.deliverBatch());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(15),
+                pipeline.getMeanLatencyNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20),
+                pipeline.getMaxLatencyNanos());
+    }
+
+    @Test
+    public void concurrentProducersTest() throws Exception {
+        AtomicLong count = new AtomicLong();
+        AlertPipeline pipeline = new AlertPipeline(
+                alerts -> count.addAndGet(alerts.size()), 64,
+                OverflowPolicy.BLOCK);
+        pipeline.start();
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            Room producerRoom = new Room(t, RoomType.OFFICE, 20);
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    pipeline.raise(producerRoom, 50);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        pipeline.stop();
+        assertEquals(40_000, count.get());
+        assertEquals(40_000, pipeline.getDelivered());
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+
+    @Test
+    public void fireDrillSinkTest() throws Exception {
+        NoiseSensor noise = new NoiseSensor(new int[]{50, 80, 50, 80}, 1);
+        room.addSensor(noise);
+        AlertPipeline pipeline = new AlertPipeline(new FireDrillSink(100),
+                16, OverflowPolicy.DROP_NEWEST, 60_000,
+                Double.POSITIVE_INFINITY, 1, 16);
+        pipeline.watch(room, 50);
+
+        noise.elapseOneMinute();
+        noise.elapseOneMinute();
+        noise.elapseOneMinute();
+        // The second spike is within the deduplication window
+        assertEquals(2, pipeline.getRaised());
+        assertEquals(1, pipeline.getDuplicates());
+        assertEquals(1, pipeline.deliverBatch());
+        assertTrue(room.fireDrillOngoing());
+    }
+}
@@ -0,0 +1,68 @@
+package bms.analytics;
+
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.util.SimulationContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static bms.room.RoomType.OFFICE;
+
+public class CarbonDioxideAnomalyDetectorTest {
+    private SimulationContext context;
+    private Room room;
+    private CarbonDioxideSensor sensor;
+    private CarbonDioxideAnomalyDetector detector;
+
+    @Before
+    @SuppressWarnings("try")
+    public void setUp() throws Exception {
+        context = new SimulationContext();
+        try (SimulationContext.Binding binding = context.bind()) {
+            room = new Room(1, OFFICE, 20);
+            // Acceptable range is 400 to 800 ppm
+            sensor = new CarbonDioxideSensor(
+                    new int[]{500, 1500, 1500, 1500, 1500, 500}, 1, 600, 200);
+            room.addSensor(sensor);
+            detector = new CarbonDioxideAnomalyDetector(2);
+            detector.addSensor(room, sensor);
+        }
+    }
+
+    private void tick(int minutes) {
+        for (int i = 0; i < minutes; i++) {
+            context.elapseOneMinute();
+        }
+    }
+
+    @Test
+    public void flaggedAfterWindowTest() {
+        tick(2);
+        Assert.assertFalse(detector.isAnomalous(sensor));
+        tick(1);
+        Assert.assertTrue(detector.isAnomalous(sensor));
+        Assert.assertEquals(Collections.singletonList(room),
+                detector.getAnomalousRooms());
+    }
+
+    @Test
+    public void clearedWhenBackInRangeTest() {
+        tick(5);
+        Assert.assertFalse(detector.isAnomalous(sensor));
+        Assert.assertTrue(detector.getAnomalousRooms().isEmpty());
+    }
+
+    @Test
+    public void rollingStatisticsTest() {
+        Assert.assertEquals(500, detector.getRollingMean(sensor), 0);
+        tick(1);
+        Assert.assertEquals(625, detector.getRollingMean(sensor), 1e-9);
+        Assert.assertEquals(109375, detector.getRollingVariance(sensor), 1e-9);
+        // Readings that do not change leave the statistics alone
+        tick(1);
+        Assert.assertEquals(625, detector.getRollingMean(sensor), 1e-9);
+    }
+}
@@ -0,0 +1,78 @@
+package bms.analytics;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.OccupancySensor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static bms.room.RoomType.OFFICE;
+
+public class EvacuationEstimatorTest {
+    private static final double DELTA = 1e-9;
+
+    private Building building;
+    private OccupancySensor sensor;
+    private EvacuationEstimator estimator;
+
+    @Before
+    public void setUp() throws Exception {
+        building = new Building("Test");
+        Floor ground = new Floor(1, 10, 10);
+        Floor first = new Floor(2, 10, 10);
+        building.addFloor(ground);
+        building.addFloor(first);
+
+        // 30 people counted on the ground floor
+        Room lobby = new Room(101, OFFICE, 50);
+        ground.addRoom(lobby);
+        sensor = new OccupancySensor(new int[]{30, 90}, 1, 100);
+        lobby.addSensor(sensor);
+
+        // 60 square metres at 0.5 people each on the first floor
+        first.addRoom(new Room(201, OFFICE, 60));
+
+        // Stairs pass 10 people a minute, exits 20
+        estimator = new EvacuationEstimator(building, 0.5, 10, 20, 1, 2);
+    }
+
+    @Test
+    public void estimateTest() {
+        Assert.assertEquals(30, estimator.getEstimatedOccupants(1), DELTA);
+        Assert.assertEquals(30, estimator.getEstimatedOccupants(2), DELTA);
+        // First floor: 1 + 30 / 10 = 4 minutes
+        Assert.assertEquals(4, estimator.getClearanceMinutes(2), DELTA);
+        // Ground floor: 1 + 60 / 20 = 4 minutes
+        Assert.assertEquals(4, estimator.getClearanceMinutes(1), DELTA);
+        // Slowest is the first floor plus one descent: 4 + 2
+        Assert.assertEquals(6, estimator.getEvacuationMinutes(), DELTA);
+    }
+
+    @Test
+    public void sensorChangeTest() {
+        estimator.getEvacuationMinutes();
+        long recomputes = estimator.getRecomputeCount();
+        estimator.getEvacuationMinutes();
+        Assert.assertEquals(recomputes, estimator.getRecomputeCount());
+
+        sensor.elapseOneMinute();
+        Assert.assertEquals(120, estimator.getEstimatedOccupants(), DELTA);
+        // Ground floor exits now take 1 + 120 / 20 = 7 minutes
+        Assert.assertEquals(7, estimator.getEvacuationMinutes(), DELTA);
+        Assert.assertEquals(recomputes + 1, estimator.getRecomputeCount());
+    }
+
+    @Test
+    public void sensorReplacesEstimateTest() throws Exception {
+        Room office = building.getFloorByNumber(2).getRoomByNumber(201);
+        office.addSensor(new OccupancySensor(new int[]{5}, 1, 10));
+        Assert.assertEquals(5, estimator.getEstimatedOccupants(2), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFloorTest() {
+        estimator.getClearanceMinutes(3);
+    }
+}
@@ -0,0 +1,120 @@
+package bms.analytics;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.OccupancySensor;
+import bms.util.SimulationContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static bms.room.RoomType.OFFICE;
+
+public class OccupancyAnalyticsTest {
+    private static final int HORIZON = 50;
+
+    private SimulationContext context;
+    private Building building;
+    private OccupancyAnalytics analytics;
+
+    // Readings of the sensor in each room on floors 1 and 2
+    private int[][] readings;
+
+    @Before
+    @SuppressWarnings("try")
+    public void setUp() throws Exception {
+        Random random = new Random(7);
+        context = new SimulationContext();
+        readings = new int[4][];
+        try (SimulationContext.Binding binding = context.bind()) {
+            building = new Building("Test");
+            for (int f = 1; f <= 2; f++) {
+                Floor floor = new Floor(f, 10, 10);
+                building.addFloor(floor);
+                for (int r = 0; r < 2; r++) {
+                    int[] values = new int[37];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = random.nextInt(10);
+                    }
+                    readings[(f - 1) * 2 + r] = values;
+                    Room room = new Room(f * 100 + r, OFFICE, 20);
+                    floor.addRoom(room);
+                    room.addSensor(new OccupancySensor(values, 1, 10));
+                }
+            }
+            analytics = new OccupancyAnalytics(building, HORIZON);
+        }
+    }
+
+    // Occupancy of a floor at minute m, counted from the first tick
+    private long expected(int floorNumber, long minute) {
+        int index = (int) ((minute + 1) % 37);
+        return readings[(floorNumber - 1) * 2][index]
+                + readings[(floorNumber - 1) * 2 + 1][index];
+    }
+
+    @Test
+    public void rangeQueriesMatchBruteForceTest() {
+        for (int i = 0; i < 120; i++) {
+            context.elapseOneMinute();
+        }
+        Assert.assertEquals(120, analytics.getMinutesRecorded());
+        Assert.assertEquals(70, analytics.getEarliestMinute());
+        Assert.assertEquals(expected(1, 119) + expected(2, 119),
+                analytics.getCurrentOccupancy());
+
+        for (long from = 70; from < 120; from += 7) {
+            for (long to = from; to < 120; to += 5) {
+                long sum = 0;
+                long peak = 0;
+                long floorSum = 0;
+                for (long m = from; m <= to; m++) {
+                    long total = expected(1, m) + expected(2, m);
+                    sum += total;
+                    peak = Math.max(peak, total);
+                    floorSum += expected(2, m);
+                }
+                Assert.assertEquals(sum, analytics.getTotalOccupancy(from, to));
+                Assert.assertEquals(peak,
+                        analytics.getPeakOccupancy(from, to));
+                Assert.assertEquals(floorSum,
+                        analytics.getTotalOccupancy(2, from, to));
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void newFloorTest() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            context.elapseOneMinute();
+        }
+        try (SimulationContext.Binding binding = context.bind()) {
+            Floor floor = new Floor(3, 10, 10);
+            building.addFloor(floor);
+            Room room = new Room(300, OFFICE, 20);
+            floor.addRoom(room);
+            room.addSensor(new OccupancySensor(new int[]{4, 6}, 1, 10));
+        }
+        context.elapseOneMinute();
+        context.elapseOneMinute();
+        Assert.assertEquals(0, analytics.getTotalOccupancy(3, 0, 9));
+        Assert.assertEquals(6, analytics.getPeakOccupancy(3, 0, 11));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOutsideHorizonTest() {
+        for (int i = 0; i < HORIZON + 1; i++) {
+            context.elapseOneMinute();
+        }
+        analytics.getTotalOccupancy(0, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFloorTest() {
+        analytics.getCurrentOccupancy(9);
+    }
+}
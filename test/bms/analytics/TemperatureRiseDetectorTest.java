@@ -0,0 +1,62 @@
+package bms.analytics;
+
+import bms.room.Room;
+import bms.sensors.TemperatureSensor;
+import bms.util.SimulationContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static bms.room.RoomType.OFFICE;
+
+public class TemperatureRiseDetectorTest {
+    private SimulationContext context;
+    private Room room;
+    private TemperatureSensor sensor;
+    private TemperatureRiseDetector detector;
+
+    @Before
+    @SuppressWarnings("try")
+    public void setUp() throws Exception {
+        context = new SimulationContext();
+        try (SimulationContext.Binding binding = context.bind()) {
+            room = new Room(1, OFFICE, 20);
+            sensor = new TemperatureSensor(
+                    new int[]{20, 22, 26, 31, 35, 35, 35});
+            room.addSensor(sensor);
+            // Flags a rise of more than 10 degrees over 3 minutes
+            detector = new TemperatureRiseDetector(3, 10, 75, null);
+            detector.addSensor(room, sensor);
+        }
+    }
+
+    private void tick(int minutes) {
+        for (int i = 0; i < minutes; i++) {
+            context.elapseOneMinute();
+        }
+    }
+
+    @Test
+    public void earlyHazardTest() {
+        tick(2);
+        Assert.assertFalse(detector.isRising(sensor));
+        Assert.assertEquals(0, detector.getHazardLevel(sensor));
+
+        // 31 degrees, up 11 on three minutes ago
+        tick(1);
+        Assert.assertEquals(11, detector.getRise(sensor));
+        Assert.assertTrue(detector.isRising(sensor));
+        Assert.assertEquals(75, detector.getHazardLevel(sensor));
+        Assert.assertEquals(Collections.singletonList(room),
+                detector.getRisingRooms());
+    }
+
+    @Test
+    public void clearedWhenLevelTest() {
+        tick(6);
+        Assert.assertEquals(4, detector.getRise(sensor));
+        Assert.assertFalse(detector.isRising(sensor));
+    }
+}
@@ -0,0 +1,158 @@
+package bms.building;
+
+import bms.exceptions.FireDrillException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.NoiseSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.Sensor;
+import bms.util.TimedItemManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BuildingConcurrencyTest {
+    private static final int FLOORS = 40;
+    private static final int ROOMS_PER_FLOOR = 10;
+    private static final int READERS = 4;
+
+    private Building building;
+    private Queue<String> failures;
+    private AtomicBoolean running;
+
+    @Before
+    public void setUp() {
+        building = new Building("Stress");
+        failures = new ConcurrentLinkedQueue<>();
+        running = new AtomicBoolean(true);
+    }
+
+    // Builds the building while it is ticked, drilled and read concurrently
+    @Test
+    public void concurrentIngestionAndReadsTest() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread configuration = new Thread(() -> {
+            await(start);
+            try {
+                for (int f = 1; f <= FLOORS; f++) {
+                    Floor floor = new Floor(f, 20, 20);
+                    building.addFloor(floor);
+                    for (int r = 0; r < ROOMS_PER_FLOOR; r++) {
+                        Room room = new Room(f * 100 + r, RoomType.values()
+                                [r % RoomType.values().length], 10);
+                        floor.addRoom(room);
+                        room.addSensor(new OccupancySensor(
+                                new int[] {1, 2, 3}, 1, 10));
+                        room.addSensor(new NoiseSensor(new int[] {40, 50}, 2));
+                        room.addSensor(new CarbonDioxideSensor(
+                                new int[] {500, 900}, 1, 600, 100));
+                    }
+                }
+            } catch (Exception e) {
+                failures.add("configuration: " + e);
+            } finally {
+                running.set(false);
+            }
+        });
+
+        Thread ticker = new Thread(() -> {
+            await(start);
+            while (running.get()) {
+                TimedItemManager.getInstance().elapseOneMinute();
+            }
+        });
+
+        Thread drills = new Thread(() -> {
+            await(start);
+            while (running.get()) {
+                try {
+                    building.fireDrill(null);
+                } catch (FireDrillException e) {
+                    // Newest floor may not have rooms yet
+                }
+                building.cancelFireDrill();
+            }
+        });
+
+        Thread[] readers = new Thread[READERS];
+        for (int i = 0; i < READERS; i++) {
+            readers[i] = new Thread(() -> {
+                await(start);
+                while (running.get()) {
+                    readBuilding();
+                }
+                readBuilding();
+            });
+        }
+
+        configuration.start();
+        ticker.start();
+        drills.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        start.countDown();
+
+        configuration.join();
+        ticker.join();
+        drills.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertEquals("[]", failures.toString());
+        Assert.assertEquals(FLOORS, building.getFloors().size());
+        for (Floor floor : building.getFloors()) {
+            Assert.assertEquals(ROOMS_PER_FLOOR, floor.getRooms().size());
+        }
+    }
+
+    // Checks the invariants every snapshot of the building must satisfy
+    private void readBuilding() {
+        List<Floor> floors = building.getFloors();
+        for (int i = 0; i < floors.size(); i++) {
+            Floor floor = floors.get(i);
+            // Floors are added bottom up, so a snapshot has no gaps
+            if (floor.getFloorNumber() != i + 1) {
+                failures.add("floor gap at " + floor);
+            }
+            if (building.getFloorByNumber(floor.getFloorNumber()) != floor) {
+                failures.add("lookup mismatch for " + floor);
+            }
+            floor.toString();
+            for (Room room : floor.getRooms()) {
+                room.fireDrillOngoing();
+                room.toString();
+                String previous = "";
+                for (Sensor sensor : room.getSensors()) {
+                    String name = sensor.getClass().getSimpleName();
+                    if (name.compareTo(previous) < 0) {
+                        failures.add("unsorted sensors in " + room);
+                    }
+                    previous = name;
+                    if (sensor.getCurrentReading() < 0) {
+                        failures.add("bad reading in " + room);
+                    }
+                    sensor.toString();
+                }
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package bms.building;
+
+import bms.analytics.CarbonDioxideAnomalyDetector;
+import bms.analytics.EvacuationEstimator;
+import bms.analytics.TemperatureRiseDetector;
+import bms.control.VentilationController;
+import bms.floor.Floor;
+import bms.hazard.HazardScoringEngine;
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.NoiseSensor;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+import bms.sensors.TemperatureSensor;
+import bms.sensors.TimedSensor;
+import bms.util.SimulationContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static bms.room.RoomType.LABORATORY;
+import static bms.room.RoomType.OFFICE;
+import static org.junit.Assert.*;
+
+public class BuildingReloadTest {
+    private SimulationContext context;
+    private Building building;
+
+    // Builds the building with the given changes from the original
+    @SuppressWarnings("try")
+    private Building define(int co2Ideal, double labArea, boolean extraRoom,
+                            double secondFloorWidth, boolean secondFloor)
+            throws Exception {
+        try (SimulationContext.Binding binding = context.bind()) {
+            Building definition = new Building("Test");
+            Floor ground = new Floor(1, 10, 10);
+            definition.addFloor(ground);
+            Room office = new Room(101, OFFICE, 20);
+            ground.addRoom(office);
+            office.addSensor(new NoiseSensor(new int[]{50, 60, 70}, 1));
+            office.addSensor(new CarbonDioxideSensor(new int[]{700, 900}, 1,
+                    co2Ideal, 200));
+            Room lab = new Room(102, LABORATORY, labArea);
+            ground.addRoom(lab);
+            lab.addSensor(new TemperatureSensor(new int[]{20, 21, 22, 23}));
+            if (extraRoom) {
+                Room store = new Room(103, OFFICE, 10);
+                ground.addRoom(store);
+                store.addSensor(new NoiseSensor(new int[]{40}, 1));
+            }
+            if (secondFloor) {
+                Floor first = new Floor(2, secondFloorWidth, 10);
+                definition.addFloor(first);
+                first.addRoom(new Room(201, OFFICE, 30));
+            }
+            return definition;
+        }
+    }
+
+    // Reloads with the context bound, so sensors leave the context's clock
+    @SuppressWarnings("try")
+    private BuildingDiff reload(Building definition) {
+        try (SimulationContext.Binding binding = context.bind()) {
+            return building.reload(definition);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        context = new SimulationContext();
+        building = define(600, 20, false, 10, true);
+        for (int i = 0; i < 2; i++) {
+            context.elapseOneMinute();
+        }
+        building.getFloorByNumber(1).getRoomByNumber(101).setFireDrill(true);
+        building.getFloorByNumber(1).getRoomByNumber(102).setFireDrill(true);
+    }
+
+    @Test
+    public void unchangedReloadTest() throws Exception {
+        Floor ground = building.getFloorByNumber(1);
+        Sensor noise = ground.getRoomByNumber(101).getSensor("NoiseSensor");
+        int items = context.getTimedItemManager().getRegisteredItemCount();
+
+        BuildingDiff diff = reload(define(600, 20, false, 10, true));
+        assertTrue(diff.toString(), diff.isEmpty());
+        assertSame(ground, building.getFloorByNumber(1));
+        assertSame(noise,
+                ground.getRoomByNumber(101).getSensor("NoiseSensor"));
+        // The definition's own sensors are no longer ticked
+        assertEquals(items,
+                context.getTimedItemManager().getRegisteredItemCount());
+    }
+
+    @Test
+    public void changedReloadTest() throws Exception {
+        Floor ground = building.getFloorByNumber(1);
+        Room office = ground.getRoomByNumber(101);
+        Room lab = ground.getRoomByNumber(102);
+        Sensor noise = office.getSensor("NoiseSensor");
+        Sensor co2 = office.getSensor("CarbonDioxideSensor");
+        Sensor temperature = lab.getSensor("TemperatureSensor");
+        Room upstairs = building.getFloorByNumber(2).getRoomByNumber(201);
+
+        BuildingDiff diff = reload(define(500, 25, true, 8, true));
+        assertEquals(2, diff.getFloorsChanged());
+        assertEquals(1, diff.getRoomsAdded());
+        assertEquals(1, diff.getRoomsReplaced());
+        assertEquals(1, diff.getSensorsAdded());
+        assertEquals(1, diff.getSensorsRemoved());
+
+        // Unchanged sensors keep running where they were
+        assertSame(ground, building.getFloorByNumber(1));
+        assertSame(office, ground.getRoomByNumber(101));
+        assertSame(noise, office.getSensor("NoiseSensor"));
+        assertEquals(70, noise.getCurrentReading());
+        assertNotSame(co2, office.getSensor("CarbonDioxideSensor"));
+
+        // The lab is replaced, keeping its sensor and fire drill
+        Room newLab = ground.getRoomByNumber(102);
+        assertNotSame(lab, newLab);
+        assertEquals(25, newLab.getArea(), 1e-9);
+        assertSame(temperature, newLab.getSensor("TemperatureSensor"));
+        assertTrue(office.fireDrillOngoing());
+        assertTrue(newLab.fireDrillOngoing());
+        assertFalse(ground.getRoomByNumber(103).fireDrillOngoing());
+
+        // The resized floor is replaced, keeping its room
+        Floor first = building.getFloorByNumber(2);
+        assertEquals(8, first.getWidth(), 1e-9);
+        assertSame(upstairs, first.getRoomByNumber(201));
+
+        assertEquals(2, building.getCounters().getFloorCount());
+        assertEquals(4, building.getCounters().getRoomCount());
+        assertEquals(4, building.getCounters().getSensorCount());
+        assertEquals(2, building.getCounters().getRoomsInFireDrill());
+        assertEquals(2, building.countRoomsInFireDrill());
+
+        // Only the live sensors are ticked
+        assertEquals(4,
+                context.getTimedItemManager().getRegisteredItemCount());
+        context.elapseOneMinute();
+        assertEquals(50, noise.getCurrentReading());
+    }
+
+    @Test
+    public void removedFloorTest() throws Exception {
+        BuildingDiff diff = reload(define(600, 20, false, 10, false));
+        assertEquals(1, diff.getFloorsRemoved());
+        assertNull(building.getFloorByNumber(2));
+        assertEquals(1, building.getFloors().size());
+        assertEquals(1, building.getCounters().getFloorCount());
+        assertEquals(2, building.getCounters().getRoomCount());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void partialReloadTest() throws Exception {
+        Floor ground = building.getFloorByNumber(1);
+        BuildingDiff diff;
+        try (SimulationContext.Binding binding = context.bind()) {
+            Floor upstairs = new Floor(2, 8, 10);
+            upstairs.addRoom(new Room(201, OFFICE, 30));
+            upstairs.addRoom(new Room(202, OFFICE, 20));
+            diff = building.reloadFloors(List.of(upstairs));
+        }
+        assertEquals(1, diff.getFloorsChanged());
+        assertEquals(1, diff.getRoomsAdded());
+        assertEquals(0, diff.getFloorsRemoved());
+
+        // Floors not given are left as they are
+        assertSame(ground, building.getFloorByNumber(1));
+        assertEquals(2, ground.getRoomCount());
+        assertEquals(8, building.getFloorByNumber(2).getWidth(), 1e-9);
+        assertEquals(2, building.getFloorByNumber(2).getRoomCount());
+        assertEquals(4, building.getCounters().getRoomCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicatePartialReloadTest() {
+        building.reloadFloors(List.of(new Floor(2, 10, 10),
+                new Floor(2, 8, 10)));
+    }
+
+    @Test
+    public void retiredSensorListenersTest() throws Exception {
+        Room office = building.getFloorByNumber(1).getRoomByNumber(101);
+        CarbonDioxideSensor co2 = (CarbonDioxideSensor)
+                office.getSensor("CarbonDioxideSensor");
+        NoiseSensor noise = (NoiseSensor) office.getSensor("NoiseSensor");
+        List<Sensor> retired = new ArrayList<>();
+        SensorListener listener = new SensorListener() {
+            @Override
+            public void readingChanged(Sensor sensor, int previousReading,
+                                       int currentReading) {
+            }
+
+            @Override
+            public void sensorRetired(Sensor sensor) {
+                retired.add(sensor);
+            }
+        };
+        co2.addListener(listener);
+        noise.addListener(listener);
+
+        reload(define(500, 20, false, 10, true));
+        // Only the replaced sensor is retired
+        assertEquals(List.of(co2), retired);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void consumersFollowReloadTest() throws Exception {
+        VentilationController controller;
+        try (SimulationContext.Binding binding = context.bind()) {
+            controller = new VentilationController(
+                    (rooms, setpoints, count) -> { });
+        }
+        controller.addBuilding(building);
+        HazardScoringEngine engine = new HazardScoringEngine();
+        engine.addBuilding(building);
+        EvacuationEstimator estimator = new EvacuationEstimator(building,
+                0.1, 60, 120, 1, 0.25);
+        // Areas of 20, 20 and 30 at one person per 10 square metres
+        assertEquals(7, estimator.getEstimatedOccupants(), 1e-9);
+        assertEquals(3, engine.mostHazardous(10).size());
+
+        // New carbon dioxide sensor, a new room, and no second floor
+        reload(define(500, 20, true, 10, false));
+        Room office = building.getFloorByNumber(1).getRoomByNumber(101);
+
+        // The new sensor reads 700 against an ideal of 500: an error of 1,
+        // so 20 + 40 * 1 + 4 * 1. The old one would give an error of 0.5.
+        controller.controlPass();
+        assertEquals(64, controller.getSetpoint(office));
+        assertEquals(1, controller.getRoomCount());
+
+        assertEquals(5, estimator.getEstimatedOccupants(), 1e-9);
+        List<Room> watched = engine.mostHazardous(10);
+        assertEquals(3, watched.size());
+        assertTrue(watched.contains(
+                building.getFloorByNumber(1).getRoomByNumber(103)));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void carbonDioxideDetectorFollowsReloadTest() throws Exception {
+        CarbonDioxideAnomalyDetector detector;
+        try (SimulationContext.Binding binding = context.bind()) {
+            detector = new CarbonDioxideAnomalyDetector(1);
+        }
+        detector.addBuilding(building);
+        Room office = building.getFloorByNumber(1).getRoomByNumber(101);
+        CarbonDioxideSensor original = (CarbonDioxideSensor)
+                office.getSensor("CarbonDioxideSensor");
+
+        // Readings of 700 and 900 are always above 300 plus or minus 200
+        reload(define(300, 20, false, 10, true));
+        CarbonDioxideSensor replacement = (CarbonDioxideSensor)
+                office.getSensor("CarbonDioxideSensor");
+        for (int i = 0; i < 3; i++) {
+            context.elapseOneMinute();
+        }
+        assertEquals(1, detector.getSensorCount());
+        assertTrue(detector.isAnomalous(replacement));
+        assertEquals(List.of(office), detector.getAnomalousRooms());
+        assertNotWatched(() -> detector.isAnomalous(original));
+
+        // Retiring the flagged sensor clears it straight away
+        reload(define(600, 20, false, 10, true));
+        assertTrue(detector.getAnomalousRooms().isEmpty());
+        assertNotWatched(() -> detector.isAnomalous(replacement));
+        context.elapseOneMinute();
+        assertEquals(1, detector.getSensorCount());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void temperatureDetectorFollowsReloadTest() throws Exception {
+        TemperatureRiseDetector detector;
+        try (SimulationContext.Binding binding = context.bind()) {
+            detector = new TemperatureRiseDetector(1, 5, 75, null);
+        }
+        detector.addBuilding(building);
+        Room lab = building.getFloorByNumber(1).getRoomByNumber(102);
+        TemperatureSensor original =
+                (TemperatureSensor) lab.getSensor("TemperatureSensor");
+
+        reload(labTemperatures(new int[]{20, 30, 40, 50}));
+        TemperatureSensor replacement =
+                (TemperatureSensor) lab.getSensor("TemperatureSensor");
+        for (int i = 0; i < 2; i++) {
+            context.elapseOneMinute();
+        }
+        assertEquals(1, detector.getSensorCount());
+        assertTrue(detector.isRising(replacement));
+        assertEquals(List.of(lab), detector.getRisingRooms());
+        assertNotWatched(() -> detector.isRising(original));
+
+        // Retiring the flagged sensor clears it straight away
+        reload(labTemperatures(new int[]{20, 21, 22, 23}));
+        assertTrue(detector.getRisingRooms().isEmpty());
+        assertNotWatched(() -> detector.isRising(replacement));
+        context.elapseOneMinute();
+        assertEquals(1, detector.getSensorCount());
+    }
+
+    // The original building with the given temperature readings in the lab
+    @SuppressWarnings("try")
+    private Building labTemperatures(int[] readings) throws Exception {
+        Building definition = define(600, 20, false, 10, true);
+        Room lab = definition.getFloorByNumber(1).getRoomByNumber(102);
+        List<Sensor> sensors = new ArrayList<>();
+        try (SimulationContext.Binding binding = context.bind()) {
+            sensors.add(new TemperatureSensor(readings));
+        }
+        // The sensor replaced no longer needs to tick
+        context.getTimedItemManager().deregisterTimedItem(
+                (TimedSensor) lab.getSensor("TemperatureSensor"));
+        lab.setSensors(sensors);
+        return definition;
+    }
+
+    private static void assertNotWatched(Runnable query) {
+        try {
+            query.run();
+            fail("sensor is still watched");
+        } catch (IllegalArgumentException expected) {
+            // The sensor has stopped being watched
+        }
+    }
+}
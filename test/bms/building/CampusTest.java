@@ -0,0 +1,134 @@
+package bms.building;
+
+import bms.exceptions.DuplicateBuildingException;
+import bms.exceptions.FireDrillException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.NoiseSensor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class CampusTest {
+    private ForkJoinPool pool;
+    private Campus campus;
+
+    // Building with the given number of floors of two offices each, where
+    // room f01 of every floor has a carbon dioxide sensor with the reading
+    private static Building building(String name, int floors, int co2)
+            throws Exception {
+        Building building = new Building(name);
+        for (int f = 1; f <= floors; f++) {
+            Floor floor = new Floor(f, 10, 10);
+            building.addFloor(floor);
+            for (int r = 0; r < 2; r++) {
+                floor.addRoom(new Room(f * 100 + r, RoomType.OFFICE, 10));
+            }
+            floor.getRoomByNumber(f * 100 + 1).addSensor(
+                    new CarbonDioxideSensor(new int[] {co2}, 1, 600, 100));
+        }
+        return building;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(2);
+        campus = new Campus("Main", pool);
+        campus.addBuilding(building("North", 3, 500));
+        campus.addBuilding(building("East", 2, 2500));
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void buildingsByNameTest() throws Exception {
+        Assert.assertEquals("Main", campus.getName());
+        Assert.assertEquals("East", campus.getBuildings().get(0).getName());
+        Assert.assertEquals("North", campus.getBuildings().get(1).getName());
+        Assert.assertEquals(3, campus.getBuildingByName("North")
+                .getFloors().size());
+        Assert.assertNull(campus.getBuildingByName("West"));
+    }
+
+    @Test(expected = DuplicateBuildingException.class)
+    public void duplicateBuildingTest() throws Exception {
+        campus.addBuilding(new Building("North"));
+    }
+
+    @Test
+    public void fireDrillTest() throws Exception {
+        campus.fireDrill(null);
+        Assert.assertEquals(10, campus.getStatistics().getRoomsInFireDrill());
+
+        campus.cancelFireDrill();
+        Assert.assertEquals(0, campus.getStatistics().getRoomsInFireDrill());
+    }
+
+    // A building without floors fails, but the others are still drilled
+    @Test
+    public void fireDrillFailureTest() throws Exception {
+        campus.addBuilding(new Building("Empty"));
+        try {
+            campus.fireDrill(RoomType.OFFICE);
+            Assert.fail("Expected FireDrillException");
+        } catch (FireDrillException e) {
+            Assert.assertTrue(e.getMessage().contains("Empty"));
+        }
+        Assert.assertEquals(10, campus.getStatistics().getRoomsInFireDrill());
+    }
+
+    @Test(expected = FireDrillException.class)
+    public void emptyCampusFireDrillTest() throws Exception {
+        new Campus("Empty", pool).fireDrill(null);
+    }
+
+    @Test
+    public void hazardSweepTest() throws Exception {
+        Building north = campus.getBuildingByName("North");
+        Room loud = north.getFloorByNumber(2).getRoomByNumber(200);
+        loud.addSensor(new NoiseSensor(new int[] {80}, 1));
+
+        Map<String, List<Room>> hazards = campus.hazardSweep(50);
+        Assert.assertEquals(List.of("East", "North"),
+                List.copyOf(hazards.keySet()));
+        Assert.assertEquals(2, hazards.get("East").size());
+        Assert.assertEquals(List.of(loud), hazards.get("North"));
+
+        Assert.assertTrue(campus.hazardSweep(101).isEmpty());
+    }
+
+    @Test
+    public void statisticsTest() {
+        CampusStatistics statistics = campus.getStatistics();
+        Assert.assertEquals(2, statistics.getBuildings());
+        Assert.assertEquals(5, statistics.getFloors());
+        Assert.assertEquals(10, statistics.getRooms());
+        Assert.assertEquals(5, statistics.getSensors());
+        Assert.assertEquals(0, statistics.getRoomsInFireDrill());
+        Assert.assertEquals(50, statistics.getMaxHazardLevel());
+    }
+
+    @Test
+    public void mergeStatisticsTest() {
+        CampusStatistics a = new CampusStatistics(1, 2, 3, 4, 5, 25);
+        CampusStatistics b = new CampusStatistics(1, 1, 1, 1, 0, 100);
+        CampusStatistics merged = CampusStatistics.empty().merge(a).merge(b);
+        Assert.assertEquals(2, merged.getBuildings());
+        Assert.assertEquals(3, merged.getFloors());
+        Assert.assertEquals(4, merged.getRooms());
+        Assert.assertEquals(5, merged.getSensors());
+        Assert.assertEquals(5, merged.getRoomsInFireDrill());
+        Assert.assertEquals(100, merged.getMaxHazardLevel());
+        Assert.assertEquals(0, CampusStatistics.empty().getBuildings());
+    }
+}
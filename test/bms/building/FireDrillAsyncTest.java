@@ -0,0 +1,117 @@
+package bms.building;
+
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class FireDrillAsyncTest {
+    private static final int FLOORS = 3;
+    private static final int ROOMS_PER_FLOOR = 4;
+
+    private Building building;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        building = new Building("Drill");
+        for (int f = 1; f <= FLOORS; f++) {
+            Floor floor = new Floor(f, 20, 20);
+            building.addFloor(floor);
+            for (int r = 0; r < ROOMS_PER_FLOOR; r++) {
+                floor.addRoom(new Room(f * 100 + r,
+                        r % 2 == 0 ? RoomType.OFFICE : RoomType.STUDY, 10));
+            }
+        }
+        executor = Executors.newFixedThreadPool(FLOORS);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private Room room(int number) {
+        for (Floor floor : building.getFloors()) {
+            Room room = floor.getRoomByNumber(number);
+            if (room != null) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void reportContentsTest() throws Exception {
+        FireDrillReport report = building.fireDrillAsync(RoomType.OFFICE,
+                Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        Assert.assertTrue(report.metDeadline());
+        Assert.assertEquals(FLOORS * ROOMS_PER_FLOOR / 2,
+                report.getAcknowledgedRooms());
+        Assert.assertEquals(FLOORS, report.getFloorLatencies().size());
+        for (int f = 1; f <= FLOORS; f++) {
+            Assert.assertNotNull(report.getFloorLatency(f));
+        }
+        Assert.assertEquals(Duration.ofSeconds(5), report.getDeadline());
+        Assert.assertTrue(room(100).fireDrillOngoing());
+        Assert.assertFalse(room(101).fireDrillOngoing());
+    }
+
+    @Test
+    public void actuatorFailureTest() throws Exception {
+        FireDrillReport report = building.fireDrillAsync(null,
+                Duration.ofSeconds(5), room -> {
+                    if (room.getRoomNumber() == 202) {
+                        throw new IllegalStateException("no response");
+                    }
+                }, executor).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(List.of(room(202)), report.getMissedRooms());
+        Assert.assertEquals(FLOORS * ROOMS_PER_FLOOR - 1,
+                report.getAcknowledgedRooms());
+        // The failure does not stop the rest of the floor
+        Assert.assertEquals(FLOORS, report.getFloorLatencies().size());
+    }
+
+    @Test
+    public void missedDeadlineTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        long start = System.nanoTime();
+        FireDrillReport report = building.fireDrillAsync(null,
+                Duration.ofMillis(100), room -> {
+                    if (room.getRoomNumber() == 301) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }, executor).get(5, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        release.countDown();
+
+        // The report is made at the deadline, not when the room responds
+        Assert.assertTrue(elapsed < TimeUnit.SECONDS.toNanos(2));
+        Assert.assertFalse(report.metDeadline());
+        // The stuck room and those after it on its floor are missed
+        Assert.assertEquals(List.of(room(301), room(302), room(303)),
+                report.getMissedRooms());
+        Assert.assertEquals(FLOORS * ROOMS_PER_FLOOR - 3,
+                report.getAcknowledgedRooms());
+        Assert.assertNull(report.getFloorLatency(3));
+        Assert.assertNotNull(report.getFloorLatency(1));
+        Assert.assertNotNull(report.getFloorLatency(2));
+    }
+}
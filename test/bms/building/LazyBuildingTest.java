@@ -0,0 +1,140 @@
+package bms.building;
+
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.OccupancySensor;
+import bms.sensors.TemperatureSensor;
+import bms.util.TimedItemManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import static bms.room.RoomType.LABORATORY;
+import static bms.room.RoomType.OFFICE;
+
+public class LazyBuildingTest {
+    private static final int FLOORS = 3;
+
+    private LazyBuilding building;
+
+    @Before
+    public void setUp() throws Exception {
+        FloorStore store = new DirectoryFloorStore(
+                Files.createTempDirectory("lazy-building"));
+        building = new LazyBuilding("Lazy", store, 1);
+        for (int f = 1; f <= FLOORS; f++) {
+            Floor floor = new Floor(f, 10, 10);
+            Room office = new Room(f * 100 + 1, OFFICE, 20);
+            floor.addRoom(office);
+            office.addSensor(new OccupancySensor(new int[]{1, 2, 3, 4}, 1, 4));
+            Room lab = new Room(f * 100 + 2, LABORATORY, 20);
+            floor.addRoom(lab);
+            lab.addSensor(new TemperatureSensor(new int[]{70}));
+            building.addFloor(floor);
+        }
+    }
+
+    @Test
+    public void fireDrillWithoutLoadingTest() throws Exception {
+        building.fireDrill(LABORATORY);
+        Assert.assertEquals(FLOORS, building.countRoomsInFireDrill());
+        Assert.assertEquals(0, building.getLoadCount());
+        Assert.assertEquals(100, building.getFloorHazardLevel(2));
+
+        Floor floor = building.getFloorByNumber(2);
+        Assert.assertTrue(floor.getRoomByNumber(202).fireDrillOngoing());
+        Assert.assertFalse(floor.getRoomByNumber(201).fireDrillOngoing());
+    }
+
+    @Test
+    public void leastRecentlyUsedTest() {
+        Floor first = building.getFloorByNumber(1);
+        Assert.assertSame(first, building.getFloorByNumber(1));
+        building.getFloorByNumber(2);
+        Assert.assertEquals(1, building.getResidentFloorCount());
+
+        // Unloaded floors still share their fire drill state
+        building.cancelFireDrill();
+        first.getRoomByNumber(101).setFireDrill(true);
+        Assert.assertEquals(1, building.countRoomsInFireDrill());
+
+        Assert.assertNotSame(first, building.getFloorByNumber(1));
+        Assert.assertEquals(3, building.getLoadCount());
+    }
+
+    @Test
+    public void sensorsCarryOnAfterReloadTest() {
+        Floor floor = building.getFloorByNumber(1);
+        OccupancySensor sensor = (OccupancySensor)
+                floor.getRoomByNumber(101).getSensor("OccupancySensor");
+        TimedItemManager.getInstance().elapseOneMinute();
+        Assert.assertEquals(2, sensor.getCurrentReading());
+
+        // Unloaded for two minutes, then loaded again
+        building.getFloorByNumber(2);
+        TimedItemManager.getInstance().elapseOneMinute();
+        TimedItemManager.getInstance().elapseOneMinute();
+        Assert.assertEquals(2, sensor.getCurrentReading());
+        OccupancySensor reloaded = (OccupancySensor) building
+                .getFloorByNumber(1).getRoomByNumber(101)
+                .getSensor("OccupancySensor");
+        Assert.assertEquals(4, reloaded.getCurrentReading());
+    }
+
+    @Test
+    public void unloadedHazardFollowsSensorsTest() throws Exception {
+        Floor floor = new Floor(FLOORS + 1, 10, 10);
+        Room office = new Room(401, OFFICE, 20);
+        floor.addRoom(office);
+        office.addSensor(new OccupancySensor(new int[]{1, 2, 3, 4}, 1, 4));
+        building.addFloor(floor);
+
+        Assert.assertEquals(25, building.getFloorHazardLevel(4));
+        TimedItemManager.getInstance().elapseOneMinute();
+        TimedItemManager.getInstance().elapseOneMinute();
+        Assert.assertEquals(75, building.getFloorHazardLevel(4));
+        Assert.assertEquals(0, building.getLoadCount());
+
+        // The loaded floor agrees with what the summary worked out
+        building.getFloorByNumber(4);
+        Assert.assertEquals(75, building.getFloorHazardLevel(4));
+        TimedItemManager.getInstance().elapseOneMinute();
+        building.getFloorByNumber(1);
+        TimedItemManager.getInstance().elapseOneMinute();
+        Assert.assertEquals(25, building.getFloorHazardLevel(4));
+    }
+
+    @Test
+    public void hazardCyclesSharedTest() throws Exception {
+        // Every floor has the same occupancy and temperature readings
+        Assert.assertEquals(2, building.getHazardCycleCount());
+        for (int f = FLOORS + 1; f <= FLOORS + 100; f++) {
+            Floor floor = new Floor(f, 10, 10);
+            Room office = new Room(f * 100 + 1, OFFICE, 20);
+            floor.addRoom(office);
+            office.addSensor(new OccupancySensor(new int[]{f % 10}, 1, 100));
+            building.addFloor(floor);
+        }
+        // Ten more distinct hazard levels, however many floors hold them
+        Assert.assertEquals(12, building.getHazardCycleCount());
+    }
+
+    @Test
+    public void codecRoundTripTest() throws Exception {
+        Floor floor = building.getFloorByNumber(3);
+        StringWriter written = new StringWriter();
+        FloorCodec.write(floor, written);
+
+        Floor read = FloorCodec.read(new StringReader(written.toString()));
+        StringWriter rewritten = new StringWriter();
+        FloorCodec.write(read, rewritten);
+        Assert.assertEquals(written.toString(), rewritten.toString());
+        Assert.assertEquals("OccupancySensor 1 4 1,2,3,4",
+                FloorCodec.encodeSensor(read.getRoomByNumber(301)
+                        .getSensor("OccupancySensor")));
+    }
+}
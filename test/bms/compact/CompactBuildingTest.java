@@ -0,0 +1,133 @@
+package bms.compact;
+
+import bms.building.Building;
+import bms.exceptions.DuplicateRoomException;
+import bms.exceptions.InsufficientSpaceException;
+import bms.exceptions.NoFloorBelowException;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.NoiseSensor;
+import bms.sensors.TemperatureSensor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static bms.room.RoomType.LABORATORY;
+import static bms.room.RoomType.OFFICE;
+
+public class CompactBuildingTest {
+    private CompactBuilding building;
+    private int office;
+    private int lab;
+
+    @Before
+    public void setUp() throws Exception {
+        building = new CompactBuilding("Compact");
+        building.addFloor(1, 10, 10);
+        building.addFloor(2, 8, 8);
+        office = building.addRoom(1, 101, OFFICE, 20.5);
+        lab = building.addRoom(2, 201, LABORATORY, 30);
+        building.addSensor(office, new TemperatureSensor(new int[]{20}));
+        building.addSensor(office, new NoiseSensor(new int[]{50}, 1));
+    }
+
+    @Test
+    public void storedFieldsTest() {
+        Assert.assertEquals(2, building.getFloorCount());
+        Assert.assertEquals(2, building.getRoomCount());
+        Assert.assertEquals(101, building.getRoomNumber(office));
+        Assert.assertEquals(OFFICE, building.getRoomType(office));
+        Assert.assertEquals(20.5, building.getRoomArea(office), 0);
+        Assert.assertEquals(1, building.getRoomFloor(lab));
+        Assert.assertEquals(20.5, building.getFloor(0).occupiedArea(), 0);
+    }
+
+    @Test
+    public void roomViewTest() {
+        Room view = building.getRoom(office);
+        Assert.assertEquals(101, view.getRoomNumber());
+        // Sorted by class name, as Room keeps them
+        Assert.assertEquals("NoiseSensor",
+                view.getSensors().get(0).getClass().getSimpleName());
+
+        view.setFireDrill(true);
+        Assert.assertTrue(building.fireDrillOngoing(office));
+        Assert.assertEquals(1, building.getFloor(0).countRoomsInFireDrill());
+    }
+
+    @Test
+    public void fireDrillByTypeTest() {
+        building.fireDrill(LABORATORY);
+        Assert.assertTrue(building.fireDrillOngoing(lab));
+        Assert.assertFalse(building.fireDrillOngoing(office));
+        building.fireDrill(null);
+        Assert.assertEquals(2, building.countRoomsInFireDrill());
+        building.cancelFireDrill();
+        Assert.assertEquals(0, building.countRoomsInFireDrill());
+    }
+
+    @Test(expected = NoFloorBelowException.class)
+    public void noFloorBelowTest() throws Exception {
+        building.addFloor(4, 5, 5);
+    }
+
+    @Test(expected = DuplicateRoomException.class)
+    public void duplicateRoomTest() throws Exception {
+        building.addRoom(1, 101, OFFICE, 10);
+    }
+
+    @Test(expected = InsufficientSpaceException.class)
+    public void insufficientSpaceTest() throws Exception {
+        building.addRoom(1, 102, OFFICE, 80);
+    }
+
+    @Test
+    public void spaceCheckedAsFloorDoesTest() throws Exception {
+        // Fits exactly, though the areas in hundredths add up to 100.01
+        Building objects = new Building("Objects");
+        Floor floor = new Floor(1, 10, 10);
+        objects.addFloor(floor);
+        floor.addRoom(new Room(1, OFFICE, 33.336));
+        floor.addRoom(new Room(2, OFFICE, 33.336));
+        floor.addRoom(new Room(3, OFFICE, 33.328));
+
+        CompactBuilding copy = CompactBuilding.of(objects);
+        Assert.assertEquals(3, copy.getRoomCount());
+        Assert.assertEquals(floor.occupiedArea(), copy.getOccupiedArea(0), 0);
+    }
+
+    @Test
+    public void roomNumbersPerFloorTest() throws Exception {
+        CompactBuilding large = new CompactBuilding("Large", 1, 1);
+        large.addFloor(1, 100, 100);
+        large.addFloor(2, 100, 100);
+        for (int r = 0; r < 1000; r++) {
+            large.addRoom(1, r, OFFICE, 5);
+            // The same numbers are free on another floor
+            large.addRoom(2, r, OFFICE, 5);
+        }
+        Assert.assertEquals(2000, large.getRoomCount());
+        try {
+            large.addRoom(2, 999, OFFICE, 5);
+            Assert.fail();
+        } catch (DuplicateRoomException expected) {
+            // Room 999 is already on floor 2
+        }
+    }
+
+    @Test
+    public void copyOfBuildingTest() throws Exception {
+        Building objects = new Building("Objects");
+        Floor floor = new Floor(1, 10, 10);
+        objects.addFloor(floor);
+        Room room = new Room(7, OFFICE, 12);
+        floor.addRoom(room);
+        room.setFireDrill(true);
+
+        CompactBuilding copy = CompactBuilding.of(objects);
+        Assert.assertEquals(1, copy.getRoomCount());
+        Assert.assertEquals(7,
+                copy.getFloor(0).getRooms().get(0).getRoomNumber());
+        Assert.assertTrue(copy.fireDrillOngoing(0));
+    }
+}
@@ -0,0 +1,109 @@
+package bms.control;
+
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VentilationControllerTest {
+    private List<Integer> applied;
+    private Room room;
+    private CarbonDioxideSensor sensor;
+    private VentilationController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        applied = new ArrayList<>();
+        room = new Room(101, RoomType.OFFICE, 20);
+        // Ideal 600 ppm, limit 200 ppm
+        sensor = new CarbonDioxideSensor(new int[]{600, 800, 800, 400}, 1,
+                600, 200);
+        room.addSensor(sensor);
+        controller = new VentilationController(
+                (rooms, setpoints, count) -> {
+                    for (int i = 0; i < count; i++) {
+                        assertSame(room, rooms[i]);
+                        applied.add(setpoints[i]);
+                    }
+                }, 10, 5, 20);
+        controller.addRoom(room, sensor);
+    }
+
+    @Test
+    public void piControlTest() {
+        // At the ideal value the setpoint is the base
+        assertEquals(1, controller.controlPass());
+        assertEquals(20, controller.getSetpoint(room));
+
+        // Unchanged setpoints are not sent again
+        assertEquals(0, controller.controlPass());
+
+        // Error 1: 20 + 10 * 1 + 5 * 1
+        sensor.elapseOneMinute();
+        controller.controlPass();
+        assertEquals(35, controller.getSetpoint(room));
+
+        // Error 1 again, the integral grows: 20 + 10 + 5 * 2
+        sensor.elapseOneMinute();
+        controller.controlPass();
+        assertEquals(40, controller.getSetpoint(room));
+
+        // Error -1: 20 - 10 + 5 * 1
+        sensor.elapseOneMinute();
+        controller.controlPass();
+        assertEquals(15, controller.getSetpoint(room));
+
+        assertEquals(List.of(20, 35, 40, 15), applied);
+        assertEquals(4, controller.getSetpointChanges());
+    }
+
+    @Test
+    public void passRateTest() {
+        sensor.elapseOneMinute();
+        // Error 1 for a minute, in four quarter-minute passes: the
+        // integral term is the same as after one pass of a whole minute
+        for (int i = 0; i < 4; i++) {
+            controller.controlPass(0.25);
+        }
+        assertEquals(35, controller.getSetpoint(room));
+        assertEquals(List.of(31, 33, 34, 35), applied);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveIntervalTest() {
+        controller.controlPass(0);
+    }
+
+    @Test
+    public void antiWindupTest() throws Exception {
+        Room stuffy = new Room(102, RoomType.OFFICE, 20);
+        CarbonDioxideSensor high = new CarbonDioxideSensor(
+                new int[]{5000, 600}, 1, 600, 200);
+        stuffy.addSensor(high);
+        VentilationController saturated = new VentilationController(
+                (rooms, setpoints, count) -> { }, 10, 5, 20);
+        saturated.addRoom(stuffy, high);
+        for (int i = 0; i < 100; i++) {
+            saturated.controlPass();
+        }
+        assertEquals(100, saturated.getSetpoint(stuffy));
+        assertEquals(100, saturated.getPassCount());
+
+        // No error was stored up while saturated, so back at the ideal
+        // value the setpoint drops straight back to the base
+        high.elapseOneMinute();
+        saturated.controlPass();
+        assertEquals(20, saturated.getSetpoint(stuffy));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRoomTest() {
+        controller.getSetpoint(new Room(999, RoomType.OFFICE, 20));
+    }
+}
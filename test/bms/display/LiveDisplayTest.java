@@ -0,0 +1,94 @@
+package bms.display;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.util.SimulationContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+public class LiveDisplayTest {
+    private SimulationContext context;
+    private Building building;
+    private StringWriter out;
+    private LiveDisplay display;
+
+    // Two floors of two rooms: 7 rows in all, shown through 5 rows
+    @Before
+    @SuppressWarnings("try")
+    public void setUp() throws Exception {
+        context = new SimulationContext();
+        try (SimulationContext.Binding ignored = context.bind()) {
+            building = new Building("Display");
+            for (int f = 1; f <= 2; f++) {
+                Floor floor = new Floor(f, 10, 10);
+                building.addFloor(floor);
+                for (int r = 1; r <= 2; r++) {
+                    Room room = new Room(f * 100 + r, RoomType.OFFICE, 10);
+                    floor.addRoom(room);
+                    room.addSensor(new CarbonDioxideSensor(
+                            new int[] {f * 1000}, 1, 600, 100));
+                }
+            }
+            out = new StringWriter();
+            display = new LiveDisplay(building, out, 5, 10);
+        }
+    }
+
+    @Test
+    public void unchangedFrameDrawsNothingTest() throws Exception {
+        Assert.assertEquals(5, display.drawFrame());
+        Assert.assertEquals(7, display.getTotalRows());
+        int written = out.getBuffer().length();
+
+        Assert.assertEquals(0, display.drawFrame());
+        Assert.assertEquals(written, out.getBuffer().length());
+    }
+
+    @Test
+    public void onlyChangedRowsRedrawnTest() throws Exception {
+        display.drawFrame();
+
+        // The building, floor 1 and room 102 rows show the drill
+        building.getFloorByNumber(1).getRoomByNumber(102).setFireDrill(true);
+        out.getBuffer().setLength(0);
+        Assert.assertEquals(3, display.drawFrame());
+        Assert.assertTrue(out.toString().contains("FIRE DRILL"));
+
+        // Readings are unchanged, so a tick only changes the minute shown
+        context.elapseOneMinute();
+        out.getBuffer().setLength(0);
+        Assert.assertEquals(1, display.drawFrame());
+        Assert.assertTrue(out.toString().contains("minute=1"));
+    }
+
+    @Test
+    public void scrollingTest() throws Exception {
+        display.drawFrame();
+        // Rows 2 to 6: rooms 101 and 102, floor 2, rooms 201 and 202
+        display.scrollTo(2);
+        out.getBuffer().setLength(0);
+        Assert.assertEquals(5, display.drawFrame());
+        Assert.assertTrue(out.toString().contains("Room #202"));
+        Assert.assertTrue(out.toString().contains("hazard=25"));
+
+        // Past the end of the tree, rows are drawn empty
+        display.scrollTo(5);
+        Assert.assertEquals(5, display.drawFrame());
+        Assert.assertEquals(0, display.drawFrame());
+    }
+
+    @Test
+    public void structureChangeTest() throws Exception {
+        display.drawFrame();
+        building.getFloorByNumber(1).addRoom(
+                new Room(103, RoomType.STUDY, 10));
+        display.drawFrame();
+        Assert.assertEquals(8, display.getTotalRows());
+    }
+}
@@ -0,0 +1,49 @@
+package bms.display;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.NoiseSensor;
+import bms.sensors.Sensor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+public class ReportRendererTest {
+    @Test
+    public void sameAsToStringTest() throws Exception {
+        Building building = new Building("Renderer");
+        Floor floor = new Floor(1, 10.125, 7.5);
+        building.addFloor(floor);
+        for (int r = 0; r < 10; r++) {
+            Room room = new Room(r, RoomType.STUDY, 5.125 + r * 0.005);
+            floor.addRoom(room);
+            room.addSensor(new NoiseSensor(new int[] {r, 30, 40}, 2));
+            room.addSensor(new CarbonDioxideSensor(new int[] {700}, 1, 600,
+                    r % 100 + 1));
+        }
+
+        StringBuilder expected = new StringBuilder();
+        String newLine = System.lineSeparator();
+        expected.append(building).append(newLine);
+        for (Floor f : building.getFloors()) {
+            expected.append('\t').append(f).append(newLine);
+            for (Room r : f.getRooms()) {
+                expected.append("\t\t").append(r).append(newLine);
+                for (Sensor s : r.getSensors()) {
+                    expected.append("\t\t\t").append(s).append(newLine);
+                }
+            }
+        }
+
+        StringWriter out = new StringWriter();
+        new ReportRenderer(out).renderBuilding(building);
+
+        Assert.assertEquals(expected.toString(), out.toString());
+        Assert.assertTrue(out.toString().contains(
+                "Floor #1: width=10.12m, length=7.50m, rooms=10"));
+    }
+}
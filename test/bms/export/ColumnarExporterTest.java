@@ -0,0 +1,87 @@
+package bms.export;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.NoiseSensor;
+import bms.sensors.TemperatureSensor;
+import bms.util.SimulationContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static bms.room.RoomType.OFFICE;
+
+public class ColumnarExporterTest {
+    private static final int TICKS = 25;
+
+    private Path directory;
+    private SimulationContext context;
+    private ColumnarExporter exporter;
+
+    @Before
+    @SuppressWarnings("try")
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("columnar-export");
+        context = new SimulationContext();
+        try (SimulationContext.Binding binding = context.bind()) {
+            Building building = new Building("Test");
+            Floor floor = new Floor(1, 10, 10);
+            building.addFloor(floor);
+            Room office = new Room(101, OFFICE, 20);
+            floor.addRoom(office);
+            office.addSensor(new NoiseSensor(new int[]{60, 70, 80}, 1));
+            office.addSensor(new TemperatureSensor(new int[]{20, 70}));
+            // A small chunk size so rows span several chunks
+            exporter = new ColumnarExporter(directory, 4);
+            exporter.addBuilding(building);
+        }
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        for (int i = 0; i < TICKS; i++) {
+            context.elapseOneMinute();
+        }
+        exporter.close();
+
+        ColumnarReader reader = new ColumnarReader(directory);
+        Assert.assertEquals(2 * TICKS, reader.getRowCount());
+        Assert.assertEquals(2, reader.getSensorCount());
+        Assert.assertEquals(1, reader.getFloorNumber(0));
+        Assert.assertEquals(101, reader.getRoomNumber(0));
+        Assert.assertEquals("NoiseSensor", reader.getSensorType(0));
+        Assert.assertEquals("TemperatureSensor", reader.getSensorType(1));
+
+        List<Long> ticks = new ArrayList<>();
+        reader.scan(Column.TICK, ticks::add);
+        Assert.assertEquals(Long.valueOf(1), ticks.get(0));
+        Assert.assertEquals(Long.valueOf(TICKS), ticks.get(2 * TICKS - 1));
+        Assert.assertEquals(TICKS, reader.sum(Column.SENSOR));
+
+        // Noise repeats 70, 80, 60 from the first tick
+        long expected = 0;
+        for (int i = 1; i <= TICKS; i++) {
+            expected += new int[]{60, 70, 80}[i % 3] + new int[]{20, 70}[i % 2];
+        }
+        Assert.assertEquals(expected, reader.sum(Column.READING));
+        Assert.assertEquals(100, reader.max(Column.HAZARD_LEVEL));
+    }
+
+    @Test
+    public void flushTest() throws Exception {
+        exporter.append(7, 0, 55, 0);
+        exporter.flush();
+        Assert.assertEquals(1, new ColumnarReader(directory).getRowCount());
+        exporter.close();
+
+        // Closed exporters no longer record ticks
+        context.elapseOneMinute();
+        Assert.assertEquals(1, new ColumnarReader(directory).getRowCount());
+    }
+}
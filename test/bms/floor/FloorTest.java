@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import static bms.room.RoomType.OFFICE;
@@ -216,6 +217,70 @@ public class FloorTest {
         Assert.assertEquals(fireDrill3, newRoom3.fireDrillOngoing());
     }
 
+    @Test
+    public void countRoomsInFireDrillTest() throws InsufficientSpaceException, DuplicateRoomException {
+        Room newRoom = new Room(2, STUDY, 6);
+        Room newRoom2 = new Room(3, OFFICE, 7);
+        Room newRoom3 = new Room(4, STUDY, 8);
+
+        newRoom2.setFireDrill(true);
+        floor.addRoom(newRoom);
+        floor.addRoom(newRoom2);
+        floor.addRoom(newRoom3);
+
+        // State set before adding the room is kept by the floor
+        Assert.assertEquals(1, floor.countRoomsInFireDrill());
+
+        floor.fireDrill(STUDY);
+        Assert.assertEquals(3, floor.countRoomsInFireDrill());
+
+        newRoom.setFireDrill(false);
+        BitSet expectedSlots = new BitSet();
+        expectedSlots.set(1, 3);
+        Assert.assertEquals(expectedSlots, floor.getFireDrillSlots());
+
+        List<Room> expectedRooms = new ArrayList<>();
+        expectedRooms.add(newRoom2);
+        expectedRooms.add(newRoom3);
+        Assert.assertEquals(expectedRooms,
+                floor.getRoomsInSlots(floor.getFireDrillSlots()));
+
+        floor.cancelFireDrill();
+        Assert.assertEquals(0, floor.countRoomsInFireDrill());
+    }
+
+    @Test
+    public void addRoomsTest() throws InsufficientSpaceException, DuplicateRoomException {
+        Room first = new Room(1, OFFICE, 10);
+        floor.addRoom(first);
+        Room second = new Room(2, STUDY, 10);
+        Room third = new Room(3, OFFICE, 10);
+        floor.addRooms(List.of(second, third));
+
+        Assert.assertEquals(List.of(first, second, third), floor.getRooms());
+        floor.fireDrill(OFFICE);
+        Assert.assertEquals(2, floor.countRoomsInFireDrill());
+        Assert.assertTrue(third.fireDrillOngoing());
+    }
+
+    // A list that breaks the rules anywhere adds none of its rooms
+    @Test
+    public void addRoomsAllOrNothingTest() throws InsufficientSpaceException {
+        try {
+            floor.addRooms(List.of(new Room(1, OFFICE, 10),
+                    new Room(2, OFFICE, 10), new Room(1, STUDY, 10)));
+            Assert.fail("Expected DuplicateRoomException");
+        } catch (DuplicateRoomException expected) {
+            Assert.assertEquals(0, floor.getRoomCount());
+        }
+    }
+
+    @Test(expected = InsufficientSpaceException.class)
+    public void addRoomsInsufficientSpaceTest() throws InsufficientSpaceException, DuplicateRoomException {
+        floor.addRooms(List.of(new Room(1, OFFICE, 30),
+                new Room(2, OFFICE, 30)));
+    }
+
     @Test
     public void toStringTest(){
         String expectedString = "Floor #2: width=9.00m, length=6.00m, rooms=0";
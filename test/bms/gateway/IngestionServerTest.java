@@ -0,0 +1,97 @@
+package bms.gateway;
+
+import bms.sensors.LiveSensor;
+import bms.sensors.LiveSensorRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+
+public class IngestionServerTest {
+    private static final InetAddress LOCAL = InetAddress.getLoopbackAddress();
+
+    private LiveSensorRegistry registry;
+    private IngestionServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new LiveSensorRegistry();
+        for (int id = 0; id < 100; id++) {
+            registry.register(new LiveSensor(id, LiveSensor.Kind.NOISE));
+        }
+        server = new IngestionServer(registry, new InetSocketAddress(LOCAL, 0),
+                new InetSocketAddress(LOCAL, 0), FrameCodec.MAX_RECORDS);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void tcpFramesReachSensorsTest() throws Exception {
+        ByteBuffer frame = ByteBuffer.allocate(1024);
+        FrameCodec.encode(frame, new int[] {3, 7}, new int[] {55, 80},
+                new long[] {1, 1}, 0, 2);
+        frame.flip();
+        try (SocketChannel channel = SocketChannel.open(
+                new InetSocketAddress(LOCAL, server.getTcpPort()))) {
+            // Split the frame to check that partial frames are held back
+            ByteBuffer first = frame.duplicate();
+            first.limit(10);
+            channel.write(first);
+            Thread.sleep(20);
+            frame.position(10);
+            channel.write(frame);
+            awaitApplied(2);
+        }
+
+        Assert.assertEquals(55, registry.getSensor(3).getCurrentReading());
+        Assert.assertEquals(80, registry.getSensor(7).getCurrentReading());
+        Assert.assertEquals(100, registry.getSensor(7).getHazardLevel());
+    }
+
+    @Test
+    public void udpFramesReachSensorsTest() throws Exception {
+        ByteBuffer frame = ByteBuffer.allocate(1024);
+        FrameCodec.encode(frame, new int[] {42}, new int[] {61},
+                new long[] {5}, 0, 1);
+        frame.flip();
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.send(frame,
+                    new InetSocketAddress(LOCAL, server.getUdpPort()));
+            awaitApplied(1);
+        }
+
+        Assert.assertEquals(61, registry.getSensor(42).getCurrentReading());
+    }
+
+    @Test
+    public void loadGeneratorTest() throws Exception {
+        LoadGenerator generator = new LoadGenerator(
+                new InetSocketAddress(LOCAL, server.getTcpPort()), 2, 100,
+                50, 200);
+        long sent = generator.run();
+        awaitApplied(sent);
+
+        Assert.assertEquals(generator.getTotalReadings(), sent);
+        Assert.assertEquals(sent, server.getReadingsAccepted());
+        Assert.assertEquals(0, server.getMalformedFrames());
+    }
+
+    private void awaitApplied(long readings) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getReadingsApplied() < readings &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(readings, server.getReadingsApplied());
+    }
+}
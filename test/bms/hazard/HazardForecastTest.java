@@ -0,0 +1,87 @@
+package bms.hazard;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.NoiseSensor;
+import bms.sensors.OccupancySensor;
+import bms.util.SimulationContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HazardForecastTest {
+    private SimulationContext context;
+    private Building building;
+    private Room office;
+    private NoiseSensor noise;
+
+    @Before
+    @SuppressWarnings("try")
+    public void setUp() throws Exception {
+        context = new SimulationContext();
+        try (SimulationContext.Binding binding = context.bind()) {
+            building = new Building("Test");
+            Floor floor = new Floor(1, 10, 10);
+            building.addFloor(floor);
+            office = new Room(101, RoomType.OFFICE, 20);
+            floor.addRoom(office);
+            noise = new NoiseSensor(new int[]{55, 60, 70, 60, 55}, 3);
+            office.addSensor(noise);
+            office.addSensor(new CarbonDioxideSensor(
+                    new int[]{700, 900, 2100, 800}, 2, 600, 200));
+            Room study = new Room(102, RoomType.STUDY, 20);
+            floor.addRoom(study);
+            study.addSensor(new OccupancySensor(
+                    new int[]{1, 2, 3, 4, 5, 6, 7}, 4, 5));
+        }
+    }
+
+    @Test
+    public void matchesSteppedClockTest() {
+        // Forecast from a point part way through the sensors' cycles
+        for (int i = 0; i < 7; i++) {
+            context.elapseOneMinute();
+        }
+        int[] forecast = new int[200];
+        for (int k = 0; k < forecast.length; k++) {
+            forecast[k] = HazardForecast.hazardLevel(building, k);
+        }
+        for (int threshold : new int[]{1, 50, 90, 100, 101}) {
+            long expected = -1;
+            for (int k = 0; k < forecast.length; k++) {
+                if (forecast[k] >= threshold) {
+                    expected = k;
+                    break;
+                }
+            }
+            assertEquals(expected,
+                    HazardForecast.minutesUntil(building, threshold));
+        }
+        for (int k = 0; k < forecast.length; k++) {
+            assertEquals(forecast[k], HazardForecast.hazardLevel(building, 0));
+            context.elapseOneMinute();
+        }
+    }
+
+    @Test
+    public void sensorFirstCrossingTest() {
+        context.elapseOneMinute();
+        // The 70dB reading, level 100, is current from minute 6 to 8
+        assertEquals(5, HazardForecast.minutesUntil(noise, 100));
+        assertEquals(100, HazardForecast.hazardLevel(noise, 5));
+        assertEquals(-1, HazardForecast.minutesUntil(noise, 101));
+        assertEquals(0, HazardForecast.minutesUntil(office, 0));
+    }
+
+    @Test
+    public void farFutureTest() {
+        // Thirty days ahead is the same as the matching point of the cycle
+        long month = 30L * 24 * 60;
+        assertEquals(HazardForecast.hazardLevel(noise, month % 15),
+                HazardForecast.hazardLevel(noise, month));
+    }
+}
@@ -0,0 +1,93 @@
+package bms.hazard;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.OccupancySensor;
+import bms.sensors.TemperatureSensor;
+import bms.util.TimedItemManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static bms.hazard.HazardScoringPolicy.Combination.WEIGHTED_SUM;
+import static bms.room.RoomType.LABORATORY;
+import static bms.room.RoomType.OFFICE;
+import static bms.room.RoomType.STUDY;
+
+public class HazardScoringEngineTest {
+    private Floor floor;
+    private Room office;
+    private Room lab;
+    private Room study;
+    private HazardScoringEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        Building building = new Building("Scored");
+        floor = new Floor(1, 10, 10);
+        building.addFloor(floor);
+
+        office = new Room(101, OFFICE, 20);
+        floor.addRoom(office);
+        // Occupancy hazard 25 then 75, CO2 hazard 25
+        office.addSensor(new OccupancySensor(new int[]{2, 6}, 1, 8));
+        office.addSensor(new CarbonDioxideSensor(new int[]{1500}, 1, 600, 200));
+
+        lab = new Room(102, LABORATORY, 20);
+        floor.addRoom(lab);
+        // Temperature hazard 0 then 100
+        lab.addSensor(new TemperatureSensor(new int[]{20, 70}));
+
+        study = new Room(103, STUDY, 20);
+        floor.addRoom(study);
+        // Occupancy hazard 50
+        study.addSensor(new OccupancySensor(new int[]{4}, 1, 8));
+
+        engine = new HazardScoringEngine();
+        engine.addBuilding(building);
+    }
+
+    @Test
+    public void weightedMaxTest() {
+        Assert.assertEquals(25, engine.getScore(office));
+        Assert.assertEquals(0, engine.getScore(lab));
+        Assert.assertEquals(Arrays.asList(study, office, lab),
+                engine.mostHazardous(3));
+    }
+
+    @Test
+    public void weightedSumTest() {
+        engine.setPolicy(OFFICE, new HazardScoringPolicy(WEIGHTED_SUM)
+                .withWeight("CarbonDioxideSensor", 0.4));
+
+        Assert.assertEquals(35, engine.getScore(office));
+        Assert.assertEquals(Arrays.asList(study, office),
+                engine.mostHazardous(floor, 2));
+    }
+
+    @Test
+    public void cachedUntilSensorChangesTest() {
+        engine.mostHazardous(3);
+        long computed = engine.getComputeCount();
+        engine.getScore(office);
+        engine.mostHazardous(floor, 3);
+        Assert.assertEquals(computed, engine.getComputeCount());
+
+        // Only the office and lab readings change
+        TimedItemManager.getInstance().elapseOneMinute();
+        Assert.assertEquals(Arrays.asList(lab, office, study),
+                engine.mostHazardous(3));
+        Assert.assertEquals(computed + 2, engine.getComputeCount());
+    }
+
+    @Test
+    public void sensorAddedLaterTest() throws Exception {
+        Assert.assertEquals(50, engine.getScore(study));
+        study.addSensor(new TemperatureSensor(new int[]{80}));
+        Assert.assertEquals(100, engine.getScore(study));
+    }
+}
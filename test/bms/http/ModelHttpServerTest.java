@@ -0,0 +1,147 @@
+package bms.http;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.TemperatureSensor;
+import bms.util.SimulationContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+public class ModelHttpServerTest {
+    private Building building;
+    private Room room;
+    private ModelHttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        building = new Building("General \"Purpose\" South");
+        Floor floor = new Floor(1, 10, 10);
+        building.addFloor(floor);
+        room = new Room(101, RoomType.LABORATORY, 20);
+        floor.addRoom(room);
+        room.addSensor(new TemperatureSensor(new int[] {70}));
+
+        server = new ModelHttpServer(building, new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void roomJsonTest() throws IOException {
+        String expected = "{\"number\":101,\"type\":\"LABORATORY\"," +
+                "\"area\":20.0,\"fireDrill\":false,\"hazardLevel\":100," +
+                "\"sensors\":[{\"type\":\"TemperatureSensor\",\"reading\":70," +
+                "\"hazardLevel\":100,\"updateFrequency\":1}]}";
+
+        Assert.assertEquals(expected, get("/floors/1/rooms/101"));
+    }
+
+    @Test
+    public void buildingJsonEscapesNameTest() throws IOException {
+        String expected = "{\"name\":\"General \\\"Purpose\\\" South\"," +
+                "\"roomsInFireDrill\":0,\"floors\":[{\"number\":1," +
+                "\"width\":10.0,\"length\":10.0,\"roomsInFireDrill\":0}]}";
+
+        Assert.assertEquals(expected, get("/building"));
+    }
+
+    @Test
+    public void notFoundTest() throws IOException {
+        Assert.assertEquals(404, status("/floors/9"));
+        Assert.assertEquals(404, status("/floors/1/rooms/999"));
+        Assert.assertEquals(404, status("/nothing"));
+    }
+
+    @Test
+    public void unchangedModelServedFromCacheTest() throws IOException {
+        String first = get("/hazards");
+        long renders = server.getRenderCount();
+
+        Assert.assertEquals(first, get("/hazards"));
+        Assert.assertEquals(renders, server.getRenderCount());
+
+        // Starting a fire drill changes the model state
+        room.setFireDrill(true);
+        Assert.assertTrue(get("/hazards").contains("\"fireDrill\":true"));
+        Assert.assertEquals(renders + 1, server.getRenderCount());
+    }
+
+    @Test
+    public void otherModelChangesServedFromCacheTest() throws Exception {
+        String first = get("/floors/1/rooms/101");
+        long renders = server.getRenderCount();
+
+        // Neither another building nor another context's clock is shown
+        Building other = new Building("Other");
+        other.addFloor(new Floor(1, 10, 10));
+        other.getFloorByNumber(1).addRoom(new Room(101, RoomType.OFFICE, 20));
+        new SimulationContext().elapseOneMinute();
+
+        Assert.assertEquals(first, get("/floors/1/rooms/101"));
+        Assert.assertEquals(renders, server.getRenderCount());
+    }
+
+    @Test
+    public void cacheIsBoundedTest() throws Exception {
+        server.stop();
+        Floor floor = building.getFloorByNumber(1);
+        for (int r = 1; r <= 12; r++) {
+            floor.addRoom(new Room(r, RoomType.OFFICE, 5));
+        }
+        server = new ModelHttpServer(building, new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), null, 4);
+        server.start();
+
+        for (int r = 1; r <= 12; r++) {
+            get("/floors/1/rooms/" + r);
+            Assert.assertTrue(server.getCachedResponseCount() <= 4);
+        }
+        // Equivalent paths share a cached response
+        get("/floors/1/rooms/12/sensors");
+        long renders = server.getRenderCount();
+        get("/floors/01/rooms/012/sensors");
+        Assert.assertEquals(renders, server.getRenderCount());
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        URL url = new URL("http", InetAddress.getLoopbackAddress()
+                .getHostAddress(), server.getPort(), path);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private int status(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        try (InputStream in = connection.getInputStream()) {
+            Assert.assertEquals(200, connection.getResponseCode());
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package bms.monitoring;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.sensors.OccupancySensor;
+import bms.sensors.TemperatureSensor;
+import bms.util.TimedItemManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static bms.room.RoomType.LABORATORY;
+import static bms.room.RoomType.OFFICE;
+
+public class BuildingMonitorTest {
+    private Building building;
+    private Floor floor;
+    private Room office;
+
+    @Before
+    public void setUp() throws Exception {
+        building = new Building("Monitored");
+        floor = new Floor(1, 10, 10);
+        // Added before the floor joins the building
+        office = new Room(101, OFFICE, 20);
+        floor.addRoom(office);
+        office.addSensor(new OccupancySensor(new int[]{0, 8}, 1, 8));
+        building.addFloor(floor);
+
+        // Added once the floor is already in the building
+        Room lab = new Room(102, LABORATORY, 20);
+        floor.addRoom(lab);
+        lab.addSensor(new TemperatureSensor(new int[]{20}));
+    }
+
+    @Test
+    public void countsTest() {
+        BuildingMonitor monitor = new BuildingMonitor(building);
+
+        Assert.assertEquals(1, monitor.getFloorCount());
+        Assert.assertEquals(2, monitor.getRoomCount());
+        Assert.assertEquals(2, monitor.getSensorCount());
+    }
+
+    @Test
+    public void roomsInFireDrillTest() throws Exception {
+        BuildingMonitor monitor = new BuildingMonitor(building);
+
+        building.fireDrill(LABORATORY);
+        Assert.assertEquals(1, monitor.getRoomsInFireDrill());
+        office.setFireDrill(true);
+        office.setFireDrill(true);
+        Assert.assertEquals(2, monitor.getRoomsInFireDrill());
+        building.cancelFireDrill();
+        Assert.assertEquals(0, monitor.getRoomsInFireDrill());
+    }
+
+    @Test
+    public void hazardBandsFollowReadingsTest() {
+        HazardDistributionMonitor monitor =
+                new HazardDistributionMonitor(building);
+        Assert.assertEquals(2, monitor.getNone());
+
+        // Occupancy goes from empty to full
+        TimedItemManager.getInstance().elapseOneMinute();
+        Assert.assertEquals(1, monitor.getNone());
+        Assert.assertEquals(1, monitor.getSevere());
+    }
+
+    @Test
+    public void registerBuildingTest() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Monitoring.registerBuilding(building);
+        try {
+            ObjectName name = Monitoring.buildingName("Building", building);
+            Assert.assertEquals(2L, server.getAttribute(name, "RoomCount"));
+        } finally {
+            Monitoring.unregisterBuilding(building);
+        }
+    }
+}
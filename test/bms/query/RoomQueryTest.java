@@ -0,0 +1,110 @@
+package bms.query;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.CarbonDioxideSensor;
+import bms.sensors.OccupancySensor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoomQueryTest {
+    private Building building;
+    private RoomIndex index;
+    private List<Room> laboratories;
+
+    @Before
+    public void setUp() throws Exception {
+        building = new Building("Query");
+        laboratories = new ArrayList<>();
+        for (int f = 1; f <= 5; f++) {
+            Floor floor = new Floor(f, 10, 10);
+            building.addFloor(floor);
+
+            Room laboratory = new Room(f * 100 + 1, RoomType.LABORATORY, 10);
+            floor.addRoom(laboratory);
+            // Floor 5 has an extreme CO2 reading, floor 4 a medium one
+            laboratory.addSensor(new CarbonDioxideSensor(
+                    new int[] {f == 5 ? 6000 : f == 4 ? 2500 : 500}, 1, 700,
+                    150));
+            laboratories.add(laboratory);
+
+            Room office = new Room(f * 100 + 2, RoomType.OFFICE, 10);
+            floor.addRoom(office);
+            office.addSensor(new OccupancySensor(new int[] {f * 2}, 1, 10));
+        }
+        index = new RoomIndex(building);
+    }
+
+    @Test
+    public void typeAndFloorRangeTest() {
+        Assert.assertEquals(laboratories.subList(3, 5), index.query()
+                .ofType(RoomType.LABORATORY).aboveFloor(3).list());
+        Assert.assertEquals(laboratories.subList(1, 3), index.query()
+                .ofType(RoomType.LABORATORY).floors(2, 3).list());
+    }
+
+    @Test
+    public void hazardLevelTest() {
+        Assert.assertEquals(laboratories.subList(3, 5), index.query()
+                .aboveFloor(3).ofType(RoomType.LABORATORY)
+                .hazardAtLeast(CarbonDioxideSensor.class, 50).list());
+        // Extreme CO2 in the laboratory and a full office, both on floor 5
+        Assert.assertEquals(2, index.query().hazardAtLeast(100).count());
+    }
+
+    @Test
+    public void floorBoundsTest() {
+        // No floor number is above the highest or below the lowest
+        Assert.assertEquals(0,
+                index.query().aboveFloor(Integer.MAX_VALUE).count());
+        Assert.assertEquals(0,
+                index.query().belowFloor(Integer.MIN_VALUE).count());
+        Assert.assertEquals(10,
+                index.query().aboveFloor(Integer.MIN_VALUE).count());
+        Assert.assertEquals(10,
+                index.query().belowFloor(Integer.MAX_VALUE).count());
+        Assert.assertEquals(0, index.query().belowFloor(Integer.MIN_VALUE)
+                .floors(1, 5).count());
+    }
+
+    @Test
+    public void occupancyAboveTest() {
+        // Offices on floors 5 (10 of 10) and 4 (8 of 10) are full enough
+        Assert.assertEquals(1, index.query().occupancyAbove(0.8).count());
+        Assert.assertEquals(2, index.query().occupancyAbove(0.7).count());
+    }
+
+    @Test
+    public void rebuiltAfterModelChangeTest() throws Exception {
+        Assert.assertEquals(10, index.size());
+
+        Floor floor = new Floor(6, 10, 10);
+        building.addFloor(floor);
+        Room laboratory = new Room(601, RoomType.LABORATORY, 10);
+        floor.addRoom(laboratory);
+
+        Assert.assertEquals(11, index.size());
+        Assert.assertEquals(6, index.query().ofType(RoomType.LABORATORY)
+                .count());
+    }
+
+    @Test
+    public void otherBuildingChangeTest() throws Exception {
+        RoomIndex.Snapshot snapshot = index.current();
+        Building other = new Building("Other");
+        Floor floor = new Floor(1, 10, 10);
+        other.addFloor(floor);
+        floor.addRoom(new Room(101, RoomType.OFFICE, 10));
+
+        Assert.assertSame(snapshot, index.current());
+        laboratories.get(0).addSensor(new OccupancySensor(new int[] {1}, 1,
+                10));
+        Assert.assertNotSame(snapshot, index.current());
+    }
+}
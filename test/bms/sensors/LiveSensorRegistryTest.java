@@ -0,0 +1,59 @@
+package bms.sensors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LiveSensorRegistryTest {
+    private LiveSensorRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new LiveSensorRegistry();
+    }
+
+    @Test
+    public void largeIdTest() {
+        LiveSensor sensor = new LiveSensor(LiveSensorRegistry.MAX_SENSOR_ID,
+                LiveSensor.Kind.NOISE);
+        registry.register(sensor);
+        Assert.assertSame(sensor,
+                registry.getSensor(LiveSensorRegistry.MAX_SENSOR_ID));
+        Assert.assertNull(registry.getSensor(0));
+        Assert.assertNull(registry.getSensor(-1));
+        Assert.assertNull(registry.getSensor(Integer.MAX_VALUE));
+
+        Assert.assertTrue(registry.ingest(LiveSensorRegistry.MAX_SENSOR_ID,
+                60, 1));
+        Assert.assertEquals(60, sensor.getCurrentReading());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void idTooLargeTest() {
+        registry.register(new LiveSensor(LiveSensorRegistry.MAX_SENSOR_ID + 1,
+                LiveSensor.Kind.NOISE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateIdTest() {
+        registry.register(new LiveSensor(5000, LiveSensor.Kind.NOISE));
+        registry.register(new LiveSensor(5000, LiveSensor.Kind.NOISE));
+    }
+
+    @Test
+    public void batchAcrossChunksTest() {
+        int[] ids = {0, 1023, 1024, 1 << 20};
+        for (int id : ids) {
+            registry.register(new LiveSensor(id, LiveSensor.Kind.NOISE));
+        }
+        int[] values = {40, 50, 60, 70};
+        long[] timestamps = {1, 1, 1, 1};
+        Assert.assertEquals(4, registry.ingest(ids, values, timestamps, 4));
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals(values[i],
+                    registry.getSensor(ids[i]).getCurrentReading());
+        }
+        Assert.assertEquals("LiveSensorRegistry: sensors=4",
+                registry.toString());
+    }
+}
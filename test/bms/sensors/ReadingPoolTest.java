@@ -0,0 +1,39 @@
+package bms.sensors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReadingPoolTest {
+    private final ReadingPool pool = ReadingPool.getInstance();
+
+    @Test
+    public void sharedArrayTest() {
+        int[] template = {31, 41, 59, 26, 53};
+        int[] first = pool.intern(template.clone());
+        int[] second = pool.intern(template.clone());
+
+        Assert.assertSame(first, second);
+        Assert.assertTrue(pool.isPooled(first));
+        Assert.assertFalse(pool.isPooled(template));
+
+        NoiseSensor a = new NoiseSensor(first, 1);
+        NoiseSensor b = new NoiseSensor(second, 1);
+        Assert.assertSame(a.sensorReadings, b.sensorReadings);
+    }
+
+    @Test
+    public void bytesSavedTest() {
+        long saved = pool.getBytesSaved();
+        pool.intern(new int[]{27, 18, 28, 18});
+        Assert.assertEquals(saved, pool.getBytesSaved());
+
+        // Four ints after a 16 byte header
+        pool.intern(new int[]{27, 18, 28, 18});
+        Assert.assertEquals(saved + 32, pool.getBytesSaved());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeReadingTest() {
+        pool.intern(new int[]{1, -1});
+    }
+}
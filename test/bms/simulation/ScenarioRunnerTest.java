@@ -0,0 +1,78 @@
+package bms.simulation;
+
+import bms.building.Building;
+import bms.floor.Floor;
+import bms.room.Room;
+import bms.room.RoomType;
+import bms.sensors.OccupancySensor;
+import bms.util.SimulationContext;
+import bms.util.TimedItemManager;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ScenarioRunnerTest {
+
+    @Test
+    @SuppressWarnings("try")
+    public void contextIsolationTest() throws Exception {
+        SimulationContext context = new SimulationContext();
+        OccupancySensor sensor;
+        try (SimulationContext.Binding binding = context.bind()) {
+            assertSame(context.getTimedItemManager(),
+                    TimedItemManager.getInstance());
+            sensor = new OccupancySensor(new int[]{1, 2, 3}, 1, 5);
+        }
+        assertNotSame(context.getTimedItemManager(),
+                TimedItemManager.getInstance());
+
+        TimedItemManager.getInstance().elapseOneMinute();
+        assertEquals(1, sensor.getCurrentReading());
+
+        context.elapseOneMinute();
+        assertEquals(2, sensor.getCurrentReading());
+        assertEquals(1, context.getTickCount());
+    }
+
+    @Test
+    public void fireDrillTest() {
+        // A room at capacity for the whole run is drilled in the first minute
+        Scenario scenario = random -> {
+            Building building = new Building("Test");
+            Floor floor = new Floor(1, 5, 5);
+            building.addFloor(floor);
+            Room room = new Room(101, RoomType.OFFICE, 10);
+            floor.addRoom(room);
+            room.addSensor(new OccupancySensor(new int[]{4, 4}, 1, 4));
+            return building;
+        };
+        ScenarioStatistics stats = new ScenarioRunner(5, 100)
+                .run(scenario, 3, 1);
+        assertEquals(3, stats.getRuns());
+        assertEquals(3, stats.getRunsWithFireDrill());
+        assertEquals(1.0, stats.getMeanRoomsInFireDrill(), 1e-9);
+        assertEquals(1.0, stats.getMeanFirstFireDrillMinute(), 1e-9);
+        assertEquals(100, stats.getMaxPeakHazardLevel());
+    }
+
+    @Test
+    public void parallelMatchesSequentialTest() {
+        Scenario scenario = new OfficeSurgeScenario(2, 5, 0.2, 0.1);
+        ScenarioRunner runner = new ScenarioRunner(60, 80);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        ScenarioStatistics sequential;
+        ScenarioStatistics parallel;
+        try {
+            sequential = runner.run(scenario, 40, 42, single);
+            parallel = runner.run(scenario, 40, 42, four);
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+        assertEquals(40, parallel.getRuns());
+        assertEquals(sequential.toString(), parallel.toString());
+    }
+}
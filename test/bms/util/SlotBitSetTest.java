@@ -0,0 +1,63 @@
+package bms.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+public class SlotBitSetTest {
+    @Test
+    public void setAndCountTest() {
+        SlotBitSet slots = new SlotBitSet();
+        Assert.assertTrue(slots.set(3, true));
+        Assert.assertFalse(slots.set(3, true));
+        Assert.assertTrue(slots.set(5000, true));
+        Assert.assertFalse(slots.set(90_000, false));
+        Assert.assertTrue(slots.get(5000));
+        Assert.assertFalse(slots.get(4999));
+        Assert.assertFalse(slots.get(1_000_000));
+        Assert.assertEquals(2, slots.cardinality());
+
+        Assert.assertTrue(slots.set(3, false));
+        Assert.assertEquals(1, slots.cardinality());
+        Assert.assertEquals("{5000}", slots.toString());
+    }
+
+    @Test
+    public void orAndClearTest() {
+        SlotBitSet slots = new SlotBitSet();
+        slots.set(1, true);
+        BitSet mask = new BitSet();
+        mask.set(0, 3);
+        mask.set(2000, 2100);
+        Assert.assertEquals(102, slots.or(mask));
+        Assert.assertEquals(0, slots.or(mask));
+        Assert.assertEquals(mask, slots.toBitSet());
+        Assert.assertEquals(103, slots.clear());
+        Assert.assertEquals(0, slots.cardinality());
+        Assert.assertTrue(slots.toBitSet().isEmpty());
+    }
+
+    // Writers growing the set at the same time never lose a slot
+    @Test
+    public void concurrentGrowthTest() throws InterruptedException {
+        SlotBitSet slots = new SlotBitSet();
+        int threads = 4;
+        int perThread = 50_000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    slots.set(i * threads + offset, true);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        Assert.assertEquals(threads * perThread, slots.cardinality());
+        Assert.assertEquals(threads * perThread, slots.clear());
+    }
+}
@@ -0,0 +1,48 @@
+package bms.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+public class TextFormatTest {
+    private static String twoDecimals(double value) {
+        return TextFormat.appendTwoDecimals(new StringBuilder(), value)
+                .toString();
+    }
+
+    @Test
+    public void matchesDecimalFormatTest() {
+        DecimalFormat expected = new DecimalFormat("0.00");
+        Random random = new Random(34);
+        for (int i = 0; i < 100_000; i++) {
+            double[] values = {random.nextDouble() * 1000, i / 1000.0,
+                    i * 0.005, i / 8.0, -random.nextDouble() * 10,
+                    (float) (random.nextDouble() * 100)};
+            for (double value : values) {
+                Assert.assertEquals(expected.format(value),
+                        twoDecimals(value));
+            }
+        }
+    }
+
+    // Exact halves are rounded to even, as DecimalFormat does
+    @Test
+    public void halfEvenTest() {
+        Assert.assertEquals("0.12", twoDecimals(0.125));
+        Assert.assertEquals("0.38", twoDecimals(0.375));
+        Assert.assertEquals("2.62", twoDecimals(2.625));
+        // 0.135 is slightly above the half in binary, so rounds up
+        Assert.assertEquals("0.14", twoDecimals(0.135));
+        Assert.assertEquals("-0.00", twoDecimals(-0.0));
+    }
+
+    @Test
+    public void appendReadingsTest() {
+        Assert.assertEquals("340,220,0", TextFormat.appendReadings(
+                new StringBuilder(), new int[] {340, 220, 0}).toString());
+        Assert.assertEquals("", TextFormat.appendReadings(
+                new StringBuilder(), new int[0]).toString());
+    }
+}
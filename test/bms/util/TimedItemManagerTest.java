@@ -0,0 +1,102 @@
+package bms.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimedItemManagerTest {
+    // Records the order in which items are ticked
+    private static class Item implements TimedItem {
+        private final List<Item> ticked;
+
+        Item(List<Item> ticked) {
+            this.ticked = ticked;
+        }
+
+        @Override
+        public void elapseOneMinute() {
+            ticked.add(this);
+        }
+    }
+
+    @Test
+    public void ticksInRegistrationOrderTest() {
+        TimedItemManager manager = new TimedItemManager();
+        List<Item> ticked = new ArrayList<>();
+        List<Item> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Item item = new Item(ticked);
+            manager.registerTimedItem(item);
+            expected.add(item);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            manager.deregisterTimedItem(expected.get(i));
+        }
+        expected.removeIf(item -> expected.indexOf(item) % 3 == 0);
+        Item late = new Item(ticked);
+        manager.registerTimedItem(late);
+        expected.add(late);
+
+        manager.elapseOneMinute();
+        Assert.assertEquals(expected, ticked);
+        Assert.assertEquals(expected.size(),
+                manager.getRegisteredItemCount());
+    }
+
+    @Test
+    public void bulkDeregistrationTest() {
+        TimedItemManager manager = new TimedItemManager();
+        List<Item> ticked = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Item item = new Item(ticked);
+            manager.registerTimedItem(item);
+            items.add(item);
+        }
+        manager.elapseOneMinute();
+        manager.deregisterTimedItems(items.subList(0, 990));
+        // Deregistering an unknown or already removed item does nothing
+        manager.deregisterTimedItem(items.get(0));
+        manager.deregisterTimedItem(new Item(ticked));
+
+        ticked.clear();
+        manager.elapseOneMinute();
+        Assert.assertEquals(items.subList(990, 1000), ticked);
+        Assert.assertEquals(10, manager.getRegisteredItemCount());
+    }
+
+    @Test
+    public void duplicateRegistrationTest() {
+        TimedItemManager manager = new TimedItemManager();
+        List<Item> ticked = new ArrayList<>();
+        Item item = new Item(ticked);
+        manager.registerTimedItem(item);
+        manager.registerTimedItem(item);
+        manager.elapseOneMinute();
+        Assert.assertEquals(2, ticked.size());
+
+        manager.deregisterTimedItem(item);
+        ticked.clear();
+        manager.elapseOneMinute();
+        Assert.assertEquals(1, ticked.size());
+
+        manager.deregisterTimedItem(item);
+        ticked.clear();
+        manager.elapseOneMinute();
+        Assert.assertEquals(0, ticked.size());
+    }
+
+    @Test
+    public void registrationDuringTickTest() {
+        TimedItemManager manager = new TimedItemManager();
+        List<Item> ticked = new ArrayList<>();
+        Item added = new Item(ticked);
+        manager.registerTimedItem(() -> manager.registerTimedItem(added));
+        manager.elapseOneMinute();
+        Assert.assertTrue(ticked.isEmpty());
+        manager.elapseOneMinute();
+        Assert.assertEquals(1, ticked.size());
+    }
+}
@@ -0,0 +1,24 @@
+package bms.util;
+
+import bms.room.Room;
+
+/**
+ * Denotes the device, or simulation of a device, that raises the fire alarm
+ * in a single room during a fire drill.
+ */
+@FunctionalInterface
+public interface FireDrillActuator {
+    /**
+     * Actuator that simply starts the fire drill on the room object itself.
+     */
+    FireDrillActuator LOCAL = room -> room.setFireDrill(true);
+
+    /**
+     * Raises the fire alarm in the given room.
+     * Returning normally means that the room has acknowledged the alarm;
+     * throwing a runtime exception means that it has not.
+     *
+     * @param room room in which to raise the alarm
+     */
+    void activate(Room room);
+}
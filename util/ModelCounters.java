@@ -0,0 +1,257 @@
+package bms.util;
+
+import bms.sensors.HazardSensor;
+import bms.sensors.ObservableSensor;
+import bms.sensors.Sensor;
+import bms.sensors.SensorListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the contents of one building: how many floors, rooms and
+ * sensors it has, how many rooms are in a fire drill, and how many hazard
+ * sensors currently report a hazard level in each band.
+ *
+ * The counters are attached down the tree as floors, rooms and sensors are
+ * added, and are updated by the changes themselves, so reading them costs
+ * the same however large the building is.
+ *
+ * Hazard bands are kept up to date by listening to sensors that implement
+ * ObservableSensor. Any other hazard sensor is counted in the band it was
+ * in when it was added.
+ *
+ * The counters also hold two versions of the building. The structure
+ * version is incremented whenever a floor, room or sensor is added to or
+ * removed from the building, so anything derived from its structure (such
+ * as an index) can cheaply check whether it needs to be rebuilt. The state
+ * version is incremented whenever a fire drill is started or cancelled, or
+ * live readings are ingested. Together with the structure version and the
+ * tick count of the TimedItemManager, it tells whether anything shown about
+ * the building may have changed. Changes to one building never invalidate
+ * what was derived from another.
+ */
+public class ModelCounters {
+    /**
+     * Number of hazard bands: no hazard, then four bands of 25 levels each,
+     * 1-25, 26-50, 51-75 and 76-100.
+     */
+    public static final int HAZARD_BANDS = 5;
+
+    // Width of each hazard band above zero
+    private static final int BAND_WIDTH = 25;
+
+    private final LongAdder floors = new LongAdder();
+    private final LongAdder rooms = new LongAdder();
+    private final LongAdder sensors = new LongAdder();
+    private final LongAdder roomsInFireDrill = new LongAdder();
+
+    // Number of hazard sensors in each band
+    private final AtomicLongArray hazardBands =
+            new AtomicLongArray(HAZARD_BANDS);
+
+    // Number of structural and state changes made so far
+    private final AtomicLong structureVersion = new AtomicLong();
+    private final AtomicLong stateVersion = new AtomicLong();
+
+    // Band tracker of each hazard sensor, so it can be removed again
+    private final Map<Sensor, BandTracker> trackers =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Returns the band of the given hazard level.
+     *
+     * @param hazardLevel hazard level, 0 to 100
+     * @return band, 0 for no hazard up to HAZARD_BANDS - 1
+     */
+    public static int hazardBand(int hazardLevel) {
+        if (hazardLevel <= 0) {
+            return 0;
+        }
+        return Math.min(HAZARD_BANDS - 1,
+                (hazardLevel + BAND_WIDTH - 1) / BAND_WIDTH);
+    }
+
+    /**
+     * Records that a floor was added.
+     */
+    public void addFloor() {
+        this.floors.increment();
+    }
+
+    /**
+     * Records that a room was added.
+     */
+    public void addRoom() {
+        this.rooms.increment();
+    }
+
+    /**
+     * Records that a floor was removed.
+     */
+    public void removeFloor() {
+        this.floors.decrement();
+    }
+
+    /**
+     * Records that a room was removed.
+     */
+    public void removeRoom() {
+        this.rooms.decrement();
+    }
+
+    /**
+     * Records a change in the number of rooms in a fire drill.
+     *
+     * @param delta number of rooms that started (positive) or stopped
+     * (negative) a fire drill
+     */
+    public void addRoomsInFireDrill(int delta) {
+        if (delta != 0) {
+            this.roomsInFireDrill.add(delta);
+        }
+    }
+
+    /**
+     * Records that a sensor was added, and starts following its hazard band
+     * if it is a hazard sensor.
+     *
+     * @param sensor sensor that was added
+     */
+    public void addSensor(Sensor sensor) {
+        this.sensors.increment();
+        if (!(sensor instanceof HazardSensor)) {
+            return;
+        }
+        int band = hazardBand(((HazardSensor) sensor).getHazardLevel());
+        this.hazardBands.incrementAndGet(band);
+        BandTracker tracker = new BandTracker(band);
+        this.trackers.put(sensor, tracker);
+        if (sensor instanceof ObservableSensor) {
+            ((ObservableSensor) sensor).addListener(tracker);
+        }
+    }
+
+    /**
+     * Records that a sensor was removed, and stops following its hazard
+     * band.
+     *
+     * @param sensor sensor that was removed
+     */
+    public void removeSensor(Sensor sensor) {
+        this.sensors.decrement();
+        BandTracker tracker = this.trackers.remove(sensor);
+        if (tracker == null) {
+            return;
+        }
+        if (sensor instanceof ObservableSensor) {
+            ((ObservableSensor) sensor).removeListener(tracker);
+        }
+        this.hazardBands.decrementAndGet(tracker.band);
+    }
+
+    /**
+     * Returns the number of floors.
+     *
+     * @return number of floors
+     */
+    public long getFloorCount() {
+        return this.floors.sum();
+    }
+
+    /**
+     * Returns the number of rooms.
+     *
+     * @return number of rooms
+     */
+    public long getRoomCount() {
+        return this.rooms.sum();
+    }
+
+    /**
+     * Returns the number of sensors.
+     *
+     * @return number of sensors
+     */
+    public long getSensorCount() {
+        return this.sensors.sum();
+    }
+
+    /**
+     * Returns the number of rooms with a fire drill ongoing.
+     *
+     * @return number of rooms in fire drill
+     */
+    public long getRoomsInFireDrill() {
+        return this.roomsInFireDrill.sum();
+    }
+
+    /**
+     * Returns the current version of the building's structure.
+     *
+     * @return number of structural changes made so far
+     */
+    public long getStructureVersion() {
+        return this.structureVersion.get();
+    }
+
+    /**
+     * Records a structural change to the building.
+     */
+    public void incrementStructureVersion() {
+        this.structureVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the current version of the building's state.
+     *
+     * @return number of state changes made so far
+     */
+    public long getStateVersion() {
+        return this.stateVersion.get();
+    }
+
+    /**
+     * Records a change to the state of the building.
+     */
+    public void incrementStateVersion() {
+        this.stateVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of hazard sensors currently in the given band.
+     *
+     * @param band hazard band, see hazardBand(int)
+     * @return number of sensors in the band
+     * @throws IndexOutOfBoundsException if band is not between 0 and
+     * HAZARD_BANDS - 1
+     */
+    public long getHazardBandCount(int band) {
+        return this.hazardBands.get(band);
+    }
+
+    // Moves one sensor between bands as its reading changes
+    private class BandTracker implements SensorListener {
+        // Band the sensor is currently counted in; only the thread updating
+        // the sensor touches it
+        private int band;
+
+        BandTracker(int band) {
+            this.band = band;
+        }
+
+        @Override
+        public void readingChanged(Sensor sensor, int previousReading,
+                                   int currentReading) {
+            int updated = hazardBand(((HazardSensor) sensor).getHazardLevel());
+            if (updated != this.band) {
+                hazardBands.decrementAndGet(this.band);
+                hazardBands.incrementAndGet(updated);
+                this.band = updated;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package bms.util;
+
+/**
+ * Denotes a part of the model that can append its textual description to a
+ * StringBuilder, so that large reports can be produced into one reusable
+ * buffer. The text appended is the same as the object's toString().
+ */
+public interface Renderable {
+    /**
+     * Appends the description of this object to the given builder.
+     *
+     * @param builder builder to append to
+     */
+    void appendTo(StringBuilder builder);
+}
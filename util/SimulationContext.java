@@ -0,0 +1,92 @@
+package bms.util;
+
+/**
+ * An independent simulation with its own clock: a TimedItemManager of its
+ * own, separate from the global one.
+ *
+ * While a context is bound to a thread, TimedItemManager.getInstance()
+ * returns the context's manager on that thread, so timed sensors created
+ * there register with the context rather than globally. Contexts can
+ * therefore run side by side on different threads, each ticking only its
+ * own sensors:
+ *
+ * <pre>
+ * SimulationContext context = new SimulationContext();
+ * try (SimulationContext.Binding binding = context.bind()) {
+ *     Building building = ...; // sensors register with the context
+ * }
+ * context.elapseOneMinute();
+ * </pre>
+ */
+public class SimulationContext {
+    // Context bound to each thread, if any
+    private static final ThreadLocal<SimulationContext> CURRENT =
+            new ThreadLocal<>();
+
+    private final TimedItemManager timedItemManager = new TimedItemManager();
+
+    /**
+     * Returns the context bound to the current thread.
+     *
+     * @return current context; null if none is bound
+     */
+    public static SimulationContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds this context to the current thread until the returned binding
+     * is closed, which restores whatever context was bound before.
+     *
+     * @return binding to close once done
+     */
+    public Binding bind() {
+        SimulationContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the timed item manager owned by this context.
+     *
+     * @return this context's manager
+     */
+    public TimedItemManager getTimedItemManager() {
+        return this.timedItemManager;
+    }
+
+    /**
+     * Moves this simulation on by one minute, ticking only the items
+     * registered with this context.
+     */
+    public void elapseOneMinute() {
+        this.timedItemManager.elapseOneMinute();
+    }
+
+    /**
+     * Returns the number of minutes this simulation has run for.
+     *
+     * @return number of completed ticks
+     */
+    public long getTickCount() {
+        return this.timedItemManager.getTickCount();
+    }
+
+    /**
+     * Binding of a context to a thread, undone by close().
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        /**
+         * Unbinds the context, restoring the one bound before it.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,180 @@
+package bms.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A compact set of numbered slots, stored as one bit per slot.
+ * Whole words of 64 slots are combined at a time, so counting, setting and
+ * clearing many slots at once, or intersecting two sets, costs one operation
+ * per word instead of one per slot.
+ *
+ * The words are held in fixed-size chunks, and each word is updated in place
+ * with a compare-and-set, so setting a slot costs the same however large the
+ * set is, and concurrent writers never lose each other's updates. Chunks are
+ * never copied: growing the set only replaces the short array of chunks, so
+ * a write to a chunk is never lost to a concurrent resize. Reads never
+ * block. Each word is read atomically, but a read running alongside an
+ * update of several words may see only some of them updated.
+ */
+public class SlotBitSet {
+    // Number of bits in each word
+    private static final int WORD_BITS = 64;
+
+    // Number of words in each chunk, as a power of two
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_WORDS = 1 << CHUNK_SHIFT;
+
+    // Chunks of words; replaced only to add chunks, never to change one
+    private final AtomicReference<AtomicLongArray[]> chunks =
+            new AtomicReference<>(new AtomicLongArray[0]);
+
+    /**
+     * Returns whether the given slot is in the set.
+     *
+     * @param slot slot number, greater than or equal to zero
+     * @return true if the slot is set
+     */
+    public boolean get(int slot) {
+        if (slot < 0) {
+            return false;
+        }
+        int word = slot / WORD_BITS;
+        AtomicLongArray[] current = this.chunks.get();
+        int chunk = word >>> CHUNK_SHIFT;
+        return chunk < current.length && (current[chunk].get(
+                word & (CHUNK_WORDS - 1)) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Adds or removes a single slot.
+     *
+     * @param slot slot number, greater than or equal to zero
+     * @param value true to add the slot, false to remove it
+     * @return true if the set changed
+     * @throws IllegalArgumentException if slot is less than zero
+     */
+    public boolean set(int slot, boolean value) {
+        if (slot < 0) {
+            throw new IllegalArgumentException();
+        }
+        int word = slot / WORD_BITS;
+        if (!value && word >>> CHUNK_SHIFT >= this.chunks.get().length) {
+            return false;
+        }
+        AtomicLongArray chunk = chunkOf(word);
+        int index = word & (CHUNK_WORDS - 1);
+        long bit = 1L << slot;
+        long current;
+        long updated;
+        do {
+            current = chunk.get(index);
+            updated = value ? current | bit : current & ~bit;
+            if (updated == current) {
+                return false;
+            }
+        } while (!chunk.compareAndSet(index, current, updated));
+        return true;
+    }
+
+    /**
+     * Adds every slot of the given mask to this set.
+     *
+     * @param mask slots to add
+     * @return number of slots that were not already in the set
+     */
+    public int or(BitSet mask) {
+        long[] maskWords = mask.toLongArray();
+        int added = 0;
+        for (int word = 0; word < maskWords.length; word++) {
+            long bits = maskWords[word];
+            if (bits == 0) {
+                continue;
+            }
+            AtomicLongArray chunk = chunkOf(word);
+            int index = word & (CHUNK_WORDS - 1);
+            long current;
+            do {
+                current = chunk.get(index);
+            } while ((current | bits) != current &&
+                    !chunk.compareAndSet(index, current, current | bits));
+            added += Long.bitCount(bits & ~current);
+        }
+        return added;
+    }
+
+    /**
+     * Removes every slot from this set.
+     *
+     * @return number of slots that were removed
+     */
+    public int clear() {
+        int removed = 0;
+        for (AtomicLongArray chunk : this.chunks.get()) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                if (chunk.get(i) != 0) {
+                    removed += Long.bitCount(chunk.getAndSet(i, 0));
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of slots in this set.
+     *
+     * @return number of set slots
+     */
+    public int cardinality() {
+        int count = 0;
+        for (AtomicLongArray chunk : this.chunks.get()) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                count += Long.bitCount(chunk.get(i));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of this set as a BitSet, which can be combined with
+     * other sets using the usual BitSet operations.
+     *
+     * @return snapshot of the set slots
+     */
+    public BitSet toBitSet() {
+        AtomicLongArray[] current = this.chunks.get();
+        long[] words = new long[current.length * CHUNK_WORDS];
+        for (int c = 0; c < current.length; c++) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                words[(c << CHUNK_SHIFT) + i] = current[c].get(i);
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // Returns the chunk holding the given word, adding chunks up to it
+    private AtomicLongArray chunkOf(int word) {
+        int chunk = word >>> CHUNK_SHIFT;
+        AtomicLongArray[] current = this.chunks.get();
+        while (chunk >= current.length) {
+            AtomicLongArray[] grown = Arrays.copyOf(current, chunk + 1);
+            for (int c = current.length; c < grown.length; c++) {
+                grown[c] = new AtomicLongArray(CHUNK_WORDS);
+            }
+            // Only the winner's new chunks are ever written to
+            if (this.chunks.compareAndSet(current, grown)) {
+                current = grown;
+            } else {
+                current = this.chunks.get();
+            }
+        }
+        return current[chunk];
+    }
+
+    @Override
+    public String toString() {
+        return toBitSet().toString();
+    }
+}
@@ -0,0 +1,87 @@
+package bms.util;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Formatting helpers that append directly to a StringBuilder, without
+ * creating intermediate strings or using DecimalFormat.
+ */
+public final class TextFormat {
+    // Decimal separator used by DecimalFormat in the default locale
+    private static final char DECIMAL_SEPARATOR =
+            DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    // Minus sign used by DecimalFormat in the default locale
+    private static final char MINUS_SIGN =
+            DecimalFormatSymbols.getInstance().getMinusSign();
+
+    // Largest value whose hundredths fit exactly in a double's mantissa
+    private static final double MAX_EXACT = 1L << 46;
+
+    private TextFormat() {
+    }
+
+    /**
+     * Appends a number rounded to exactly two decimal places.
+     * The output is identical to new DecimalFormat("0.00").format(value) in
+     * the default locale: the exact binary value is rounded half-even, and
+     * no grouping separators are used.
+     *
+     * @param builder builder to append to
+     * @param value number to format
+     * @return the builder
+     */
+    public static StringBuilder appendTwoDecimals(StringBuilder builder,
+                                                  double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) ||
+                Math.abs(value) >= MAX_EXACT) {
+            // Rare cases are left to DecimalFormat itself
+            return builder.append(new DecimalFormat("0.00").format(value));
+        }
+        // Also true for -0.0, which DecimalFormat prints as "-0.00"
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        double magnitude = Math.abs(value);
+
+        // floor(magnitude * 100), corrected using the exact product
+        double floor = Math.floor(magnitude * 100);
+        if (Math.fma(magnitude, 100, -floor) < 0) {
+            floor -= 1;
+        }
+        // Compare the exact remainder with one half
+        double remainder = Math.fma(magnitude, 100, -(floor + 0.5));
+        long hundredths = (long) floor;
+        if (remainder > 0 || (remainder == 0 && (hundredths & 1) == 1)) {
+            hundredths++;
+        }
+
+        // DecimalFormat keeps the sign of values that round to zero too
+        if (negative) {
+            builder.append(MINUS_SIGN);
+        }
+        builder.append(hundredths / 100).append(DECIMAL_SEPARATOR);
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+
+    /**
+     * Appends integers separated by commas without spaces, e.g. "1,2,3".
+     *
+     * @param builder builder to append to
+     * @param values numbers to append
+     * @return the builder
+     */
+    public static StringBuilder appendReadings(StringBuilder builder,
+                                               int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+        return builder;
+    }
+}
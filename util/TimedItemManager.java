@@ -1,7 +1,9 @@
 package bms.util;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Singleton class which manages all the timed items.
@@ -12,21 +14,68 @@ import java.util.List;
  * Once a class is registered with the timed item manager by calling
  * registerTimedItem(TimedItem) ()} and passing itself, the manager will
  * ensure that its elapseOneMinute() method is called at regular intervals.
+ *
+ * Items may be registered from any thread while a tick is in progress; a
+ * tick always runs over the items that were registered when it started.
+ * Registering and deregistering an item take constant time: the items are
+ * kept in an array indexed by identity, and a tick copies them into the
+ * snapshot it runs over only if they have changed since the previous tick.
+ *
+ * The manager also times each tick, so that the rate and cost of ticks can
+ * be monitored while the simulation runs.
+ *
+ * Each SimulationContext owns a separate manager, which getInstance()
+ * returns instead on threads the context is bound to.
  */
 public class TimedItemManager implements TimedItem {
     // A singleton instance of class
     static TimedItemManager timeManager = new TimedItemManager();
 
-    // List containing registered timed items
-    List<TimedItem> timedItemList = new ArrayList<>();
+    // Guards items, itemCount, vacantCount, positions and hasDuplicates
+    private final Object lock = new Object();
+
+    // Registered timed items in order of registration; deregistered items
+    // leave a null slot until the array is next compacted
+    private TimedItem[] items = new TimedItem[16];
+    private int itemCount;
+    private int vacantCount;
+
+    // Slot of each registered item in items
+    private final Map<TimedItem, Integer> positions = new IdentityHashMap<>();
+
+    // Whether any item has ever been registered more than once, in which
+    // case positions only holds the slot of its first registration
+    private boolean hasDuplicates;
+
+    // Items the next tick runs over; null once the items have changed
+    private volatile TimedItem[] snapshot = new TimedItem[0];
+
+    // Number of minutes elapsed, written only by the tick thread
+    private volatile long tickCount;
+
+    // Weight of the latest interval in the average interval between ticks,
+    // as a power of two
+    private static final int INTERVAL_SMOOTHING = 3;
+
+    // Duration of the latest and longest ticks, in nanoseconds
+    private volatile long lastTickNanos;
+    private volatile long maxTickNanos;
+
+    // When the latest tick finished, and the smoothed interval between the
+    // ends of ticks, in nanoseconds
+    private volatile long lastTickEnd;
+    private volatile long tickIntervalNanos;
 
     /**
-     * Returns the singleton instance of the timed item manager.
+     * Returns the singleton instance of the timed item manager, or the
+     * manager of the SimulationContext bound to the current thread if there
+     * is one.
      *
-     * @return singleton instance
+     * @return singleton instance, or the current context's manager
      */
     public static TimedItemManager getInstance(){
-        return timeManager;
+        SimulationContext context = SimulationContext.current();
+        return context == null ? timeManager : context.getTimedItemManager();
     }
 
     /**
@@ -37,14 +86,177 @@ public class TimedItemManager implements TimedItem {
      * @param timedItem - a timed item to register with the manager
      */
     public void registerTimedItem(TimedItem timedItem){
-        timedItemList.add(timedItem);
+        synchronized (lock) {
+            if (itemCount == items.length) {
+                compact();
+                if (itemCount == items.length) {
+                    items = Arrays.copyOf(items, items.length * 2);
+                }
+            }
+            if (positions.putIfAbsent(timedItem, itemCount) != null) {
+                hasDuplicates = true;
+            }
+            items[itemCount++] = timedItem;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Deregisters a timed item, so that its elapseOneMinute() method is no
+     * longer called. Does nothing if the item is not registered.
+     *
+     * @param timedItem - a timed item to deregister
+     */
+    public void deregisterTimedItem(TimedItem timedItem){
+        synchronized (lock) {
+            vacate(timedItem);
+        }
+    }
+
+    /**
+     * Deregisters each of the given timed items, as deregisterTimedItem()
+     * would, while holding the manager's lock only once.
+     *
+     * @param timedItems - timed items to deregister
+     */
+    public void deregisterTimedItems(Collection<? extends TimedItem> timedItems){
+        synchronized (lock) {
+            for (TimedItem timedItem : timedItems) {
+                vacate(timedItem);
+            }
+        }
+    }
+
+    // Clears the slot of the first registration of the given item
+    private void vacate(TimedItem timedItem) {
+        Integer position = positions.remove(timedItem);
+        if (position == null) {
+            return;
+        }
+        items[position] = null;
+        vacantCount++;
+        snapshot = null;
+        if (hasDuplicates) {
+            // Index any later registration of the same item
+            for (int i = position + 1; i < itemCount; i++) {
+                if (items[i] == timedItem) {
+                    positions.put(timedItem, i);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Moves the registered items to the front of the array, in order
+    private void compact() {
+        if (vacantCount == 0) {
+            return;
+        }
+        int live = 0;
+        for (int i = 0; i < itemCount; i++) {
+            TimedItem item = items[i];
+            if (item != null) {
+                if (positions.get(item) == i) {
+                    positions.put(item, live);
+                }
+                items[live++] = item;
+            }
+        }
+        Arrays.fill(items, live, itemCount, null);
+        itemCount = live;
+        vacantCount = 0;
+    }
+
+    // Returns the registered items, copying them only if they have changed
+    private TimedItem[] snapshot() {
+        TimedItem[] current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            compact();
+            current = Arrays.copyOf(items, itemCount);
+            snapshot = current;
+            return current;
+        }
     }
     
     @Override
     public void elapseOneMinute() {
+        long start = System.nanoTime();
         // Simulate minute passing for all registered timed items
-        for (TimedItem t : timedItemList){
+        for (TimedItem t : snapshot()){
             t.elapseOneMinute();
         }
+        long end = System.nanoTime();
+
+        long duration = end - start;
+        lastTickNanos = duration;
+        if (duration > maxTickNanos){
+            maxTickNanos = duration;
+        }
+        if (tickCount > 0){
+            long interval = end - lastTickEnd;
+            long average = tickIntervalNanos;
+            tickIntervalNanos = average == 0 ? interval
+                    : average + ((interval - average) >> INTERVAL_SMOOTHING);
+        }
+        lastTickEnd = end;
+        tickCount++;
+    }
+
+    /**
+     * Returns the number of timed items registered with the manager.
+     *
+     * @return number of registered items
+     */
+    public int getRegisteredItemCount(){
+        synchronized (lock) {
+            return itemCount - vacantCount;
+        }
+    }
+
+    /**
+     * Returns how long the latest tick took, in nanoseconds.
+     *
+     * @return duration of the latest tick; 0 if there has been none
+     */
+    public long getLastTickNanos(){
+        return lastTickNanos;
+    }
+
+    /**
+     * Returns how long the longest tick so far took, in nanoseconds.
+     *
+     * @return duration of the longest tick; 0 if there has been none
+     */
+    public long getMaxTickNanos(){
+        return maxTickNanos;
+    }
+
+    /**
+     * Returns the recent rate of ticks, from a smoothed average of the time
+     * between them. The rate falls towards zero once ticks stop.
+     *
+     * @return ticks per second; 0 if fewer than two ticks have happened
+     */
+    public double getTicksPerSecond(){
+        long average = tickIntervalNanos;
+        if (average == 0){
+            return 0;
+        }
+        // Time since the latest tick, if longer, shows the ticks have slowed
+        long sinceLast = System.nanoTime() - lastTickEnd;
+        return 1e9 / Math.max(average, sinceLast);
+    }
+
+    /**
+     * Returns the number of minutes that have elapsed since the manager was
+     * created, i.e. the number of completed calls to elapseOneMinute().
+     *
+     * @return number of completed ticks
+     */
+    public long getTickCount(){
+        return tickCount;
     }
 }